@@ -96,6 +96,41 @@ public class AlerterProperties {
      */
     private EntranceProperties entrance;
 
+    /**
+     * Notify channel configuration properties 通知渠道配置属性
+     */
+    private NotifyProperties notify = new NotifyProperties();
+
+    /**
+     * Notify channel configuration properties 通知渠道配置属性
+     * each receiver type is a channel with its own send threads, queue and rate limit
+     * 每种通知接收类型为一个渠道, 拥有独立的发送线程, 队列和限流
+     */
+    @Getter
+    @Setter
+    public static class NotifyProperties {
+
+        /**
+         * send threads of a channel 每个渠道的发送线程数
+         */
+        private int threads = 2;
+
+        /**
+         * pending notifications of a channel, over it the notification is dropped 每个渠道的待发送通知上限, 超过则丢弃
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * the notification waited over the timeout is dropped, unit: ms 通知等待超过此时间则丢弃, 单位毫秒
+         */
+        private long timeout = 60 * 1000L;
+
+        /**
+         * max notifications sent per second of a channel 每个渠道每秒最大发送通知数
+         */
+        private double permitsPerSecond = 10;
+    }
+
     /**
      * Data entry configuration properties 数据入口配置属性
      * The entry can obtain data from messaging middleware such as kafka rabbitmq rocketmq 入口可以是从kafka rabbitmq rocketmq等消息中间件获取数据
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.alert.calculate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer lane of the alarm calculation
+ * 告警计算单写者通道
+ * the messages and events of a monitor are always handled by the same lane thread in the receive order,
+ * so the alert state of the lane is only accessed by its own thread and needs no lock.
+ * when the lane queue is full, the submitter waits up to its timeout, then the task is dropped and counted,
+ * so a slow lane does not stall the submitter and the other lanes.
+ */
+@Slf4j
+final class AlarmCalculateLane {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The alarm in the process is triggered
+     * 触发中告警信息
+     * key - monitorId+alertDefineId 为普通阈值告警 ｜ The alarm is a common threshold alarm
+     * key - monitorId 为监控状态可用性可达性告警 ｜ Indicates the monitoring status availability reachability alarm
+     */
+    final Map<String, Alert> triggeredAlertMap = new HashMap<>(128);
+
+    /**
+     * The not recover alert
+     * key - monitorId + alertDefineId + (instance)
+     */
+    final Map<String, Alert> notRecoveredAlertMap = new HashMap<>(128);
+
+    private final BlockingQueue<LaneTask> taskQueue;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Counter droppedCounter;
+
+    private final int index;
+
+    AlarmCalculateLane(int index) {
+        this(index, DEFAULT_CAPACITY);
+    }
+
+    AlarmCalculateLane(int index, int capacity) {
+        this.index = index;
+        this.taskQueue = new ArrayBlockingQueue<>(capacity);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("alarm calculate lane {} has uncaughtException.", index);
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("alerter-calculate-lane-" + index)
+                .build();
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        Tags tags = Tags.of("lane", String.valueOf(index));
+        Metrics.gauge("hertzbeat.alerter.calculate.lane.depth", tags, taskQueue, BlockingQueue::size);
+        Metrics.gauge("hertzbeat.alerter.calculate.lane.lag", tags, this, AlarmCalculateLane::lagMillis);
+        this.droppedCounter = Metrics.counter("hertzbeat.alerter.calculate.lane.dropped", tags);
+    }
+
+    /**
+     * start the lane thread
+     */
+    void start() {
+        executor.execute(this::run);
+    }
+
+    /**
+     * submit the task to the lane, wait up to the timeout when the lane is full
+     *
+     * @param task    task
+     * @param timeout max wait time
+     * @param unit    time unit of the timeout
+     * @return false when the lane is still full after the timeout, the task is dropped
+     * @throws InterruptedException interrupted when waiting
+     */
+    boolean offer(Runnable task, long timeout, TimeUnit unit) throws InterruptedException {
+        if (taskQueue.offer(new LaneTask(task, System.currentTimeMillis()), timeout, unit)) {
+            return true;
+        }
+        droppedCounter.increment();
+        return false;
+    }
+
+    /**
+     * @return the wait time in milliseconds of the oldest pending task
+     */
+    double lagMillis() {
+        LaneTask head = taskQueue.peek();
+        return head == null ? 0 : Math.max(0, System.currentTimeMillis() - head.submitTime);
+    }
+
+    /**
+     * stop the lane thread, the pending tasks are discarded
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                LaneTask task = taskQueue.take();
+                task.runnable.run();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("alarm calculate lane {} handle error: {}", index, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class LaneTask {
+
+        private final Runnable runnable;
+
+        private final long submitTime;
+
+        private LaneTask(Runnable runnable, long submitTime) {
+            this.runnable = runnable;
+            this.submitTime = submitTime;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.alert.calculate;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.Expression;
+import com.googlecode.aviator.exception.CompileExpressionErrorException;
+import com.googlecode.aviator.exception.ExpressionRuntimeException;
+import com.googlecode.aviator.exception.ExpressionSyntaxErrorException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The compiled alert define expression
+ * 预编译的告警定义阈值表达式
+ * compiled once when the define is saved or loaded, keep the variables the expression referenced,
+ * so the alarm calculation only extracts these fields from the value row.
+ */
+@Slf4j
+public final class AlertExpression {
+
+    public static final String SYSTEM_VALUE_ROW_COUNT = "system_value_row_count";
+
+    public static final String INSTANCE = "instance";
+
+    private final String expr;
+
+    private final Expression expression;
+
+    private final String[] variables;
+
+    private final boolean rowCountReferenced;
+
+    private final Timer timer;
+
+    private AlertExpression(String expr, Expression expression, String[] variables, Timer timer) {
+        this.expr = expr;
+        this.expression = expression;
+        this.variables = variables;
+        this.rowCountReferenced = expr != null && expr.contains(SYSTEM_VALUE_ROW_COUNT);
+        this.timer = timer;
+    }
+
+    /**
+     * compile the expression of the alert define, the compile error is logged once and the expression never matches
+     *
+     * @param define alert define
+     * @return compiled alert expression
+     */
+    public static AlertExpression compile(AlertDefine define) {
+        String expr = define.getExpr();
+        Timer timer = Timer.builder("hertzbeat.alerter.expression.evaluate")
+                .description("alert define expression evaluation latency")
+                .tag("define", String.valueOf(define.getId()))
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+        if (expr == null || expr.isBlank()) {
+            return new AlertExpression(expr, null, new String[0], timer);
+        }
+        try {
+            Expression expression = AviatorEvaluator.compile(expr, false);
+            List<String> variableNames = expression.getVariableFullNames();
+            return new AlertExpression(expr, expression, variableNames.toArray(new String[0]), timer);
+        } catch (CompileExpressionErrorException | ExpressionSyntaxErrorException compileException) {
+            log.error("Alert Define Rule: {} Compile Error: {}.", expr, compileException.getMessage());
+        } catch (Exception e) {
+            log.error("Alert Define Rule: {} Compile Error: {}.", expr, e.getMessage());
+        }
+        return new AlertExpression(expr, null, new String[0], timer);
+    }
+
+    /**
+     * execute the expression with the variables
+     *
+     * @param env variable values
+     * @return match or not
+     */
+    public boolean execute(Map<String, Object> env) {
+        if (expression == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try {
+            return Boolean.TRUE.equals(expression.execute(env));
+        } catch (ExpressionRuntimeException expressionRuntimeException) {
+            log.error("Alert Define Rule: {} Run Error: {}.", expr, expressionRuntimeException.getMessage());
+        } catch (Exception e) {
+            log.error("Alert Define Rule: {} Run Error: {}.", expr, e.getMessage());
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return false;
+    }
+
+    /**
+     * remove the evaluation latency meter when the define removed
+     */
+    public void close() {
+        Metrics.globalRegistry.remove(timer);
+    }
+
+    public String getExpr() {
+        return expr;
+    }
+
+    /**
+     * @return is the expression compiled successfully
+     */
+    public boolean isValid() {
+        return expression != null;
+    }
+
+    /**
+     * @return variable names referenced by the expression
+     */
+    public String[] getVariables() {
+        return variables;
+    }
+
+    /**
+     * @return is the value row count referenced
+     */
+    public boolean isRowCountReferenced() {
+        return rowCountReferenced;
+    }
+}
@@ -17,11 +17,6 @@
 
 package org.dromara.hertzbeat.alert.calculate;
 
-import com.googlecode.aviator.AviatorEvaluator;
-import com.googlecode.aviator.Expression;
-import com.googlecode.aviator.exception.CompileExpressionErrorException;
-import com.googlecode.aviator.exception.ExpressionRuntimeException;
-import com.googlecode.aviator.exception.ExpressionSyntaxErrorException;
 import org.dromara.hertzbeat.alert.AlerterWorkerPool;
 import org.dromara.hertzbeat.alert.reduce.AlarmCommonReduce;
 import org.dromara.hertzbeat.alert.service.AlertService;
@@ -40,6 +35,7 @@ import org.dromara.hertzbeat.common.support.event.SystemConfigChangeEvent;
 import org.dromara.hertzbeat.common.util.CommonUtil;
 import org.dromara.hertzbeat.common.util.ResourceBundleUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
@@ -48,7 +44,7 @@ import org.springframework.util.StringUtils;
 
 import javax.persistence.criteria.Predicate;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import static org.dromara.hertzbeat.common.constants.CommonConstants.ALERT_STATUS_CODE_PENDING;
@@ -62,28 +58,33 @@ import static org.dromara.hertzbeat.common.constants.CommonConstants.ALERT_STATU
  */
 @Component
 @Slf4j
-public class CalculateAlarm {
+public class CalculateAlarm implements DisposableBean {
 
-    private static final String SYSTEM_VALUE_ROW_COUNT = "system_value_row_count";
+    private static final String SYSTEM_VALUE_ROW_COUNT = AlertExpression.SYSTEM_VALUE_ROW_COUNT;
 
     /**
-     * The alarm in the process is triggered
-     * 触发中告警信息
-     * key - monitorId+alertDefineId 为普通阈值告警 ｜ The alarm is a common threshold alarm
-     * key - monitorId 为监控状态可用性可达性告警 ｜ Indicates the monitoring status availability reachability alarm
+     * max wait time of the poller when a lane is full, a short wait so that one slow lane does not stall the others
      */
-    private final Map<String, Alert> triggeredAlertMap;
+    private static final long DISPATCH_TIMEOUT_MILLIS = 10;
+
+    /**
+     * max wait time of the event publisher when a lane is full
+     */
+    private static final long EVENT_TIMEOUT_MILLIS = 1000;
+
     /**
-     * The not recover alert
-     * key - monitorId + alertDefineId + (instance)
+     * Single writer lanes, the messages of a monitor are calculated by the same lane in order
+     * 单写者计算通道, 同一监控的数据由同一通道按序计算
      */
-    private final Map<String, Alert> notRecoveredAlertMap;
+    private final AlarmCalculateLane[] lanes;
     private final AlerterWorkerPool workerPool;
     private final CommonDataQueue dataQueue;
     private final AlertDefineService alertDefineService;
     private final AlarmCommonReduce alarmCommonReduce;
     private ResourceBundle bundle;
     private final AlertService alertService;
+    private volatile boolean running = true;
+    private volatile Thread dispatchThread;
 
     public CalculateAlarm(AlerterWorkerPool workerPool, CommonDataQueue dataQueue,
                           AlertDefineService alertDefineService, AlertMonitorDao monitorDao,
@@ -94,38 +95,58 @@ public class CalculateAlarm {
         this.alertDefineService = alertDefineService;
         this.alertService = alertService;
         this.bundle = ResourceBundleUtil.getBundle("alerter");
-        this.triggeredAlertMap = new ConcurrentHashMap<>(128);
-        this.notRecoveredAlertMap = new ConcurrentHashMap<>(128);
+        this.lanes = new AlarmCalculateLane[Math.max(1, Runtime.getRuntime().availableProcessors())];
+        for (int index = 0; index < lanes.length; index++) {
+            lanes[index] = new AlarmCalculateLane(index);
+        }
         // Initialize stateAlertMap
         // 初始化stateAlertMap
         List<Monitor> monitors = monitorDao.findMonitorsByStatus(CommonConstants.UN_AVAILABLE_CODE);
         if (monitors != null) {
             for (Monitor monitor : monitors) {
-                this.notRecoveredAlertMap.put(monitor.getId() + CommonConstants.AVAILABILITY, Alert.builder().build());
+                laneOf(monitor.getId()).notRecoveredAlertMap.put(monitor.getId() + CommonConstants.AVAILABILITY, Alert.builder().build());
             }
         }
         startCalculate();
     }
 
     private void startCalculate() {
+        for (AlarmCalculateLane lane : lanes) {
+            lane.start();
+        }
+        // one poller dispatches the messages to the lanes by monitor id
+        // 单个拉取线程按监控ID将数据分发到计算通道
         Runnable runnable = () -> {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    CollectRep.MetricsData metricsData = dataQueue.pollMetricsDataToAlerter();
-                    if (metricsData != null) {
-                        calculate(metricsData);
+            dispatchThread = Thread.currentThread();
+            try {
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    try {
+                        CollectRep.MetricsData metricsData = dataQueue.pollMetricsDataToAlerter();
+                        if (metricsData != null) {
+                            AlarmCalculateLane lane = laneOf(metricsData.getId());
+                            if (!lane.offer(() -> calculate(lane, metricsData), DISPATCH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                                log.debug("alarm calculate lane of monitor {} is full, drop the metrics data {}.",
+                                        metricsData.getId(), metricsData.getMetrics());
+                            }
+                        }
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    } catch (Exception e) {
+                        log.error(e.getMessage());
                     }
-                } catch (Exception e) {
-                    log.error(e.getMessage());
                 }
+            } finally {
+                dispatchThread = null;
             }
         };
         workerPool.executeJob(runnable);
-        workerPool.executeJob(runnable);
-        workerPool.executeJob(runnable);
     }
 
-    private void calculate(CollectRep.MetricsData metricsData) {
+    private AlarmCalculateLane laneOf(long monitorId) {
+        return lanes[(int) Math.floorMod(monitorId, (long) lanes.length)];
+    }
+
+    private void calculate(AlarmCalculateLane lane, CollectRep.MetricsData metricsData) {
         long currentTimeMilli = System.currentTimeMillis();
         long monitorId = metricsData.getId();
         String app = metricsData.getApp();
@@ -133,7 +154,7 @@ public class CalculateAlarm {
         // If the indicator group whose scheduling priority is 0 has the status of collecting response data UN_REACHABLE/UN_CONNECTABLE, the highest severity alarm is generated to monitor the status change
         // 先判断调度优先级为0的指标组采集响应数据状态 UN_REACHABLE/UN_CONNECTABLE 则需发最高级别告警进行监控状态变更
         if (metricsData.getPriority() == 0) {
-            handlerAvailableMetrics(monitorId, app, metricsData);
+            handlerAvailableMetrics(lane, monitorId, app, metricsData);
         }
         // Query the alarm definitions associated with the indicator set of the monitoring type
         // 查出此监控类型下的此指标集合下关联配置的告警定义信息
@@ -143,7 +164,12 @@ public class CalculateAlarm {
             return;
         }
         List<CollectRep.Field> fields = metricsData.getFieldsList();
-        Map<String, Object> fieldValueMap = new HashMap<>(16);
+        // field name - column index, bind only the variables referenced by the expression
+        Map<String, Integer> fieldIndexMap = new HashMap<>(fields.size() * 2);
+        for (int index = 0; index < fields.size(); index++) {
+            fieldIndexMap.putIfAbsent(fields.get(index).getName(), index);
+        }
+        Map<String, Object> envMap = new HashMap<>(8);
         int valueRowCount = metricsData.getValuesCount();
         for (Map.Entry<String, List<AlertDefine>> entry : defineMap.entrySet()) {
             List<AlertDefine> defines = entry.getValue();
@@ -152,19 +178,24 @@ public class CalculateAlarm {
                 if (!StringUtils.hasText(expr)) {
                     continue;
                 }
-                if (expr.contains(SYSTEM_VALUE_ROW_COUNT)) {
+                AlertExpression expression = alertDefineService.getAlertExpression(define);
+                if (!expression.isValid()) {
+                    continue;
+                }
+                if (expression.isRowCountReferenced()) {
+                    Map<String, Object> fieldValueMap = new HashMap<>(8);
                     fieldValueMap.put(SYSTEM_VALUE_ROW_COUNT, valueRowCount);
                     try {
-                        boolean match = execAlertExpression(fieldValueMap, expr);
+                        boolean match = expression.execute(fieldValueMap);
                         if (match) {
                             // If the threshold rule matches, the number of times the threshold has been triggered is determined and an alarm is triggered
                             // 阈值规则匹配，判断已触发阈值次数，触发告警
-                            afterThresholdRuleMatch(currentTimeMilli, monitorId, app, metrics, fieldValueMap, define);
+                            afterThresholdRuleMatch(lane, currentTimeMilli, monitorId, app, metrics, fieldValueMap, define);
                             // 若此阈值已被触发，则其它数据行的触发忽略
                             continue;
                         } else if (define.isRecoverNotice()) {
                             String notResolvedAlertKey = String.valueOf(monitorId) + define.getId() + null;
-                            handleRecoveredAlert(currentTimeMilli, monitorId, app, define, expr, notResolvedAlertKey);
+                            handleRecoveredAlert(lane, currentTimeMilli, monitorId, app, define, expr, notResolvedAlertKey);
                         }
                     } catch (Exception e) {
                         log.warn(e.getMessage(), e);
@@ -175,41 +206,43 @@ public class CalculateAlarm {
                     if (CollectionUtils.isEmpty(valueRow.getColumnsList())) {
                         continue;
                     }
-                    fieldValueMap.clear();
-                    fieldValueMap.put(SYSTEM_VALUE_ROW_COUNT, valueRowCount);
                     String instance = valueRow.getInstance();
-                    if (!"".equals(instance)) {
-                        fieldValueMap.put("instance", instance);
-                    }
-                    for (int index = 0; index < valueRow.getColumnsList().size(); index++) {
-                        String valueStr = valueRow.getColumns(index);
-                        if (CommonConstants.NULL_VALUE.equals(valueStr)) {
-                            continue;
-                        }
-                        CollectRep.Field field = fields.get(index);
-
-                        if (field.getType() == CommonConstants.TYPE_NUMBER) {
-                            Double doubleValue = CommonUtil.parseStrDouble(valueStr);
-                            if (doubleValue != null) {
-                                fieldValueMap.put(field.getName(), doubleValue);
+                    envMap.clear();
+                    for (String variable : expression.getVariables()) {
+                        if (SYSTEM_VALUE_ROW_COUNT.equals(variable)) {
+                            envMap.put(SYSTEM_VALUE_ROW_COUNT, valueRowCount);
+                        } else if (AlertExpression.INSTANCE.equals(variable)) {
+                            if (!"".equals(instance)) {
+                                envMap.put(AlertExpression.INSTANCE, instance);
                             }
                         } else {
-                            if (!"".equals(valueStr)) {
-                                fieldValueMap.put(field.getName(), valueStr);
+                            Integer index = fieldIndexMap.get(variable);
+                            if (index != null) {
+                                putFieldValue(envMap, fields.get(index), valueRow, index);
                             }
                         }
                     }
                     try {
-                        boolean match = execAlertExpression(fieldValueMap, expr);
+                        boolean match = expression.execute(envMap);
                         if (match) {
+                            // the alarm template may use any field, extract the whole row only when matched
+                            // 告警模板可使用任意字段, 仅在匹配时提取整行数据
+                            Map<String, Object> fieldValueMap = new HashMap<>(16);
+                            fieldValueMap.put(SYSTEM_VALUE_ROW_COUNT, valueRowCount);
+                            if (!"".equals(instance)) {
+                                fieldValueMap.put(AlertExpression.INSTANCE, instance);
+                            }
+                            for (int index = 0; index < valueRow.getColumnsCount() && index < fields.size(); index++) {
+                                putFieldValue(fieldValueMap, fields.get(index), valueRow, index);
+                            }
                             // If the threshold rule matches, the number of times the threshold has been triggered is determined and an alarm is triggered
                             // 阈值规则匹配，判断已触发阈值次数，触发告警
-                            afterThresholdRuleMatch(currentTimeMilli, monitorId, app, metrics, fieldValueMap, define);
+                            afterThresholdRuleMatch(lane, currentTimeMilli, monitorId, app, metrics, fieldValueMap, define);
                             // 若此阈值已被触发，则其它数据行的触发忽略
                             break;
                         } else if (define.isRecoverNotice()) {
                             String notResolvedAlertKey = String.valueOf(monitorId) + define.getId() + (!"".equals(instance) ? instance : null);
-                            handleRecoveredAlert(currentTimeMilli, monitorId, app, define, expr, notResolvedAlertKey);
+                            handleRecoveredAlert(lane, currentTimeMilli, monitorId, app, define, expr, notResolvedAlertKey);
                         }
                     } catch (Exception e) {
                         log.warn(e.getMessage(), e);
@@ -219,8 +252,29 @@ public class CalculateAlarm {
         }
     }
 
-    private void handleRecoveredAlert(long currentTimeMilli, long monitorId, String app, AlertDefine define, String expr, String notResolvedAlertKey) {
-        Alert notResolvedAlert = notRecoveredAlertMap.remove(notResolvedAlertKey);
+    private void putFieldValue(Map<String, Object> fieldValueMap, CollectRep.Field field,
+                               CollectRep.ValueRow valueRow, int index) {
+        if (index >= valueRow.getColumnsCount()) {
+            return;
+        }
+        String valueStr = valueRow.getColumns(index);
+        if (CommonConstants.NULL_VALUE.equals(valueStr)) {
+            return;
+        }
+        if (field.getType() == CommonConstants.TYPE_NUMBER) {
+            Double doubleValue = CommonUtil.parseStrDouble(valueStr);
+            if (doubleValue != null) {
+                fieldValueMap.put(field.getName(), doubleValue);
+            }
+        } else {
+            if (!"".equals(valueStr)) {
+                fieldValueMap.put(field.getName(), valueStr);
+            }
+        }
+    }
+
+    private void handleRecoveredAlert(AlarmCalculateLane lane, long currentTimeMilli, long monitorId, String app, AlertDefine define, String expr, String notResolvedAlertKey) {
+        Alert notResolvedAlert = lane.notRecoveredAlertMap.remove(notResolvedAlertKey);
         if (notResolvedAlert != null) {
             // Sending an alarm Restore
             Map<String, String> tags = notResolvedAlert.getTags();
@@ -239,9 +293,9 @@ public class CalculateAlarm {
         }
     }
 
-    private void afterThresholdRuleMatch(long currentTimeMilli, long monitorId, String app, String metrics, Map<String, Object> fieldValueMap, AlertDefine define) {
+    private void afterThresholdRuleMatch(AlarmCalculateLane lane, long currentTimeMilli, long monitorId, String app, String metrics, Map<String, Object> fieldValueMap, AlertDefine define) {
         String monitorAlertKey = String.valueOf(monitorId) + define.getId();
-        Alert triggeredAlert = triggeredAlertMap.get(monitorAlertKey);
+        Alert triggeredAlert = lane.triggeredAlertMap.get(monitorAlertKey);
         if (triggeredAlert != null) {
             int times = triggeredAlert.getTriggerTimes() + 1;
             triggeredAlert.setTriggerTimes(times);
@@ -250,8 +304,8 @@ public class CalculateAlarm {
             int defineTimes = define.getTimes() == null ? 1 : define.getTimes();
             if (times >= defineTimes) {
                 String notResolvedAlertKey = String.valueOf(monitorId) + define.getId() + fieldValueMap.get("instance");
-                triggeredAlertMap.remove(monitorAlertKey);
-                notRecoveredAlertMap.put(notResolvedAlertKey, triggeredAlert);
+                lane.triggeredAlertMap.remove(monitorAlertKey);
+                lane.notRecoveredAlertMap.put(notResolvedAlertKey, triggeredAlert);
                 alarmCommonReduce.reduceAndSendAlarm(triggeredAlert.clone());
             }
         } else {
@@ -284,39 +338,22 @@ public class CalculateAlarm {
             int defineTimes = define.getTimes() == null ? 1 : define.getTimes();
             if (1 >= defineTimes) {
                 String notResolvedAlertKey = String.valueOf(monitorId) + define.getId() + fieldValueMap.get("instance");
-                notRecoveredAlertMap.put(notResolvedAlertKey, alert);
+                lane.notRecoveredAlertMap.put(notResolvedAlertKey, alert);
                 alarmCommonReduce.reduceAndSendAlarm(alert);
             } else {
-                triggeredAlertMap.put(monitorAlertKey, alert);
+                lane.triggeredAlertMap.put(monitorAlertKey, alert);
             }
         }
     }
 
-    private boolean execAlertExpression(Map<String, Object> fieldValueMap, String expr) {
-        Boolean match = false;
-        try {
-            Expression expression = AviatorEvaluator.compile(expr, true);
-            match = (Boolean) expression.execute(fieldValueMap);
-        } catch (CompileExpressionErrorException |
-                 ExpressionSyntaxErrorException compileException) {
-            log.error("Alert Define Rule: {} Compile Error: {}.", expr, compileException.getMessage());
-        } catch (ExpressionRuntimeException expressionRuntimeException) {
-            log.error("Alert Define Rule: {} Run Error: {}.", expr, expressionRuntimeException.getMessage());
-        } catch (Exception e) {
-            log.error("Alert Define Rule: {} Run Error: {}.", e, e.getMessage());
-        }
-        return match;
-    }
-
-    private void handlerAvailableMetrics(long monitorId, String app, CollectRep.MetricsData metricsData) {
-        // TODO CACHE getMonitorBindAlertAvaDefine
+    private void handlerAvailableMetrics(AlarmCalculateLane lane, long monitorId, String app, CollectRep.MetricsData metricsData) {
         AlertDefine avaAlertDefine = alertDefineService.getMonitorBindAlertAvaDefine(monitorId, app, CommonConstants.AVAILABILITY);
         if (avaAlertDefine == null) {
             return;
         }
         long currentTimeMill = System.currentTimeMillis();
         if (metricsData.getCode() != CollectRep.Code.SUCCESS) {
-            Alert preAlert = triggeredAlertMap.get(String.valueOf(monitorId));
+            Alert preAlert = lane.triggeredAlertMap.get(String.valueOf(monitorId));
             Map<String, String> tags = new HashMap<>(6);
             tags.put(CommonConstants.TAG_MONITOR_ID, String.valueOf(monitorId));
             tags.put(CommonConstants.TAG_MONITOR_APP, app);
@@ -344,12 +381,12 @@ public class CalculateAlarm {
                                                           .triggerTimes(1);
                 if (avaAlertDefine.getTimes() == null || avaAlertDefine.getTimes() <= 1) {
                     String notResolvedAlertKey = monitorId + CommonConstants.AVAILABILITY;
-                    notRecoveredAlertMap.put(notResolvedAlertKey, alertBuilder.build());
+                    lane.notRecoveredAlertMap.put(notResolvedAlertKey, alertBuilder.build());
                     alarmCommonReduce.reduceAndSendAlarm(alertBuilder.build().clone());
                 } else {
                     alertBuilder.status(CommonConstants.ALERT_STATUS_CODE_NOT_REACH);
                 }
-                triggeredAlertMap.put(String.valueOf(monitorId), alertBuilder.build());
+                lane.triggeredAlertMap.put(String.valueOf(monitorId), alertBuilder.build());
             } else {
                 int times = preAlert.getTriggerTimes() + 1;
                 if (preAlert.getStatus() == ALERT_STATUS_CODE_PENDING) {
@@ -364,7 +401,7 @@ public class CalculateAlarm {
                 if (times >= defineTimes) {
                     preAlert.setStatus(ALERT_STATUS_CODE_PENDING);
                     String notResolvedAlertKey = monitorId + CommonConstants.AVAILABILITY;
-                    notRecoveredAlertMap.put(notResolvedAlertKey, preAlert.clone());
+                    lane.notRecoveredAlertMap.put(notResolvedAlertKey, preAlert.clone());
                     alarmCommonReduce.reduceAndSendAlarm(preAlert.clone());
                 } else {
                     preAlert.setStatus(CommonConstants.ALERT_STATUS_CODE_NOT_REACH);
@@ -375,7 +412,7 @@ public class CalculateAlarm {
             // and send a clear alarm to clear the monitoring status
             // 判断关联监控之前是否有可用性或者不可达告警,发送恢复告警进行监控状态恢复
             String notResolvedAlertKey = monitorId + CommonConstants.AVAILABILITY;
-            Alert notResolvedAlert = notRecoveredAlertMap.remove(notResolvedAlertKey);
+            Alert notResolvedAlert = lane.notRecoveredAlertMap.remove(notResolvedAlertKey);
             if (notResolvedAlert != null) {
                 // Sending an alarm Restore
                 Map<String, String> tags = notResolvedAlert.getTags();
@@ -445,7 +482,28 @@ public class CalculateAlarm {
     @EventListener(MonitorDeletedEvent.class)
     public void onMonitorDeletedEvent(MonitorDeletedEvent event) {
         log.info("calculate alarm receive monitor {} has been deleted.", event.getMonitorId());
-        this.triggeredAlertMap.remove(String.valueOf(event.getMonitorId()));
+        long monitorId = event.getMonitorId();
+        AlarmCalculateLane lane = laneOf(monitorId);
+        try {
+            if (!lane.offer(() -> lane.triggeredAlertMap.remove(String.valueOf(monitorId)),
+                    EVENT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("alarm calculate lane of monitor {} is full, drop the monitor deleted event.", monitorId);
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        Thread thread = dispatchThread;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        for (AlarmCalculateLane lane : lanes) {
+            lane.shutdown();
+        }
     }
 
 }
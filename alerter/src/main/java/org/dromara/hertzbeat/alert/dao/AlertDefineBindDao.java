@@ -20,6 +20,7 @@ package org.dromara.hertzbeat.alert.dao;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefineMonitorBind;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Set;
@@ -64,4 +65,13 @@ public interface AlertDefineBindDao extends JpaRepository<AlertDefineMonitorBind
      * @return Associated monitoring information    关联监控信息
      */
     List<AlertDefineMonitorBind> getAlertDefineBindsByAlertDefineIdEquals(Long alertDefineId);
+
+    /**
+     * Query all alarm definition and monitor association ids, without loading the monitors
+     * 查询所有告警定义与监控关联的ID
+     *
+     * @return [alertDefineId, monitorId] list
+     */
+    @Query("select bind.alertDefineId, bind.monitorId from AlertDefineMonitorBind bind")
+    List<Object[]> queryAlertDefineMonitorBindIds();
 }
@@ -21,6 +21,9 @@ import org.dromara.hertzbeat.common.entity.alerter.AlertSilence;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Set;
 
@@ -37,4 +40,14 @@ public interface AlertSilenceDao extends JpaRepository<AlertSilence, Long>, JpaS
 	 */
 	@Modifying
 	void deleteAlertSilencesByIdIn(Set<Long> silenceIds);
+
+	/**
+	 * Increase the silenced alert times of the alarm silence
+	 * @param silenceId alert silence id
+	 * @param times increased times
+	 */
+	@Transactional(rollbackFor = Exception.class)
+	@Modifying
+	@Query("update AlertSilence silence set silence.times = coalesce(silence.times, 0) + :times where silence.id = :silenceId")
+	void increaseAlertSilenceTimes(@Param(value = "silenceId") Long silenceId, @Param(value = "times") Integer times);
 }
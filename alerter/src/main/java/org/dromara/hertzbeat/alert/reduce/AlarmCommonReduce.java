@@ -2,7 +2,6 @@ package org.dromara.hertzbeat.alert.reduce;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.dromara.hertzbeat.alert.dao.AlertMonitorDao;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.alerter.Alert;
 import org.dromara.hertzbeat.common.entity.manager.Tag;
@@ -28,7 +27,7 @@ public class AlarmCommonReduce {
 	
 	private final CommonDataQueue dataQueue;
 	
-	private final AlertMonitorDao alertMonitorDao;
+	private final MonitorTagCache monitorTagCache;
 	
     public void reduceAndSendAlarm(Alert alert) {
 		alert.setTimes(1);
@@ -38,7 +37,7 @@ public class AlarmCommonReduce {
             log.debug("receiver extern alarm message: {}", alert);
 	    } else {
             long monitorId = Long.parseLong(monitorIdStr);
-            List<Tag> tagList = alertMonitorDao.findMonitorIdBindTags(monitorId);
+            List<Tag> tagList = monitorTagCache.getMonitorTags(monitorId);
             tagList.forEach(tag -> {
                 if (!tags.containsKey(tag.getName())) {
                     tags.put(tag.getName(), tag.getValue());
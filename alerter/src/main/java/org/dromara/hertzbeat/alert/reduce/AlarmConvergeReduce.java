@@ -9,11 +9,8 @@ import org.dromara.hertzbeat.common.entity.alerter.AlertConverge;
 import org.dromara.hertzbeat.common.entity.manager.TagItem;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * alarm converge 
@@ -25,11 +22,11 @@ public class AlarmConvergeReduce {
     
     private final AlertConvergeDao alertConvergeDao;
     
-    private final Map<Integer, Alert> converageAlertMap;
+    private final AlertConvergeStore convergeStore;
     
     public AlarmConvergeReduce(AlertConvergeDao alertConvergeDao) {
         this.alertConvergeDao = alertConvergeDao;
-        this.converageAlertMap = new ConcurrentHashMap<>(16);
+        this.convergeStore = new AlertConvergeStore();
     }
     
     /**
@@ -45,18 +42,8 @@ public class AlarmConvergeReduce {
         }
         if (currentAlert.getStatus() == CommonConstants.ALERT_STATUS_CODE_RESTORED) {
             // restored alert
-            int alertHash = Objects.hash(CommonConstants.ALERT_PRIORITY_CODE_CRITICAL)
-                    + Arrays.hashCode(currentAlert.getTags().keySet().toArray(new String[0]))
-                    + Arrays.hashCode(currentAlert.getTags().values().toArray(new String[0]));
-            converageAlertMap.remove(alertHash);
-            alertHash = Objects.hash(CommonConstants.ALERT_PRIORITY_CODE_EMERGENCY)
-                    + Arrays.hashCode(currentAlert.getTags().keySet().toArray(new String[0]))
-                    + Arrays.hashCode(currentAlert.getTags().values().toArray(new String[0]));
-            converageAlertMap.remove(alertHash);
-            alertHash = Objects.hash(CommonConstants.ALERT_PRIORITY_CODE_WARNING)
-                    + Arrays.hashCode(currentAlert.getTags().keySet().toArray(new String[0]))
-                    + Arrays.hashCode(currentAlert.getTags().values().toArray(new String[0]));
-            converageAlertMap.remove(alertHash);
+            convergeStore.remove(currentAlert.getTags(), CommonConstants.ALERT_PRIORITY_CODE_CRITICAL,
+                    CommonConstants.ALERT_PRIORITY_CODE_EMERGENCY, CommonConstants.ALERT_PRIORITY_CODE_WARNING);
             return true;
         }
         ICacheService<String, Object> convergeCache = CacheFactory.getAlertConvergeCache();
@@ -109,35 +96,7 @@ public class AlarmConvergeReduce {
                 if (evalInterval <= 0) {
                     return true;
                 }
-                int alertHash = Objects.hash(currentAlert.getPriority()) 
-                                        + Arrays.hashCode(currentAlert.getTags().keySet().toArray(new String[0]))
-                                        + Arrays.hashCode(currentAlert.getTags().values().toArray(new String[0]));
-                Alert preAlert = converageAlertMap.get(alertHash);
-                if (preAlert == null) {
-                    currentAlert.setTimes(1);
-                    currentAlert.setFirstAlarmTime(now);
-                    currentAlert.setLastAlarmTime(now);
-                    converageAlertMap.put(alertHash, currentAlert.clone());
-                    return true;
-                } else {
-                    if (now - preAlert.getFirstAlarmTime() < evalInterval) {
-                        preAlert.setTimes(preAlert.getTimes() + 1);
-                        preAlert.setLastAlarmTime(now);
-                        return false;
-                    } else {
-                        currentAlert.setTimes(preAlert.getTimes());
-                        if (preAlert.getTimes() == 1) {
-                            currentAlert.setFirstAlarmTime(now);
-                        } else {
-                            currentAlert.setFirstAlarmTime(preAlert.getFirstAlarmTime());
-                        }
-                        currentAlert.setLastAlarmTime(now);
-                        preAlert.setFirstAlarmTime(now);
-                        preAlert.setLastAlarmTime(now);
-                        preAlert.setTimes(1);
-                        return true;
-                    }
-                }
+                return convergeStore.converge(currentAlert, evalInterval, now);
             }
         }
         return true;
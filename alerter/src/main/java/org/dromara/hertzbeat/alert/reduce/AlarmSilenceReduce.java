@@ -1,19 +1,25 @@
 package org.dromara.hertzbeat.alert.reduce;
 
-import lombok.RequiredArgsConstructor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.alert.dao.AlertSilenceDao;
 import org.dromara.hertzbeat.common.cache.CacheFactory;
 import org.dromara.hertzbeat.common.cache.ICacheService;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.alerter.Alert;
 import org.dromara.hertzbeat.common.entity.alerter.AlertSilence;
-import org.dromara.hertzbeat.common.entity.manager.TagItem;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * silence alarm
@@ -21,10 +27,36 @@ import java.util.Map;
  *
  */
 @Service
-@RequiredArgsConstructor
-public class AlarmSilenceReduce {
+@Slf4j
+public class AlarmSilenceReduce implements DisposableBean {
+
+	private static final long FLUSH_INTERVAL_SECONDS = 5;
 	
 	private final AlertSilenceDao alertSilenceDao;
+
+	/**
+	 * key: silence id, value: silenced times not flushed to database yet
+	 */
+	private final Map<Long, LongAdder> pendingTimes = new ConcurrentHashMap<>(16);
+
+	private final ScheduledThreadPoolExecutor flushExecutor;
+
+	private volatile AlertSilenceIndex silenceIndex;
+
+	public AlarmSilenceReduce(AlertSilenceDao alertSilenceDao) {
+		this.alertSilenceDao = alertSilenceDao;
+		ThreadFactory threadFactory = new ThreadFactoryBuilder()
+				.setUncaughtExceptionHandler((thread, throwable) -> {
+					log.error("alarm silence flush has uncaughtException.");
+					log.error(throwable.getMessage(), throwable);
+				})
+				.setDaemon(true)
+				.setNameFormat("alerter-silence-flush-%d")
+				.build();
+		this.flushExecutor = new ScheduledThreadPoolExecutor(1, threadFactory);
+		this.flushExecutor.scheduleWithFixedDelay(this::flushSilenceTimes,
+				FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+	}
 	
 	/**
 	 * alert silence filter data
@@ -39,68 +71,71 @@ public class AlarmSilenceReduce {
 			alertSilenceList = alertSilenceDao.findAll();
 			silenceCache.put(CommonConstants.CACHE_ALERT_SILENCE, alertSilenceList);
 		}
-		for (AlertSilence alertSilence : alertSilenceList) {
-			if (!alertSilence.isEnable()) {
-				continue;
-			}
-			// if match the silence rule, return
-			boolean match = alertSilence.isMatchAll();
-			if (!match) {
-				List<TagItem> tags = alertSilence.getTags();
-				if (alert.getTags() != null && !alert.getTags().isEmpty()) {
-					Map<String, String> alertTagMap = alert.getTags();
-					match = tags.stream().anyMatch(item -> {
-						if (alertTagMap.containsKey(item.getName())) {
-							String tagValue = alertTagMap.get(item.getName());
-							if (tagValue == null && item.getValue() == null) {
-								return true;
-							} else {
-								return tagValue != null && tagValue.equals(item.getValue());
-							}
-						} else {
-							return false;
-						}
-					});
-				} else {
-                    match = true;
-                }
-				if (match && alertSilence.getPriorities() != null && !alertSilence.getPriorities().isEmpty()) {
-					match = alertSilence.getPriorities().stream().anyMatch(item -> item != null && item == alert.getPriority());
+		AlertSilenceIndex index = silenceIndex;
+		if (index == null || !index.isBuiltFrom(alertSilenceList)) {
+			index = new AlertSilenceIndex(alertSilenceList);
+			silenceIndex = index;
+		}
+		for (AlertSilence alertSilence : index.match(alert.getTags(), alert.getPriority())) {
+			LocalDateTime nowDate = LocalDateTime.now();
+			if (alertSilence.getType() == 0) {
+				// once time
+				if (alertSilence.getPeriodStart() != null && alertSilence.getPeriodEnd() != null) {
+					if (nowDate.isAfter(alertSilence.getPeriodStart().toLocalDateTime())
+							&& nowDate.isBefore(alertSilence.getPeriodEnd().toLocalDateTime())) {
+						increaseSilenceTimes(alertSilence);
+						return false;
+					}
 				}
-			}
-			if (match) {
-				LocalDateTime nowDate = LocalDateTime.now();
-				if (alertSilence.getType() == 0) {
-					// once time
-					if (alertSilence.getPeriodStart() != null && alertSilence.getPeriodEnd() != null) {
-						if (nowDate.isAfter(alertSilence.getPeriodStart().toLocalDateTime())
-								&& nowDate.isBefore(alertSilence.getPeriodEnd().toLocalDateTime())) {
-							int times = alertSilence.getTimes() == null ? 0 : alertSilence.getTimes();
-							alertSilence.setTimes(times + 1);
-							alertSilenceDao.save(alertSilence);
+			} else if (alertSilence.getType() == 1) {
+				// cyc time
+				int currentDayOfWeek = nowDate.toLocalDate().getDayOfWeek().getValue();
+				if (alertSilence.getDays() != null && !alertSilence.getDays().isEmpty()) {
+					boolean dayMatch = alertSilence.getDays().stream().anyMatch(item -> item == currentDayOfWeek);
+					if (dayMatch && alertSilence.getPeriodStart() != null && alertSilence.getPeriodEnd() != null ) {
+						LocalTime nowTime = nowDate.toLocalTime();
+						
+						if (nowTime.isAfter(alertSilence.getPeriodStart().toLocalTime())
+								&& nowTime.isBefore(alertSilence.getPeriodEnd().toLocalTime())) {
+							increaseSilenceTimes(alertSilence);
 							return false;
 						}
 					}
-				} else if (alertSilence.getType() == 1) {
-					// cyc time
-					int currentDayOfWeek = nowDate.toLocalDate().getDayOfWeek().getValue();
-					if (alertSilence.getDays() != null && !alertSilence.getDays().isEmpty()) {
-						boolean dayMatch = alertSilence.getDays().stream().anyMatch(item -> item == currentDayOfWeek);
-						if (dayMatch && alertSilence.getPeriodStart() != null && alertSilence.getPeriodEnd() != null ) {
-							LocalTime nowTime = nowDate.toLocalTime();
-							
-							if (nowTime.isAfter(alertSilence.getPeriodStart().toLocalTime())
-									&& nowTime.isBefore(alertSilence.getPeriodEnd().toLocalTime())) {
-								int times = alertSilence.getTimes() == null ? 0 : alertSilence.getTimes();
-								alertSilence.setTimes(times + 1);
-								alertSilenceDao.save(alertSilence);
-								return false;
-							}
-						}
-					}
 				}
 			}
 		}
 		return true;
 	}
+
+	/**
+	 * flush the silenced times to database in batch, called periodically and before shutdown
+	 */
+	void flushSilenceTimes() {
+		for (Map.Entry<Long, LongAdder> entry : pendingTimes.entrySet()) {
+			long times = entry.getValue().sumThenReset();
+			if (times <= 0) {
+				continue;
+			}
+			try {
+				alertSilenceDao.increaseAlertSilenceTimes(entry.getKey(), (int) Math.min(times, Integer.MAX_VALUE));
+			} catch (Exception e) {
+				// keep the times to the next flush
+				entry.getValue().add(times);
+				log.error("flush alert silence {} times error: {}", entry.getKey(), e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void destroy() {
+		flushExecutor.shutdown();
+		flushSilenceTimes();
+	}
+
+	private void increaseSilenceTimes(AlertSilence alertSilence) {
+		if (alertSilence.getId() == null) {
+			return;
+		}
+		pendingTimes.computeIfAbsent(alertSilence.getId(), key -> new LongAdder()).increment();
+	}
 }
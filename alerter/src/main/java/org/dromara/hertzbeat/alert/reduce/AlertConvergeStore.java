@@ -0,0 +1,225 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * alarm converge state store
+ * 告警收敛状态存储
+ * the state is keyed by alert priority and tags, each state expires when no same alert arrived in two eval intervals
+ * of its converge rule, and the store evicts the earliest expiring states when the entry limit is reached.
+ */
+final class AlertConvergeStore {
+
+    private static final int DEFAULT_MAX_ENTRIES = 50000;
+
+    private static final int EXPIRE_INTERVALS = 2;
+
+    private final Map<ConvergeKey, ConvergeState> states = new ConcurrentHashMap<>(64);
+
+    /**
+     * expire deadline queue, one pending task for each live state, guarded by itself
+     */
+    private final PriorityQueue<ExpireTask> expireQueue = new PriorityQueue<>(64);
+
+    private final int maxEntries;
+
+    private final Counter suppressedCounter;
+
+    private final Counter evictedCounter;
+
+    AlertConvergeStore() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    AlertConvergeStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.suppressedCounter = Metrics.counter("hertzbeat.alerter.converge.suppressed");
+        this.evictedCounter = Metrics.counter("hertzbeat.alerter.converge.evicted");
+        Metrics.gauge("hertzbeat.alerter.converge.entries", states, Map::size);
+    }
+
+    /**
+     * converge the alert in the eval interval, fill the converged times and alarm time of the alert when pass
+     *
+     * @param alert        alert
+     * @param evalInterval eval interval millis of the converge rule
+     * @param now          current time millis
+     * @return true when not filter
+     */
+    boolean converge(Alert alert, long evalInterval, long now) {
+        expire(now);
+        ConvergeKey key = new ConvergeKey(alert.getPriority(), alert.getTags());
+        boolean[] pass = {true};
+        states.compute(key, (ignored, state) -> {
+            if (state == null) {
+                alert.setTimes(1);
+                alert.setFirstAlarmTime(now);
+                alert.setLastAlarmTime(now);
+                state = new ConvergeState(now);
+                state.expireAt = now + evalInterval * EXPIRE_INTERVALS;
+                schedule(new ExpireTask(key, state, state.expireAt));
+                return state;
+            }
+            if (now - state.firstAlarmTime < evalInterval) {
+                state.times++;
+                pass[0] = false;
+            } else {
+                alert.setTimes(state.times);
+                alert.setFirstAlarmTime(state.times == 1 ? now : state.firstAlarmTime);
+                alert.setLastAlarmTime(now);
+                state.firstAlarmTime = now;
+                state.times = 1;
+            }
+            // the queued task reschedules itself to the new deadline when it is due
+            state.expireAt = now + evalInterval * EXPIRE_INTERVALS;
+            return state;
+        });
+        if (!pass[0]) {
+            suppressedCounter.increment();
+        }
+        if (states.size() > maxEntries) {
+            evict();
+        }
+        return pass[0];
+    }
+
+    /**
+     * remove the converge states of the alert tags with the priorities
+     *
+     * @param tags       alert tags
+     * @param priorities alert priorities
+     */
+    void remove(Map<String, String> tags, byte... priorities) {
+        for (byte priority : priorities) {
+            states.remove(new ConvergeKey(priority, tags));
+        }
+    }
+
+    int size() {
+        return states.size();
+    }
+
+    private void schedule(ExpireTask task) {
+        synchronized (expireQueue) {
+            expireQueue.offer(task);
+        }
+    }
+
+    private void expire(long now) {
+        while (true) {
+            ExpireTask task;
+            synchronized (expireQueue) {
+                task = expireQueue.peek();
+                if (task == null || task.deadline > now) {
+                    return;
+                }
+                expireQueue.poll();
+            }
+            states.computeIfPresent(task.key, (key, state) -> {
+                if (state != task.state) {
+                    // the state of the task is removed already
+                    return state;
+                }
+                if (state.expireAt <= now) {
+                    return null;
+                }
+                schedule(new ExpireTask(key, state, state.expireAt));
+                return state;
+            });
+        }
+    }
+
+    private void evict() {
+        while (states.size() > maxEntries) {
+            ExpireTask task;
+            synchronized (expireQueue) {
+                task = expireQueue.poll();
+            }
+            if (task == null) {
+                return;
+            }
+            if (states.remove(task.key, task.state)) {
+                evictedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * composite key of alert priority and tags
+     */
+    private static final class ConvergeKey {
+
+        private final byte priority;
+
+        private final Map<String, String> tags;
+
+        private final int hash;
+
+        private ConvergeKey(byte priority, Map<String, String> tags) {
+            this.priority = priority;
+            this.tags = tags == null || tags.isEmpty() ? Collections.emptyMap() : new HashMap<>(tags);
+            this.hash = 31 * Byte.hashCode(priority) + this.tags.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ConvergeKey)) {
+                return false;
+            }
+            ConvergeKey that = (ConvergeKey) o;
+            return priority == that.priority && hash == that.hash && tags.equals(that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * converge state, mutated only in the map compute of its key
+     */
+    private static final class ConvergeState {
+
+        private long firstAlarmTime;
+
+        private int times = 1;
+
+        private long expireAt;
+
+        private ConvergeState(long firstAlarmTime) {
+            this.firstAlarmTime = firstAlarmTime;
+        }
+    }
+
+    private static final class ExpireTask implements Comparable<ExpireTask> {
+
+        private final ConvergeKey key;
+
+        private final ConvergeState state;
+
+        private final long deadline;
+
+        private ExpireTask(ConvergeKey key, ConvergeState state, long deadline) {
+            this.key = key;
+            this.state = state;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(ExpireTask o) {
+            return Long.compare(deadline, o.deadline);
+        }
+    }
+}
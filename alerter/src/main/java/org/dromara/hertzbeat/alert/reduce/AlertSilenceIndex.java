@@ -0,0 +1,123 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import org.dromara.hertzbeat.common.entity.alerter.AlertSilence;
+import org.dromara.hertzbeat.common.entity.manager.TagItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Precompiled index of the enabled alarm silence rules
+ * 启用的告警静默规则预编译索引
+ * match all rules and the rules of a tag name + value are looked up directly,
+ * the candidate rules keep the order of the rule list, so the first matched rule is the same as a linear scan.
+ */
+final class AlertSilenceIndex {
+
+    /**
+     * the rule list this index built from
+     */
+    private final List<AlertSilence> source;
+
+    private final List<AlertSilence> enabledRules;
+
+    private final List<Integer> matchAllRules;
+
+    /**
+     * key: tag name, value: (key: tag value, value: rule positions)
+     */
+    private final Map<String, Map<String, List<Integer>>> tagRules;
+
+    AlertSilenceIndex(List<AlertSilence> source) {
+        this.source = source;
+        this.enabledRules = new ArrayList<>(source.size());
+        this.matchAllRules = new ArrayList<>();
+        this.tagRules = new HashMap<>(16);
+        for (AlertSilence silence : source) {
+            if (!silence.isEnable()) {
+                continue;
+            }
+            int position = enabledRules.size();
+            enabledRules.add(silence);
+            if (silence.isMatchAll()) {
+                matchAllRules.add(position);
+            } else if (silence.getTags() != null) {
+                for (TagItem tag : silence.getTags()) {
+                    List<Integer> positions = tagRules.computeIfAbsent(tag.getName(), key -> new HashMap<>(4))
+                            .computeIfAbsent(tag.getValue(), key -> new ArrayList<>(2));
+                    if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+                        positions.add(position);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param list rule list
+     * @return is this index built from the rule list
+     */
+    boolean isBuiltFrom(List<AlertSilence> list) {
+        return source == list;
+    }
+
+    /**
+     * get the rules which the alert tags and priority match, in the rule list order
+     *
+     * @param alertTags     alert tags
+     * @param alertPriority alert priority
+     * @return match rules
+     */
+    List<AlertSilence> match(Map<String, String> alertTags, byte alertPriority) {
+        if (enabledRules.isEmpty()) {
+            return Collections.emptyList();
+        }
+        TreeMap<Integer, AlertSilence> candidates = new TreeMap<>();
+        for (Integer position : matchAllRules) {
+            candidates.put(position, enabledRules.get(position));
+        }
+        if (alertTags == null || alertTags.isEmpty()) {
+            // the alert without tags matches all the tag rules
+            for (int position = 0; position < enabledRules.size(); position++) {
+                candidates.put(position, enabledRules.get(position));
+            }
+        } else if (!tagRules.isEmpty()) {
+            for (Map.Entry<String, String> alertTag : alertTags.entrySet()) {
+                Map<String, List<Integer>> valueRules = tagRules.get(alertTag.getKey());
+                if (valueRules == null) {
+                    continue;
+                }
+                List<Integer> positions = valueRules.get(alertTag.getValue());
+                if (positions != null) {
+                    for (Integer position : positions) {
+                        candidates.put(position, enabledRules.get(position));
+                    }
+                }
+            }
+        }
+        List<AlertSilence> rules = new ArrayList<>(candidates.size());
+        for (AlertSilence silence : candidates.values()) {
+            if (silence.isMatchAll() || priorityMatch(silence, alertPriority)) {
+                rules.add(silence);
+            }
+        }
+        return rules;
+    }
+
+    private static boolean priorityMatch(AlertSilence silence, byte alertPriority) {
+        if (silence.getPriorities() == null || silence.getPriorities().isEmpty()) {
+            return true;
+        }
+        for (Byte priority : silence.getPriorities()) {
+            if (Objects.equals(priority, alertPriority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.alert.dao.AlertMonitorDao;
+import org.dromara.hertzbeat.common.entity.manager.Tag;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * monitor bind tags cache used by the alarm reduce
+ * 告警处理使用的监控绑定标签缓存
+ * loaded from database at the first alarm of the monitor, invalidated when the manager changes monitor or tag.
+ */
+@Component
+@Slf4j
+public class MonitorTagCache {
+
+    private static final long MAXIMUM_SIZE = 10000;
+
+    /**
+     * the safety net if some bind change is not notified
+     */
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofHours(1);
+
+    private final AlertMonitorDao alertMonitorDao;
+
+    private final Cache<Long, List<Tag>> cache;
+
+    public MonitorTagCache(AlertMonitorDao alertMonitorDao) {
+        this.alertMonitorDao = alertMonitorDao;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, "hertzbeat.alerter.monitor.tags");
+    }
+
+    /**
+     * get the tags bind to the monitor
+     *
+     * @param monitorId monitor id
+     * @return bind tags, never null
+     */
+    public List<Tag> getMonitorTags(long monitorId) {
+        return cache.get(monitorId, this::loadMonitorTags);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitorTagsChangedEvent(MonitorTagsChangedEvent event) {
+        if (event.getMonitorId() == null) {
+            log.debug("monitor tags cache invalidate all.");
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(event.getMonitorId());
+        }
+    }
+
+    @EventListener(MonitorDeletedEvent.class)
+    public void onMonitorDeletedEvent(MonitorDeletedEvent event) {
+        cache.invalidate(event.getMonitorId());
+    }
+
+    private List<Tag> loadMonitorTags(Long monitorId) {
+        List<Tag> tags = alertMonitorDao.findMonitorIdBindTags(monitorId);
+        return tags == null || tags.isEmpty() ? Collections.emptyList() : List.copyOf(tags);
+    }
+}
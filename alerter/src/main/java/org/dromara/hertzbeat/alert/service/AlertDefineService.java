@@ -17,6 +17,7 @@
 
 package org.dromara.hertzbeat.alert.service;
 
+import org.dromara.hertzbeat.alert.calculate.AlertExpression;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefineMonitorBind;
 import org.springframework.data.domain.Page;
@@ -118,6 +119,14 @@ public interface AlertDefineService {
      */
     AlertDefine getMonitorBindAlertAvaDefine(long monitorId, String app, String metrics);
 
+    /**
+     * Get the compiled threshold expression of the alarm definition, compiled once and kept with the define
+     * 获取告警定义预编译的阈值表达式
+     * @param alertDefine Alarm Definition ｜ 告警定义
+     * @return compiled expression ｜ 预编译表达式
+     */
+    AlertExpression getAlertExpression(AlertDefine alertDefine);
+
     /**
      * Dynamic conditional query
      * 动态条件查询
@@ -45,6 +45,15 @@ public interface AlertService {
      */
     void addAlert(Alert alert) throws RuntimeException;
 
+    /**
+     * Add alarm records in batch
+     * 批量新增告警记录
+     *
+     * @param alerts Alert entities    告警实体列表
+     * @throws RuntimeException Add process exception throw     新增过程异常抛出
+     */
+    void addAlerts(List<Alert> alerts) throws RuntimeException;
+
     /**
      * Dynamic conditional query
      * 动态条件查询
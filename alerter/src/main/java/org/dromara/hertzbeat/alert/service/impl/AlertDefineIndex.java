@@ -0,0 +1,329 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.alert.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.alert.calculate.AlertExpression;
+import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * In memory index of the alert defines used by alarm calculation
+ * 告警计算使用的告警定义内存索引
+ * defines are indexed by app + metric and by the monitor binds, loaded from database at first lookup,
+ * then updated incrementally when defines or binds change.
+ * the define expressions are compiled when indexed and kept with the define.
+ * the lookup result of a monitor metrics is cached until any define or bind changes.
+ */
+@Slf4j
+final class AlertDefineIndex {
+
+    private static final String KEY_SEPARATOR = "\u0001";
+
+    private final Map<Long, AlertDefine> defineMap = new ConcurrentHashMap<>(64);
+
+    /**
+     * key: define id, value: compiled expression
+     */
+    private final Map<Long, AlertExpression> expressionMap = new ConcurrentHashMap<>(64);
+
+    /**
+     * key: app + metric, value: define ids
+     */
+    private final Map<String, Set<Long>> appMetricIndex = new ConcurrentHashMap<>(64);
+
+    /**
+     * key: monitor id, value: bind define ids
+     */
+    private final Map<Long, Set<Long>> monitorBindIndex = new ConcurrentHashMap<>(64);
+
+    /**
+     * key: define id, value: bind monitor ids
+     */
+    private final Map<Long, Set<Long>> defineBindIndex = new ConcurrentHashMap<>(64);
+
+    /**
+     * key: monitor id + app + metrics, value: lookup result
+     */
+    private final Map<String, LookupResult> resultCache = new ConcurrentHashMap<>(256);
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final Object lock = new Object();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private volatile boolean loaded;
+
+    AlertDefineIndex() {
+        this.hitCounter = Metrics.counter("hertzbeat.alerter.define.cache.lookup", "result", "hit");
+        this.missCounter = Metrics.counter("hertzbeat.alerter.define.cache.lookup", "result", "miss");
+        Metrics.gauge("hertzbeat.alerter.define.cache.size", defineMap, Map::size);
+    }
+
+    /**
+     * load all defines and binds if not loaded yet
+     *
+     * @param definesLoader load all alert defines
+     * @param bindsLoader   load all binds, each item is [alertDefineId, monitorId]
+     */
+    void loadIfAbsent(Supplier<Collection<AlertDefine>> definesLoader, Supplier<Collection<Long[]>> bindsLoader) {
+        if (loaded) {
+            return;
+        }
+        synchronized (lock) {
+            if (loaded) {
+                return;
+            }
+            for (AlertDefine define : definesLoader.get()) {
+                indexDefine(define);
+            }
+            for (Long[] bind : bindsLoader.get()) {
+                indexBind(bind[0], bind[1]);
+            }
+            loaded = true;
+            log.info("alert define index loaded {} defines, {} bind monitors.", defineMap.size(), monitorBindIndex.size());
+        }
+    }
+
+    /**
+     * get the enabled alert defines of the monitor metrics, the bind defines first then the preset defines
+     *
+     * @param monitorId monitor id
+     * @param app       monitor app
+     * @param metrics   metrics
+     * @return lookup result
+     */
+    LookupResult lookup(long monitorId, String app, String metrics) {
+        String key = monitorId + KEY_SEPARATOR + app + KEY_SEPARATOR + metrics;
+        long currentVersion = version.get();
+        LookupResult result = resultCache.get(key);
+        if (result != null && result.version == currentVersion) {
+            hitCounter.increment();
+            return result;
+        }
+        missCounter.increment();
+        Map<Long, AlertDefine> defines = new LinkedHashMap<>(8);
+        for (Long defineId : monitorBindIndex.getOrDefault(monitorId, Collections.emptySet())) {
+            AlertDefine define = defineMap.get(defineId);
+            if (define != null && !define.isPreset() && define.isEnable()
+                    && app.equals(define.getApp()) && metrics.equals(define.getMetric())) {
+                defines.put(defineId, define);
+            }
+        }
+        for (Long defineId : appMetricIndex.getOrDefault(appMetricKey(app, metrics), Collections.emptySet())) {
+            AlertDefine define = defineMap.get(defineId);
+            if (define != null && define.isPreset() && define.isEnable()) {
+                defines.putIfAbsent(defineId, define);
+            }
+        }
+        result = new LookupResult(currentVersion, new ArrayList<>(defines.values()));
+        resultCache.put(key, result);
+        return result;
+    }
+
+    /**
+     * get the compiled expression of the define, compile it if the define is not indexed or its expression changed
+     *
+     * @param define alert define
+     * @return compiled expression
+     */
+    AlertExpression expression(AlertDefine define) {
+        AlertExpression expression = expressionMap.get(define.getId());
+        if (expression != null && Objects.equals(expression.getExpr(), define.getExpr())) {
+            return expression;
+        }
+        synchronized (lock) {
+            expression = expressionMap.get(define.getId());
+            if (expression != null && Objects.equals(expression.getExpr(), define.getExpr())) {
+                return expression;
+            }
+            if (expression != null) {
+                expression.close();
+            }
+            expression = AlertExpression.compile(define);
+            expressionMap.put(define.getId(), expression);
+            return expression;
+        }
+    }
+
+    void putDefine(AlertDefine define) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            unindexDefine(define.getId());
+            indexDefine(define);
+            changed();
+        }
+    }
+
+    void removeDefines(Collection<Long> defineIds) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            for (Long defineId : defineIds) {
+                unindexDefine(defineId);
+                replaceBinds(defineId, Collections.emptyList());
+            }
+            changed();
+        }
+    }
+
+    void putBinds(Long defineId, Collection<Long> monitorIds) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            replaceBinds(defineId, monitorIds);
+            changed();
+        }
+    }
+
+    void removeMonitor(Long monitorId) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            Set<Long> defineIds = monitorBindIndex.remove(monitorId);
+            if (defineIds != null) {
+                for (Long defineId : defineIds) {
+                    Set<Long> monitorIds = defineBindIndex.get(defineId);
+                    if (monitorIds != null) {
+                        monitorIds.remove(monitorId);
+                    }
+                }
+            }
+            changed();
+        }
+    }
+
+    private void indexDefine(AlertDefine define) {
+        if (define == null || define.getId() == null) {
+            return;
+        }
+        defineMap.put(define.getId(), define);
+        expressionMap.put(define.getId(), AlertExpression.compile(define));
+        appMetricIndex.computeIfAbsent(appMetricKey(define.getApp(), define.getMetric()),
+                key -> ConcurrentHashMap.newKeySet()).add(define.getId());
+    }
+
+    private void unindexDefine(Long defineId) {
+        AlertDefine define = defineMap.remove(defineId);
+        AlertExpression expression = expressionMap.remove(defineId);
+        if (expression != null) {
+            expression.close();
+        }
+        if (define != null) {
+            Set<Long> defineIds = appMetricIndex.get(appMetricKey(define.getApp(), define.getMetric()));
+            if (defineIds != null) {
+                defineIds.remove(defineId);
+            }
+        }
+    }
+
+    private void replaceBinds(Long defineId, Collection<Long> monitorIds) {
+        Set<Long> oldMonitorIds = defineBindIndex.remove(defineId);
+        if (oldMonitorIds != null) {
+            for (Long monitorId : oldMonitorIds) {
+                Set<Long> defineIds = monitorBindIndex.get(monitorId);
+                if (defineIds != null) {
+                    defineIds.remove(defineId);
+                }
+            }
+        }
+        for (Long monitorId : monitorIds) {
+            indexBind(defineId, monitorId);
+        }
+    }
+
+    private void indexBind(Long defineId, Long monitorId) {
+        if (defineId == null || monitorId == null) {
+            return;
+        }
+        defineBindIndex.computeIfAbsent(defineId, key -> ConcurrentHashMap.newKeySet()).add(monitorId);
+        monitorBindIndex.computeIfAbsent(monitorId, key -> ConcurrentHashMap.newKeySet()).add(defineId);
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        resultCache.clear();
+    }
+
+    private static String appMetricKey(String app, String metric) {
+        return app + KEY_SEPARATOR + metric;
+    }
+
+    /**
+     * the alert defines of a monitor metrics
+     */
+    static final class LookupResult {
+
+        private final long version;
+
+        private final List<AlertDefine> defines;
+
+        /**
+         * field - defines sorted by priority, lazily grouped
+         */
+        private volatile Map<String, List<AlertDefine>> fieldDefines;
+
+        private LookupResult(long version, List<AlertDefine> defines) {
+            this.version = version;
+            this.defines = Collections.unmodifiableList(defines);
+        }
+
+        List<AlertDefine> getDefines() {
+            return defines;
+        }
+
+        Map<String, List<AlertDefine>> getFieldDefines() {
+            Map<String, List<AlertDefine>> result = fieldDefines;
+            if (result == null) {
+                // The alarm thresholds are defined in ascending order of the alarm severity from 0 to 3
+                // 将告警阈值定义从告警级别0-3数字升序排序，数字越小告警基本越高，即从最高的告警阈值开始匹配计算
+                Map<String, List<AlertDefine>> grouped = new LinkedHashMap<>(8);
+                defines.stream()
+                        .filter(define -> define.getField() != null)
+                        .sorted(Comparator.comparing(AlertDefine::getPriority))
+                        .forEach(define -> grouped.computeIfAbsent(define.getField(), key -> new ArrayList<>(4)).add(define));
+                grouped.replaceAll((key, value) -> Collections.unmodifiableList(value));
+                result = Collections.unmodifiableMap(grouped);
+                fieldDefines = result;
+            }
+            return result;
+        }
+    }
+}
@@ -18,18 +18,23 @@
 package org.dromara.hertzbeat.alert.service.impl;
 
 import com.googlecode.aviator.AviatorEvaluator;
+import org.dromara.hertzbeat.alert.calculate.AlertExpression;
 import org.dromara.hertzbeat.alert.dao.AlertDefineBindDao;
 import org.dromara.hertzbeat.alert.dao.AlertDefineDao;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefineMonitorBind;
 import org.dromara.hertzbeat.alert.service.AlertDefineService;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
@@ -52,6 +57,11 @@ public class AlertDefineServiceImpl implements AlertDefineService {
     @Autowired
     private AlertDefineBindDao alertDefineBindDao;
 
+    /**
+     * alert defines index for alarm calculation, avoid querying database for every collected metrics data
+     */
+    private final AlertDefineIndex alertDefineIndex = new AlertDefineIndex();
+
     @Override
     public void validate(AlertDefine alertDefine, boolean isModify) throws IllegalArgumentException {
         // todo
@@ -66,17 +76,20 @@ public class AlertDefineServiceImpl implements AlertDefineService {
 
     @Override
     public void addAlertDefine(AlertDefine alertDefine) throws RuntimeException {
-        alertDefineDao.save(alertDefine);
+        AlertDefine saved = alertDefineDao.save(alertDefine);
+        afterCommit(() -> alertDefineIndex.putDefine(saved != null ? saved : alertDefine));
     }
 
     @Override
     public void modifyAlertDefine(AlertDefine alertDefine) throws RuntimeException {
-        alertDefineDao.save(alertDefine);
+        AlertDefine saved = alertDefineDao.save(alertDefine);
+        afterCommit(() -> alertDefineIndex.putDefine(saved != null ? saved : alertDefine));
     }
 
     @Override
     public void deleteAlertDefine(long alertId) throws RuntimeException {
         alertDefineDao.deleteById(alertId);
+        afterCommit(() -> alertDefineIndex.removeDefines(Collections.singleton(alertId)));
     }
 
     @Override
@@ -88,6 +101,7 @@ public class AlertDefineServiceImpl implements AlertDefineService {
     @Override
     public void deleteAlertDefines(Set<Long> alertIds) throws RuntimeException {
         alertDefineDao.deleteAlertDefinesByIdIn(alertIds);
+        afterCommit(() -> alertDefineIndex.removeDefines(alertIds));
     }
 
     @Override
@@ -106,26 +120,19 @@ public class AlertDefineServiceImpl implements AlertDefineService {
         // Save the associated
         // 保存关联
         alertDefineBindDao.saveAll(alertDefineBinds);
+        List<Long> monitorIds = alertDefineBinds.stream().map(AlertDefineMonitorBind::getMonitorId).collect(Collectors.toList());
+        afterCommit(() -> alertDefineIndex.putBinds(alertId, monitorIds));
     }
 
     @Override
     public Map<String, List<AlertDefine>> getMonitorBindAlertDefines(long monitorId, String app, String metrics) {
-        List<AlertDefine> defines = alertDefineDao.queryAlertDefinesByMonitor(monitorId, app, metrics);
-        List<AlertDefine> defaultDefines = alertDefineDao.queryAlertDefinesByAppAndMetricAndPresetTrueAndEnableTrue(app, metrics);
-        defines.addAll(defaultDefines);
-        Set<AlertDefine> defineSet = defines.stream().filter(item -> item.getField() != null).collect(Collectors.toSet());
-        // The alarm thresholds are defined in ascending order of the alarm severity from 0 to 3. The lower the number, the higher the alarm is. That is, the alarm is calculated from the highest alarm threshold
-        // 将告警阈值定义从告警级别0-3数字升序排序，数字越小告警基本越高，即从最高的告警阈值开始匹配计算
-        return defineSet.stream().sorted(Comparator.comparing(AlertDefine::getPriority))
-                .collect(Collectors.groupingBy(AlertDefine::getField));
+        return lookupAlertDefines(monitorId, app, metrics).getFieldDefines();
     }
 
     @Override
     public AlertDefine getMonitorBindAlertAvaDefine(long monitorId, String app, String metrics) {
-        List<AlertDefine> defines = alertDefineDao.queryAlertDefinesByMonitor(monitorId, app, metrics);
-        List<AlertDefine> defaultDefines = alertDefineDao.queryAlertDefinesByAppAndMetricAndPresetTrueAndEnableTrue(app, metrics);
-        defines.addAll(defaultDefines);
-        return defines.stream().findFirst().orElse(null);
+        List<AlertDefine> defines = lookupAlertDefines(monitorId, app, metrics).getDefines();
+        return defines.isEmpty() ? null : defines.get(0);
     }
 
     @Override
@@ -137,4 +144,39 @@ public class AlertDefineServiceImpl implements AlertDefineService {
     public List<AlertDefineMonitorBind> getBindAlertDefineMonitors(long alertDefineId) {
         return alertDefineBindDao.getAlertDefineBindsByAlertDefineIdEquals(alertDefineId);
     }
+
+    @EventListener(MonitorDeletedEvent.class)
+    public void onMonitorDeletedEvent(MonitorDeletedEvent event) {
+        afterCommit(() -> alertDefineIndex.removeMonitor(event.getMonitorId()));
+    }
+
+    @Override
+    public AlertExpression getAlertExpression(AlertDefine alertDefine) {
+        return alertDefineIndex.expression(alertDefine);
+    }
+
+    private AlertDefineIndex.LookupResult lookupAlertDefines(long monitorId, String app, String metrics) {
+        alertDefineIndex.loadIfAbsent(alertDefineDao::findAll, () -> alertDefineBindDao.queryAlertDefineMonitorBindIds()
+                .stream()
+                .map(item -> new Long[]{(Long) item[0], (Long) item[1]})
+                .collect(Collectors.toList()));
+        return alertDefineIndex.lookup(monitorId, app, metrics);
+    }
+
+    /**
+     * update the alert define index after the transaction committed, so it never sees rollback data
+     * @param runnable index update
+     */
+    private void afterCommit(Runnable runnable) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    runnable.run();
+                }
+            });
+        } else {
+            runnable.run();
+        }
+    }
 }
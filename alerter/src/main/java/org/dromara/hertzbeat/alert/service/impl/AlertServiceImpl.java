@@ -64,6 +64,11 @@ public class AlertServiceImpl implements AlertService {
         alertDao.save(alert);
     }
 
+    @Override
+    public void addAlerts(List<Alert> alerts) throws RuntimeException {
+        alertDao.saveAll(alerts);
+    }
+
     @Override
     public Page<Alert> getAlerts(Specification<Alert> specification, PageRequest pageRequest) {
         return alertDao.findAll(specification, pageRequest);
@@ -0,0 +1,28 @@
+package org.dromara.hertzbeat.alert.calculate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link AlarmCalculateLane}
+ */
+class AlarmCalculateLaneTest {
+
+    @Test
+    void offerFullLane() throws InterruptedException {
+        AlarmCalculateLane lane = new AlarmCalculateLane(0, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        // the lane is not started, the second task does not fit and is dropped after the timeout
+        assertTrue(lane.offer(latch::countDown, 10, TimeUnit.MILLISECONDS));
+        assertFalse(lane.offer(latch::countDown, 10, TimeUnit.MILLISECONDS));
+
+        lane.start();
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        lane.shutdown();
+    }
+}
@@ -0,0 +1,72 @@
+package org.dromara.hertzbeat.alert.calculate;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test case for {@link AlertExpression}
+ */
+class AlertExpressionTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    @Test
+    void compileAndExecute() {
+        AlertDefine define = AlertDefine.builder().id(1L).expr("usage > 90 && instance == 'cpu0'").build();
+        AlertExpression expression = AlertExpression.compile(define);
+        assertTrue(expression.isValid());
+        assertFalse(expression.isRowCountReferenced());
+        assertTrue(Arrays.asList(expression.getVariables()).containsAll(Arrays.asList("usage", "instance")));
+        assertEquals(2, expression.getVariables().length);
+
+        Map<String, Object> env = new HashMap<>(4);
+        env.put("usage", 95.0);
+        env.put("instance", "cpu0");
+        assertTrue(expression.execute(env));
+        env.put("usage", 10.0);
+        assertFalse(expression.execute(env));
+
+        Timer timer = registry.find("hertzbeat.alerter.expression.evaluate").tag("define", "1").timer();
+        assertNotNull(timer);
+        assertEquals(2, timer.count());
+        expression.close();
+        assertNull(registry.find("hertzbeat.alerter.expression.evaluate").tag("define", "1").timer());
+    }
+
+    @Test
+    void rowCountAndInvalidExpression() {
+        AlertExpression rowCount = AlertExpression.compile(AlertDefine.builder().id(2L)
+                .expr(AlertExpression.SYSTEM_VALUE_ROW_COUNT + " > 2").build());
+        assertTrue(rowCount.isRowCountReferenced());
+        assertTrue(rowCount.execute(Map.of(AlertExpression.SYSTEM_VALUE_ROW_COUNT, 3)));
+
+        AlertExpression invalid = AlertExpression.compile(AlertDefine.builder().id(3L).expr("usage > ").build());
+        assertFalse(invalid.isValid());
+        assertFalse(invalid.execute(Map.of("usage", 1.0)));
+        // the runtime error is logged and treated as not match
+        AlertExpression runtimeError = AlertExpression.compile(AlertDefine.builder().id(4L).expr("usage > 'abc'").build());
+        assertFalse(runtimeError.execute(Map.of("usage", 1.0)));
+    }
+}
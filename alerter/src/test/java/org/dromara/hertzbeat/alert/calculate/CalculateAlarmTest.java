@@ -0,0 +1,80 @@
+package org.dromara.hertzbeat.alert.calculate;
+
+import org.dromara.hertzbeat.alert.AlerterWorkerPool;
+import org.dromara.hertzbeat.alert.dao.AlertMonitorDao;
+import org.dromara.hertzbeat.alert.reduce.AlarmCommonReduce;
+import org.dromara.hertzbeat.alert.service.AlertDefineService;
+import org.dromara.hertzbeat.alert.service.AlertService;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.queue.CommonDataQueue;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test case for {@link CalculateAlarm}
+ */
+class CalculateAlarmTest {
+
+    @Test
+    void calculateMonitorMessagesInOrder() throws Exception {
+        LinkedBlockingQueue<CollectRep.MetricsData> queue = new LinkedBlockingQueue<>();
+        CommonDataQueue dataQueue = mock(CommonDataQueue.class);
+        when(dataQueue.pollMetricsDataToAlerter()).thenAnswer(invocation -> queue.take());
+        AlertMonitorDao monitorDao = mock(AlertMonitorDao.class);
+        when(monitorDao.findMonitorsByStatus(CommonConstants.UN_AVAILABLE_CODE)).thenReturn(Collections.emptyList());
+        AlertDefine define = AlertDefine.builder().id(1L).app("linux").metric("cpu").field("usage")
+                .expr("usage > 90").times(3).priority((byte) 1).template("usage ${usage}").build();
+        AlertDefineService alertDefineService = mock(AlertDefineService.class);
+        when(alertDefineService.getMonitorBindAlertDefines(anyLong(), anyString(), anyString()))
+                .thenReturn(Map.of("usage", List.of(define)));
+        AlertExpression expression = AlertExpression.compile(define);
+        when(alertDefineService.getAlertExpression(define)).thenReturn(expression);
+        AlarmCommonReduce alarmCommonReduce = mock(AlarmCommonReduce.class);
+
+        CalculateAlarm calculateAlarm = new CalculateAlarm(new AlerterWorkerPool(), dataQueue, alertDefineService, monitorDao,
+                alarmCommonReduce, mock(AlertService.class));
+        // the trigger times of each monitor are counted in its own lane
+        for (int i = 0; i < 3; i++) {
+            for (long monitorId = 1; monitorId <= 4; monitorId++) {
+                queue.put(metricsData(monitorId, "95"));
+            }
+        }
+        queue.put(metricsData(5L, "10"));
+
+        ArgumentCaptor<Alert> captor = ArgumentCaptor.forClass(Alert.class);
+        verify(alarmCommonReduce, timeout(5000).times(4)).reduceAndSendAlarm(captor.capture());
+        for (Alert alert : captor.getAllValues()) {
+            assertEquals(3, alert.getTriggerTimes());
+            assertEquals("usage 95.0", alert.getContent());
+        }
+        verify(alarmCommonReduce, after(200).times(4)).reduceAndSendAlarm(any(Alert.class));
+        calculateAlarm.destroy();
+        expression.close();
+    }
+
+    private CollectRep.MetricsData metricsData(long monitorId, String usage) {
+        return CollectRep.MetricsData.newBuilder()
+                .setId(monitorId)
+                .setApp("linux")
+                .setMetrics("cpu")
+                .setPriority(1)
+                .setCode(CollectRep.Code.SUCCESS)
+                .addFields(CollectRep.Field.newBuilder().setName("usage").setType(CommonConstants.TYPE_NUMBER).build())
+                .addValues(CollectRep.ValueRow.newBuilder().addColumns(usage).build())
+                .build();
+    }
+}
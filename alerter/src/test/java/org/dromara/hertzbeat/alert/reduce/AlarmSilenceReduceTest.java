@@ -0,0 +1,88 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import org.dromara.hertzbeat.alert.dao.AlertSilenceDao;
+import org.dromara.hertzbeat.common.cache.CacheFactory;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.common.entity.alerter.AlertSilence;
+import org.dromara.hertzbeat.common.entity.manager.TagItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test case for {@link AlarmSilenceReduce}
+ */
+class AlarmSilenceReduceTest {
+
+    private AlertSilenceDao alertSilenceDao;
+
+    private AlarmSilenceReduce alarmSilenceReduce;
+
+    @BeforeEach
+    void setUp() {
+        CacheFactory.getAlertSilenceCache().remove(CommonConstants.CACHE_ALERT_SILENCE);
+        alertSilenceDao = mock(AlertSilenceDao.class);
+        alarmSilenceReduce = new AlarmSilenceReduce(alertSilenceDao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        CacheFactory.getAlertSilenceCache().remove(CommonConstants.CACHE_ALERT_SILENCE);
+    }
+
+    @Test
+    void filterSilenceByTagIndex() {
+        ZonedDateTime now = ZonedDateTime.now();
+        AlertSilence disabled = silence(1L, false, List.of(new TagItem("env", "prod")), null, now);
+        AlertSilence prodCritical = silence(2L, true, List.of(new TagItem("env", "prod")),
+                List.of(CommonConstants.ALERT_PRIORITY_CODE_CRITICAL), now);
+        AlertSilence team = silence(3L, true, List.of(new TagItem("team", "db"), new TagItem("env", "test")), null, now);
+        AlertSilence expired = silence(4L, true, List.of(new TagItem("env", "dev")), null, now.minusDays(2));
+        when(alertSilenceDao.findAll()).thenReturn(List.of(disabled, prodCritical, team, expired));
+
+        assertFalse(alarmSilenceReduce.filterSilence(alert(Map.of("env", "prod"), CommonConstants.ALERT_PRIORITY_CODE_CRITICAL)));
+        assertTrue(alarmSilenceReduce.filterSilence(alert(Map.of("env", "prod"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        assertFalse(alarmSilenceReduce.filterSilence(alert(Map.of("env", "test"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        assertFalse(alarmSilenceReduce.filterSilence(alert(Map.of("team", "db"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        assertTrue(alarmSilenceReduce.filterSilence(alert(Map.of("env", "dev"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        assertTrue(alarmSilenceReduce.filterSilence(alert(Map.of("team", "web"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        verify(alertSilenceDao, times(1)).findAll();
+
+        // silenced times are counted in memory and flushed in batch
+        verify(alertSilenceDao, never()).save(any());
+        alarmSilenceReduce.flushSilenceTimes();
+        verify(alertSilenceDao).increaseAlertSilenceTimes(2L, 1);
+        verify(alertSilenceDao).increaseAlertSilenceTimes(3L, 2);
+        alarmSilenceReduce.flushSilenceTimes();
+        verify(alertSilenceDao, times(2)).increaseAlertSilenceTimes(anyLong(), anyInt());
+    }
+
+    @Test
+    void matchAllSilence() {
+        AlertSilence matchAll = silence(5L, true, null, null, ZonedDateTime.now());
+        matchAll.setMatchAll(true);
+        when(alertSilenceDao.findAll()).thenReturn(List.of(matchAll));
+        assertFalse(alarmSilenceReduce.filterSilence(alert(Map.of("env", "prod"), CommonConstants.ALERT_PRIORITY_CODE_WARNING)));
+        alarmSilenceReduce.destroy();
+        verify(alertSilenceDao).increaseAlertSilenceTimes(5L, 1);
+    }
+
+    private AlertSilence silence(Long id, boolean enable, List<TagItem> tags, List<Byte> priorities, ZonedDateTime now) {
+        return AlertSilence.builder().id(id).enable(enable).matchAll(false).type((byte) 0)
+                .tags(tags).priorities(priorities)
+                .periodStart(now.minusDays(1)).periodEnd(now.plusDays(1))
+                .build();
+    }
+
+    private Alert alert(Map<String, String> tags, byte priority) {
+        return Alert.builder().tags(tags).priority(priority).build();
+    }
+}
@@ -0,0 +1,66 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test case for {@link AlertConvergeStore}
+ */
+class AlertConvergeStoreTest {
+
+    private static final long INTERVAL = 60_000L;
+
+    @Test
+    void convergeInEvalInterval() {
+        AlertConvergeStore store = new AlertConvergeStore();
+        long now = 1_000_000L;
+        assertTrue(store.converge(alert("1", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now));
+        assertFalse(store.converge(alert("1", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 1000));
+        assertFalse(store.converge(alert("1", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 2000));
+        // other priority or tags are not converged together
+        assertTrue(store.converge(alert("1", CommonConstants.ALERT_PRIORITY_CODE_CRITICAL), INTERVAL, now + 2000));
+        assertTrue(store.converge(alert("2", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 2000));
+
+        Alert next = alert("1", CommonConstants.ALERT_PRIORITY_CODE_WARNING);
+        assertTrue(store.converge(next, INTERVAL, now + INTERVAL));
+        assertEquals(3, next.getTimes());
+        assertEquals(now, next.getFirstAlarmTime());
+        assertEquals(now + INTERVAL, next.getLastAlarmTime());
+
+        store.remove(next.getTags(), CommonConstants.ALERT_PRIORITY_CODE_WARNING);
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void expireAndEvict() {
+        AlertConvergeStore store = new AlertConvergeStore(3);
+        long now = 1_000_000L;
+        for (int i = 0; i < 3; i++) {
+            store.converge(alert(String.valueOf(i), CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + i);
+        }
+        assertEquals(3, store.size());
+        // touched state lives on, the others expire after two intervals without alerts
+        store.converge(alert("0", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + INTERVAL);
+        store.converge(alert("9", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 2 * INTERVAL + 10);
+        assertEquals(2, store.size());
+        // the earliest expiring states are evicted over the limit
+        for (int i = 10; i < 20; i++) {
+            store.converge(alert(String.valueOf(i), CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 2 * INTERVAL + i);
+        }
+        assertEquals(3, store.size());
+        assertFalse(store.converge(alert("19", CommonConstants.ALERT_PRIORITY_CODE_WARNING), INTERVAL, now + 2 * INTERVAL + 30));
+    }
+
+    private Alert alert(String monitorId, byte priority) {
+        Map<String, String> tags = new HashMap<>(4);
+        tags.put(CommonConstants.TAG_MONITOR_ID, monitorId);
+        tags.put("env", null);
+        return Alert.builder().priority(priority).tags(tags).build();
+    }
+}
@@ -0,0 +1,65 @@
+package org.dromara.hertzbeat.alert.reduce;
+
+import org.dromara.hertzbeat.alert.dao.AlertMonitorDao;
+import org.dromara.hertzbeat.common.entity.manager.Tag;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test case for {@link MonitorTagCache}
+ */
+class MonitorTagCacheTest {
+
+    private AlertMonitorDao alertMonitorDao;
+
+    private MonitorTagCache monitorTagCache;
+
+    @BeforeEach
+    void setUp() {
+        alertMonitorDao = mock(AlertMonitorDao.class);
+        monitorTagCache = new MonitorTagCache(alertMonitorDao);
+    }
+
+    @Test
+    void getMonitorTags() {
+        Tag tag = Tag.builder().name("env").value("prod").build();
+        when(alertMonitorDao.findMonitorIdBindTags(1L)).thenReturn(List.of(tag));
+        when(alertMonitorDao.findMonitorIdBindTags(2L)).thenReturn(null);
+        assertEquals(List.of(tag), monitorTagCache.getMonitorTags(1L));
+        assertEquals(List.of(tag), monitorTagCache.getMonitorTags(1L));
+        assertTrue(monitorTagCache.getMonitorTags(2L).isEmpty());
+        assertTrue(monitorTagCache.getMonitorTags(2L).isEmpty());
+        verify(alertMonitorDao, times(1)).findMonitorIdBindTags(1L);
+        verify(alertMonitorDao, times(1)).findMonitorIdBindTags(2L);
+    }
+
+    @Test
+    void invalidateByEvents() {
+        when(alertMonitorDao.findMonitorIdBindTags(anyLong())).thenReturn(List.of());
+        monitorTagCache.getMonitorTags(1L);
+        monitorTagCache.getMonitorTags(2L);
+
+        monitorTagCache.onMonitorTagsChangedEvent(new MonitorTagsChangedEvent(this, 1L));
+        monitorTagCache.getMonitorTags(1L);
+        monitorTagCache.getMonitorTags(2L);
+        verify(alertMonitorDao, times(2)).findMonitorIdBindTags(1L);
+        verify(alertMonitorDao, times(1)).findMonitorIdBindTags(2L);
+
+        monitorTagCache.onMonitorDeletedEvent(new MonitorDeletedEvent(this, 2L));
+        monitorTagCache.getMonitorTags(2L);
+        verify(alertMonitorDao, times(2)).findMonitorIdBindTags(2L);
+
+        monitorTagCache.onMonitorTagsChangedEvent(new MonitorTagsChangedEvent(this, null));
+        monitorTagCache.getMonitorTags(1L);
+        monitorTagCache.getMonitorTags(2L);
+        verify(alertMonitorDao, times(3)).findMonitorIdBindTags(1L);
+        verify(alertMonitorDao, times(3)).findMonitorIdBindTags(2L);
+    }
+}
@@ -1,11 +1,13 @@
 package org.dromara.hertzbeat.alert.service;
 
+import org.dromara.hertzbeat.alert.calculate.AlertExpression;
 import org.dromara.hertzbeat.alert.dao.AlertDefineBindDao;
 import org.dromara.hertzbeat.alert.dao.AlertDefineDao;
 import org.dromara.hertzbeat.alert.service.impl.AlertDefineServiceImpl;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefineMonitorBind;
 import org.dromara.hertzbeat.common.entity.manager.Monitor;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -48,6 +50,7 @@ class AlertDefineServiceTest {
                 .metric("test")
                 .field("test")
                 .preset(false)
+                .enable(true)
                 .expr("1 > 0")
                 .priority((byte) 1)
                 .times(1)
@@ -142,10 +145,61 @@ class AlertDefineServiceTest {
     void testGetMonitorBindAlertDefines() {
         List<AlertDefine> alertDefineList = new ArrayList<>();
         alertDefineList.add(this.alertDefine);
-        when(alertDefineDao.queryAlertDefinesByMonitor(1L, "app", "test")).thenReturn(alertDefineList);
-        when(alertDefineDao.queryAlertDefinesByAppAndMetricAndPresetTrueAndEnableTrue("app", "test")).thenReturn(alertDefineList);
-        assertNotNull(alertDefineService.getMonitorBindAlertDefines(1L, "app", "test"));
+        when(alertDefineDao.findAll()).thenReturn(alertDefineList);
+        when(alertDefineBindDao.queryAlertDefineMonitorBindIds()).thenReturn(Collections.singletonList(new Object[]{1L, 1L}));
+        Map<String, List<AlertDefine>> defineMap = alertDefineService.getMonitorBindAlertDefines(1L, "app", "test");
+        assertEquals(1, defineMap.get("test").size());
+        assertTrue(alertDefineService.getMonitorBindAlertDefines(2L, "app", "test").isEmpty());
+        // served by the index, database loaded only once
+        alertDefineService.getMonitorBindAlertDefines(1L, "app", "test");
+        verify(alertDefineDao, times(1)).findAll();
+        verify(alertDefineDao, never()).queryAlertDefinesByMonitor(anyLong(), anyString(), anyString());
+    }
 
+    @Test
+    void alertDefineIndexUpdatedByChanges() {
+        AlertDefine preset = AlertDefine.builder().id(2L).app("app").metric("test").field("usage")
+                .preset(true).enable(true).priority((byte) 0).expr("usage > 90").build();
+        AlertDefine presetDisabled = AlertDefine.builder().id(3L).app("app").metric("test").field("usage")
+                .preset(true).enable(false).priority((byte) 1).expr("usage > 80").build();
+        when(alertDefineDao.findAll()).thenReturn(List.of(preset, presetDisabled));
+        when(alertDefineBindDao.queryAlertDefineMonitorBindIds()).thenReturn(Collections.emptyList());
+        Map<String, List<AlertDefine>> defineMap = alertDefineService.getMonitorBindAlertDefines(1L, "app", "test");
+        assertEquals(1, defineMap.size());
+        assertEquals(List.of(preset), defineMap.get("usage"));
+        // expression compiled when loaded and kept with the define
+        AlertExpression expression = alertDefineService.getAlertExpression(preset);
+        assertSame(expression, alertDefineService.getAlertExpression(preset));
+        assertArrayEquals(new String[]{"usage"}, expression.getVariables());
+
+        // add and bind a monitor define
+        when(alertDefineDao.save(alertDefine)).thenReturn(alertDefine);
+        alertDefineService.addAlertDefine(alertDefine);
+        assertEquals(1, alertDefineService.getMonitorBindAlertDefines(1L, "app", "test").size());
+        alertDefineService.applyBindAlertDefineMonitors(1L, alertDefineMonitorBinds);
+        defineMap = alertDefineService.getMonitorBindAlertDefines(1L, "app", "test");
+        assertEquals(2, defineMap.size());
+        assertEquals(alertDefine, defineMap.get("test").get(0));
+        assertEquals(alertDefine, alertDefineService.getMonitorBindAlertAvaDefine(1L, "app", "test"));
+
+        // disable the preset define
+        AlertDefine modified = AlertDefine.builder().id(2L).app("app").metric("test").field("usage")
+                .preset(true).enable(false).priority((byte) 0).expr("usage > 90").build();
+        when(alertDefineDao.save(modified)).thenReturn(modified);
+        alertDefineService.modifyAlertDefine(modified);
+        assertNotSame(expression, alertDefineService.getAlertExpression(modified));
+        assertNull(alertDefineService.getMonitorBindAlertDefines(1L, "app", "test").get("usage"));
+
+        // monitor deleted, its binds removed
+        alertDefineService.onMonitorDeletedEvent(new MonitorDeletedEvent(this, 1L));
+        assertTrue(alertDefineService.getMonitorBindAlertDefines(1L, "app", "test").isEmpty());
+
+        alertDefineService.applyBindAlertDefineMonitors(1L, alertDefineMonitorBinds);
+        assertEquals(1, alertDefineService.getMonitorBindAlertDefines(1L, "app", "test").size());
+        alertDefineService.deleteAlertDefine(1L);
+        assertTrue(alertDefineService.getMonitorBindAlertDefines(1L, "app", "test").isEmpty());
+        assertNull(alertDefineService.getMonitorBindAlertAvaDefine(1L, "app", "test"));
+        verify(alertDefineDao, times(1)).findAll();
     }
 
     @Test
@@ -21,6 +21,9 @@ package org.dromara.hertzbeat.collector.collect;
 import org.dromara.hertzbeat.common.entity.job.Metrics;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * Specific indicator group collection implementation abstract class
  * 具体的指标组采集实现抽象类
@@ -42,6 +45,34 @@ public abstract class AbstractCollect {
      */
     public abstract void collect(CollectRep.MetricsData.Builder builder, long appId, String app, Metrics metrics);
 
+    /**
+     * Whether this metrics can be collected by the non-blocking {@link #collectAsync}
+     * 此指标组是否可以使用非阻塞的 {@link #collectAsync} 采集
+     *
+     * @param metrics Metric group configuration    指标组配置
+     * @return true when collectAsync never blocks the calling thread
+     */
+    public boolean supportAsync(Metrics metrics) {
+        return false;
+    }
+
+    /**
+     * Non-blocking acquisition implementation interface, the returned stage completes when the response builder is filled.
+     * The stage always completes normally, the collect error is set in the response builder as the blocking collect.
+     * Default run the blocking collect in the calling thread.
+     * 非阻塞的采集实现接口,返回的stage在响应builder填充完成后完成,采集异常同阻塞采集一样设置在响应builder中
+     *
+     * @param builder response builder
+     * @param appId   App monitoring ID   应用监控ID
+     * @param app     Application Type  应用类型
+     * @param metrics Metric group configuration    指标组配置
+     * @return completion stage of this collect
+     */
+    public CompletionStage<Void> collectAsync(CollectRep.MetricsData.Builder builder, long appId, String app, Metrics metrics) {
+        collect(builder, appId, app, metrics);
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * the protocol this collect instance support
      * @return protocol str
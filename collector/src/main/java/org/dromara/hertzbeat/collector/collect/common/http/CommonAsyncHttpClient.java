@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.collect.common.http;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.net.Socket;
+import java.net.http.HttpClient;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 统一的非阻塞http客户端,请求在io线程中异步完成,不占用采集工作线程
+ * 与 {@link CommonHttpClient} 一致: 信任所有证书只校验有效期,不校验主机名
+ *
+ */
+@Slf4j
+public class CommonAsyncHttpClient {
+
+    private static HttpClient httpClient;
+
+    /**
+     * 双端建立连接超时时间 4秒
+     */
+    private static final int CONNECT_TIMEOUT = 4000;
+
+    /**
+     * 未设置超时时间的请求的默认响应超时时间
+     */
+    public static final int DEFAULT_REQUEST_TIMEOUT = 60000;
+
+    /**
+     * 处理响应回调的线程数
+     */
+    private static final int CALLBACK_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    static {
+        try {
+            // 初始化ssl上下文 信任所有证书,只校验证书有效期,不校验主机名
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(null, new TrustManager[]{new ExpiredCheckTrustManager()}, null);
+            ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setUncaughtExceptionHandler((thread, throwable) -> {
+                        log.error("async http client executor has uncaughtException.");
+                        log.error(throwable.getMessage(), throwable);
+                    })
+                    .setDaemon(true)
+                    .setNameFormat("async-http-client-%d")
+                    .build();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS,
+                    0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofMillis(CONNECT_TIMEOUT))
+                    // 遇到301 302自动重定向跳转,与同步客户端一致不从https跳转到http
+                    .followRedirects(HttpClient.Redirect.NORMAL)
+                    .sslContext(sslContext)
+                    .executor(executor)
+                    .build();
+        } catch (Exception e) {
+            log.error("init async http client error: {}.", e.getMessage(), e);
+        }
+    }
+
+    public static HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * 扩展的TrustManager由jdk直接调用,不再附加主机名校验
+     */
+    private static class ExpiredCheckTrustManager extends X509ExtendedTrustManager {
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) { }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            // 判断服务器证书有效期时间
+            Date now = new Date();
+            if (chain != null && chain.length > 0) {
+                for (X509Certificate certificate : chain) {
+                    Date deadline = certificate.getNotAfter();
+                    if (deadline != null && now.after(deadline)) {
+                        throw new CertificateExpiredException();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) { }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+            checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) { }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+            checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -22,8 +22,11 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import org.dromara.hertzbeat.collector.collect.AbstractCollect;
+import org.dromara.hertzbeat.collector.collect.common.http.CommonAsyncHttpClient;
 import org.dromara.hertzbeat.collector.collect.common.http.CommonHttpClient;
 import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterParser;
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterScrapeCache;
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterScrapeResult;
 import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.MetricFamily;
 import org.dromara.hertzbeat.collector.dispatch.DispatchConstants;
 import org.dromara.hertzbeat.collector.util.CollectUtil;
@@ -39,16 +42,22 @@ import org.dromara.hertzbeat.collector.collect.http.promethus.AbstractPrometheus
 import org.dromara.hertzbeat.collector.collect.http.promethus.PrometheusParseCreater;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.net.util.Base64;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.AuthCache;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.ResponseHandler;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.methods.RequestBuilder;
@@ -72,12 +81,18 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.net.ConnectException;
 import java.net.UnknownHostException;
+import java.net.http.HttpTimeoutException;
+import java.nio.channels.UnresolvedAddressException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -96,6 +111,11 @@ public class HttpCollectImpl extends AbstractCollect {
             HttpStatus.SC_ACCEPTED, HttpStatus.SC_MULTIPLE_CHOICES, HttpStatus.SC_MOVED_PERMANENTLY,
             HttpStatus.SC_MOVED_TEMPORARILY).collect(Collectors.toSet());
     
+    /**
+     * headers set by the jdk http client itself, can not be set by request
+     */
+    private static final Set<String> ASYNC_RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host", "upgrade");
+    
     public HttpCollectImpl() {
     }
     
@@ -111,6 +131,111 @@ public class HttpCollectImpl extends AbstractCollect {
             builder.setMsg(e.getMessage());
             return;
         }
+        String parseType = metrics.getHttp().getParseType();
+        if (DispatchConstants.PARSE_PROMETHEUS.equals(parseType)) {
+            // one scrape and parse per job per collect cycle, shared by all its metrics groups
+            ExporterScrapeResult scrapeResult = ExporterScrapeCache.getOrScrape(metrics.getHttp(),
+                    familyNames -> scrapeExporter(metrics, familyNames));
+            if (scrapeResult.getCode() != CollectRep.Code.SUCCESS) {
+                builder.setCode(scrapeResult.getCode());
+                builder.setMsg(scrapeResult.getMsg());
+                return;
+            }
+            parseResponseByPrometheusExporter(scrapeResult.getMetricFamilies(), metrics.getAliasFields(), builder);
+            return;
+        }
+        String resp = executeHttpRequest(builder, metrics, this::readResponseString);
+        if (builder.getCode() != CollectRep.Code.SUCCESS) {
+            return;
+        }
+        Long responseTime = System.currentTimeMillis() - startTime;
+        parseResponse(resp, metrics, builder, responseTime);
+    }
+    
+    @Override
+    public boolean supportAsync(Metrics metrics) {
+        if (metrics == null || metrics.getHttp() == null) {
+            return false;
+        }
+        // the prometheus exporter scrape is shared by the metrics groups of a monitor and
+        // the digest auth need the apache client auth context, collect them by the blocking client
+        HttpProtocol.Authorization auth = metrics.getHttp().getAuthorization();
+        return !DispatchConstants.PARSE_PROMETHEUS.equals(metrics.getHttp().getParseType())
+                       && (auth == null || !DispatchConstants.DIGEST_AUTH.equals(auth.getType()));
+    }
+    
+    @Override
+    public CompletionStage<Void> collectAsync(CollectRep.MetricsData.Builder builder,
+                                              long appId, String app, Metrics metrics) {
+        long startTime = System.currentTimeMillis();
+        java.net.http.HttpRequest request;
+        try {
+            validateParams(metrics);
+            request = createAsyncHttpRequest(metrics.getHttp());
+        } catch (Exception e) {
+            builder.setCode(CollectRep.Code.FAIL);
+            builder.setMsg(CommonUtil.getMessageFromThrowable(e));
+            return CompletableFuture.completedFuture(null);
+        }
+        return CommonAsyncHttpClient.getHttpClient()
+                       .sendAsync(request, java.net.http.HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                       .handle((response, throwable) -> {
+                           if (throwable != null) {
+                               setAsyncRequestError(builder, throwable instanceof CompletionException
+                                                                     && throwable.getCause() != null ? throwable.getCause() : throwable);
+                               return null;
+                           }
+                           int statusCode = response.statusCode();
+                           log.debug("http response status: {}", statusCode);
+                           if (!checkSuccessInvoke(metrics, statusCode)) {
+                               // 状态码不在successCodes中的状态码为失败
+                               builder.setCode(CollectRep.Code.FAIL);
+                               builder.setMsg("StatusCode " + statusCode);
+                               return null;
+                           }
+                           String resp = response.body();
+                           if (resp == null || "".equals(resp)) {
+                               log.info("http response entity is empty, status: {}.", statusCode);
+                           }
+                           parseResponse(resp, metrics, builder, System.currentTimeMillis() - startTime);
+                           return null;
+                       });
+    }
+    
+    private void parseResponse(String resp, Metrics metrics, CollectRep.MetricsData.Builder builder, Long responseTime) {
+        String parseType = metrics.getHttp().getParseType();
+        try {
+            if (DispatchConstants.PARSE_DEFAULT.equals(parseType)) {
+                parseResponseByDefault(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
+            } else if (DispatchConstants.PARSE_JSON_PATH.equals(parseType)) {
+                parseResponseByJsonPath(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
+            } else if (DispatchConstants.PARSE_PROM_QL.equalsIgnoreCase(parseType)) {
+                parseResponseByPromQl(resp, metrics.getAliasFields(), metrics.getHttp(), builder);
+            } else if (DispatchConstants.PARSE_XML_PATH.equals(parseType)) {
+                parseResponseByXmlPath(resp, metrics.getAliasFields(), metrics.getHttp(), builder);
+            } else if (DispatchConstants.PARSE_WEBSITE.equals(parseType)) {
+                parseResponseByWebsite(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
+            } else if (DispatchConstants.PARSE_SITE_MAP.equals(parseType)) {
+                parseResponseBySiteMap(resp, metrics.getAliasFields(), builder);
+            } else {
+                parseResponseByDefault(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
+            }
+        } catch (Exception e) {
+            log.info("parse error: {}.", e.getMessage(), e);
+            builder.setCode(CollectRep.Code.FAIL);
+            builder.setMsg("parse response data error:" + e.getMessage());
+        }
+    }
+    
+    /**
+     * execute the http request and read the response
+     * @param builder set the fail code and msg when request failed
+     * @param metrics metrics with http params
+     * @param responseHandler read the success response entity
+     * @return response content
+     */
+    private <T> T executeHttpRequest(CollectRep.MetricsData.Builder builder, Metrics metrics,
+                                     ResponseHandler<T> responseHandler) {
         HttpContext httpContext = createHttpContext(metrics.getHttp());
         HttpUriRequest request = createHttpRequest(metrics.getHttp());
         try {
@@ -123,41 +248,10 @@ public class HttpCollectImpl extends AbstractCollect {
                 // 状态码不在successCodes中的状态码为失败
                 builder.setCode(CollectRep.Code.FAIL);
                 builder.setMsg("StatusCode " + statusCode);
-                return;
+                return null;
             }
             // 在successCodes中的状态码成功
-            // todo 这里直接将InputStream转为了String, 对于prometheus exporter大数据来说, 会生成大对象, 可能会严重影响JVM内存空间
-            // todo 方法一、使用InputStream进行解析, 代码改动大; 方法二、手动触发gc, 可以参考dubbo for long i
-            String resp = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
-            // 根据不同的解析方式解析
-            if (resp == null || "".equals(resp)) {
-                log.info("http response entity is empty, status: {}.", statusCode);
-            }
-            Long responseTime = System.currentTimeMillis() - startTime;
-            String parseType = metrics.getHttp().getParseType();
-            try {
-                if (DispatchConstants.PARSE_DEFAULT.equals(parseType)) {
-                    parseResponseByDefault(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
-                } else if (DispatchConstants.PARSE_JSON_PATH.equals(parseType)) {
-                    parseResponseByJsonPath(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
-                } else if (DispatchConstants.PARSE_PROM_QL.equalsIgnoreCase(parseType)) {
-                    parseResponseByPromQl(resp, metrics.getAliasFields(), metrics.getHttp(), builder);
-                } else if (DispatchConstants.PARSE_PROMETHEUS.equals(parseType)) {
-                    parseResponseByPrometheusExporter(resp, metrics.getAliasFields(), builder);
-                } else if (DispatchConstants.PARSE_XML_PATH.equals(parseType)) {
-                    parseResponseByXmlPath(resp, metrics.getAliasFields(), metrics.getHttp(), builder);
-                } else if (DispatchConstants.PARSE_WEBSITE.equals(parseType)) {
-                    parseResponseByWebsite(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
-                } else if (DispatchConstants.PARSE_SITE_MAP.equals(parseType)) {
-                    parseResponseBySiteMap(resp, metrics.getAliasFields(), builder);
-                } else {
-                    parseResponseByDefault(resp, metrics.getAliasFields(), metrics.getHttp(), builder, responseTime);
-                }
-            } catch (Exception e) {
-                log.info("parse error: {}.", e.getMessage(), e);
-                builder.setCode(CollectRep.Code.FAIL);
-                builder.setMsg("parse response data error:" + e.getMessage());
-            }
+            return responseHandler.handleResponse(response);
         } catch (ClientProtocolException e1) {
             String errorMsg = CommonUtil.getMessageFromThrowable(e1);
             log.error(errorMsg);
@@ -192,6 +286,45 @@ public class HttpCollectImpl extends AbstractCollect {
                 request.abort();
             }
         }
+        return null;
+    }
+    
+    /**
+     * read the response entity as string
+     * @param response http response
+     * @return response content
+     * @throws IOException read entity error
+     */
+    private String readResponseString(HttpResponse response) throws IOException {
+        String resp = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        if (resp == null || "".equals(resp)) {
+            log.info("http response entity is empty, status: {}.", response.getStatusLine().getStatusCode());
+        }
+        return resp;
+    }
+    
+    /**
+     * scrape the prometheus exporter and parse the metric families streaming from the response entity,
+     * never materialize the whole exposition as a string
+     * @param metrics metrics with http params
+     * @param familyNames metric family names to parse, null means all
+     * @return scrape result
+     */
+    private ExporterScrapeResult scrapeExporter(Metrics metrics, Set<String> familyNames) {
+        CollectRep.MetricsData.Builder scrapeBuilder = CollectRep.MetricsData.newBuilder();
+        Map<String, MetricFamily> metricFamilyMap = executeHttpRequest(scrapeBuilder, metrics, response -> {
+            HttpEntity entity = response.getEntity();
+            if (entity == null) {
+                return new HashMap<>(8);
+            }
+            try (InputStream content = entity.getContent()) {
+                return new ExporterParser().parse(content, familyNames);
+            }
+        });
+        if (scrapeBuilder.getCode() != CollectRep.Code.SUCCESS) {
+            return ExporterScrapeResult.fail(scrapeBuilder.getCode(), scrapeBuilder.getMsg());
+        }
+        return ExporterScrapeResult.success(metricFamilyMap);
     }
     
     @Override
@@ -382,15 +515,8 @@ public class HttpCollectImpl extends AbstractCollect {
         prometheusParser.handle(resp, aliasFields, http, builder);
     }
     
-    private static final Map<Long, ExporterParser> EXPORTER_PARSER_TABLE = new ConcurrentHashMap<>();
-    
-    private void parseResponseByPrometheusExporter(String resp, List<String> aliasFields,
+    private void parseResponseByPrometheusExporter(Map<String, MetricFamily> metricFamilyMap, List<String> aliasFields,
                                                    CollectRep.MetricsData.Builder builder) {
-        if (!EXPORTER_PARSER_TABLE.containsKey(builder.getId())) {
-            EXPORTER_PARSER_TABLE.put(builder.getId(), new ExporterParser());
-        }
-        ExporterParser parser = EXPORTER_PARSER_TABLE.get(builder.getId());
-        Map<String, MetricFamily> metricFamilyMap = parser.textToMetric(resp);
         String metrics = builder.getMetrics();
         if (metricFamilyMap.containsKey(metrics)) {
             MetricFamily metricFamily = metricFamilyMap.get(metrics);
@@ -593,6 +719,71 @@ public class HttpCollectImpl extends AbstractCollect {
         return requestBuilder.build();
     }
     
+    /**
+     * 根据http配置参数构造非阻塞客户端的请求,请求头参数请求体与阻塞客户端请求一致
+     *
+     * @param httpProtocol http参数配置
+     * @return 请求体
+     * @throws IOException read request entity error
+     */
+    private java.net.http.HttpRequest createAsyncHttpRequest(HttpProtocol httpProtocol) throws IOException {
+        HttpUriRequest request = createHttpRequest(httpProtocol);
+        if (request == null) {
+            throw new IllegalArgumentException("not support the http method: " + httpProtocol.getMethod());
+        }
+        java.net.http.HttpRequest.Builder requestBuilder = java.net.http.HttpRequest.newBuilder(request.getURI());
+        int timeout = CommonAsyncHttpClient.DEFAULT_REQUEST_TIMEOUT;
+        if (request instanceof Configurable && ((Configurable) request).getConfig() != null
+                    && ((Configurable) request).getConfig().getSocketTimeout() > 0) {
+            timeout = ((Configurable) request).getConfig().getSocketTimeout();
+        }
+        requestBuilder.timeout(Duration.ofMillis(timeout));
+        for (Header header : request.getAllHeaders()) {
+            if (!ASYNC_RESTRICTED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                requestBuilder.setHeader(header.getName(), header.getValue());
+            }
+        }
+        java.net.http.HttpRequest.BodyPublisher bodyPublisher = java.net.http.HttpRequest.BodyPublishers.noBody();
+        if (request instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity.getContentType() != null && !request.containsHeader(HttpHeaders.CONTENT_TYPE)) {
+                requestBuilder.setHeader(HttpHeaders.CONTENT_TYPE, entity.getContentType().getValue());
+            }
+            bodyPublisher = java.net.http.HttpRequest.BodyPublishers.ofByteArray(EntityUtils.toByteArray(entity));
+        }
+        return requestBuilder.method(request.getMethod(), bodyPublisher).build();
+    }
+    
+    private void setAsyncRequestError(CollectRep.MetricsData.Builder builder, Throwable throwable) {
+        String errorMsg = CommonUtil.getMessageFromThrowable(throwable);
+        Throwable rootCause = throwable;
+        while (rootCause.getCause() != null && rootCause.getCause() != rootCause) {
+            rootCause = rootCause.getCause();
+        }
+        if (rootCause instanceof UnknownHostException || rootCause instanceof UnresolvedAddressException) {
+            // 对端不可达
+            log.info(errorMsg);
+            builder.setCode(CollectRep.Code.UN_REACHABLE);
+            builder.setMsg("unknown host:" + errorMsg);
+        } else if (throwable instanceof InterruptedIOException || throwable instanceof ConnectException
+                           || throwable instanceof SSLException || throwable instanceof HttpTimeoutException) {
+            // 对端连接失败
+            log.info(errorMsg);
+            builder.setCode(CollectRep.Code.UN_CONNECTABLE);
+            builder.setMsg(errorMsg);
+        } else if (throwable instanceof IOException) {
+            // 其它IO异常
+            log.info(errorMsg);
+            builder.setCode(CollectRep.Code.FAIL);
+            builder.setMsg(errorMsg);
+        } else {
+            // 其它异常
+            log.error(errorMsg, throwable);
+            builder.setCode(CollectRep.Code.FAIL);
+            builder.setMsg(errorMsg);
+        }
+    }
+    
     private boolean checkSuccessInvoke(Metrics metrics, int statusCode) {
         List<String> successCodes = metrics.getHttp().getSuccessCodes();
         Set<Integer> successCodeSet = successCodes != null ? successCodes.stream().map(code -> {
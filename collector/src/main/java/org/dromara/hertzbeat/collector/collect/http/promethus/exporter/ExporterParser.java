@@ -1,397 +1,691 @@
 package org.dromara.hertzbeat.collector.collect.http.promethus.exporter;
 
-import org.dromara.hertzbeat.collector.collect.http.promethus.ParseException;
-import org.dromara.hertzbeat.common.util.StrBuffer;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.util.StringUtils;
+import org.dromara.hertzbeat.collector.collect.http.promethus.ParseException;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
 
 /**
  * @author ceilzcx
  *
  * 解析prometheus的exporter接口传递的数据 http:xxx/metrics
  * 参考: prometheus的text_parse.go的代码, 入口: TextToMetricFamilies
+ * 直接从 InputStream 流式按字节解析, 只构建需要的 metric family, 数值直接解析为 double
+ * parse the exposition bytes streaming from the InputStream, only build the requested metric families,
+ * sample values are parsed to primitive doubles without intermediate strings.
+ * not thread safe, create one parser per scrape.
  */
 @Slf4j
 public class ExporterParser {
     private static final String HELP = "HELP";
     private static final String TYPE = "TYPE";
-    private static final String EOF = "EOF";
 
     private static final String QUANTILE_LABEL = "quantile";
     private static final String BUCKET_LABEL = "le";
     private static final String NAME_LABEL = "__name__";
     private static final String SUM_SUFFIX = "_sum";
     private static final String COUNT_SUFFIX = "_count";
+    /**
+     * sample name suffixes belong to the family, eg: xxx_bucket of histogram, xxx_total of openmetrics counter
+     */
+    private static final Set<String> FAMILY_SUFFIXES = Set.of(SUM_SUFFIX, COUNT_SUFFIX, "_bucket", "_total", "_info", "_created");
+
+    private static final byte LEFT_CURLY_BRACKET = '{';
+    private static final byte RIGHT_CURLY_BRACKET = '}';
+    private static final byte EQUALS = '=';
+    private static final byte QUOTES = '"';
+    private static final byte ENTER = '\n';
+    private static final byte RETURN = '\r';
+    private static final byte SPACE = ' ';
+    private static final byte TAB = '\t';
+    private static final byte COMMA = ',';
+    private static final byte SHARP = '#';
+    private static final byte BACKSLASH = '\\';
+    private static final byte PLUS = '+';
+    private static final byte MINUS = '-';
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
 
-    private static final char LEFT_CURLY_BRACKET = '{';
-    private static final char RIGHT_CURLY_BRACKET = '}';
-    private static final char EQUALS = '=';
-    private static final char QUOTES = '"';
-    private static final char ENTER = '\n';
-    private static final char SPACE = ' ';
-    private static final char COMMA = ',';
+    /**
+     * max significant digits of the exact double fast path, mantissa must be less than 2^53
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    private Map<String, MetricFamily> metricFamilyMap;
+    private Set<String> familyNames;
+
+    /**
+     * family of the last HELP/TYPE comment, its name bytes match the samples quickly
+     */
+    private byte[] currentFamilyName;
     private MetricFamily currentMetricFamily;
-    private String currentQuantile;
-    private String currentBucket;
 
-    private final Lock lock = new ReentrantLock();
+    /**
+     * current sample line state
+     */
+    private MetricFamily sampleFamily;
+    private String sampleSuffix;
+    private double currentQuantile;
+    private double currentBucket;
+    private boolean hasQuantile;
+    private boolean hasBucket;
 
+    /**
+     * parse the exposition text, keep all metric families
+     *
+     * @param resp exposition text
+     * @return key: metric family name, value: metric family
+     */
     public Map<String, MetricFamily> textToMetric(String resp) {
-        // key: metric name, value: metric family
-        Map<String, MetricFamily> metricMap = new ConcurrentHashMap<>(10);
-        lock.lock();
         try {
-            String[] lines = resp.split("\n");
-            for (String line : lines) {
-                this.parseLine(metricMap, new StrBuffer(line));
-            }
-            return metricMap;
-        } catch (Exception e) {
+            return this.parse(new ByteArrayInputStream(resp.getBytes(StandardCharsets.UTF_8)), null);
+        } catch (IOException e) {
             log.error("parse prometheus exporter data error, msg: {}", e.getMessage());
-        } finally {
-            lock.unlock();
+            return this.metricFamilyMap == null ? new HashMap<>(8) : this.metricFamilyMap;
         }
-        return metricMap;
     }
 
-    private void parseLine(Map<String, MetricFamily> metricMap, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        switch (buffer.charAt(0)) {
-            case '#':
-                buffer.read();
-                this.currentMetricFamily = null;
-                this.parseComment(metricMap, buffer);
-                break;
-            case ENTER:
-                break;
-            default:
-                this.currentBucket = null;
-                this.currentQuantile = null;
-                this.parseMetric(buffer);
+    /**
+     * parse the exposition streaming from input stream
+     *
+     * @param inputStream exposition input stream, not closed here
+     * @param familyNames metric family names to keep, null means all
+     * @return key: metric family name, value: metric family
+     * @throws IOException read input stream error
+     */
+    public Map<String, MetricFamily> parse(InputStream inputStream, Set<String> familyNames) throws IOException {
+        this.metricFamilyMap = new HashMap<>(familyNames == null ? 64 : Math.max(8, familyNames.size() * 2));
+        this.familyNames = familyNames;
+        this.currentFamilyName = null;
+        this.currentMetricFamily = null;
+        this.position = 0;
+        this.limit = 0;
+        int lineEnd;
+        while ((lineEnd = this.nextLine(inputStream)) >= 0) {
+            int lineStart = this.position;
+            this.position = lineEnd + 1;
+            int end = lineEnd;
+            if (end > lineStart && buffer[end - 1] == RETURN) {
+                end--;
+            }
+            try {
+                this.parseLine(lineStart, end);
+            } catch (ParseException | IndexOutOfBoundsException e) {
+                log.warn("skip the error prometheus exporter line: {}, msg: {}",
+                        new String(buffer, lineStart, end - lineStart, StandardCharsets.UTF_8), e.getMessage());
+            }
         }
+        return this.metricFamilyMap;
     }
 
-    private void parseComment(Map<String, MetricFamily> metricMap, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        String token = this.readTokenUnitWhitespace(buffer);
-        if (EOF.equals(token)) {
-            return;
+    /**
+     * find the next line end in buffer, read more from the input stream when needed
+     *
+     * @return index of line end, -1 if no more lines
+     */
+    private int nextLine(InputStream inputStream) throws IOException {
+        int scanFrom = this.position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == ENTER) {
+                    return i;
+                }
+            }
+            // compact the partial line to the buffer head, grow when the line is longer than the buffer
+            int remaining = limit - position;
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+                position = 0;
+                limit = remaining;
+            } else if (limit == buffer.length) {
+                byte[] newBuffer = new byte[buffer.length * 2];
+                System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                buffer = newBuffer;
+            }
+            scanFrom = limit;
+            int read = inputStream.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                if (limit > position) {
+                    // the last line without '\n', append a virtual line end
+                    if (limit == buffer.length) {
+                        byte[] newBuffer = new byte[buffer.length + 1];
+                        System.arraycopy(buffer, 0, newBuffer, 0, limit);
+                        buffer = newBuffer;
+                    }
+                    buffer[limit] = ENTER;
+                    return limit++;
+                }
+                return -1;
+            }
+            limit += read;
         }
-        if (!HELP.equals(token) && !TYPE.equals(token)) {
-            log.error("parse comment error {}, start without {} or {}", buffer.toStr(), HELP, TYPE);
+    }
+
+    private void parseLine(int start, int end) {
+        int index = this.skipBlankTabs(start, end);
+        if (index >= end) {
             return;
         }
-        String metricName = this.readTokenAsMetricName(buffer);
-        this.currentMetricFamily = metricMap.computeIfAbsent(metricName, key -> new MetricFamily());
-        this.currentMetricFamily.setName(metricName);
-        switch (token) {
-            case HELP:
-                this.parseHelp(buffer);
-                break;
-            case TYPE:
-                this.parseType(buffer);
-                break;
-            default:
+        if (buffer[index] == SHARP) {
+            this.parseComment(index + 1, end);
+        } else {
+            this.parseSample(index, end);
         }
     }
 
-    private void parseHelp(StrBuffer line) {
-        line.skipBlankTabs();
-        this.currentMetricFamily.setHelp(line.toStr());
-    }
-
-    private void parseType(StrBuffer line) {
-        line.skipBlankTabs();
-        String type = line.toStr().toLowerCase();
-        MetricType metricType = MetricType.getType(type);
-        if (metricType == null) {
-            throw new ParseException("pare type error");
+    private void parseComment(int start, int end) {
+        int index = this.skipBlankTabs(start, end);
+        int tokenEnd = this.readTokenUnitWhitespace(index, end);
+        boolean isHelp = this.tokenEquals(index, tokenEnd, HELP);
+        if (!isHelp && !this.tokenEquals(index, tokenEnd, TYPE)) {
+            // other comments, eg: # EOF
+            return;
         }
-        this.currentMetricFamily.setMetricType(metricType);
-    }
-
-    private void parseMetric(StrBuffer buffer) {
-        String metricName = this.readTokenAsMetricName(buffer);
-        if (metricName.isEmpty()) {
-            log.error("error parse metric, metric name is null, line: {}", buffer.toStr());
+        index = this.skipBlankTabs(tokenEnd, end);
+        int nameEnd = this.readMetricName(index, end);
+        if (nameEnd == index) {
+            throw new ParseException("parse metric name error");
+        }
+        if (!this.nameEquals(currentFamilyName, index, nameEnd)) {
+            String metricName = new String(buffer, index, nameEnd - index, StandardCharsets.ISO_8859_1);
+            this.currentFamilyName = metricName.getBytes(StandardCharsets.ISO_8859_1);
+            this.currentMetricFamily = this.isRequested(metricName) ? this.getOrCreateFamily(metricName) : null;
+        }
+        if (currentMetricFamily == null) {
             return;
         }
-        List<MetricFamily.Metric> metricList = this.currentMetricFamily.getMetricList();
-        if (metricList == null) {
-            metricList = new ArrayList<>();
-            this.currentMetricFamily.setMetricList(metricList);
-        }
-        // todo 这里可能存在问题, 目前逻辑是HISTOGRAM和SUMMARY只创建一个metric
-        //  相比源码有所改动: 源码通过属性存储解析结果; 这边通过参数传递
-        MetricFamily.Metric metric;
-        if (!metricList.isEmpty() &&
-                (this.currentMetricFamily.getMetricType().equals(MetricType.HISTOGRAM) ||
-                        this.currentMetricFamily.getMetricType().equals(MetricType.SUMMARY))) {
-            metric = metricList.get(0);
+        index = this.skipBlankTabs(nameEnd, end);
+        String content = new String(buffer, index, end - index, StandardCharsets.UTF_8).trim();
+        if (isHelp) {
+            currentMetricFamily.setHelp(content);
         } else {
-            metric = new MetricFamily.Metric();
-            metricList.add(metric);
+            MetricType metricType = MetricType.getType(content.toLowerCase());
+            // types unknown here, eg: gaugehistogram stateset, parse as untyped
+            currentMetricFamily.setMetricType(metricType == null ? MetricType.UNTYPED : metricType);
         }
-
-        this.readLabels(metric, buffer);
     }
 
-    private void readLabels(MetricFamily.Metric metric, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        metric.setLabelPair(new ArrayList<>());
-        if (buffer.charAt(0) == LEFT_CURLY_BRACKET) {
-            buffer.read();
-            this.startReadLabelName(metric, buffer);
+    private void parseSample(int start, int end) {
+        int nameEnd = this.readMetricName(start, end);
+        if (nameEnd == start) {
+            throw new ParseException("parse metric name error");
+        }
+        String suffix = null;
+        boolean ofCurrentFamily = false;
+        if (currentFamilyName != null && this.nameStartsWith(start, nameEnd, currentFamilyName)) {
+            int suffixLength = nameEnd - start - currentFamilyName.length;
+            if (suffixLength > 0) {
+                suffix = new String(buffer, start + currentFamilyName.length, suffixLength, StandardCharsets.ISO_8859_1);
+            }
+            ofCurrentFamily = suffix == null || FAMILY_SUFFIXES.contains(suffix);
+        }
+        if (ofCurrentFamily) {
+            // sample of the family of last comment, skip fast when the family not requested
+            if (currentMetricFamily == null) {
+                return;
+            }
+            this.sampleFamily = currentMetricFamily;
+            this.sampleSuffix = suffix;
         } else {
-            this.readLabelValue(metric, null, buffer);
+            // sample without HELP/TYPE comment, its name is the family name
+            String metricName = new String(buffer, start, nameEnd - start, StandardCharsets.ISO_8859_1);
+            if (!this.isRequested(metricName)) {
+                return;
+            }
+            this.sampleFamily = this.getOrCreateFamily(metricName);
+            this.sampleSuffix = null;
         }
-    }
-
-    private void startReadLabelName(MetricFamily.Metric metric, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        if (buffer.charAt(0) == RIGHT_CURLY_BRACKET) {
-            buffer.read();
-            buffer.skipBlankTabs();
-            if (buffer.isEmpty()) return;
-            this.readLabelValue(metric, new MetricFamily.Label(), buffer);
-            return;
+        this.hasQuantile = false;
+        this.hasBucket = false;
+        List<MetricFamily.Label> labels = new ArrayList<>();
+        int index = this.skipBlankTabs(nameEnd, end);
+        if (index < end && buffer[index] == LEFT_CURLY_BRACKET) {
+            index = this.readLabels(labels, index + 1, end);
+            index = this.skipBlankTabs(index, end);
         }
-        String labelName = this.readTokenAsLabelName(buffer);
-        if (labelName.isEmpty() || labelName.equals(NAME_LABEL)) {
-            throw new ParseException("invalid label name" + labelName + ", label name size = 0 or label name equals " + NAME_LABEL);
+        int valueEnd = this.readTokenUnitWhitespace(index, end);
+        if (valueEnd == index) {
+            throw new ParseException("sample value is empty");
         }
-        MetricFamily.Label label = new MetricFamily.Label();
-        label.setName(labelName);
-        if (buffer.read() != EQUALS) {
-            throw new ParseException("parse error, not match the format of labelName=labelValue");
+        double value = parseDouble(buffer, index, valueEnd);
+        index = this.skipBlankTabs(valueEnd, end);
+        Long timestampMs = null;
+        if (index < end) {
+            timestampMs = (long) parseDouble(buffer, index, this.readTokenUnitWhitespace(index, end));
         }
-        this.startReadLabelValue(metric, label, buffer);
+        this.addSample(labels, value, timestampMs);
     }
 
-    private void startReadLabelValue(MetricFamily.Metric metric, MetricFamily.Label label, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        char c = buffer.read();
-        if (c != QUOTES) {
-            throw new ParseException("expected '\"' at start of label value, line: " + buffer.toStr());
-        }
-        String labelValue = this.readTokenAsLabelValue(buffer);
-        label.setValue(labelValue);
-        if (!this.isValidLabelValue(labelValue)) {
-            throw new ParseException("no valid label value: " + labelValue);
-        }
-        if (this.currentMetricFamily.getMetricType().equals(MetricType.SUMMARY) && label.getName().equals(QUANTILE_LABEL)) {
-            this.currentQuantile = labelValue;
-        } else if (this.currentMetricFamily.getMetricType().equals(MetricType.HISTOGRAM) && label.getName().equals(BUCKET_LABEL)) {
-            this.currentBucket = labelValue;
-        } else {
-            metric.getLabelPair().add(label);
-        }
-        if (buffer.isEmpty()) return;
-        c = buffer.read();
-        switch (c) {
-            case COMMA:
-                this.startReadLabelName(metric, buffer);
-                break;
-            case RIGHT_CURLY_BRACKET:
-                this.readLabelValue(metric, label, buffer);
-                break;
-            default:
-                throw new ParseException("expected '}' or ',' at end of label value, line: " + buffer.toStr());
+    /**
+     * read labels after '{'
+     *
+     * @return index after '}'
+     */
+    private int readLabels(List<MetricFamily.Label> labels, int start, int end) {
+        int index = start;
+        while (true) {
+            index = this.skipBlankTabs(index, end);
+            if (buffer[index] == RIGHT_CURLY_BRACKET) {
+                return index + 1;
+            }
+            int nameEnd = this.readLabelName(index, end);
+            if (nameEnd == index) {
+                throw new ParseException("parse label name error");
+            }
+            String labelName = new String(buffer, index, nameEnd - index, StandardCharsets.ISO_8859_1);
+            if (NAME_LABEL.equals(labelName)) {
+                throw new ParseException("invalid label name " + NAME_LABEL);
+            }
+            index = this.skipBlankTabs(nameEnd, end);
+            if (buffer[index] != EQUALS) {
+                throw new ParseException("parse error, not match the format of labelName=labelValue");
+            }
+            index = this.skipBlankTabs(index + 1, end);
+            if (buffer[index] != QUOTES) {
+                throw new ParseException("expected '\"' at start of label value");
+            }
+            int valueStart = index + 1;
+            int valueEnd = this.readLabelValueEnd(valueStart, end);
+            MetricType metricType = sampleFamily.getMetricType();
+            if (metricType == MetricType.SUMMARY && QUANTILE_LABEL.equals(labelName)) {
+                this.currentQuantile = parseDouble(buffer, valueStart, valueEnd);
+                this.hasQuantile = true;
+            } else if (metricType == MetricType.HISTOGRAM && BUCKET_LABEL.equals(labelName)) {
+                this.currentBucket = parseDouble(buffer, valueStart, valueEnd);
+                this.hasBucket = true;
+            } else {
+                MetricFamily.Label label = new MetricFamily.Label();
+                label.setName(labelName);
+                label.setValue(this.decodeLabelValue(valueStart, valueEnd));
+                labels.add(label);
+            }
+            index = this.skipBlankTabs(valueEnd + 1, end);
+            if (buffer[index] == COMMA) {
+                index++;
+            } else if (buffer[index] != RIGHT_CURLY_BRACKET) {
+                throw new ParseException("expected '}' or ',' at end of label value");
+            }
         }
     }
 
-    private void readLabelValue(MetricFamily.Metric metric, MetricFamily.Label label, StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        if (buffer.isEmpty()) return;
-        switch (this.currentMetricFamily.getMetricType()) {
+    private void addSample(List<MetricFamily.Label> labels, double value, Long timestampMs) {
+        List<MetricFamily.Metric> metricList = sampleFamily.getMetricList();
+        MetricType metricType = sampleFamily.getMetricType();
+        if (metricType == MetricType.SUMMARY || metricType == MetricType.HISTOGRAM) {
+            // samples of one summary or histogram are consecutive lines with the same labels
+            MetricFamily.Metric metric = metricList.isEmpty() ? null : metricList.get(metricList.size() - 1);
+            if (metric == null || !labels.equals(metric.getLabelPair())) {
+                metric = this.newMetric(labels, timestampMs);
+                metricList.add(metric);
+            }
+            if (metricType == MetricType.SUMMARY) {
+                this.addSummarySample(metric, value);
+            } else {
+                this.addHistogramSample(metric, value);
+            }
+            return;
+        }
+        MetricFamily.Metric metric = this.newMetric(labels, timestampMs);
+        switch (metricType) {
             case INFO:
                 MetricFamily.Info info = new MetricFamily.Info();
-                info.setValue(buffer.toDouble());
+                info.setValue(value);
                 metric.setInfo(info);
                 break;
             case COUNTER:
                 MetricFamily.Counter counter = new MetricFamily.Counter();
-                counter.setValue(buffer.toDouble());
+                counter.setValue(value);
                 metric.setCounter(counter);
                 break;
             case GAUGE:
                 MetricFamily.Gauge gauge = new MetricFamily.Gauge();
-                gauge.setValue(buffer.toDouble());
+                gauge.setValue(value);
                 metric.setGauge(gauge);
                 break;
-            case UNTYPED:
+            default:
                 MetricFamily.Untyped untyped = new MetricFamily.Untyped();
-                untyped.setValue(buffer.toDouble());
+                untyped.setValue(value);
                 metric.setUntyped(untyped);
-                break;
-            case SUMMARY:
-                MetricFamily.Summary summary = metric.getSummary();
-                if (summary == null) {
-                    summary = new MetricFamily.Summary();
-                    metric.setSummary(summary);
-                }
-                // 处理 xxx_sum 的数据
-                if (label != null && this.isSum(label.getName())) {
-                    summary.setSum(buffer.toDouble());
-                }
-                // 处理 xxx_count 的数据
-                else if (label != null && this.isCount(label.getName())) {
-                    summary.setCount(buffer.toLong());
-                }
-                // 处理 "xxx{quantile=\"0\"} 0" 的格式
-                else if (StringUtils.hasText(this.currentQuantile)) {
-                    List<MetricFamily.Quantile> quantileList = summary.getQuantileList();
-                    MetricFamily.Quantile quantile = new MetricFamily.Quantile();
-                    quantile.setXLabel(StrBuffer.parseDouble(this.currentQuantile));
-                    quantile.setValue(buffer.toDouble());
-                    quantileList.add(quantile);
-                }
-                break;
-            case HISTOGRAM:
-                MetricFamily.Histogram histogram = metric.getHistogram();
-                if (histogram == null) {
-                    histogram = new MetricFamily.Histogram();
-                    metric.setHistogram(histogram);
-                }
-                if (label != null && this.isSum(label.getName())) {
-                    histogram.setSum(buffer.toDouble());
-                } else if (label != null && this.isCount(label.getName())) {
-                    histogram.setCount(buffer.toLong());
-                }
-                // 处理 "xxx{quantile=\"0\"} 0" 的格式
-                else if (StringUtils.hasText(this.currentBucket)) {
-                    List<MetricFamily.Bucket> bucketList = histogram.getBucketList();
-                    MetricFamily.Bucket bucket = new MetricFamily.Bucket();
-                    bucket.setUpperBound(StrBuffer.parseDouble(this.currentBucket));
-                    bucket.setCumulativeCount(buffer.toLong());
-                    bucketList.add(bucket);
-                }
-                break;
-            default:
-                throw new ParseException("no such type in metricFamily");
         }
+        metricList.add(metric);
+    }
+
+    private void addSummarySample(MetricFamily.Metric metric, double value) {
+        MetricFamily.Summary summary = metric.getSummary();
+        if (summary == null) {
+            summary = new MetricFamily.Summary();
+            metric.setSummary(summary);
+        }
+        // 处理 xxx_sum 和 xxx_count 的数据
+        if (SUM_SUFFIX.equals(sampleSuffix)) {
+            summary.setSum(value);
+        } else if (COUNT_SUFFIX.equals(sampleSuffix)) {
+            summary.setCount((long) value);
+        } else if (hasQuantile) {
+            // 处理 "xxx{quantile=\"0\"} 0" 的格式
+            MetricFamily.Quantile quantile = new MetricFamily.Quantile();
+            quantile.setXLabel(currentQuantile);
+            quantile.setValue(value);
+            summary.getQuantileList().add(quantile);
+        }
+    }
+
+    private void addHistogramSample(MetricFamily.Metric metric, double value) {
+        MetricFamily.Histogram histogram = metric.getHistogram();
+        if (histogram == null) {
+            histogram = new MetricFamily.Histogram();
+            metric.setHistogram(histogram);
+        }
+        if (SUM_SUFFIX.equals(sampleSuffix)) {
+            histogram.setSum(value);
+        } else if (COUNT_SUFFIX.equals(sampleSuffix)) {
+            histogram.setCount((long) value);
+        } else if (hasBucket) {
+            // 处理 "xxx_bucket{le=\"0.5\"} 0" 的格式
+            MetricFamily.Bucket bucket = new MetricFamily.Bucket();
+            bucket.setUpperBound(currentBucket);
+            bucket.setCumulativeCount((long) value);
+            histogram.getBucketList().add(bucket);
+        }
+    }
+
+    private MetricFamily.Metric newMetric(List<MetricFamily.Label> labels, Long timestampMs) {
+        MetricFamily.Metric metric = new MetricFamily.Metric();
+        metric.setLabelPair(labels);
+        metric.setTimestampMs(timestampMs);
+        return metric;
+    }
+
+    private MetricFamily getOrCreateFamily(String metricName) {
+        return metricFamilyMap.computeIfAbsent(metricName, key -> {
+            MetricFamily metricFamily = new MetricFamily();
+            metricFamily.setName(key);
+            metricFamily.setMetricType(MetricType.UNTYPED);
+            metricFamily.setMetricList(new ArrayList<>());
+            return metricFamily;
+        });
+    }
+
+    private boolean isRequested(String metricName) {
+        return familyNames == null || familyNames.contains(metricName);
     }
 
     /**
      * 读取第一个空格符前的token
      *
-     * @param buffer 行数据对象
-     * @return token unit
+     * @return token end index
      */
-    private String readTokenUnitWhitespace(StrBuffer buffer) {
-        StringBuilder builder = new StringBuilder();
-        while (!buffer.isEmpty()) {
-            char c = buffer.read();
-            if (c == SPACE) {
-                break;
-            }
-            builder.append(c);
+    private int readTokenUnitWhitespace(int start, int end) {
+        int index = start;
+        while (index < end && buffer[index] != SPACE && buffer[index] != TAB) {
+            index++;
         }
-        return builder.toString();
+        return index;
     }
 
     /**
      * 获取指标的名称
      *
-     * @param buffer 行数据对象
-     * @return token name
+     * @return metric name end index, equals start if no valid name
      */
-    private String readTokenAsMetricName(StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        StringBuilder builder = new StringBuilder();
-        if (this.isValidMetricNameStart(buffer.charAt(0))) {
-            while (!buffer.isEmpty()) {
-                char c = buffer.read();
-                if (!this.isValidMetricNameContinuation(c)) {
-                    buffer.rollback();
-                    break;
-                }
-                builder.append(c);
-            }
-            return builder.toString();
+    private int readMetricName(int start, int end) {
+        if (start >= end || !isValidMetricNameStart(buffer[start])) {
+            return start;
         }
-        throw new ParseException("parse metric name error");
+        int index = start + 1;
+        while (index < end && isValidMetricNameContinuation(buffer[index])) {
+            index++;
+        }
+        return index;
     }
 
     /**
      * 获取label的名称
      *
-     * @param buffer 行数据对象
-     * @return label name
+     * @return label name end index, equals start if no valid name
      */
-    private String readTokenAsLabelName(StrBuffer buffer) {
-        buffer.skipBlankTabs();
-        StringBuilder builder = new StringBuilder();
-        char c = buffer.read();
-        if (this.isValidLabelNameStart(c)) {
-            builder.append(c);
-            while (!buffer.isEmpty()) {
-                c = buffer.read();
-                if (!this.isValidLabelNameContinuation(c)) {
-                    buffer.rollback();
-                    break;
-                }
-                builder.append(c);
-            }
-            return builder.toString();
+    private int readLabelName(int start, int end) {
+        if (start >= end || !isValidLabelNameStart(buffer[start])) {
+            return start;
         }
-        throw new ParseException("parse label name error");
+        int index = start + 1;
+        while (index < end && isValidLabelNameContinuation(buffer[index])) {
+            index++;
+        }
+        return index;
     }
 
     /**
-     * 获取Label的值
+     * 获取Label值的结束位置, 即未转义的 '"'
      *
-     * @param buffer 行数据对象
-     * @return label value
+     * @return index of the closing quotes
+     */
+    private int readLabelValueEnd(int start, int end) {
+        int index = start;
+        while (index < end) {
+            byte b = buffer[index];
+            if (b == BACKSLASH) {
+                index += 2;
+                continue;
+            }
+            if (b == QUOTES) {
+                return index;
+            }
+            index++;
+        }
+        throw new ParseException("parse label value error, missing end quotes");
+    }
+
+    /**
+     * 处理 '\\' 转义, 解码 utf8 label value
      */
-    private String readTokenAsLabelValue(StrBuffer buffer) {
-        StringBuilder builder = new StringBuilder();
-        boolean escaped = false;
-        while (!buffer.isEmpty()) {
-            char c = buffer.read();
-            // 处理 '\\' 转义
-            if (escaped) {
-                switch (c) {
+    private String decodeLabelValue(int start, int end) {
+        int escape = start;
+        while (escape < end && buffer[escape] != BACKSLASH) {
+            escape++;
+        }
+        if (escape == end) {
+            return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] value = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buffer[i];
+            if (b == BACKSLASH && i + 1 < end) {
+                byte next = buffer[++i];
+                switch (next) {
                     case QUOTES:
-                    case '\\':
-                        builder.append(c);
+                    case BACKSLASH:
+                        value[length++] = next;
                         break;
                     case 'n':
-                        builder.append('\n');
+                        value[length++] = ENTER;
                         break;
                     default:
-                        throw new ParseException("parse label value error");
+                        throw new ParseException("parse label value error, invalid escape");
                 }
-                escaped = false;
             } else {
-                switch (c) {
-                    case QUOTES:
-                        return builder.toString();
-                    case ENTER:
-                        throw new ParseException("parse label value error, next line");
-                    case '\\':
-                        escaped = true;
-                        break;
-                    default:
-                        builder.append(c);
+                value[length++] = b;
+            }
+        }
+        return new String(value, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private int skipBlankTabs(int start, int end) {
+        int index = start;
+        while (index < end && (buffer[index] == SPACE || buffer[index] == TAB)) {
+            index++;
+        }
+        return index;
+    }
+
+    private boolean tokenEquals(int start, int end, String token) {
+        if (end - start != token.length()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (buffer[start + i] != token.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean nameEquals(byte[] name, int start, int end) {
+        return name != null && end - start == name.length && this.nameStartsWith(start, end, name);
+    }
+
+    private boolean nameStartsWith(int start, int end, byte[] prefix) {
+        if (end - start < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * parse the ascii number bytes to double, exact fast path for the common short decimals,
+     * eg: 1, 0.25, 1.5e-3, fallback to Double.parseDouble for long mantissa or large exponent
+     *
+     * @param bytes number bytes
+     * @param start start index
+     * @param end   end index
+     * @return double value
+     */
+    static double parseDouble(byte[] bytes, int start, int end) {
+        if (start >= end) {
+            throw new ParseException("number is empty");
+        }
+        int index = start;
+        boolean negative = false;
+        if (bytes[index] == MINUS || bytes[index] == PLUS) {
+            negative = bytes[index] == MINUS;
+            index++;
+        }
+        if (index < end && Character.isLetter(bytes[index])) {
+            // Inf NaN
+            return parseSpecial(bytes, start, end);
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean hasDigit = false;
+        boolean dot = false;
+        for (; index < end; index++) {
+            byte b = bytes[index];
+            if (b >= '0' && b <= '9') {
+                hasDigit = true;
+                if (mantissa == 0 && b == '0') {
+                    // leading zeros are not significant
+                    if (dot) {
+                        exponent--;
+                    }
+                    continue;
+                }
+                if (digits >= MAX_FAST_DIGITS) {
+                    return parseFallback(bytes, start, end);
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (dot) {
+                    exponent--;
                 }
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                throw new ParseException("invalid number: " + new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
             }
         }
-        return builder.toString();
+        if (!hasDigit) {
+            throw new ParseException("invalid number: " + new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        if (index < end) {
+            // exponent part
+            index++;
+            boolean negativeExponent = false;
+            if (index < end && (bytes[index] == MINUS || bytes[index] == PLUS)) {
+                negativeExponent = bytes[index] == MINUS;
+                index++;
+            }
+            if (index >= end) {
+                throw new ParseException("invalid number: " + new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            int exp = 0;
+            for (; index < end; index++) {
+                byte b = bytes[index];
+                if (b < '0' || b > '9') {
+                    throw new ParseException("invalid number: " + new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+                }
+                if (exp > POWERS_OF_TEN.length * 100) {
+                    return parseFallback(bytes, start, end);
+                }
+                exp = exp * 10 + (b - '0');
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (exponent == 0) {
+            value = mantissa;
+        } else if (exponent > 0 && exponent < POWERS_OF_TEN.length) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return parseFallback(bytes, start, end);
+        }
+        return negative ? -value : value;
+    }
+
+    private static double parseSpecial(byte[] bytes, int start, int end) {
+        String value = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        switch (value) {
+            case "+Inf":
+            case "Inf":
+            case "+inf":
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            case "-Inf":
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "NaN":
+            case "nan":
+                return Double.NaN;
+            default:
+                throw new ParseException("invalid number: " + value);
+        }
+    }
+
+    private static double parseFallback(byte[] bytes, int start, int end) {
+        try {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.ISO_8859_1));
+        } catch (NumberFormatException e) {
+            throw new ParseException("invalid number: " + e.getMessage());
+        }
     }
 
     /**
@@ -400,7 +694,7 @@ public class ExporterParser {
      * @param c metric字符
      * @return true/false
      */
-    private boolean isValidMetricNameStart(char c) {
+    private static boolean isValidMetricNameStart(byte c) {
         return isValidLabelNameStart(c) || c == ':';
     }
 
@@ -410,7 +704,7 @@ public class ExporterParser {
      * @param c metric字符
      * @return true/false
      */
-    private boolean isValidMetricNameContinuation(char c) {
+    private static boolean isValidMetricNameContinuation(byte c) {
         return isValidLabelNameContinuation(c) || c == ':';
     }
 
@@ -420,7 +714,7 @@ public class ExporterParser {
      * @param c metric字符
      * @return true/false
      */
-    private boolean isValidLabelNameStart(char c) {
+    private static boolean isValidLabelNameStart(byte c) {
         return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
     }
 
@@ -430,26 +724,7 @@ public class ExporterParser {
      * @param c metric字符
      * @return true/false
      */
-    private boolean isValidLabelNameContinuation(char c) {
+    private static boolean isValidLabelNameContinuation(byte c) {
         return isValidLabelNameStart(c) || (c >= '0' && c <= '9');
     }
-
-    /**
-     * 检测是否是有效的utf8编码的字符串
-     *
-     * @param s label value
-     * @return true/false
-     */
-    private boolean isValidLabelValue(String s) {
-        return s != null && s.equals(new String(s.getBytes(StandardCharsets.UTF_8)));
-    }
-
-    private boolean isSum(String s) {
-        return s != null && s.endsWith(SUM_SUFFIX);
-    }
-
-    private boolean isCount(String s) {
-        return s != null && s.endsWith(COUNT_SUFFIX);
-    }
-
 }
@@ -0,0 +1,152 @@
+package org.dromara.hertzbeat.collector.collect.http.promethus.exporter;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.DispatchConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.HttpProtocol;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.util.CommonUtil;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 采集任务在一个采集周期内的 prometheus exporter 抓取结果缓存
+ * 同一任务同一周期内的所有指标组只抓取解析一次, 由 CommonDispatcher 在周期开始和结束时清除
+ * the prometheus exporter scrape cache of collect jobs in one collect cycle.
+ * all metrics groups of a job in one cycle share one scrape and parse,
+ * CommonDispatcher evict the job scrape when its cycle start and end, so results never leak across cycles.
+ * entries are keyed by job id, the one-time and cyclic jobs of the same monitor never share or evict each other.
+ * the scrape only parse the metric families of the job prometheus metrics groups.
+ */
+@Slf4j
+public final class ExporterScrapeCache {
+
+    /**
+     * key: job id
+     */
+    private static final Map<Long, ScrapeEntry> SCRAPE_TABLE = new ConcurrentHashMap<>();
+
+    /**
+     * key: job id, value: metric family names of the job prometheus metrics groups
+     */
+    private static final Map<Long, Set<String>> FAMILY_TABLE = new ConcurrentHashMap<>();
+
+    /**
+     * the job id of the metrics group collecting in current thread
+     */
+    private static final ThreadLocal<Long> COLLECTING_JOB = new ThreadLocal<>();
+
+    private ExporterScrapeCache() {
+    }
+
+    /**
+     * start a new collect cycle of the job, evict the last scrape and record the metric families to parse
+     * @param jobId job id
+     * @param metricsList all metrics groups of the job
+     */
+    public static void startCycle(long jobId, List<Metrics> metricsList) {
+        evict(jobId);
+        if (metricsList == null) {
+            return;
+        }
+        Set<String> familyNames = new HashSet<>();
+        for (Metrics metrics : metricsList) {
+            if (metrics.getHttp() != null
+                    && DispatchConstants.PARSE_PROMETHEUS.equals(metrics.getHttp().getParseType())) {
+                // the prometheus metrics group name is the metric family name
+                familyNames.add(metrics.getName());
+            }
+        }
+        if (!familyNames.isEmpty()) {
+            FAMILY_TABLE.put(jobId, familyNames);
+        }
+    }
+
+    /**
+     * bind the job of the metrics group collecting in current thread, unbind it after the collect
+     * @param jobId job id
+     */
+    public static void bindJob(long jobId) {
+        COLLECTING_JOB.set(jobId);
+    }
+
+    /**
+     * unbind the job of current thread
+     */
+    public static void unbindJob() {
+        COLLECTING_JOB.remove();
+    }
+
+    /**
+     * get the scrape result of the job bound to current thread, scrape directly when no job bound
+     * @param http http params of the metrics group
+     * @param scraper scrape and parse the exporter, input the metric family names to parse, null means all
+     * @return scrape result
+     */
+    public static ExporterScrapeResult getOrScrape(HttpProtocol http,
+                                                   Function<Set<String>, ExporterScrapeResult> scraper) {
+        Long jobId = COLLECTING_JOB.get();
+        if (jobId == null) {
+            return scraper.apply(null);
+        }
+        return getOrScrape(jobId, http, scraper);
+    }
+
+    /**
+     * get the scrape result of the job in current cycle, the first metrics group scrape and others wait it
+     * @param jobId job id
+     * @param http http params of the metrics group
+     * @param scraper scrape and parse the exporter, input the metric family names to parse, null means all
+     * @return scrape result
+     */
+    static ExporterScrapeResult getOrScrape(long jobId, HttpProtocol http,
+                                            Function<Set<String>, ExporterScrapeResult> scraper) {
+        // no recorded families when the cycle not start by dispatcher, parse all
+        Set<String> familyNames = FAMILY_TABLE.get(jobId);
+        ScrapeEntry entry = SCRAPE_TABLE.computeIfAbsent(jobId, key -> new ScrapeEntry(http));
+        if (!entry.http.equals(http)) {
+            // metrics groups of the job scrape different endpoints, not share
+            return scraper.apply(familyNames);
+        }
+        if (!entry.scraping.compareAndSet(false, true)) {
+            return entry.result.join();
+        }
+        ExporterScrapeResult result;
+        try {
+            result = scraper.apply(familyNames);
+        } catch (Exception e) {
+            result = ExporterScrapeResult.fail(CollectRep.Code.FAIL, CommonUtil.getMessageFromThrowable(e));
+        }
+        entry.result.complete(result);
+        return result;
+    }
+
+    /**
+     * evict the scrape result of the job, call when its collect cycle start and end
+     * @param jobId job id
+     */
+    public static void evict(long jobId) {
+        SCRAPE_TABLE.remove(jobId);
+        FAMILY_TABLE.remove(jobId);
+    }
+
+    private static class ScrapeEntry {
+
+        private final HttpProtocol http;
+
+        private final AtomicBoolean scraping = new AtomicBoolean();
+
+        private final CompletableFuture<ExporterScrapeResult> result = new CompletableFuture<>();
+
+        ScrapeEntry(HttpProtocol http) {
+            this.http = http;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.dromara.hertzbeat.collector.collect.http.promethus.exporter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 一次 prometheus exporter 抓取解析的结果, 由监控的所有指标组共享
+ * the result of one prometheus exporter scrape and parse, shared by all metrics groups of the monitor
+ */
+@Getter
+@AllArgsConstructor
+public class ExporterScrapeResult {
+
+    /**
+     * scrape code, not success when request or parse failed
+     */
+    private final CollectRep.Code code;
+
+    private final String msg;
+
+    /**
+     * key: metric family name
+     */
+    private final Map<String, MetricFamily> metricFamilies;
+
+    public static ExporterScrapeResult success(Map<String, MetricFamily> metricFamilies) {
+        return new ExporterScrapeResult(CollectRep.Code.SUCCESS, null, metricFamilies);
+    }
+
+    public static ExporterScrapeResult fail(CollectRep.Code code, String msg) {
+        return new ExporterScrapeResult(code, msg, Collections.emptyMap());
+    }
+}
@@ -26,6 +26,7 @@ import org.dromara.hertzbeat.common.entity.job.protocol.SnmpProtocol;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.util.CommonUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 import org.snmp4j.PDU;
 import org.snmp4j.Snmp;
@@ -43,7 +44,13 @@ import org.springframework.util.StringUtils;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Snmp protocol collection implementation
@@ -65,11 +72,40 @@ public class SnmpCollectImpl extends AbstractCollect {
                     "{2,choice,0#|1#1 minute, |1<{2,number,integer} minutes, }" +
                     "{3,choice,0#|1#1 second, |1<{3,number,integer} seconds }";
 
+    /**
+     * 解析目标地址与处理响应回调的线程数
+     */
+    private static final int CALLBACK_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * 目标地址解析(可能阻塞于dns)与响应回调在此线程池执行,不占用采集分发线程与snmp传输监听线程
+     */
+    private static final Executor CALLBACK_EXECUTOR = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS,
+            0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+            .setUncaughtExceptionHandler((thread, throwable) -> {
+                log.error("snmp collect callback executor has uncaughtException.");
+                log.error(throwable.getMessage(), throwable);
+            })
+            .setDaemon(true)
+            .setNameFormat("snmp-collect-callback-%d")
+            .build());
+
     private final Map<Integer, Snmp> versionSnmpService = new ConcurrentHashMap<>(3);
 
 
     @Override
     public void collect(CollectRep.MetricsData.Builder builder, long appId, String app, Metrics metrics) {
+        // the async collect always completes normally with the error set in builder
+        collectAsync(builder, appId, app, metrics).toCompletableFuture().join();
+    }
+
+    @Override
+    public boolean supportAsync(Metrics metrics) {
+        return true;
+    }
+
+    @Override
+    public CompletionStage<Void> collectAsync(CollectRep.MetricsData.Builder builder, long appId, String app, Metrics metrics) {
         long startTime = System.currentTimeMillis();
         // 校验参数
         try {
@@ -77,137 +113,180 @@ public class SnmpCollectImpl extends AbstractCollect {
         } catch (Exception e) {
             builder.setCode(CollectRep.Code.FAIL);
             builder.setMsg(e.getMessage());
-            return;
+            return CompletableFuture.completedFuture(null);
         }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        CALLBACK_EXECUTOR.execute(() -> send(builder, metrics, startTime, future));
+        return future;
+    }
+
+    private void send(CollectRep.MetricsData.Builder builder, Metrics metrics, long startTime, CompletableFuture<Void> future) {
         SnmpProtocol snmpProtocol = metrics.getSnmp();
-        int timeout = CollectUtil.getTimeout(snmpProtocol.getTimeout());
-        int snmpVersion = getSnmpVersion(snmpProtocol.getVersion());
         try {
+            Snmp snmpService = getSnmpService(getSnmpVersion(snmpProtocol.getVersion()));
             SnmpBuilder snmpBuilder = new SnmpBuilder();
-            Snmp snmpService = getSnmpService(snmpVersion);
-            Target<?> target;
             Address targetAddress = GenericAddress.parse(DEFAULT_PROTOCOL + ":" + snmpProtocol.getHost()
                     + "/" + snmpProtocol.getPort());
             TargetBuilder<?> targetBuilder = snmpBuilder.target(targetAddress);
-            if (snmpVersion == SnmpConstants.version3) {
-                target = targetBuilder
-                        .user(snmpProtocol.getUsername())
-                        .auth(TargetBuilder.AuthProtocol.hmac192sha256).authPassphrase(snmpProtocol.getAuthPassphrase())
-                        .priv(TargetBuilder.PrivProtocol.aes128).privPassphrase(snmpProtocol.getPrivPassphrase())
-                        .done()
-                        .timeout(timeout).retries(1)
-                        .build();
-            } else if (snmpVersion == SnmpConstants.version1) {
-                target = targetBuilder
-                        .v1()
-                        .community(new OctetString(snmpProtocol.getCommunity()))
-                        .timeout(timeout).retries(1)
-                        .build();
-                target.setSecurityModel(SecurityModel.SECURITY_MODEL_SNMPv1);
-            } else {
-                target = targetBuilder
-                        .v2c()
-                        .community(new OctetString(snmpProtocol.getCommunity()))
-                        .timeout(timeout).retries(1)
-                        .build();
-                target.setSecurityModel(SecurityModel.SECURITY_MODEL_SNMPv2c);
-            }
+            Target<?> target = buildTarget(targetBuilder, snmpProtocol);
             String operation = snmpProtocol.getOperation();
             operation = StringUtils.hasText(operation) ? operation : OPERATION_GET;
             if (OPERATION_GET.equalsIgnoreCase(operation)) {
                 PDU pdu = targetBuilder.pdu().type(PDU.GET).oids(snmpProtocol.getOids().values().toArray(new String[0])).build();
-                SnmpCompletableFuture snmpRequestFuture = SnmpCompletableFuture.send(snmpService, target, pdu);
-                List<VariableBinding> vbs = snmpRequestFuture.get().getAll();
-                long responseTime = System.currentTimeMillis() - startTime;
-                Map<String, String> oidsMap = snmpProtocol.getOids();
-                Map<String, String> oidsValueMap = new HashMap<>(oidsMap.size());
-                for (VariableBinding binding : vbs) {
-                    if (binding == null) {
-                        continue;
-                    }
-                    Variable variable = binding.getVariable();
-                    if (variable instanceof TimeTicks) {
-                        String value = ((TimeTicks) variable).toString(FORMAT_PATTERN);
-                        oidsValueMap.put(binding.getOid().toDottedString(), value);
-                    } else {
-                        oidsValueMap.put(binding.getOid().toDottedString(), binding.toValueString());
-                    }
-                }
-                CollectRep.ValueRow.Builder valueRowBuilder = CollectRep.ValueRow.newBuilder();
-                for (String alias : metrics.getAliasFields()) {
-                    if (CollectorConstants.RESPONSE_TIME.equalsIgnoreCase(alias)) {
-                        valueRowBuilder.addColumns(Long.toString(responseTime));
-                    } else {
-                        String oid = oidsMap.get(alias);
-                        String value = oidsValueMap.get(oid);
-                        if (value != null) {
-                            valueRowBuilder.addColumns(value);
+                SnmpCompletableFuture.send(snmpService, target, pdu).whenCompleteAsync((response, throwable) -> {
+                    try {
+                        if (throwable != null) {
+                            setConnectError(builder, throwable);
                         } else {
-                            valueRowBuilder.addColumns(CommonConstants.NULL_VALUE);
+                            parseGetResponse(response.getAll(), metrics, builder, System.currentTimeMillis() - startTime);
                         }
+                    } catch (Exception e) {
+                        setCollectError(builder, e);
                     }
-                }
-                builder.addValues(valueRowBuilder.build());
+                    future.complete(null);
+                }, CALLBACK_EXECUTOR);
             } else if (OPERATION_WALK.equalsIgnoreCase(operation)) {
                 Map<String, String> oidMap = snmpProtocol.getOids();
                 Assert.notEmpty(oidMap, "snmp oids is required when operation is walk.");
                 TableUtils tableUtils = new TableUtils(snmpService, new DefaultPDUFactory(PDU.GETBULK));
                 OID[] oids = oidMap.values().stream().map(OID::new).toArray(OID[]::new);
-                List<TableEvent> tableEvents = tableUtils.getTable(target, oids, null, null);
-                Assert.notNull(tableEvents, "snmp walk response empty content.");
-                long responseTime = System.currentTimeMillis() - startTime;
-                for (TableEvent tableEvent : tableEvents) {
-                    if (tableEvent == null || tableEvent.isError()) {
-                        continue;
+                tableUtils.getTable(target, oids, new WalkTableListener(tableEvents -> CALLBACK_EXECUTOR.execute(() -> {
+                    try {
+                        parseWalkResponse(tableEvents, metrics, builder, System.currentTimeMillis() - startTime);
+                    } catch (Exception e) {
+                        setCollectError(builder, e);
                     }
-                    VariableBinding[] varBindings = tableEvent.getColumns();
-                    Map<String, String> oidsValueMap = new HashMap<>(varBindings.length);
-                    for (VariableBinding binding : varBindings) {
-                        if (binding == null) {
-                            continue;
-                        }
-                        Variable variable = binding.getVariable();
-                        if (variable instanceof TimeTicks) {
-                            String value = ((TimeTicks) variable).toString(FORMAT_PATTERN);
-                            oidsValueMap.put(binding.getOid().trim().toDottedString(), value);
-                        } else {
-                            oidsValueMap.put(binding.getOid().trim().toDottedString(), bingdingHexValueToString(binding));
-                        }
-                    }
-                    // when too many empty value field, ignore
-                    if (oidsValueMap.size() < metrics.getAliasFields().size() / 2) {
-                        continue;
-                    }
-                    CollectRep.ValueRow.Builder valueRowBuilder = CollectRep.ValueRow.newBuilder();
-                    for (String alias : metrics.getAliasFields()) {
-                        if (CollectorConstants.RESPONSE_TIME.equalsIgnoreCase(alias)) {
-                            valueRowBuilder.addColumns(Long.toString(responseTime));
-                        } else {
-                            String oid = oidMap.get(alias);
-                            String value = oidsValueMap.get(oid);
-                            if (value != null) {
-                                valueRowBuilder.addColumns(value);
-                            } else {
-                                valueRowBuilder.addColumns(CommonConstants.NULL_VALUE);
-                            }
-                        }
+                    future.complete(null);
+                })), null, null, null);
+            } else {
+                future.complete(null);
+            }
+        } catch (Exception e) {
+            setCollectError(builder, e);
+            future.complete(null);
+        }
+    }
+
+    private Target<?> buildTarget(TargetBuilder<?> targetBuilder, SnmpProtocol snmpProtocol) {
+        int timeout = CollectUtil.getTimeout(snmpProtocol.getTimeout());
+        int snmpVersion = getSnmpVersion(snmpProtocol.getVersion());
+        Target<?> target;
+        if (snmpVersion == SnmpConstants.version3) {
+            target = targetBuilder
+                    .user(snmpProtocol.getUsername())
+                    .auth(TargetBuilder.AuthProtocol.hmac192sha256).authPassphrase(snmpProtocol.getAuthPassphrase())
+                    .priv(TargetBuilder.PrivProtocol.aes128).privPassphrase(snmpProtocol.getPrivPassphrase())
+                    .done()
+                    .timeout(timeout).retries(1)
+                    .build();
+        } else if (snmpVersion == SnmpConstants.version1) {
+            target = targetBuilder
+                    .v1()
+                    .community(new OctetString(snmpProtocol.getCommunity()))
+                    .timeout(timeout).retries(1)
+                    .build();
+            target.setSecurityModel(SecurityModel.SECURITY_MODEL_SNMPv1);
+        } else {
+            target = targetBuilder
+                    .v2c()
+                    .community(new OctetString(snmpProtocol.getCommunity()))
+                    .timeout(timeout).retries(1)
+                    .build();
+            target.setSecurityModel(SecurityModel.SECURITY_MODEL_SNMPv2c);
+        }
+        return target;
+    }
+
+    private void parseGetResponse(List<? extends VariableBinding> vbs, Metrics metrics,
+                                  CollectRep.MetricsData.Builder builder, long responseTime) {
+        Map<String, String> oidsMap = metrics.getSnmp().getOids();
+        Map<String, String> oidsValueMap = new HashMap<>(oidsMap.size());
+        for (VariableBinding binding : vbs) {
+            if (binding == null) {
+                continue;
+            }
+            Variable variable = binding.getVariable();
+            if (variable instanceof TimeTicks) {
+                String value = ((TimeTicks) variable).toString(FORMAT_PATTERN);
+                oidsValueMap.put(binding.getOid().toDottedString(), value);
+            } else {
+                oidsValueMap.put(binding.getOid().toDottedString(), binding.toValueString());
+            }
+        }
+        CollectRep.ValueRow.Builder valueRowBuilder = CollectRep.ValueRow.newBuilder();
+        for (String alias : metrics.getAliasFields()) {
+            if (CollectorConstants.RESPONSE_TIME.equalsIgnoreCase(alias)) {
+                valueRowBuilder.addColumns(Long.toString(responseTime));
+            } else {
+                String oid = oidsMap.get(alias);
+                String value = oidsValueMap.get(oid);
+                if (value != null) {
+                    valueRowBuilder.addColumns(value);
+                } else {
+                    valueRowBuilder.addColumns(CommonConstants.NULL_VALUE);
+                }
+            }
+        }
+        builder.addValues(valueRowBuilder.build());
+    }
+
+    private void parseWalkResponse(List<TableEvent> tableEvents, Metrics metrics,
+                                   CollectRep.MetricsData.Builder builder, long responseTime) {
+        Map<String, String> oidMap = metrics.getSnmp().getOids();
+        for (TableEvent tableEvent : tableEvents) {
+            if (tableEvent == null || tableEvent.isError()) {
+                continue;
+            }
+            VariableBinding[] varBindings = tableEvent.getColumns();
+            Map<String, String> oidsValueMap = new HashMap<>(varBindings.length);
+            for (VariableBinding binding : varBindings) {
+                if (binding == null) {
+                    continue;
+                }
+                Variable variable = binding.getVariable();
+                if (variable instanceof TimeTicks) {
+                    String value = ((TimeTicks) variable).toString(FORMAT_PATTERN);
+                    oidsValueMap.put(binding.getOid().trim().toDottedString(), value);
+                } else {
+                    oidsValueMap.put(binding.getOid().trim().toDottedString(), bingdingHexValueToString(binding));
+                }
+            }
+            // when too many empty value field, ignore
+            if (oidsValueMap.size() < metrics.getAliasFields().size() / 2) {
+                continue;
+            }
+            CollectRep.ValueRow.Builder valueRowBuilder = CollectRep.ValueRow.newBuilder();
+            for (String alias : metrics.getAliasFields()) {
+                if (CollectorConstants.RESPONSE_TIME.equalsIgnoreCase(alias)) {
+                    valueRowBuilder.addColumns(Long.toString(responseTime));
+                } else {
+                    String oid = oidMap.get(alias);
+                    String value = oidsValueMap.get(oid);
+                    if (value != null) {
+                        valueRowBuilder.addColumns(value);
+                    } else {
+                        valueRowBuilder.addColumns(CommonConstants.NULL_VALUE);
                     }
-                    builder.addValues(valueRowBuilder.build());
                 }
             }
-        } catch (ExecutionException | InterruptedException ex) {
-            String errorMsg = CommonUtil.getMessageFromThrowable(ex);
-            log.warn("[snmp collect] error: {}", errorMsg);
-            builder.setCode(CollectRep.Code.UN_CONNECTABLE);
-            builder.setMsg(errorMsg);
-        } catch (Exception e) {
-            String errorMsg = CommonUtil.getMessageFromThrowable(e);
-            log.warn("[snmp collect] error: {}", errorMsg, e);
-            builder.setCode(CollectRep.Code.FAIL);
-            builder.setMsg(errorMsg);
+            builder.addValues(valueRowBuilder.build());
         }
     }
 
+    private void setConnectError(CollectRep.MetricsData.Builder builder, Throwable throwable) {
+        String errorMsg = CommonUtil.getMessageFromThrowable(throwable);
+        log.warn("[snmp collect] error: {}", errorMsg);
+        builder.setCode(CollectRep.Code.UN_CONNECTABLE);
+        builder.setMsg(errorMsg);
+    }
+
+    private void setCollectError(CollectRep.MetricsData.Builder builder, Exception e) {
+        String errorMsg = CommonUtil.getMessageFromThrowable(e);
+        log.warn("[snmp collect] error: {}", errorMsg, e);
+        builder.setCode(CollectRep.Code.FAIL);
+        builder.setMsg(errorMsg);
+    }
+
     @Override
     public String supportProtocol() {
         return DispatchConstants.PROTOCOL_SNMP;
@@ -275,4 +354,47 @@ public class SnmpCollectImpl extends AbstractCollect {
             return hexString;
         }
     }
+
+    /**
+     * collect the walk table events as the blocking TableUtils.getTable, and call back when the walk finished
+     */
+    static class WalkTableListener implements TableListener {
+
+        private final List<TableEvent> tableEvents = new LinkedList<>();
+
+        private final Consumer<List<TableEvent>> callback;
+
+        private volatile boolean finished;
+
+        WalkTableListener(Consumer<List<TableEvent>> callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public synchronized boolean next(TableEvent event) {
+            tableEvents.add(event);
+            return true;
+        }
+
+        @Override
+        public void finished(TableEvent event) {
+            List<TableEvent> events;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                if (event.getStatus() != TableEvent.STATUS_OK || event.getIndex() != null) {
+                    tableEvents.add(event);
+                }
+                finished = true;
+                events = new ArrayList<>(tableEvents);
+            }
+            callback.accept(events);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+    }
 }
@@ -17,21 +17,21 @@
 
 package org.dromara.hertzbeat.collector.dispatch;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonElement;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterScrapeCache;
 import org.dromara.hertzbeat.collector.dispatch.entrance.internal.CollectJobService;
 import org.dromara.hertzbeat.collector.dispatch.timer.Timeout;
 import org.dromara.hertzbeat.collector.dispatch.timer.TimerDispatch;
 import org.dromara.hertzbeat.collector.dispatch.timer.WheelTimerTask;
 import org.dromara.hertzbeat.collector.dispatch.unit.UnitConvert;
-import org.dromara.hertzbeat.collector.util.CollectUtil;
 import org.dromara.hertzbeat.common.entity.job.Configmap;
 import org.dromara.hertzbeat.common.entity.job.Job;
 import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.SubTaskAggregator;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.queue.CommonDataQueue;
 import org.springframework.beans.factory.DisposableBean;
@@ -40,11 +40,10 @@ import org.springframework.stereotype.Component;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Indicator group collection task and response data scheduler
@@ -66,7 +65,6 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
      * 触发子任务最大数量
      */
     private static final int MAX_SUB_TASK_NUM = 50;
-    private static final Gson GSON = new Gson();
     /**
      * Priority queue of index group collection tasks
      * 指标组采集任务优先级队列
@@ -93,6 +91,12 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
     private final ThreadPoolExecutor poolExecutor;
 
     private final WorkerPool workerPool;
+
+    /**
+     * put the rejected metrics tasks back to queue after back-off, never block the dispatcher thread
+     * 退避后将被拒绝的指标组任务放回队列, 不阻塞调度线程
+     */
+    private final ScheduledThreadPoolExecutor redispatchExecutor;
     
     private final String collectorIdentity;
 
@@ -116,6 +120,14 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
             thread.setDaemon(true);
             return thread;
         });
+        redispatchExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("metrics-task-redispatcher has uncaughtException.");
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("metrics-task-redispatcher")
+                .build());
         this.start();
     }
 
@@ -130,21 +142,11 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
                     try {
                         metricsCollect = jobRequestQueue.getJob();
                         if (metricsCollect != null) {
-                            workerPool.executeJob(metricsCollect);
+                            workerPool.executeCollect(metricsCollect);
                         }
                     } catch (RejectedExecutionException rejected) {
-                        log.info("[Dispatcher]-the worker pool is full, reject this metrics task, " +
-                                "sleep and put in queue again.");
-                        try {
-                            Thread.sleep(1000);
-                            if (metricsCollect != null) {
-                                // 在队列里的优先级增大
-                                metricsCollect.setRunPriority((byte) (metricsCollect.getRunPriority() + 1));
-                                jobRequestQueue.addJob(metricsCollect);
-                            }
-                        } catch (InterruptedException ignored) {
-                            log.info("[Dispatcher]-metrics-task-dispatcher has been interrupt when sleep to close.");
-                            Thread.currentThread().interrupt();
+                        if (metricsCollect != null) {
+                            redispatchLater(metricsCollect);
                         }
                     } catch (InterruptedException interruptedException) {
                         log.info("[Dispatcher]-metrics-task-dispatcher has been interrupt to close.");
@@ -177,9 +179,12 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
                                         .setTime(System.currentTimeMillis())
                                         .setCode(CollectRep.Code.TIMEOUT).setMsg("collect timeout").build();
                                 log.error("[Collect Timeout]: \n{}", metricsData);
-                                if (metricsData.getPriority() == 0) {
+                                // a timeout sub task completes its part, the others' data are emitted without it
+                                // 子任务超时计为完成, 其余子任务数据部分上报
+                                if (metricsData.getPriority() == 0 || metricsTime.getMetrics().isHasSubTask()) {
                                     dispatchCollectData(metricsTime.timeout, metricsTime.getMetrics(), metricsData);
                                 }
+                                ExporterScrapeCache.evict(timerJob.getJob().getId());
                                 metricsTimeoutMonitorMap.remove(entry.getKey());
                             }
                         }
@@ -197,6 +202,23 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
         }
     }
 
+    private void redispatchLater(MetricsCollect metricsCollect) {
+        int rejectedTimes = metricsCollect.getRejectedTimes() + 1;
+        metricsCollect.setRejectedTimes(rejectedTimes);
+        long backoff = workerPool.rejectBackoff(rejectedTimes);
+        log.info("[Dispatcher]-the worker pool is full, reject this metrics task {} times, " +
+                "put in queue again after {}ms.", rejectedTimes, backoff);
+        try {
+            redispatchExecutor.schedule(() -> {
+                // 在队列里的优先级增大
+                metricsCollect.setRunPriority((byte) (metricsCollect.getRunPriority() + 1));
+                jobRequestQueue.addJob(metricsCollect);
+            }, backoff, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.info("[Dispatcher]-metrics-task-redispatcher is shutdown, discard the metrics task.");
+        }
+    }
+
     @Override
     public void dispatchMetricsTask(Timeout timeout) {
         // Divide the collection task of a single application into corresponding collection tasks of the indicator group according to the indicator group under it. AbstractCollect
@@ -205,6 +227,8 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
         // 将每个指标组放入线程池进行调度
         WheelTimerTask timerTask = (WheelTimerTask) timeout.task();
         Job job = timerTask.getJob();
+        // a new collect cycle, the metrics groups share one exporter scrape in it
+        ExporterScrapeCache.startCycle(job.getId(), job.getMetrics());
         job.constructPriorMetrics();
         Set<Metrics> metricsSet = job.getNextCollectMetrics(null, true);
         metricsSet.forEach(metrics -> {
@@ -224,7 +248,7 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
             metricsTimeoutMonitorMap.remove(job.getId() + "-" + metrics.getName() + "-sub-" + metrics.getSubTaskId());
             boolean isLastTask = metrics.consumeSubTaskResponse(metricsData);
             if (isLastTask) {
-                metricsData = metrics.getSubTaskDataRef().get();
+                metricsData = metrics.getSubTaskAggregator().build();
             } else {
                 return;
             }
@@ -257,22 +281,24 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
                 // 此Job所有指标组采集执行完成
                 // 周期性任务再次将任务push到时间轮
                 // 先判断此次任务执行时间与任务采集间隔时间
+                ExporterScrapeCache.evict(job.getId());
                 if (timeout.isCancelled()) {
                     return;
                 }
                 long spendTime = System.currentTimeMillis() - job.getDispatchTime();
-                long interval = job.getInterval() - spendTime / 1000;
+                long interval = TimeUnit.SECONDS.toMillis(job.getInterval()) - spendTime;
                 interval = interval <= 0 ? 0 : interval;
                 // Reset Construction Execution Metrics Group View  重置构造执行指标组视图
                 job.constructPriorMetrics();
-                timerDispatch.cyclicJob(timerJob, interval, TimeUnit.SECONDS);
+                timerDispatch.cyclicJob(timerJob, interval, TimeUnit.MILLISECONDS);
             } else if (!metricsSet.isEmpty()) {
                 // The execution of the current level indicator group is completed, and the execution of the next level indicator group starts
                 // 当前级别指标组执行完成，开始执行下一级别的指标组
                 // use pre collect metrics data to replace next metrics config params
                 List<Map<String, Configmap>> configmapList = getConfigmapFromPreCollectData(metricsData);
                 for (Metrics metricItem : metricsSet) {
-                    if (CollectionUtils.isEmpty(configmapList) || CollectUtil.notContainCryPlaceholder(GSON.toJsonTree(metricItem))) {
+                    MetricsTemplate template = CollectionUtils.isEmpty(configmapList) ? null : MetricsTemplate.of(metricItem);
+                    if (template == null || !template.hasPlaceholder()) {
                         MetricsCollect metricsCollect = new MetricsCollect(metricItem, timeout, this, 
                                 collectorIdentity, unitConvertList);
                         jobRequestQueue.addJob(metricsCollect);
@@ -282,16 +308,12 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
                     }
 
                     int subTaskNum = Math.min(configmapList.size(), MAX_SUB_TASK_NUM);
-                    AtomicInteger subTaskNumAtomic = new AtomicInteger(subTaskNum);
-                    AtomicReference<CollectRep.MetricsData> metricsDataReference = new AtomicReference<>();
+                    SubTaskAggregator subTaskAggregator = new SubTaskAggregator(subTaskNum);
                     for (int index = 0; index < subTaskNum; index++) {
                         Map<String, Configmap> configmap = configmapList.get(index);
-                        JsonElement metricJson = GSON.toJsonTree(metricItem);
-                        CollectUtil.replaceCryPlaceholder(metricJson, configmap);
-                        Metrics metric = GSON.fromJson(metricJson, Metrics.class);
-                        metric.setSubTaskNum(subTaskNumAtomic);
+                        Metrics metric = template.bind(metricItem, configmap);
                         metric.setSubTaskId(index);
-                        metric.setSubTaskDataRef(metricsDataReference);
+                        metric.setSubTaskAggregator(subTaskAggregator);
                         MetricsCollect metricsCollect = new MetricsCollect(metric, timeout, this,
                                 collectorIdentity, unitConvertList);
                         jobRequestQueue.addJob(metricsCollect);
@@ -325,6 +347,7 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
                 // and the result listener is notified of the combination of all indicator group data
                 // 此Job所有指标组采集执行完成
                 // 将所有指标组数据组合一起通知结果监听器
+                ExporterScrapeCache.evict(job.getId());
                 timerDispatch.responseSyncJobData(job.getId(), job.getResponseDataTemp());
             } else if (!metricsSet.isEmpty()) {
                 // The execution of the current level indicator group is completed, and the execution of the next level indicator group starts
@@ -372,6 +395,9 @@ public class CommonDispatcher implements MetricsTaskDispatch, CollectDataDispatc
         if (poolExecutor != null) {
             poolExecutor.shutdownNow();
         }
+        if (redispatchExecutor != null) {
+            redispatchExecutor.shutdownNow();
+        }
     }
     
     @Data
@@ -20,6 +20,9 @@ package org.dromara.hertzbeat.collector.dispatch;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Schedule Distribution Task Configuration Properties
  * 调度分发任务配置属性
@@ -40,6 +43,18 @@ public class DispatchProperties {
      */
     private ExportProperties export;
 
+    /**
+     * Collect task worker pool configuration properties
+     * 采集任务工作线程池配置属性
+     */
+    private WorkerProperties worker = new WorkerProperties();
+
+    /**
+     * Collect job timer configuration properties
+     * 采集任务时间轮配置属性
+     */
+    private TimerProperties timer = new TimerProperties();
+
     public EntranceProperties getEntrance() {
         return entrance;
     }
@@ -56,6 +71,22 @@ public class DispatchProperties {
         this.export = export;
     }
 
+    public WorkerProperties getWorker() {
+        return worker;
+    }
+
+    public void setWorker(WorkerProperties worker) {
+        this.worker = worker;
+    }
+
+    public TimerProperties getTimer() {
+        return timer;
+    }
+
+    public void setTimer(TimerProperties timer) {
+        this.timer = timer;
+    }
+
     /**
      * Scheduling entry configuration properties
      * The entry can be etcd information, http request, message middleware message request
@@ -234,6 +265,17 @@ public class DispatchProperties {
              * connect cluster master port
              */
             private int managerPort = 1158;
+
+            /**
+             * frame compression codec to manager: none, gzip, lz4, zstd, negotiated when connected.
+             * gzip-stream: the gzip stream without negotiation, for the older manager
+             */
+            private String compression = "gzip";
+
+            /**
+             * frames smaller than the threshold bytes are sent uncompressed
+             */
+            private int compressionThreshold = 1024;
             
             public boolean isEnabled() {
                 return enabled;
@@ -274,6 +316,22 @@ public class DispatchProperties {
             public void setManagerPort(int managerPort) {
                 this.managerPort = managerPort;
             }
+
+            public String getCompression() {
+                return compression;
+            }
+
+            public void setCompression(String compression) {
+                this.compression = compression;
+            }
+
+            public int getCompressionThreshold() {
+                return compressionThreshold;
+            }
+
+            public void setCompressionThreshold(int compressionThreshold) {
+                this.compressionThreshold = compressionThreshold;
+            }
         }
     }
 
@@ -289,6 +347,12 @@ public class DispatchProperties {
          */
         private KafkaProperties kafka;
 
+        /**
+         * netty data export configuration information
+         * netty数据出口配置信息
+         */
+        private NettyProperties netty = new NettyProperties();
+
         public KafkaProperties getKafka() {
             return kafka;
         }
@@ -297,6 +361,58 @@ public class DispatchProperties {
             this.kafka = kafka;
         }
 
+        public NettyProperties getNetty() {
+            return netty;
+        }
+
+        public void setNetty(NettyProperties netty) {
+            this.netty = netty;
+        }
+
+        public static class NettyProperties {
+            /**
+             * Max metrics data count in one batch frame, 1 means send every metrics data immediately
+             * 一个批量帧中最多的采集数据条数, 1表示每条采集数据立即发送
+             */
+            private int batchSize = 100;
+
+            /**
+             * Max millis the first metrics data waiting in batch before flush
+             * 批量中第一条采集数据等待发送的最长毫秒数
+             */
+            private long flushInterval = 100;
+
+            /**
+             * Max metrics data count waiting to be sent, send directly when it is full
+             * 等待发送的采集数据最大条数, 满后直接发送
+             */
+            private int queueCapacity = 10000;
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getFlushInterval() {
+                return flushInterval;
+            }
+
+            public void setFlushInterval(long flushInterval) {
+                this.flushInterval = flushInterval;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+
         public static class KafkaProperties {
             /**
              * Whether the kafka data export is started
@@ -340,4 +456,143 @@ public class DispatchProperties {
             }
         }
     }
+
+    /**
+     * Collect task worker pool configuration properties
+     * 采集任务工作线程池配置属性
+     */
+    public static class WorkerProperties {
+        /**
+         * Run the collect tasks in virtual threads on jdk21+, fallback to platform threads when not supported
+         * jdk21+ 使用虚拟线程执行采集任务, 不支持时使用平台线程
+         */
+        private boolean virtualThreads = false;
+
+        /**
+         * Core platform threads of the worker pool
+         * 工作线程池核心线程数
+         */
+        private int coreThreads = 100;
+
+        /**
+         * Max platform threads of the worker pool, the max running collect tasks in virtual threads mode
+         * 工作线程池最大线程数, 虚拟线程模式下为最大并发采集任务数
+         */
+        private int maxThreads = 800;
+
+        /**
+         * Max concurrent collect tasks of one protocol, 0 means no limit
+         * 单个协议的最大并发采集任务数, 0表示不限制
+         */
+        private int protocolMaxConcurrency = 0;
+
+        /**
+         * Max concurrent collect tasks of the protocols, override the protocolMaxConcurrency
+         * 指定协议的最大并发采集任务数, 覆盖 protocolMaxConcurrency
+         */
+        private Map<String, Integer> protocols = new HashMap<>(8);
+
+        /**
+         * Max millis of a rejected collect task waiting before dispatched again, doubled from 1/8 of it
+         * 被拒绝的采集任务重新调度前的最长等待毫秒数, 从其1/8开始倍增
+         */
+        private long maxRejectBackoff = 1000;
+
+        public boolean isVirtualThreads() {
+            return virtualThreads;
+        }
+
+        public void setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+        }
+
+        public int getCoreThreads() {
+            return coreThreads;
+        }
+
+        public void setCoreThreads(int coreThreads) {
+            this.coreThreads = coreThreads;
+        }
+
+        public int getMaxThreads() {
+            return maxThreads;
+        }
+
+        public void setMaxThreads(int maxThreads) {
+            this.maxThreads = maxThreads;
+        }
+
+        public int getProtocolMaxConcurrency() {
+            return protocolMaxConcurrency;
+        }
+
+        public void setProtocolMaxConcurrency(int protocolMaxConcurrency) {
+            this.protocolMaxConcurrency = protocolMaxConcurrency;
+        }
+
+        public Map<String, Integer> getProtocols() {
+            return protocols;
+        }
+
+        public void setProtocols(Map<String, Integer> protocols) {
+            this.protocols = protocols;
+        }
+
+        public long getMaxRejectBackoff() {
+            return maxRejectBackoff;
+        }
+
+        public void setMaxRejectBackoff(long maxRejectBackoff) {
+            this.maxRejectBackoff = maxRejectBackoff;
+        }
+    }
+
+    /**
+     * Collect job timer configuration properties
+     * 采集任务时间轮配置属性
+     */
+    public static class TimerProperties {
+        /**
+         * Spread the cyclic jobs over their interval by the job id hash and fire them at a fixed cadence,
+         * false fire the jobs an interval after the last collect completed
+         * 按任务ID哈希将周期任务分散在采集间隔内并以固定节奏触发, false则在上次采集完成后间隔一个周期触发
+         */
+        private boolean spread = false;
+
+        /**
+         * Millis of one wheel tick, the precision of the job fire time
+         * 时间轮一格的毫秒数, 即任务触发时间的精度
+         */
+        private long tickDuration = 10;
+
+        /**
+         * Ticks of the wheel
+         * 时间轮的格数
+         */
+        private int ticksPerWheel = 512;
+
+        public boolean isSpread() {
+            return spread;
+        }
+
+        public void setSpread(boolean spread) {
+            this.spread = spread;
+        }
+
+        public long getTickDuration() {
+            return tickDuration;
+        }
+
+        public void setTickDuration(long tickDuration) {
+            this.tickDuration = tickDuration;
+        }
+
+        public int getTicksPerWheel() {
+            return ticksPerWheel;
+        }
+
+        public void setTicksPerWheel(int ticksPerWheel) {
+            this.ticksPerWheel = ticksPerWheel;
+        }
+    }
 }
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.dispatch;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.Expression;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.unit.UnitConvert;
+import org.dromara.hertzbeat.collector.util.CollectUtil;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.util.CommonUtil;
+import org.dromara.hertzbeat.common.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compiled calculation plan of a metrics group definition
+ * 指标组定义编译后的计算计划
+ * the calculates expressions, unit conversions and alias field indices are resolved once per definition,
+ * so the per row calculation is index based without parsing or map lookups.
+ * plans are cached by the metrics definition, a changed definition compiles a new plan.
+ */
+@Slf4j
+public final class MetricsCalculatePlan {
+
+    /**
+     * max cached plans, the definitions of all monitoring types metrics groups
+     */
+    private static final int MAX_CACHED_PLANS = 4096;
+
+    private static final Map<PlanKey, MetricsCalculatePlan> PLAN_CACHE = new ConcurrentLinkedHashMap
+            .Builder<PlanKey, MetricsCalculatePlan>()
+            .maximumWeightedCapacity(MAX_CACHED_PLANS)
+            .build();
+
+    private final List<CollectRep.Field> repFields;
+
+    private final FieldPlan[] fieldPlans;
+
+    /**
+     * alias field index -> distinct alias slot, the same alias fields share one slot
+     */
+    private final int[] aliasSlots;
+
+    private final int slotCount;
+
+    private final List<UnitConvert> unitConvertList;
+
+    private MetricsCalculatePlan(Metrics metrics, List<UnitConvert> unitConvertList) {
+        this.unitConvertList = unitConvertList;
+        List<String> aliasFields = metrics.getAliasFields() == null ? Collections.emptyList() : metrics.getAliasFields();
+        Map<String, Integer> slotMap = new HashMap<>(aliasFields.size() * 2);
+        this.aliasSlots = new int[aliasFields.size()];
+        for (int i = 0; i < aliasFields.size(); i++) {
+            Integer slot = slotMap.get(aliasFields.get(i));
+            if (slot == null) {
+                slot = slotMap.size();
+                slotMap.put(aliasFields.get(i), slot);
+            }
+            aliasSlots[i] = slot;
+        }
+        this.slotCount = slotMap.size();
+        // eg: database_pages=Database pages unconventional mapping   非常规映射
+        Map<String, String> fieldAliasMap = new HashMap<>(8);
+        Map<String, Expression> fieldExpressionMap = new HashMap<>(8);
+        for (String cal : nullToEmpty(metrics.getCalculates())) {
+            int splitIndex = cal.indexOf("=");
+            String field = cal.substring(0, splitIndex).trim();
+            String expressionStr = cal.substring(splitIndex + 1).trim().replace("\\#", "#");
+            try {
+                fieldExpressionMap.put(field, AviatorEvaluator.compile(expressionStr, true));
+            } catch (Exception e) {
+                fieldAliasMap.put(field, expressionStr);
+            }
+        }
+        Map<String, Pair<String, String>> fieldUnitMap = new HashMap<>(8);
+        for (String unit : nullToEmpty(metrics.getUnits())) {
+            int equalIndex = unit.indexOf("=");
+            int arrowIndex = unit.indexOf("->");
+            if (equalIndex < 0 || arrowIndex < 0) {
+                continue;
+            }
+            fieldUnitMap.put(unit.substring(0, equalIndex).trim(),
+                    Pair.of(unit.substring(equalIndex + 1, arrowIndex).trim(), unit.substring(arrowIndex + 2).trim()));
+        }
+        List<Metrics.Field> fields = nullToEmpty(metrics.getFields());
+        List<CollectRep.Field> repFieldList = new ArrayList<>(fields.size());
+        this.fieldPlans = new FieldPlan[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            Metrics.Field field = fields.get(i);
+            CollectRep.Field.Builder fieldBuilder = CollectRep.Field.newBuilder();
+            fieldBuilder.setName(field.getField()).setType(field.getType());
+            if (field.getUnit() != null) {
+                fieldBuilder.setUnit(field.getUnit());
+            }
+            repFieldList.add(fieldBuilder.build());
+            String realField = field.getField();
+            Expression expression = fieldExpressionMap.get(realField);
+            String[] variables = null;
+            int[] variableSlots = null;
+            int valueSlot = -1;
+            if (expression != null) {
+                variables = expression.getVariableFullNames().toArray(new String[0]);
+                variableSlots = new int[variables.length];
+                for (int j = 0; j < variables.length; j++) {
+                    variableSlots[j] = slotMap.getOrDefault(variables[j], -1);
+                }
+            } else {
+                String aliasField = fieldAliasMap.getOrDefault(realField, realField);
+                valueSlot = slotMap.getOrDefault(aliasField, -1);
+            }
+            Pair<String, String> unitPair = fieldUnitMap.get(realField);
+            fieldPlans[i] = new FieldPlan(field.getType() == CommonConstants.TYPE_NUMBER, field.isInstance(),
+                    field.getUnit(), expression, variables, variableSlots, valueSlot, unitPair,
+                    unitPair == null ? null : matchUnitConverts(unitPair.getLeft(), unitPair.getRight()));
+        }
+        this.repFields = Collections.unmodifiableList(repFieldList);
+    }
+
+    /**
+     * get the compiled plan of the metrics definition, compile and cache it if absent or the definition changed
+     *
+     * @param app             monitoring type
+     * @param metrics         metrics group definition
+     * @param unitConvertList unit converts
+     * @return calculation plan
+     */
+    public static MetricsCalculatePlan of(String app, Metrics metrics, List<UnitConvert> unitConvertList) {
+        PlanKey key = new PlanKey(app, metrics);
+        MetricsCalculatePlan plan = PLAN_CACHE.get(key);
+        if (plan == null || plan.unitConvertList != unitConvertList) {
+            plan = new MetricsCalculatePlan(metrics, unitConvertList);
+            PLAN_CACHE.put(key, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * calculate the collected alias field rows to the metrics field rows, set fields and instance
+     * 将采集的别名字段行计算为指标字段行
+     *
+     * @param collectData collected data with alias field rows
+     */
+    public void calculate(CollectRep.MetricsData.Builder collectData) {
+        collectData.addAllFields(repFields);
+        List<CollectRep.ValueRow> aliasRowList = collectData.getValuesList();
+        if (aliasRowList == null || aliasRowList.isEmpty()) {
+            return;
+        }
+        collectData.clearValues();
+        String[] slotValues = new String[slotCount];
+        Map<String, Object> fieldValueMap = new HashMap<>(16);
+        StringBuilder instanceBuilder = new StringBuilder();
+        CollectRep.ValueRow.Builder realValueRowBuilder = CollectRep.ValueRow.newBuilder();
+        for (CollectRep.ValueRow aliasRow : aliasRowList) {
+            int columnCount = Math.min(aliasSlots.length, aliasRow.getColumnsCount());
+            for (int aliasIndex = 0; aliasIndex < columnCount; aliasIndex++) {
+                String aliasFieldValue = aliasRow.getColumns(aliasIndex);
+                if (!CommonConstants.NULL_VALUE.equals(aliasFieldValue)) {
+                    slotValues[aliasSlots[aliasIndex]] = aliasFieldValue;
+                }
+            }
+            for (FieldPlan fieldPlan : fieldPlans) {
+                String value = fieldPlan.calculate(slotValues, fieldValueMap, unitConvertList);
+                realValueRowBuilder.addColumns(value);
+                if (fieldPlan.instance && !CommonConstants.NULL_VALUE.equals(value)) {
+                    instanceBuilder.append(value);
+                }
+            }
+            // set instance
+            realValueRowBuilder.setInstance(instanceBuilder.toString());
+            collectData.addValues(realValueRowBuilder.build());
+            realValueRowBuilder.clear();
+            instanceBuilder.setLength(0);
+            Arrays.fill(slotValues, null);
+        }
+    }
+
+    private UnitConvert[] matchUnitConverts(String originUnit, String newUnit) {
+        List<UnitConvert> matched = new ArrayList<>(2);
+        if (unitConvertList != null) {
+            for (UnitConvert unitConvert : unitConvertList) {
+                if (unitConvert.checkUnit(originUnit) && unitConvert.checkUnit(newUnit)) {
+                    matched.add(unitConvert);
+                }
+            }
+        }
+        return matched.toArray(new UnitConvert[0]);
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list) {
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    /**
+     * compiled calculation of one metrics field
+     */
+    private static final class FieldPlan {
+
+        private final boolean number;
+        private final boolean instance;
+        private final String unit;
+        private final Expression expression;
+        private final String[] variables;
+        private final int[] variableSlots;
+        private final int valueSlot;
+        private final Pair<String, String> unitPair;
+        private final UnitConvert[] unitConverts;
+
+        private FieldPlan(boolean number, boolean instance, String unit, Expression expression, String[] variables,
+                          int[] variableSlots, int valueSlot, Pair<String, String> unitPair, UnitConvert[] unitConverts) {
+            this.number = number;
+            this.instance = instance;
+            this.unit = unit;
+            this.expression = expression;
+            this.variables = variables;
+            this.variableSlots = variableSlots;
+            this.valueSlot = valueSlot;
+            this.unitPair = unitPair;
+            this.unitConverts = unitConverts;
+        }
+
+        private String calculate(String[] slotValues, Map<String, Object> fieldValueMap, List<UnitConvert> unitConvertList) {
+            String value = null;
+            String aliasFieldUnit = null;
+            if (expression != null) {
+                // If there is a calculation expression, calculate the value
+                // 存在计算表达式 则计算值
+                for (int i = 0; i < variables.length; i++) {
+                    String strValue = variableSlots[i] < 0 ? null : slotValues[variableSlots[i]];
+                    if (number) {
+                        // extract double value and unit from aliasField value
+                        CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil.extractDoubleAndUnitFromStr(strValue);
+                        if (doubleAndUnit != null) {
+                            aliasFieldUnit = doubleAndUnit.getUnit();
+                            fieldValueMap.put(variables[i], doubleAndUnit.getValue());
+                        } else {
+                            fieldValueMap.put(variables[i], null);
+                        }
+                    } else {
+                        fieldValueMap.put(variables[i], strValue);
+                    }
+                }
+                try {
+                    // valueList为空时也执行,涵盖纯字符串赋值表达式
+                    Object objValue = expression.execute(fieldValueMap);
+                    if (objValue != null) {
+                        value = String.valueOf(objValue);
+                    }
+                } catch (Exception e) {
+                    log.info("[calculates execute warning] {}.", e.getMessage());
+                }
+                fieldValueMap.clear();
+            } else {
+                // does not exist then map the alias value
+                // 不存在 则映射别名值
+                value = valueSlot < 0 ? null : slotValues[valueSlot];
+                if (number && value != null) {
+                    CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil.extractDoubleAndUnitFromStr(value);
+                    value = String.valueOf(doubleAndUnit.getValue());
+                    aliasFieldUnit = doubleAndUnit.getUnit();
+                }
+            }
+            // 单位处理
+            if (value != null) {
+                if (aliasFieldUnit != null && unitPair != null) {
+                    // the value carries its own origin unit, eg: 34Mb
+                    value = convert(value, aliasFieldUnit, unitPair.getRight(), unitConvertList);
+                } else if (aliasFieldUnit != null && unit != null && !aliasFieldUnit.equalsIgnoreCase(unit)) {
+                    value = convert(value, aliasFieldUnit, unit, unitConvertList);
+                } else if (unitPair != null) {
+                    for (UnitConvert unitConvert : unitConverts) {
+                        value = unitConvert.convert(value, unitPair.getLeft(), unitPair.getRight());
+                    }
+                }
+            }
+            // Handle indicator values that may have units such as 34%, 34Mb, and limit values to 4 decimal places
+            // 处理可能带单位的指标数值 比如 34%, 34Mb，并将数值小数点限制到4位
+            if (number) {
+                value = CommonUtil.parseDoubleStr(value, unit);
+            }
+            return value == null ? CommonConstants.NULL_VALUE : value;
+        }
+
+        private String convert(String value, String originUnit, String newUnit, List<UnitConvert> unitConvertList) {
+            for (UnitConvert unitConvert : unitConvertList) {
+                if (unitConvert.checkUnit(originUnit) && unitConvert.checkUnit(newUnit)) {
+                    value = unitConvert.convert(value, originUnit, newUnit);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * cache key of the metrics definition, the plan is recompiled when any calculate related definition changes
+     */
+    private static final class PlanKey {
+
+        private final String app;
+        private final String name;
+        private final List<Metrics.Field> fields;
+        private final List<String> aliasFields;
+        private final List<String> calculates;
+        private final List<String> units;
+        private final int hash;
+
+        private PlanKey(String app, Metrics metrics) {
+            this.app = app;
+            this.name = metrics.getName();
+            this.fields = nullToEmpty(metrics.getFields());
+            this.aliasFields = nullToEmpty(metrics.getAliasFields());
+            this.calculates = nullToEmpty(metrics.getCalculates());
+            this.units = nullToEmpty(metrics.getUnits());
+            this.hash = Objects.hash(app, name, fields, aliasFields, calculates, units);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PlanKey)) {
+                return false;
+            }
+            PlanKey that = (PlanKey) o;
+            return hash == that.hash && Objects.equals(app, that.app) && Objects.equals(name, that.name)
+                    && fields.equals(that.fields) && aliasFields.equals(that.aliasFields)
+                    && calculates.equals(that.calculates) && units.equals(that.units);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
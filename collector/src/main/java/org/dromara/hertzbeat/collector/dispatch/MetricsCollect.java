@@ -17,28 +17,26 @@
 
 package org.dromara.hertzbeat.collector.dispatch;
 
-import com.googlecode.aviator.AviatorEvaluator;
-import com.googlecode.aviator.Expression;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.collector.collect.AbstractCollect;
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterScrapeCache;
 import org.dromara.hertzbeat.collector.collect.strategy.CollectStrategyFactory;
 import org.dromara.hertzbeat.collector.dispatch.timer.Timeout;
 import org.dromara.hertzbeat.collector.dispatch.timer.WheelTimerTask;
 import org.dromara.hertzbeat.collector.dispatch.unit.UnitConvert;
-import org.dromara.hertzbeat.collector.util.CollectUtil;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.job.Job;
 import org.dromara.hertzbeat.common.entity.job.Metrics;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
-import org.dromara.hertzbeat.common.util.CommonUtil;
-import org.dromara.hertzbeat.common.util.Pair;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Index group collection
@@ -60,6 +58,11 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
      * Tenant ID
      */
     protected long tenantId;
+    /**
+     * Job ID
+     * 任务ID
+     */
+    protected long jobId;
     /**
      * Monitor ID
      * 监控ID
@@ -106,6 +109,12 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
      */
     protected long startTime;
 
+    /**
+     * Times this task rejected by the worker pool, for the re-dispatch back-off
+     * 此任务被工作线程池拒绝的次数,用于重新调度的退避
+     */
+    protected int rejectedTimes;
+
     protected List<UnitConvert> unitConvertList;
 
     public MetricsCollect(Metrics metrics, Timeout timeout,
@@ -118,6 +127,7 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
         this.collectorIdentity = collectorIdentity;
         WheelTimerTask timerJob = (WheelTimerTask) timeout.task();
         Job job = timerJob.getJob();
+        this.jobId = job.getId();
         this.monitorId = job.getMonitorId();
         this.tenantId = job.getTenantId();
         this.app = job.getApp();
@@ -135,8 +145,17 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
 
     @Override
     public void run() {
+        runCollect();
+    }
+
+    /**
+     * Run the collect, the returned stage completes after the collect data dispatched
+     * 执行采集,返回的stage在采集数据分发后完成
+     *
+     * @return completion stage of this collect, completed already when it is a blocking collect
+     */
+    public CompletionStage<Void> runCollect() {
         this.startTime = System.currentTimeMillis();
-        setNewThreadName(monitorId, app, startTime, metrics);
         CollectRep.MetricsData.Builder response = CollectRep.MetricsData.newBuilder();
         response.setApp(app);
         response.setId(monitorId);
@@ -145,6 +164,12 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
         // According to the indicator group collection protocol, application type, etc., dispatch to the real application indicator group collection implementation class
         // 根据指标组采集协议,应用类型等来调度到真正的应用指标组采集实现类
         AbstractCollect abstractCollect = CollectStrategyFactory.invoke(metrics.getProtocol());
+        if (abstractCollect != null && abstractCollect.supportAsync(metrics)) {
+            // the non-blocking collect only sends the request here, the response is handled in its callback
+            // 非阻塞采集这里只发出请求,在回调中处理响应
+            return runAsync(abstractCollect, response);
+        }
+        setNewThreadName(monitorId, app, startTime, metrics);
         if (abstractCollect == null) {
             log.error("[Dispatcher] - not support this: app: {}, metrics: {}, protocol: {}.",
                     app, metrics.getName(), metrics.getProtocol());
@@ -152,20 +177,65 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
             response.setMsg("not support " + app + ", "
                     + metrics.getName() + ", " + metrics.getProtocol());
         } else {
+            // the metrics groups of this job share one exporter scrape in a collect cycle
+            ExporterScrapeCache.bindJob(jobId);
             try {
                 abstractCollect.collect(response, monitorId, app, metrics);
             } catch (Exception e) {
-                String msg = e.getMessage();
-                if (msg == null && e.getCause() != null) {
-                    msg = e.getCause().getMessage();
-                }
-                log.error("[Metrics Collect]: {}.", msg, e);
-                response.setCode(CollectRep.Code.FAIL);
-                if (msg != null) {
-                    response.setMsg(msg);
+                setCollectError(response, e);
+            } finally {
+                ExporterScrapeCache.unbindJob();
+            }
+        }
+        complete(response);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Whether this metrics is collected by the non-blocking collect, which does not need a worker thread
+     * 此指标组是否使用非阻塞采集,非阻塞采集不需要占用工作线程
+     *
+     * @return true when the collect implementation support async collect this metrics
+     */
+    public boolean isAsyncCollect() {
+        AbstractCollect abstractCollect = CollectStrategyFactory.invoke(metrics.getProtocol());
+        return abstractCollect != null && abstractCollect.supportAsync(metrics);
+    }
+
+    private CompletionStage<Void> runAsync(AbstractCollect abstractCollect, CollectRep.MetricsData.Builder response) {
+        CompletionStage<Void> stage;
+        try {
+            stage = abstractCollect.collectAsync(response, monitorId, app, metrics);
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+        return stage.handle((ignored, throwable) -> {
+            try {
+                if (throwable != null) {
+                    setCollectError(response, throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable);
                 }
+                complete(response);
+            } catch (Exception e) {
+                log.error("[Metrics Collect]: handle async collect response error: {}.", e.getMessage(), e);
             }
+            return null;
+        });
+    }
+
+    private void setCollectError(CollectRep.MetricsData.Builder response, Throwable e) {
+        String msg = e.getMessage();
+        if (msg == null && e.getCause() != null) {
+            msg = e.getCause().getMessage();
+        }
+        log.error("[Metrics Collect]: {}.", msg, e);
+        response.setCode(CollectRep.Code.FAIL);
+        if (msg != null) {
+            response.setMsg(msg);
         }
+    }
+
+    private void complete(CollectRep.MetricsData.Builder response) {
         // Alias attribute expression replacement calculation
         // 别名属性表达式替换计算
         if (fastFailed()) {
@@ -176,7 +246,6 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
         collectDataDispatch.dispatchCollectData(timeout, metrics, metricsData);
     }
 
-
     /**
      * Calculate the real indicator (fields) value according to the calculates and aliasFields configuration
      * Calculate instance value
@@ -189,183 +258,8 @@ public class MetricsCollect implements Runnable, Comparable<MetricsCollect> {
      */
     private void calculateFields(Metrics metrics, CollectRep.MetricsData.Builder collectData) {
         collectData.setPriority(metrics.getPriority());
-        List<CollectRep.Field> fieldList = new LinkedList<>();
-        for (Metrics.Field field : metrics.getFields()) {
-            CollectRep.Field.Builder fieldBuilder = CollectRep.Field.newBuilder();
-            fieldBuilder.setName(field.getField()).setType(field.getType());
-            if (field.getUnit() != null) {
-                fieldBuilder.setUnit(field.getUnit());
-            }
-            fieldList.add(fieldBuilder.build());
-        }
-        collectData.addAllFields(fieldList);
-        List<CollectRep.ValueRow> aliasRowList = collectData.getValuesList();
-        if (aliasRowList == null || aliasRowList.isEmpty()) {
-            return;
-        }
-        collectData.clearValues();
-        // Preprocess calculates first      先预处理 calculates
-        if (metrics.getCalculates() == null) {
-            metrics.setCalculates(Collections.emptyList());
-        }
-        // eg: database_pages=Database pages unconventional mapping   非常规映射
-        Map<String, String> fieldAliasMap = new HashMap<>(8);
-        Map<String, Expression> fieldExpressionMap = metrics.getCalculates()
-                .stream()
-                .map(cal -> transformCal(cal, fieldAliasMap))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(arr -> (String) arr[0], arr -> (Expression) arr[1], (oldValue, newValue) -> newValue));
-
-        if (metrics.getUnits() == null) {
-            metrics.setUnits(Collections.emptyList());
-        }
-        Map<String, Pair<String, String>> fieldUnitMap = metrics.getUnits()
-                .stream()
-                .map(this::transformUnit)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toMap(arr -> (String) arr[0], arr -> (Pair<String, String>) arr[1], (oldValue, newValue) -> newValue));
-
-        List<Metrics.Field> fields = metrics.getFields();
-        List<String> aliasFields = metrics.getAliasFields();
-        Map<String, String> aliasFieldValueMap = new HashMap<>(16);
-        Map<String, Object> fieldValueMap = new HashMap<>(16);
-        CollectRep.ValueRow.Builder realValueRowBuilder = CollectRep.ValueRow.newBuilder();
-        for (CollectRep.ValueRow aliasRow : aliasRowList) {
-            for (int aliasIndex = 0; aliasIndex < aliasFields.size(); aliasIndex++) {
-                String aliasFieldValue = aliasRow.getColumns(aliasIndex);
-                if (!CommonConstants.NULL_VALUE.equals(aliasFieldValue)) {
-                    aliasFieldValueMap.put(aliasFields.get(aliasIndex), aliasFieldValue);
-                }
-            }
-
-            StringBuilder instanceBuilder = new StringBuilder();
-            for (Metrics.Field field : fields) {
-                String realField = field.getField();
-                Expression expression = fieldExpressionMap.get(realField);
-                String value = null;
-                String aliasFieldUnit = null;
-                if (expression != null) {
-                    // If there is a calculation expression, calculate the value
-                    // 存在计算表达式 则计算值
-                    if (CommonConstants.TYPE_NUMBER == field.getType()) {
-                        for (String variable : expression.getVariableFullNames()) {
-                            // extract double value and unit from aliasField value
-                            CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil
-                                    .extractDoubleAndUnitFromStr(aliasFieldValueMap.get(variable));
-                            if (doubleAndUnit != null) {
-                                Double doubleValue = doubleAndUnit.getValue();
-                                aliasFieldUnit = doubleAndUnit.getUnit();
-                                fieldValueMap.put(variable, doubleValue);
-                            } else {
-                                fieldValueMap.put(variable, null);
-                            }
-                        }
-                    } else {
-                        for (String variable : expression.getVariableFullNames()) {
-                            String strValue = aliasFieldValueMap.get(variable);
-                            fieldValueMap.put(variable, strValue);
-                        }
-                    }
-                    try {
-                        // valueList为空时也执行,涵盖纯字符串赋值表达式
-                        Object objValue = expression.execute(fieldValueMap);
-                        if (objValue != null) {
-                            value = String.valueOf(objValue);
-                        }
-                    } catch (Exception e) {
-                        log.info("[calculates execute warning] {}.",  e.getMessage());
-                    }
-                } else {
-                    // does not exist then map the alias value
-                    // 不存在 则映射别名值
-                    String aliasField = fieldAliasMap.get(realField);
-                    if (aliasField != null) {
-                        value = aliasFieldValueMap.get(aliasField);
-                    } else {
-                        value = aliasFieldValueMap.get(realField);
-                    }
-                    if (CommonConstants.TYPE_NUMBER == field.getType() && value != null) {
-                        CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil
-                                .extractDoubleAndUnitFromStr(value);
-                        value = String.valueOf(doubleAndUnit.getValue());
-                        aliasFieldUnit = doubleAndUnit.getUnit();
-                    }
-                }
-                // 单位处理
-                Pair<String, String> unitPair = fieldUnitMap.get(realField);
-                if (aliasFieldUnit != null) {
-                    if (unitPair != null) {
-                        unitPair.setLeft(aliasFieldUnit);
-                    } else if (field.getUnit() != null && !aliasFieldUnit.equalsIgnoreCase(field.getUnit())) {
-                        unitPair = Pair.of(aliasFieldUnit, field.getUnit());
-                    }
-                }
-                if (value != null && unitPair != null) {
-                    for (UnitConvert unitConvert : unitConvertList) {
-                        if (unitConvert.checkUnit(unitPair.getLeft()) && unitConvert.checkUnit(unitPair.getRight())) {
-                            value = unitConvert.convert(value, unitPair.getLeft(), unitPair.getRight());
-                        }
-                    }
-                }
-                // Handle indicator values that may have units such as 34%, 34Mb, and limit values to 4 decimal places
-                // 处理可能带单位的指标数值 比如 34%, 34Mb，并将数值小数点限制到4位
-                if (CommonConstants.TYPE_NUMBER == field.getType()) {
-                    value = CommonUtil.parseDoubleStr(value, field.getUnit());
-                }
-                if (value == null) {
-                    value = CommonConstants.NULL_VALUE;
-                }
-                realValueRowBuilder.addColumns(value);
-                fieldValueMap.clear();
-                if (field.isInstance() && !CommonConstants.NULL_VALUE.equals(value)) {
-                    instanceBuilder.append(value);
-                }
-            }
-            aliasFieldValueMap.clear();
-            // set instance
-            realValueRowBuilder.setInstance(instanceBuilder.toString());
-            collectData.addValues(realValueRowBuilder.build());
-            realValueRowBuilder.clear();
-        }
-    }
-
-
-    /**
-     *
-     * @param cal
-     * @param fieldAliasMap
-     * @return
-     */
-    private Object[] transformCal(String cal, Map<String, String> fieldAliasMap) {
-        int splitIndex = cal.indexOf("=");
-        String field = cal.substring(0, splitIndex).trim();
-        String expressionStr = cal.substring(splitIndex + 1).trim().replace("\\#","#");
-        Expression expression;
-        try {
-            expression = AviatorEvaluator.compile(expressionStr, true);
-        } catch (Exception e) {
-            fieldAliasMap.put(field, expressionStr);
-            return null;
-        }
-        return new Object[]{field, expression};
-    }
-
-
-    /**
-     * transform unit
-     * @param unit
-     * @return
-     */
-    private Object[] transformUnit(String unit) {
-        int equalIndex = unit.indexOf("=");
-        int arrowIndex = unit.indexOf("->");
-        if (equalIndex < 0 || arrowIndex < 0) {
-            return null;
-        }
-        String field = unit.substring(0, equalIndex).trim();
-        String originUnit = unit.substring(equalIndex + 1, arrowIndex).trim();
-        String newUnit = unit.substring(arrowIndex + 2).trim();
-        return new Object[]{field, Pair.of(originUnit, newUnit)};
+        // the calculates, units and alias indices are compiled once per metrics definition
+        MetricsCalculatePlan.of(app, metrics, unitConvertList).calculate(collectData);
     }
 
     /**
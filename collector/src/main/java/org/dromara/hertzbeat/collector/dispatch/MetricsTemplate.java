@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.dispatch;
+
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import org.dromara.hertzbeat.collector.util.CollectUtil;
+import org.dromara.hertzbeat.common.entity.job.Configmap;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.util.MapCapUtil;
+import org.dromara.hertzbeat.common.util.ObjectCopyUtil;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled sub task template of a metrics group definition
+ * 指标组定义编译后的子任务模板
+ * the locations of the ^o^xxx^o^ placeholders are recorded once per definition,
+ * binding a sub task copies the metrics and its protocol objects shallowly and rebuilds only the strings,
+ * lists and maps on the placeholder paths, the other definition parts are shared read only by the sub tasks.
+ * the replacement is the same as {@link CollectUtil#replaceCryPlaceholder} on the json tree.
+ */
+public final class MetricsTemplate {
+
+    /**
+     * max cached templates, the definitions of all monitoring jobs metrics groups
+     */
+    private static final int MAX_CACHED_TEMPLATES = 4096;
+
+    private static final Map<TemplateKey, MetricsTemplate> TEMPLATE_CACHE = new ConcurrentLinkedHashMap
+            .Builder<TemplateKey, MetricsTemplate>()
+            .maximumWeightedCapacity(MAX_CACHED_TEMPLATES)
+            .build();
+
+    private final ObjectNode root;
+
+    private MetricsTemplate(Metrics metrics) {
+        this.root = (ObjectNode) compile(metrics, true);
+    }
+
+    /**
+     * get the compiled template of the metrics definition, compile and cache it if absent or the definition changed
+     *
+     * @param metrics metrics group definition
+     * @return template
+     */
+    public static MetricsTemplate of(Metrics metrics) {
+        TemplateKey key = new TemplateKey(metrics);
+        MetricsTemplate template = TEMPLATE_CACHE.get(key);
+        if (template == null || !template.root.matches(metrics)) {
+            template = new MetricsTemplate(metrics);
+            TEMPLATE_CACHE.put(key, template);
+        }
+        return template;
+    }
+
+    /**
+     * is the metrics definition contains cryPlaceholder
+     *
+     * @return true - contains
+     */
+    public boolean hasPlaceholder() {
+        return root.placeholder;
+    }
+
+    /**
+     * bind the params to a sub task metrics copy, the sub task fields are not set
+     * 使用参数生成子任务指标组副本
+     *
+     * @param source    metrics definition the template compiled from
+     * @param configmap params of the sub task
+     * @return sub task metrics
+     */
+    public Metrics bind(Metrics source, Map<String, Configmap> configmap) {
+        return (Metrics) root.bind(source, configmap);
+    }
+
+    private static Node compile(Object value, boolean copyObject) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof String) {
+            List<String> groups = CollectUtil.findCryPlaceholders((String) value);
+            return groups.isEmpty() ? null : new StringNode((String) value, groups);
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            List<Integer> indexes = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            for (int index = 0; index < list.size(); index++) {
+                Node child = compile(list.get(index), false);
+                if (child != null) {
+                    indexes.add(index);
+                    children.add(child);
+                }
+            }
+            return children.isEmpty() ? null : new ListNode(indexes, children);
+        }
+        if (value instanceof Map) {
+            List<Object> keys = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Node child = compile(entry.getValue(), false);
+                if (child != null) {
+                    keys.add(entry.getKey());
+                    children.add(child);
+                }
+            }
+            return children.isEmpty() ? null : new MapNode(keys, children);
+        }
+        if (ObjectCopyUtil.isCopyable(value.getClass())) {
+            // the metrics and the protocol objects are always copied, the entities in containers only on placeholder paths
+            List<Field> fields = new ArrayList<>();
+            List<Node> children = new ArrayList<>();
+            boolean placeholder = false;
+            for (Field field : ObjectCopyUtil.persistentFields(value.getClass())) {
+                Node child;
+                try {
+                    child = compile(field.get(value), copyObject);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (child != null) {
+                    fields.add(field);
+                    children.add(child);
+                    placeholder |= child.placeholder;
+                }
+            }
+            return placeholder || copyObject ? new ObjectNode(value.getClass(), fields, children, placeholder) : null;
+        }
+        return null;
+    }
+
+    private abstract static class Node {
+
+        final boolean placeholder;
+
+        Node(boolean placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        abstract Object bind(Object source, Map<String, Configmap> configmap);
+
+        /**
+         * is the value still the one the node compiled from
+         */
+        abstract boolean matches(Object source);
+    }
+
+    private static final class StringNode extends Node {
+
+        private final String template;
+
+        private final String[] groups;
+
+        private final String[] keys;
+
+        StringNode(String template, List<String> groups) {
+            super(true);
+            this.template = template;
+            this.groups = groups.toArray(new String[0]);
+            this.keys = new String[this.groups.length];
+            for (int index = 0; index < this.groups.length; index++) {
+                this.keys[index] = CollectUtil.cryPlaceholderKey(this.groups[index]);
+            }
+        }
+
+        @Override
+        Object bind(Object source, Map<String, Configmap> configmap) {
+            String value = template;
+            for (int index = 0; index < groups.length; index++) {
+                Configmap param = configmap.get(keys[index]);
+                if (param == null) {
+                    continue;
+                }
+                String group = groups[index];
+                if (param.getValue() == null) {
+                    if (group.length() == value.length()) {
+                        return null;
+                    }
+                    value = value.replace(group, "");
+                } else {
+                    value = value.replace(group, (String) param.getValue());
+                }
+            }
+            return value;
+        }
+
+        @Override
+        boolean matches(Object source) {
+            return template.equals(source);
+        }
+    }
+
+    private static final class ListNode extends Node {
+
+        private final int[] indexes;
+
+        private final Node[] children;
+
+        ListNode(List<Integer> indexes, List<Node> children) {
+            super(true);
+            this.indexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        Object bind(Object source, Map<String, Configmap> configmap) {
+            List<Object> list = new ArrayList<>((List<?>) source);
+            for (int index = 0; index < indexes.length; index++) {
+                list.set(indexes[index], children[index].bind(list.get(indexes[index]), configmap));
+            }
+            return list;
+        }
+
+        @Override
+        boolean matches(Object source) {
+            if (!(source instanceof List)) {
+                return false;
+            }
+            List<?> list = (List<?>) source;
+            for (int index = 0; index < indexes.length; index++) {
+                if (indexes[index] >= list.size() || !children[index].matches(list.get(indexes[index]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class MapNode extends Node {
+
+        private final Object[] keys;
+
+        private final Node[] children;
+
+        MapNode(List<Object> keys, List<Node> children) {
+            super(true);
+            this.keys = keys.toArray();
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        Object bind(Object source, Map<String, Configmap> configmap) {
+            Map<?, ?> sourceMap = (Map<?, ?>) source;
+            Map<Object, Object> map = new LinkedHashMap<>(MapCapUtil.calInitMap(sourceMap.size()));
+            map.putAll(sourceMap);
+            for (int index = 0; index < keys.length; index++) {
+                map.put(keys[index], children[index].bind(sourceMap.get(keys[index]), configmap));
+            }
+            return map;
+        }
+
+        @Override
+        boolean matches(Object source) {
+            if (!(source instanceof Map)) {
+                return false;
+            }
+            Map<?, ?> map = (Map<?, ?>) source;
+            for (int index = 0; index < keys.length; index++) {
+                if (!children[index].matches(map.get(keys[index]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class ObjectNode extends Node {
+
+        private final Class<?> type;
+
+        private final Field[] fields;
+
+        private final Node[] children;
+
+        ObjectNode(Class<?> type, List<Field> fields, List<Node> children, boolean placeholder) {
+            super(placeholder);
+            this.type = type;
+            this.fields = fields.toArray(new Field[0]);
+            this.children = children.toArray(new Node[0]);
+        }
+
+        @Override
+        Object bind(Object source, Map<String, Configmap> configmap) {
+            Object target = ObjectCopyUtil.shallowCopy(source);
+            try {
+                for (int index = 0; index < fields.length; index++) {
+                    fields[index].set(target, children[index].bind(fields[index].get(source), configmap));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            return target;
+        }
+
+        @Override
+        boolean matches(Object source) {
+            if (source == null || source.getClass() != type) {
+                return false;
+            }
+            try {
+                for (int index = 0; index < fields.length; index++) {
+                    if (!children[index].matches(fields[index].get(source))) {
+                        return false;
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * the metrics definition identity, the metrics equals by name only
+     */
+    private static final class TemplateKey {
+
+        private final Metrics metrics;
+
+        TemplateKey(Metrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof TemplateKey && ((TemplateKey) o).metrics == metrics;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(metrics);
+        }
+    }
+}
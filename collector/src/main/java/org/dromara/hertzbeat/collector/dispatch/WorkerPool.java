@@ -18,31 +18,73 @@
 package org.dromara.hertzbeat.collector.dispatch;
 
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Collection task worker thread pool
  * 采集任务工作线程池
+ * The collect tasks are admitted by the per protocol concurrency permits, the non-blocking collect tasks
+ * hold the permit until their response handled without a worker thread.
+ * 采集任务按协议并发许可准入, 非阻塞采集任务不占用工作线程, 持有许可直到响应处理完成
  */
 @Component
 @Slf4j
 public class WorkerPool implements DisposableBean {
 
-    private ThreadPoolExecutor workerExecutor;
+    private static final String UNKNOWN_PROTOCOL = "unknown";
 
-    public WorkerPool() {
+    /**
+     * the first back-off is 1/8 of the max back-off
+     */
+    private static final int MIN_BACKOFF_SHIFT = 3;
+
+    private static final String REJECT_POOL_FULL = "pool_full";
+
+    private static final String REJECT_PROTOCOL_LIMIT = "protocol_limit";
+
+    private final DispatchProperties.WorkerProperties properties;
+
+    private final Map<String, ProtocolAdmission> protocolAdmissions = new ConcurrentHashMap<>(16);
+
+    private ExecutorService workerExecutor;
+
+    /**
+     * running collect task permits in virtual threads mode, the platform threads pool is bounded by max threads
+     */
+    private Semaphore threadPermits;
+
+    public WorkerPool(DispatchProperties dispatchProperties) {
+        this.properties = dispatchProperties != null && dispatchProperties.getWorker() != null
+                ? dispatchProperties.getWorker() : new DispatchProperties.WorkerProperties();
         initWorkExecutor();
     }
 
     private void initWorkExecutor() {
+        if (properties.isVirtualThreads()) {
+            workerExecutor = virtualThreadExecutor();
+            if (workerExecutor != null) {
+                threadPermits = new Semaphore(Math.max(1, properties.getMaxThreads()));
+                log.info("collect worker pool runs in virtual threads, max running tasks {}.", properties.getMaxThreads());
+                return;
+            }
+        }
         // thread factory       线程工厂
         ThreadFactory threadFactory = new ThreadFactoryBuilder()
                 .setUncaughtExceptionHandler((thread, throwable) -> {
@@ -52,8 +94,9 @@ public class WorkerPool implements DisposableBean {
                 .setDaemon(true)
                 .setNameFormat("collect-worker-%d")
                 .build();
-        workerExecutor = new ThreadPoolExecutor(100,
-                800,
+        int maxThreads = Math.max(1, properties.getMaxThreads());
+        workerExecutor = new ThreadPoolExecutor(Math.min(properties.getCoreThreads(), maxThreads),
+                maxThreads,
                 10,
                 TimeUnit.SECONDS,
                 new SynchronousQueue<>(),
@@ -72,10 +115,141 @@ public class WorkerPool implements DisposableBean {
         workerExecutor.execute(runnable);
     }
 
+    /**
+     * Run the metrics collect task when its protocol and the pool have free permits,
+     * the non-blocking collect is started in the calling thread
+     * 协议和线程池有空闲许可时执行指标组采集任务, 非阻塞采集在调用线程中发起
+     *
+     * @param metricsCollect metrics collect task    指标组采集任务
+     * @throws RejectedExecutionException when the protocol permits or the thread pool full     协议许可或线程池满
+     */
+    public void executeCollect(MetricsCollect metricsCollect) throws RejectedExecutionException {
+        String protocol = metricsCollect.getMetrics().getProtocol();
+        ProtocolAdmission admission = protocolAdmissions.computeIfAbsent(
+                protocol == null ? UNKNOWN_PROTOCOL : protocol, ProtocolAdmission::new);
+        if (!admission.tryAcquire()) {
+            admission.reject(REJECT_PROTOCOL_LIMIT);
+            throw new RejectedExecutionException("the protocol " + protocol + " reach max concurrency.");
+        }
+        if (metricsCollect.isAsyncCollect()) {
+            admission.recordQueueWait(metricsCollect.getNewTime());
+            try {
+                metricsCollect.runCollect().whenComplete((ignored, throwable) -> admission.release());
+            } catch (Exception e) {
+                admission.release();
+                log.error("[Worker Pool] start async collect error: {}.", e.getMessage(), e);
+            }
+            return;
+        }
+        if (threadPermits != null && !threadPermits.tryAcquire()) {
+            admission.release();
+            admission.reject(REJECT_POOL_FULL);
+            throw new RejectedExecutionException("the worker pool reach max running tasks.");
+        }
+        try {
+            workerExecutor.execute(() -> {
+                admission.recordQueueWait(metricsCollect.getNewTime());
+                try {
+                    metricsCollect.run();
+                } finally {
+                    releaseThreadPermit();
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException rejected) {
+            releaseThreadPermit();
+            admission.release();
+            admission.reject(REJECT_POOL_FULL);
+            throw rejected;
+        }
+    }
+
+    /**
+     * The back-off millis before a rejected collect task dispatched again, doubled by the rejected times
+     * 被拒绝的采集任务重新调度前的退避毫秒数, 按拒绝次数倍增
+     *
+     * @param rejectedTimes rejected times of the task, start from 1     任务被拒绝次数
+     * @return back-off millis
+     */
+    public long rejectBackoff(int rejectedTimes) {
+        long maxBackoff = Math.max(1, properties.getMaxRejectBackoff());
+        long backoff = Math.max(1, maxBackoff >> MIN_BACKOFF_SHIFT);
+        int shift = Math.min(Math.max(0, rejectedTimes - 1), MIN_BACKOFF_SHIFT);
+        return Math.min(maxBackoff, backoff << shift);
+    }
+
+    private void releaseThreadPermit() {
+        if (threadPermits != null) {
+            threadPermits.release();
+        }
+    }
+
+    private ExecutorService virtualThreadExecutor() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "collect-worker-v-", 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (Exception e) {
+            log.warn("virtual threads are not supported in this jdk, collect worker pool fallback to platform threads.");
+            return null;
+        }
+    }
+
     @Override
     public void destroy() throws Exception {
         if (workerExecutor != null) {
             workerExecutor.shutdownNow();
         }
     }
+
+    /**
+     * the concurrency permits and metrics of one protocol
+     */
+    private class ProtocolAdmission {
+
+        private final String protocol;
+
+        private final Semaphore permits;
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        private final Timer queueWait;
+
+        ProtocolAdmission(String protocol) {
+            this.protocol = protocol;
+            int maxConcurrency = properties.getProtocols() == null ? properties.getProtocolMaxConcurrency()
+                    : properties.getProtocols().getOrDefault(protocol, properties.getProtocolMaxConcurrency());
+            this.permits = maxConcurrency > 0 ? new Semaphore(maxConcurrency) : null;
+            Tags tags = Tags.of("protocol", protocol);
+            Metrics.gauge("hertzbeat.collector.worker.inflight", tags, inflight);
+            this.queueWait = Timer.builder("hertzbeat.collector.worker.queue.wait").tags(tags)
+                    .register(Metrics.globalRegistry);
+        }
+
+        boolean tryAcquire() {
+            if (permits != null && !permits.tryAcquire()) {
+                return false;
+            }
+            inflight.incrementAndGet();
+            return true;
+        }
+
+        void release() {
+            inflight.decrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+
+        void recordQueueWait(long queuedTime) {
+            queueWait.record(Math.max(0, System.currentTimeMillis() - queuedTime), TimeUnit.MILLISECONDS);
+        }
+
+        void reject(String reason) {
+            Metrics.counter("hertzbeat.collector.worker.rejected", "protocol", protocol, "reason", reason).increment();
+        }
+    }
 }
@@ -17,6 +17,7 @@ import org.dromara.hertzbeat.remoting.RemotingClient;
 import org.dromara.hertzbeat.remoting.event.NettyEventListener;
 import org.dromara.hertzbeat.remoting.netty.NettyClientConfig;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingClient;
+import org.dromara.hertzbeat.remoting.netty.compress.CompressionType;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.Ordered;
@@ -38,6 +39,8 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class CollectServer implements CommandLineRunner {
 
+    private static final String GZIP_STREAM = "gzip-stream";
+
     private final CollectJobService collectJobService;
 
     private final TimerDispatch timerDispatch;
@@ -69,9 +72,11 @@ public class CollectServer implements CommandLineRunner {
         DispatchProperties.EntranceProperties.NettyProperties nettyProperties = properties.getEntrance().getNetty();
         nettyClientConfig.setServerHost(nettyProperties.getManagerHost());
         nettyClientConfig.setServerPort(nettyProperties.getManagerPort());
+        nettyClientConfig.setCompression(parseCompression(nettyProperties.getCompression()));
+        nettyClientConfig.setCompressionThreshold(nettyProperties.getCompressionThreshold());
         this.remotingClient = new NettyRemotingClient(nettyClientConfig, new CollectNettyEventListener(), threadPool);
 
-        this.remotingClient.registerProcessor(ClusterMsg.MessageType.HEARTBEAT, new HeartbeatProcessor());
+        this.remotingClient.registerProcessor(ClusterMsg.MessageType.HEARTBEAT, new HeartbeatProcessor(this));
         this.remotingClient.registerProcessor(ClusterMsg.MessageType.ISSUE_CYCLIC_TASK, new CollectCyclicDataProcessor(this));
         this.remotingClient.registerProcessor(ClusterMsg.MessageType.DELETE_CYCLIC_TASK, new DeleteCyclicTaskProcessor(this));
         this.remotingClient.registerProcessor(ClusterMsg.MessageType.ISSUE_ONE_TIME_TASK, new CollectOneTimeDataProcessor(this));
@@ -80,6 +85,18 @@ public class CollectServer implements CommandLineRunner {
         this.remotingClient.registerProcessor(ClusterMsg.MessageType.GO_CLOSE, new GoCloseProcessor(this));
     }
 
+    private CompressionType parseCompression(final String compression) {
+        if (GZIP_STREAM.equalsIgnoreCase(compression)) {
+            return null;
+        }
+        try {
+            return CompressionType.valueOf(compression.trim().toUpperCase());
+        } catch (Exception e) {
+            log.warn("unknown compression {}, use gzip.", compression);
+            return CompressionType.GZIP;
+        }
+    }
+
     public void shutdown() {
         this.scheduledExecutor.shutdownNow();
 
@@ -112,6 +129,9 @@ public class CollectServer implements CommandLineRunner {
                     // todo more info
                     .build();
             timerDispatch.goOnline();
+            // the manager may changed, renegotiate data features by heartbeat
+            CollectServer.this.collectJobService.setBinaryDataEnabled(false);
+            CollectServer.this.collectJobService.setBatchDataEnabled(false);
             // send online message
             ClusterMsg.Message message = ClusterMsg.Message.newBuilder()
                     .setIdentity(identity)
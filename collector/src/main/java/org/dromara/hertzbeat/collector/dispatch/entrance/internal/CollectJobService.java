@@ -28,6 +28,7 @@ import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.util.IpDomainUtil;
 import org.dromara.hertzbeat.common.util.JsonUtil;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.util.ProtoBatchUtil;
 import org.dromara.hertzbeat.common.util.ProtoJsonUtil;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -60,6 +61,16 @@ public class CollectJobService {
 
     private CollectServer collectServer;
 
+    /**
+     * whether the manager accept binary metrics data, negotiated by heartbeat
+     */
+    private volatile boolean binaryDataEnabled = false;
+
+    /**
+     * whether the manager accept batch metrics data frame, negotiated by heartbeat
+     */
+    private volatile boolean batchDataEnabled = false;
+
     public CollectJobService(TimerDispatch timerDispatch, DispatchProperties properties, WorkerPool workerPool) {
         this.timerDispatch = timerDispatch;
         this.workerPool = workerPool;
@@ -159,14 +170,44 @@ public class CollectJobService {
      * @param metricsData collect data
      */
     public void sendAsyncCollectData(CollectRep.MetricsData metricsData) {
-        String data = ProtoJsonUtil.toJsonStr(metricsData);
-        ClusterMsg.Message message = ClusterMsg.Message.newBuilder()
+        ClusterMsg.Message.Builder builder = ClusterMsg.Message.newBuilder()
                 .setIdentity(collectorIdentity)
-                .setMsg(data)
                 .setDirection(ClusterMsg.Direction.REQUEST)
-                .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA)
-                .build();
-        this.collectServer.sendMsg(message);
+                .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA);
+        if (binaryDataEnabled) {
+            builder.setData(metricsData.toByteString());
+        } else {
+            String data = ProtoJsonUtil.toJsonStr(metricsData);
+            if (data == null) {
+                return;
+            }
+            builder.setMsg(data);
+        }
+        this.collectServer.sendMsg(builder.build());
+    }
+
+    /**
+     * send async collect response data in one batch frame when manager support,
+     * otherwise send them one by one
+     *
+     * @param metricsDataList collect data
+     * @return sent frame count
+     */
+    public int sendAsyncCollectData(List<CollectRep.MetricsData> metricsDataList) {
+        if (metricsDataList.size() > 1 && binaryDataEnabled && batchDataEnabled) {
+            ClusterMsg.Message message = ClusterMsg.Message.newBuilder()
+                    .setIdentity(collectorIdentity)
+                    .setDirection(ClusterMsg.Direction.REQUEST)
+                    .setType(ClusterMsg.MessageType.RESPONSE_BATCH_CYCLIC_TASK_DATA)
+                    .setData(ProtoBatchUtil.toBatchBytes(metricsDataList))
+                    .build();
+            this.collectServer.sendMsg(message);
+            return 1;
+        }
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            sendAsyncCollectData(metricsData);
+        }
+        return metricsDataList.size();
     }
 
     public String getCollectorIdentity() {
@@ -177,6 +218,14 @@ public class CollectJobService {
         return mode;
     }
 
+    public void setBinaryDataEnabled(boolean binaryDataEnabled) {
+        this.binaryDataEnabled = binaryDataEnabled;
+    }
+
+    public void setBatchDataEnabled(boolean batchDataEnabled) {
+        this.batchDataEnabled = batchDataEnabled;
+    }
+
     public void setCollectServer(CollectServer collectServer) {
         this.collectServer = collectServer;
     }
@@ -2,17 +2,34 @@ package org.dromara.hertzbeat.collector.dispatch.entrance.processor;
 
 import io.netty.channel.ChannelHandlerContext;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.entrance.CollectServer;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * handle heartbeat message
  */
 @Slf4j
 public class HeartbeatProcessor implements NettyRemotingProcessor {
+
+    private final CollectServer collectServer;
+
+    public HeartbeatProcessor(final CollectServer collectServer) {
+        this.collectServer = collectServer;
+    }
+
     @Override
     public ClusterMsg.Message handle(ChannelHandlerContext ctx, ClusterMsg.Message message) {
         log.info("collector receive manager server response heartbeat, time: {}. ", System.currentTimeMillis());
+        // older manager response heartbeat without features, keep sending json data to it
+        Set<String> features = new HashSet<>(Arrays.asList(message.getMsg().split(CommonConstants.CLUSTER_FEATURE_SEPARATOR)));
+        collectServer.getCollectJobService().setBinaryDataEnabled(features.contains(CommonConstants.CLUSTER_FEATURE_BINARY_DATA));
+        collectServer.getCollectJobService().setBatchDataEnabled(features.contains(CommonConstants.CLUSTER_FEATURE_BATCH_DATA));
         return null;
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.dispatch.export;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.DispatchProperties;
+import org.dromara.hertzbeat.collector.dispatch.entrance.internal.CollectJobService;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.support.CommonThreadPool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * coalesce collect response data into batch frames sent to manager.
+ * a batch is flushed when it reaches batch size or its first data waited flush interval millis.
+ * 将采集数据合并为批量帧发送至管理端, 达到批量大小或首条数据等待超过刷新间隔时发送
+ */
+@Slf4j
+public class NettyDataBatchSender {
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000L;
+
+    private final CollectJobService collectJobService;
+
+    private final int batchSize;
+
+    private final long flushInterval;
+
+    private final LinkedBlockingQueue<CollectRep.MetricsData> dataQueue;
+
+    private final Counter recordCounter;
+
+    private final Counter frameCounter;
+
+    private final Counter overflowCounter;
+
+    private final DistributionSummary batchSizeSummary;
+
+    public NettyDataBatchSender(CollectJobService collectJobService,
+                                DispatchProperties.ExportProperties.NettyProperties properties) {
+        this.collectJobService = collectJobService;
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.flushInterval = Math.max(0, properties.getFlushInterval());
+        this.dataQueue = new LinkedBlockingQueue<>(Math.max(this.batchSize, properties.getQueueCapacity()));
+        this.recordCounter = Metrics.counter("hertzbeat.collector.export.records");
+        this.frameCounter = Metrics.counter("hertzbeat.collector.export.frames");
+        this.overflowCounter = Metrics.counter("hertzbeat.collector.export.overflow");
+        this.batchSizeSummary = DistributionSummary.builder("hertzbeat.collector.export.batch.size")
+                .description("metrics data count per flush")
+                .register(Metrics.globalRegistry);
+        Metrics.gauge("hertzbeat.collector.export.queue.size", dataQueue, LinkedBlockingQueue::size);
+    }
+
+    /**
+     * start the batch flush loop
+     * @param threadPool thread pool
+     */
+    public void start(CommonThreadPool threadPool) {
+        if (batchSize <= 1) {
+            return;
+        }
+        threadPool.execute(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    List<CollectRep.MetricsData> batch = pollBatch();
+                    if (!batch.isEmpty()) {
+                        flush(batch);
+                    }
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    log.error("netty data batch sender error: {}.", e.getMessage(), e);
+                }
+            }
+            // send the remaining data before exit
+            List<CollectRep.MetricsData> remaining = new ArrayList<>(dataQueue.size());
+            dataQueue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                flush(remaining);
+            }
+        });
+    }
+
+    /**
+     * add metrics data into batch, send directly when batch disabled or queue full
+     * @param metricsData collect data
+     */
+    public void send(CollectRep.MetricsData metricsData) {
+        if (batchSize <= 1) {
+            flush(Collections.singletonList(metricsData));
+            return;
+        }
+        if (!dataQueue.offer(metricsData)) {
+            overflowCounter.increment();
+            flush(Collections.singletonList(metricsData));
+        }
+    }
+
+    private List<CollectRep.MetricsData> pollBatch() throws InterruptedException {
+        CollectRep.MetricsData first = dataQueue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        List<CollectRep.MetricsData> batch = new ArrayList<>(batchSize);
+        batch.add(first);
+        long deadline = System.currentTimeMillis() + flushInterval;
+        while (batch.size() < batchSize) {
+            dataQueue.drainTo(batch, batchSize - batch.size());
+            long waitMillis = deadline - System.currentTimeMillis();
+            if (batch.size() >= batchSize || waitMillis <= 0) {
+                break;
+            }
+            CollectRep.MetricsData next = dataQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void flush(List<CollectRep.MetricsData> batch) {
+        int frames = collectJobService.sendAsyncCollectData(batch);
+        recordCounter.increment(batch.size());
+        frameCounter.increment(frames);
+        batchSizeSummary.record(batch.size());
+    }
+}
@@ -18,16 +18,18 @@
 package org.dromara.hertzbeat.collector.dispatch.export;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.DispatchProperties;
 import org.dromara.hertzbeat.collector.dispatch.entrance.internal.CollectJobService;
 import org.dromara.hertzbeat.common.entity.alerter.Alert;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.queue.CommonDataQueue;
+import org.dromara.hertzbeat.common.support.CommonThreadPool;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
 
 /**
  * for collector instance
- * send collect response data by netty 
+ * send collect response data by netty in batch frames
  * @author tom
  */
 @Configuration
@@ -35,10 +37,16 @@ import org.springframework.context.annotation.Configuration;
 @Slf4j
 public class NettyDataQueue implements CommonDataQueue {
     
-    private final CollectJobService collectJobService;
+    private final NettyDataBatchSender batchSender;
     
-    public NettyDataQueue(CollectJobService collectJobService) {
-        this.collectJobService = collectJobService;
+    public NettyDataQueue(CollectJobService collectJobService, DispatchProperties properties,
+                          CommonThreadPool threadPool) {
+        DispatchProperties.ExportProperties.NettyProperties nettyProperties =
+                properties.getExport() == null || properties.getExport().getNetty() == null
+                        ? new DispatchProperties.ExportProperties.NettyProperties()
+                        : properties.getExport().getNetty();
+        this.batchSender = new NettyDataBatchSender(collectJobService, nettyProperties);
+        this.batchSender.start(threadPool);
     }
 
     @Override
@@ -66,6 +74,6 @@ public class NettyDataQueue implements CommonDataQueue {
 
     @Override
     public void sendMetricsData(CollectRep.MetricsData metricsData) {
-        collectJobService.sendAsyncCollectData(metricsData);
+        batchSender.send(metricsData);
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.dispatch.timer;
+
+/**
+ * Spread the cyclic jobs over their interval by the job id hash.
+ * A job fires at the fixed cadence slots {@code k * interval + offset} of the epoch time,
+ * the offset is the job id hash in the interval, so the jobs with the same interval are evenly spread and
+ * the next fire time never drifts with the collect spend time.
+ * 周期性任务按任务ID哈希分散在其采集间隔内, 任务固定在纪元时间的 k * interval + offset 时刻触发, 不随采集耗时漂移
+ */
+public final class CyclicSchedule {
+
+    private CyclicSchedule() {
+    }
+
+    /**
+     * The fixed fire offset of the job in its interval
+     * 任务在其采集间隔内的固定触发偏移
+     *
+     * @param jobId          job id
+     * @param intervalMillis job interval millis
+     * @return offset millis in [0, intervalMillis)
+     */
+    public static long offset(long jobId, long intervalMillis) {
+        return Math.floorMod(mix(jobId), intervalMillis);
+    }
+
+    /**
+     * The delay millis to the first fire slot of the job after the time
+     * 距任务在此时间之后的第一个触发时刻的延迟毫秒数
+     *
+     * @param jobId          job id
+     * @param intervalMillis job interval millis
+     * @param now            current epoch millis
+     * @param after          the fire slot must be after this epoch millis, eg: the last fire time
+     * @return delay millis from now, in (0, intervalMillis] when after is now
+     */
+    public static long nextDelay(long jobId, long intervalMillis, long now, long after) {
+        long offset = offset(jobId, intervalMillis);
+        long base = Math.max(now, after);
+        long slot = Math.floorDiv(base - offset, intervalMillis) * intervalMillis + offset;
+        if (slot <= base) {
+            slot += intervalMillis;
+        }
+        return slot - now;
+    }
+
+    /**
+     * the splitmix64 finalizer, spread the sequential job ids
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -18,6 +18,7 @@
 package org.dromara.hertzbeat.collector.dispatch.timer;
 
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.collector.dispatch.DispatchProperties;
 import org.dromara.hertzbeat.collector.dispatch.entrance.internal.CollectResponseEventListener;
 import org.dromara.hertzbeat.common.entity.job.Job;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
@@ -64,13 +65,22 @@ public class TimerDispatcher implements TimerDispatch, DisposableBean {
      * is dispatcher online running
      */
     private final AtomicBoolean started;
+
+    /**
+     * spread the cyclic jobs over their interval by job id hash
+     * 按任务ID哈希将周期任务分散在采集间隔内
+     */
+    private final boolean spread;
     
-    public TimerDispatcher() {
+    public TimerDispatcher(DispatchProperties dispatchProperties) {
+        DispatchProperties.TimerProperties properties = dispatchProperties != null && dispatchProperties.getTimer() != null
+                ? dispatchProperties.getTimer() : new DispatchProperties.TimerProperties();
+        this.spread = properties.isSpread();
         this.wheelTimer = new HashedWheelTimer(r -> {
             Thread ret = new Thread(r, "wheelTimer");
             ret.setDaemon(true);
             return ret;
-        }, 1, TimeUnit.SECONDS, 512);
+        }, Math.max(1, properties.getTickDuration()), TimeUnit.MILLISECONDS, properties.getTicksPerWheel());
         this.currentCyclicTaskMap = new ConcurrentHashMap<>(64);
         this.currentTempTaskMap = new ConcurrentHashMap<>(8);
         this.eventListeners = new ConcurrentHashMap<>(8);
@@ -85,7 +95,9 @@ public class TimerDispatcher implements TimerDispatch, DisposableBean {
         }
         WheelTimerTask timerJob = new WheelTimerTask(addJob);
         if (addJob.isCyclic()) {
-            Timeout timeout = wheelTimer.newTimeout(timerJob, addJob.getInterval(), TimeUnit.SECONDS);
+            long now = System.currentTimeMillis();
+            long delay = spread ? spreadDelay(addJob, now, now) : TimeUnit.SECONDS.toMillis(addJob.getInterval());
+            Timeout timeout = wheelTimer.newTimeout(timerJob, delay, TimeUnit.MILLISECONDS);
             currentCyclicTaskMap.put(addJob.getId(), timeout);
         } else {
             Timeout timeout = wheelTimer.newTimeout(timerJob, 0, TimeUnit.SECONDS);
@@ -103,11 +115,27 @@ public class TimerDispatcher implements TimerDispatch, DisposableBean {
         Long jobId = timerTask.getJob().getId();
         // 判断此周期性job是否已经被取消
         if (currentCyclicTaskMap.containsKey(jobId)) {
-            Timeout timeout = wheelTimer.newTimeout(timerTask, interval, TimeUnit.SECONDS);
+            Timeout timeout;
+            if (spread) {
+                // the next cadence slot after this fire, skip the slots missed by the long collect instead of catch up
+                Job job = timerTask.getJob();
+                timeout = wheelTimer.newTimeout(timerTask, spreadDelay(job, System.currentTimeMillis(), job.getDispatchTime()),
+                        TimeUnit.MILLISECONDS);
+            } else {
+                timeout = wheelTimer.newTimeout(timerTask, interval, timeUnit);
+            }
             currentCyclicTaskMap.put(timerTask.getJob().getId(), timeout);
         }
     }
 
+    private long spreadDelay(Job job, long now, long after) {
+        long intervalMillis = TimeUnit.SECONDS.toMillis(job.getInterval());
+        if (intervalMillis <= 0) {
+            return 0;
+        }
+        return CyclicSchedule.nextDelay(job.getId(), intervalMillis, now, after);
+    }
+
     @Override
     public void deleteJob(long jobId, boolean isCyclic) {
         if (isCyclic) {
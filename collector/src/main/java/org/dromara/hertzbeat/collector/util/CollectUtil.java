@@ -25,7 +25,9 @@ import org.dromara.hertzbeat.common.entity.job.Configmap;
 import org.dromara.hertzbeat.common.entity.job.Metrics;
 import org.dromara.hertzbeat.common.util.JsonUtil;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -191,6 +193,38 @@ public class CollectUtil {
         return !containCryPlaceholder(jsonElement);
     }
 
+    /**
+     * find the cryPlaceholder groups in the value in order
+     * 查找值中的哭脸占位符
+     *
+     * @param value value
+     * @return placeholder groups, empty when not contains
+     */
+    public static List<String> findCryPlaceholders(String value) {
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        Matcher cryingMatcher = CRYING_PLACEHOLDER_REGEX_PATTERN.matcher(value);
+        List<String> groups = null;
+        while (cryingMatcher.find()) {
+            if (groups == null) {
+                groups = new ArrayList<>();
+            }
+            groups.add(cryingMatcher.group());
+        }
+        return groups == null ? Collections.emptyList() : groups;
+    }
+
+    /**
+     * the configmap key of the cryPlaceholder group
+     *
+     * @param group placeholder group eg: ^o^name^o^
+     * @return key eg: name
+     */
+    public static String cryPlaceholderKey(String group) {
+        return group.replaceAll(CRYING_PLACEHOLDER_REX, "");
+    }
+
     /**
      * json parameter replacement
      * json 参数替换
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.benchmark;
+
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.ExporterParser;
+import org.dromara.hertzbeat.collector.collect.http.promethus.exporter.MetricFamily;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark prometheus exporter parse of the node_exporter and kube-state-metrics shaped payloads:
+ * materialize the response as string then parse all families (the old scrape path),
+ * parse all families streaming from the bytes, parse only the monitor metrics groups families streaming.
+ * run with -prof gc to compare the allocation rate.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main ExporterParserBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExporterParserBenchmark {
+
+    @Param({"node_exporter", "kube_state_metrics"})
+    private String payload;
+
+    private byte[] bytes;
+
+    private Set<String> familyNames;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream inputStream = Objects.requireNonNull(
+                ExporterParserBenchmark.class.getResourceAsStream("/prometheus/" + payload + ".txt"))) {
+            bytes = inputStream.readAllBytes();
+        }
+        // the metrics groups of the hertzbeat node_exporter and kubernetes templates
+        familyNames = "node_exporter".equals(payload)
+                ? Set.of("node_cpu_seconds_total", "node_load1", "node_load5", "node_load15", "node_memory_MemTotal_bytes",
+                "node_memory_MemAvailable_bytes", "node_filesystem_size_bytes", "node_network_receive_bytes_total")
+                : Set.of("kube_pod_status_phase", "kube_node_status_condition", "kube_deployment_status_replicas_available");
+    }
+
+    @Benchmark
+    public Map<String, MetricFamily> stringParseAll() {
+        return new ExporterParser().textToMetric(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Map<String, MetricFamily> streamParseAll() throws IOException {
+        return new ExporterParser().parse(new ByteArrayInputStream(bytes), null);
+    }
+
+    @Benchmark
+    public Map<String, MetricFamily> streamParseRequested() throws IOException {
+        return new ExporterParser().parse(new ByteArrayInputStream(bytes), familyNames);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ExporterParserBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
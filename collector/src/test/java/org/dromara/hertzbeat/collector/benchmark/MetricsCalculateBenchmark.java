@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.benchmark;
+
+import com.googlecode.aviator.AviatorEvaluator;
+import com.googlecode.aviator.Expression;
+import org.dromara.hertzbeat.collector.dispatch.MetricsCalculatePlan;
+import org.dromara.hertzbeat.collector.dispatch.unit.UnitConvert;
+import org.dromara.hertzbeat.collector.dispatch.unit.impl.DataSizeConvert;
+import org.dromara.hertzbeat.collector.dispatch.unit.impl.TimeLengthConvert;
+import org.dromara.hertzbeat.collector.util.CollectUtil;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.util.CommonUtil;
+import org.dromara.hertzbeat.common.util.Pair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark metrics fields calculation, score is rows per millisecond:
+ * the legacy per run compile and map based calculation vs the cached compiled calculation plan.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main MetricsCalculateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsCalculateBenchmark {
+
+    private static final int ROWS = 256;
+
+    private final List<UnitConvert> unitConvertList = List.of(new DataSizeConvert(), new TimeLengthConvert());
+
+    private Metrics metrics;
+
+    private CollectRep.MetricsData collected;
+
+    @Setup
+    public void setup() {
+        // the shape of the linux interface and disk metrics groups
+        List<Metrics.Field> fields = new ArrayList<>();
+        fields.add(new Metrics.Field("interface_name", null, CommonConstants.TYPE_STRING, true, null));
+        fields.add(new Metrics.Field("receive_bytes", null, CommonConstants.TYPE_NUMBER, false, "Mb"));
+        fields.add(new Metrics.Field("transmit_bytes", null, CommonConstants.TYPE_NUMBER, false, "Mb"));
+        fields.add(new Metrics.Field("receive_packets", null, CommonConstants.TYPE_NUMBER, false, null));
+        fields.add(new Metrics.Field("transmit_packets", null, CommonConstants.TYPE_NUMBER, false, null));
+        fields.add(new Metrics.Field("usage", null, CommonConstants.TYPE_NUMBER, false, "%"));
+        fields.add(new Metrics.Field("state", null, CommonConstants.TYPE_STRING, false, null));
+        metrics = Metrics.builder()
+                .name("interface")
+                .fields(fields)
+                .aliasFields(List.of("interface_name", "receive_bytes", "transmit_bytes", "receive_packets",
+                        "transmit_packets", "used", "total", "state"))
+                .calculates(List.of("usage=used / total * 100"))
+                .units(List.of("receive_bytes=B->MB", "transmit_bytes=B->MB"))
+                .build();
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder().setMetrics("interface").setPriority(1);
+        for (int i = 0; i < ROWS; i++) {
+            builder.addValues(CollectRep.ValueRow.newBuilder()
+                    .addColumns("eth" + i).addColumns(String.valueOf(123456789L * i)).addColumns(String.valueOf(987654321L + i))
+                    .addColumns(String.valueOf(1000L * i)).addColumns(String.valueOf(2000L + i))
+                    .addColumns(String.valueOf(i)).addColumns("256").addColumns("up").build());
+        }
+        collected = builder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public CollectRep.MetricsData.Builder legacyCalculate() {
+        CollectRep.MetricsData.Builder builder = collected.toBuilder();
+        legacyCalculateFields(metrics, builder);
+        return builder;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public CollectRep.MetricsData.Builder planCalculate() {
+        CollectRep.MetricsData.Builder builder = collected.toBuilder();
+        MetricsCalculatePlan.of("linux", metrics, unitConvertList).calculate(builder);
+        return builder;
+    }
+
+    /**
+     * the calculation before the compiled plan, kept here as the benchmark baseline
+     */
+    private void legacyCalculateFields(Metrics metrics, CollectRep.MetricsData.Builder collectData) {
+        for (Metrics.Field field : metrics.getFields()) {
+            CollectRep.Field.Builder fieldBuilder = CollectRep.Field.newBuilder();
+            fieldBuilder.setName(field.getField()).setType(field.getType());
+            if (field.getUnit() != null) {
+                fieldBuilder.setUnit(field.getUnit());
+            }
+            collectData.addFields(fieldBuilder.build());
+        }
+        List<CollectRep.ValueRow> aliasRowList = collectData.getValuesList();
+        collectData.clearValues();
+        Map<String, String> fieldAliasMap = new HashMap<>(8);
+        Map<String, Expression> fieldExpressionMap = new HashMap<>(8);
+        for (String cal : metrics.getCalculates()) {
+            int splitIndex = cal.indexOf("=");
+            String expressionStr = cal.substring(splitIndex + 1).trim().replace("\\#", "#");
+            try {
+                fieldExpressionMap.put(cal.substring(0, splitIndex).trim(), AviatorEvaluator.compile(expressionStr, true));
+            } catch (Exception e) {
+                fieldAliasMap.put(cal.substring(0, splitIndex).trim(), expressionStr);
+            }
+        }
+        Map<String, Pair<String, String>> fieldUnitMap = new HashMap<>(8);
+        for (String unit : metrics.getUnits()) {
+            int equalIndex = unit.indexOf("=");
+            int arrowIndex = unit.indexOf("->");
+            fieldUnitMap.put(unit.substring(0, equalIndex).trim(),
+                    Pair.of(unit.substring(equalIndex + 1, arrowIndex).trim(), unit.substring(arrowIndex + 2).trim()));
+        }
+        List<String> aliasFields = metrics.getAliasFields();
+        Map<String, String> aliasFieldValueMap = new HashMap<>(16);
+        Map<String, Object> fieldValueMap = new HashMap<>(16);
+        CollectRep.ValueRow.Builder realValueRowBuilder = CollectRep.ValueRow.newBuilder();
+        for (CollectRep.ValueRow aliasRow : aliasRowList) {
+            for (int aliasIndex = 0; aliasIndex < aliasFields.size(); aliasIndex++) {
+                String aliasFieldValue = aliasRow.getColumns(aliasIndex);
+                if (!CommonConstants.NULL_VALUE.equals(aliasFieldValue)) {
+                    aliasFieldValueMap.put(aliasFields.get(aliasIndex), aliasFieldValue);
+                }
+            }
+            StringBuilder instanceBuilder = new StringBuilder();
+            for (Metrics.Field field : metrics.getFields()) {
+                String realField = field.getField();
+                Expression expression = fieldExpressionMap.get(realField);
+                String value = null;
+                String aliasFieldUnit = null;
+                if (expression != null) {
+                    for (String variable : expression.getVariableFullNames()) {
+                        CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil
+                                .extractDoubleAndUnitFromStr(aliasFieldValueMap.get(variable));
+                        if (doubleAndUnit != null) {
+                            aliasFieldUnit = doubleAndUnit.getUnit();
+                            fieldValueMap.put(variable, doubleAndUnit.getValue());
+                        } else {
+                            fieldValueMap.put(variable, null);
+                        }
+                    }
+                    Object objValue = expression.execute(fieldValueMap);
+                    if (objValue != null) {
+                        value = String.valueOf(objValue);
+                    }
+                } else {
+                    String aliasField = fieldAliasMap.get(realField);
+                    value = aliasFieldValueMap.get(aliasField != null ? aliasField : realField);
+                    if (CommonConstants.TYPE_NUMBER == field.getType() && value != null) {
+                        CollectUtil.DoubleAndUnit doubleAndUnit = CollectUtil.extractDoubleAndUnitFromStr(value);
+                        value = String.valueOf(doubleAndUnit.getValue());
+                        aliasFieldUnit = doubleAndUnit.getUnit();
+                    }
+                }
+                Pair<String, String> unitPair = fieldUnitMap.get(realField);
+                if (aliasFieldUnit != null && unitPair == null && field.getUnit() != null
+                        && !aliasFieldUnit.equalsIgnoreCase(field.getUnit())) {
+                    unitPair = Pair.of(aliasFieldUnit, field.getUnit());
+                }
+                if (value != null && unitPair != null) {
+                    for (UnitConvert unitConvert : unitConvertList) {
+                        if (unitConvert.checkUnit(unitPair.getLeft()) && unitConvert.checkUnit(unitPair.getRight())) {
+                            value = unitConvert.convert(value, unitPair.getLeft(), unitPair.getRight());
+                        }
+                    }
+                }
+                if (CommonConstants.TYPE_NUMBER == field.getType()) {
+                    value = CommonUtil.parseDoubleStr(value, field.getUnit());
+                }
+                if (value == null) {
+                    value = CommonConstants.NULL_VALUE;
+                }
+                realValueRowBuilder.addColumns(value);
+                fieldValueMap.clear();
+                if (field.isInstance() && !CommonConstants.NULL_VALUE.equals(value)) {
+                    instanceBuilder.append(value);
+                }
+            }
+            aliasFieldValueMap.clear();
+            realValueRowBuilder.setInstance(instanceBuilder.toString());
+            collectData.addValues(realValueRowBuilder.build());
+            realValueRowBuilder.clear();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MetricsCalculateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
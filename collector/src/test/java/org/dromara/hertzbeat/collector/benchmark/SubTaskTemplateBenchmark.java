@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.dromara.hertzbeat.collector.dispatch.MetricsTemplate;
+import org.dromara.hertzbeat.collector.util.CollectUtil;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.job.Configmap;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.JdbcProtocol;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark sub task metrics creation, score is nanoseconds per sub task:
+ * the legacy gson tree copy and placeholder replacement vs the compiled metrics template binding.
+ * run with -prof gc to compare the allocation per sub task.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main SubTaskTemplateBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubTaskTemplateBenchmark {
+
+    private static final int SUB_TASKS = 50;
+
+    private static final Gson GSON = new Gson();
+
+    private Metrics metrics;
+
+    private List<Map<String, Configmap>> configmapList;
+
+    @Setup
+    public void setup() {
+        // the shape of the mysql / postgresql per database table space metrics group
+        List<Metrics.Field> fields = new ArrayList<>();
+        fields.add(new Metrics.Field("database", null, CommonConstants.TYPE_STRING, true, null));
+        fields.add(new Metrics.Field("table_name", null, CommonConstants.TYPE_STRING, true, null));
+        fields.add(new Metrics.Field("rows", null, CommonConstants.TYPE_NUMBER, false, null));
+        fields.add(new Metrics.Field("data_size", null, CommonConstants.TYPE_NUMBER, false, "MB"));
+        fields.add(new Metrics.Field("index_size", null, CommonConstants.TYPE_NUMBER, false, "MB"));
+        JdbcProtocol jdbc = JdbcProtocol.builder()
+                .host("127.0.0.1").port("3306").platform("mysql").username("root").password("123456")
+                .database("^o^database^o^").timeout("6000").queryType("multiRow")
+                .sql("select table_name, table_rows as rows, data_length as data_size, index_length as index_size "
+                        + "from information_schema.tables where table_schema = '^o^database^o^'")
+                .build();
+        metrics = Metrics.builder()
+                .name("tables")
+                .protocol("jdbc")
+                .priority((byte) 1)
+                .fields(fields)
+                .aliasFields(List.of("database", "table_name", "rows", "data_size", "index_size"))
+                .units(List.of("data_size=B->MB", "index_size=B->MB"))
+                .jdbc(jdbc)
+                .build();
+        configmapList = new ArrayList<>(SUB_TASKS);
+        for (int i = 0; i < SUB_TASKS; i++) {
+            Map<String, Configmap> configmap = new HashMap<>(4);
+            configmap.put("database", new Configmap("database", "db_" + i, CommonConstants.TYPE_STRING));
+            configmap.put("size", new Configmap("size", String.valueOf(i), CommonConstants.TYPE_STRING));
+            configmapList.add(configmap);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SUB_TASKS)
+    public void legacyJsonCopy(Blackhole blackhole) {
+        if (CollectUtil.notContainCryPlaceholder(GSON.toJsonTree(metrics))) {
+            return;
+        }
+        for (Map<String, Configmap> configmap : configmapList) {
+            JsonElement metricJson = GSON.toJsonTree(metrics);
+            CollectUtil.replaceCryPlaceholder(metricJson, configmap);
+            blackhole.consume(GSON.fromJson(metricJson, Metrics.class));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SUB_TASKS)
+    public void templateBind(Blackhole blackhole) {
+        MetricsTemplate template = MetricsTemplate.of(metrics);
+        if (!template.hasPlaceholder()) {
+            return;
+        }
+        for (Map<String, Configmap> configmap : configmapList) {
+            blackhole.consume(template.bind(metrics, configmap));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SubTaskTemplateBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.benchmark;
+
+import org.dromara.hertzbeat.collector.dispatch.timer.CyclicSchedule;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayDeque;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark the worker queue depth of the cyclic collect jobs in a simulated 10 minutes:
+ * aligned, the legacy 1 second tick wheel re-arm jobs with interval - spendTime / 1000 seconds,
+ * spread, the 10 millis tick wheel fire jobs at the job id hash cadence slots.
+ * 5000 jobs of 30s interval are added in the first second as a collector reconnected, 50 workers collect
+ * each job in 50-350ms. the secondary results are the queue depth variance, mean and max sampled every tick.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main TimerSpreadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+public class TimerSpreadBenchmark {
+
+    private static final int JOBS = 5000;
+
+    private static final long INTERVAL = 30_000L;
+
+    private static final int WORKERS = 50;
+
+    private static final long MIN_SPEND = 50;
+
+    private static final long MAX_SPEND = 350;
+
+    private static final long DURATION = 600_000L;
+
+    private static final long SAMPLE_TICK = 10;
+
+    private static final long LEGACY_TICK = 1000;
+
+    private static final long EPOCH = 1_700_000_000_000L;
+
+    @Param({"aligned", "spread"})
+    private String mode;
+
+    private long[] jobIds;
+
+    private long[] addTimes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        jobIds = new long[JOBS];
+        addTimes = new long[JOBS];
+        for (int i = 0; i < JOBS; i++) {
+            jobIds[i] = 1_000_000L + i;
+            addTimes[i] = random.nextInt((int) LEGACY_TICK);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class QueueDepth {
+
+        public double variance;
+
+        public double mean;
+
+        public long max;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            variance = 0;
+            mean = 0;
+            max = 0;
+        }
+    }
+
+    @Benchmark
+    public void simulate(QueueDepth depth) {
+        boolean spread = "spread".equals(mode);
+        long tick = spread ? SAMPLE_TICK : LEGACY_TICK;
+        Random random = new Random(11);
+        // {fire time, job index}
+        PriorityQueue<long[]> fires = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        // {finish time, job index, fire time}
+        PriorityQueue<long[]> running = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        ArrayDeque<long[]> queue = new ArrayDeque<>();
+        for (int i = 0; i < JOBS; i++) {
+            long now = addTimes[i];
+            long delay = spread ? CyclicSchedule.nextDelay(jobIds[i], INTERVAL, EPOCH + now, EPOCH + now) : INTERVAL;
+            fires.add(new long[]{roundUp(now + delay, tick), i});
+        }
+        double sum = 0;
+        double sumSquare = 0;
+        long max = 0;
+        long samples = 0;
+        for (long now = 0; now < DURATION; now += SAMPLE_TICK) {
+            while (!running.isEmpty() && running.peek()[0] <= now) {
+                long[] done = running.poll();
+                int index = (int) done[1];
+                long nextFire;
+                if (spread) {
+                    nextFire = now + CyclicSchedule.nextDelay(jobIds[index], INTERVAL, EPOCH + now, EPOCH + done[2]);
+                } else {
+                    long spendTime = now - done[2];
+                    nextFire = now + Math.max(0, INTERVAL / 1000 - spendTime / 1000) * 1000;
+                }
+                fires.add(new long[]{roundUp(nextFire, tick), index});
+            }
+            while (!fires.isEmpty() && fires.peek()[0] <= now) {
+                long[] fire = fires.poll();
+                queue.add(new long[]{fire[1], now});
+            }
+            while (running.size() < WORKERS && !queue.isEmpty()) {
+                long[] job = queue.poll();
+                long spend = MIN_SPEND + random.nextInt((int) (MAX_SPEND - MIN_SPEND));
+                running.add(new long[]{now + spend, job[0], job[1]});
+            }
+            long size = queue.size();
+            sum += size;
+            sumSquare += (double) size * size;
+            max = Math.max(max, size);
+            samples++;
+        }
+        depth.mean = sum / samples;
+        depth.variance = sumSquare / samples - depth.mean * depth.mean;
+        depth.max = max;
+    }
+
+    private static long roundUp(long time, long tick) {
+        return (time + tick - 1) / tick * tick;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TimerSpreadBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
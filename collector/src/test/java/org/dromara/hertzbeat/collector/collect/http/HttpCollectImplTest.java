@@ -1,27 +1,158 @@
 package org.dromara.hertzbeat.collector.collect.http;
 
+import com.sun.net.httpserver.HttpServer;
+import org.dromara.hertzbeat.collector.dispatch.DispatchConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.HttpProtocol;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * Test case for {@link HttpCollectImpl}
  */
 class HttpCollectImplTest {
 
+    private HttpServer server;
+
+    private final AtomicReference<String> requestBody = new AtomicReference<>();
+
+    private final AtomicReference<String> requestQuery = new AtomicReference<>();
+
+    private final AtomicReference<String> authorization = new AtomicReference<>();
+
+    private HttpCollectImpl httpCollect;
+
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        httpCollect = new HttpCollectImpl();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/status", exchange -> {
+            requestQuery.set(exchange.getRequestURI().getRawQuery());
+            requestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            authorization.set(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = "[{\"name\":\"a\",\"count\":\"1\"},{\"name\":\"b\",\"count\":\"2\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/api/error", exchange -> {
+            exchange.sendResponseHeaders(500, -1);
+            exchange.close();
+        });
+        server.start();
     }
 
     @AfterEach
     void tearDown() {
+        server.stop(0);
     }
 
     @Test
-    void getInstance() {
+    void collectAsync() throws Exception {
+        Metrics metrics = createMetrics(server.getAddress().getPort(), "/api/status", "GET");
+        metrics.getHttp().setParams(Map.of("page", "1"));
+        HttpProtocol.Authorization auth = new HttpProtocol.Authorization();
+        auth.setType(DispatchConstants.BASIC_AUTH);
+        auth.setBasicAuthUsername("admin");
+        auth.setBasicAuthPassword("hertzbeat");
+        metrics.getHttp().setAuthorization(auth);
+        assertTrue(httpCollect.supportAsync(metrics));
+
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder();
+        httpCollect.collectAsync(builder, 1L, "api", metrics).toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+        assertEquals(CollectRep.Code.SUCCESS, builder.getCode());
+        assertEquals(2, builder.getValuesCount());
+        assertEquals(List.of("a", "1"), builder.getValues(0).getColumnsList().subList(0, 2));
+        assertEquals(List.of("b", "2"), builder.getValues(1).getColumnsList().subList(0, 2));
+        assertEquals("page=1", requestQuery.get());
+        assertEquals("Basic YWRtaW46aGVydHpiZWF0", authorization.get());
     }
 
     @Test
-    void collect() {
+    void collectAsyncSameAsCollect() throws Exception {
+        Metrics metrics = createMetrics(server.getAddress().getPort(), "/api/status", "POST");
+        metrics.getHttp().setPayload("{\"query\":\"status\"}");
+
+        CollectRep.MetricsData.Builder asyncBuilder = CollectRep.MetricsData.newBuilder();
+        httpCollect.collectAsync(asyncBuilder, 1L, "api", metrics).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals("{\"query\":\"status\"}", requestBody.get());
+        CollectRep.MetricsData.Builder syncBuilder = CollectRep.MetricsData.newBuilder();
+        httpCollect.collect(syncBuilder, 1L, "api", metrics);
+        assertEquals("{\"query\":\"status\"}", requestBody.get());
+
+        assertEquals(syncBuilder.getCode(), asyncBuilder.getCode());
+        assertEquals(syncBuilder.getValuesCount(), asyncBuilder.getValuesCount());
+        for (int i = 0; i < syncBuilder.getValuesCount(); i++) {
+            assertEquals(syncBuilder.getValues(i).getColumnsList().subList(0, 2),
+                    asyncBuilder.getValues(i).getColumnsList().subList(0, 2));
+        }
+    }
+
+    @Test
+    void collectAsyncFailed() throws Exception {
+        Metrics metrics = createMetrics(server.getAddress().getPort(), "/api/error", "GET");
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder();
+        httpCollect.collectAsync(builder, 1L, "api", metrics).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        assertEquals(CollectRep.Code.FAIL, builder.getCode());
+        assertEquals("StatusCode 500", builder.getMsg());
+
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        metrics = createMetrics(closedPort, "/api/status", "GET");
+        builder = CollectRep.MetricsData.newBuilder();
+        httpCollect.collectAsync(builder, 1L, "api", metrics).toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(CollectRep.Code.UN_CONNECTABLE, builder.getCode());
+    }
+
+    @Test
+    void supportAsync() {
+        Metrics metrics = createMetrics(server.getAddress().getPort(), "/metrics", "GET");
+        metrics.getHttp().setParseType(DispatchConstants.PARSE_PROMETHEUS);
+        assertFalse(httpCollect.supportAsync(metrics));
+
+        metrics = createMetrics(server.getAddress().getPort(), "/api/status", "GET");
+        HttpProtocol.Authorization auth = new HttpProtocol.Authorization();
+        auth.setType(DispatchConstants.DIGEST_AUTH);
+        metrics.getHttp().setAuthorization(auth);
+        assertFalse(httpCollect.supportAsync(metrics));
+        assertFalse(httpCollect.supportAsync(Metrics.builder().name("empty").build()));
+    }
+
+    private Metrics createMetrics(int port, String url, String method) {
+        HttpProtocol http = HttpProtocol.builder()
+                .host("127.0.0.1")
+                .port(String.valueOf(port))
+                .url(url)
+                .method(method)
+                .ssl("false")
+                .timeout("3000")
+                .parseType(DispatchConstants.PARSE_DEFAULT)
+                .build();
+        return Metrics.builder()
+                .name("status")
+                .protocol(DispatchConstants.PROTOCOL_HTTP)
+                .aliasFields(List.of("name", "count", "responseTime"))
+                .http(http)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -2,7 +2,14 @@ package org.dromara.hertzbeat.collector.collect.http.promethus.exporter;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -48,4 +55,120 @@ class ExporterParserTest {
         assertEquals(7, metricFamilyMap.size());
         assertEquals(5, metricFamilyMap.get("go_gc_duration_seconds").getMetricList().get(0).getSummary().getQuantileList().size());
     }
+
+    @Test
+    void parseStreamWithFamilyNames() throws IOException {
+        String resp = "# HELP node_cpu_seconds_total Seconds the CPUs spent in each mode.\n" +
+                        "# TYPE node_cpu_seconds_total counter\n" +
+                        "node_cpu_seconds_total{cpu=\"0\",mode=\"idle\"} 5.1234e+04\n" +
+                        "node_cpu_seconds_total{cpu=\"0\",mode=\"user\"} 123.45\n" +
+                        "# HELP node_load1 1m load average.\n" +
+                        "# TYPE node_load1 gauge\n" +
+                        "node_load1 0.21\n" +
+                        "node_boot_time_seconds 1.6e9\n";
+        Map<String, MetricFamily> metricFamilyMap = new ExporterParser().parse(toStream(resp), Set.of("node_load1"));
+        assertEquals(1, metricFamilyMap.size());
+        MetricFamily load = metricFamilyMap.get("node_load1");
+        assertEquals(MetricType.GAUGE, load.getMetricType());
+        assertEquals("1m load average.", load.getHelp());
+        assertEquals(0.21, load.getMetricList().get(0).getGauge().getValue());
+
+        metricFamilyMap = new ExporterParser().parse(toStream(resp), null);
+        assertEquals(3, metricFamilyMap.size());
+        List<MetricFamily.Metric> cpu = metricFamilyMap.get("node_cpu_seconds_total").getMetricList();
+        assertEquals(2, cpu.size());
+        assertEquals(51234, cpu.get(0).getCounter().getValue());
+        assertEquals("idle", cpu.get(0).getLabelPair().get(1).getValue());
+        assertEquals(MetricType.UNTYPED, metricFamilyMap.get("node_boot_time_seconds").getMetricType());
+        assertEquals(1.6e9, metricFamilyMap.get("node_boot_time_seconds").getMetricList().get(0).getUntyped().getValue());
+    }
+
+    @Test
+    void parseHistogramAndSummary() throws IOException {
+        String resp = "# TYPE http_request_duration_seconds histogram\r\n" +
+                        "http_request_duration_seconds_bucket{handler=\"/\",le=\"0.1\"} 3\r\n" +
+                        "http_request_duration_seconds_bucket{handler=\"/\",le=\"+Inf\"} 5\r\n" +
+                        "http_request_duration_seconds_sum{handler=\"/\"} 0.75\r\n" +
+                        "http_request_duration_seconds_count{handler=\"/\"} 5\r\n" +
+                        "http_request_duration_seconds_bucket{handler=\"/api\",le=\"0.1\"} 1\r\n" +
+                        "http_request_duration_seconds_bucket{handler=\"/api\",le=\"+Inf\"} 2\r\n" +
+                        "http_request_duration_seconds_sum{handler=\"/api\"} 0.3\r\n" +
+                        "http_request_duration_seconds_count{handler=\"/api\"} 2\r\n" +
+                        "# TYPE rpc_duration_seconds summary\n" +
+                        "rpc_duration_seconds{quantile=\"0.5\"} NaN\n" +
+                        "rpc_duration_seconds{quantile=\"0.99\"} -Inf\n" +
+                        "rpc_duration_seconds_sum 1.5\n" +
+                        "rpc_duration_seconds_count 3";
+        Map<String, MetricFamily> metricFamilyMap = new ExporterParser().parse(toStream(resp), null);
+        assertEquals(2, metricFamilyMap.size());
+        List<MetricFamily.Metric> histograms = metricFamilyMap.get("http_request_duration_seconds").getMetricList();
+        assertEquals(2, histograms.size());
+        MetricFamily.Histogram histogram = histograms.get(0).getHistogram();
+        assertEquals(2, histogram.getBucketList().size());
+        assertEquals(0.1, histogram.getBucketList().get(0).getUpperBound());
+        assertEquals(Double.POSITIVE_INFINITY, histogram.getBucketList().get(1).getUpperBound());
+        assertEquals(5, histogram.getBucketList().get(1).getCumulativeCount());
+        assertEquals(0.75, histogram.getSum());
+        assertEquals(5, histogram.getCount());
+        assertEquals("/api", histograms.get(1).getLabelPair().get(0).getValue());
+        MetricFamily.Summary summary = metricFamilyMap.get("rpc_duration_seconds").getMetricList().get(0).getSummary();
+        assertEquals(2, summary.getQuantileList().size());
+        assertTrue(Double.isNaN(summary.getQuantileList().get(0).getValue()));
+        assertEquals(Double.NEGATIVE_INFINITY, summary.getQuantileList().get(1).getValue());
+        assertEquals(0.99, summary.getQuantileList().get(1).getXLabel());
+        assertEquals(1.5, summary.getSum());
+        assertEquals(3, summary.getCount());
+    }
+
+    @Test
+    void parseEscapeTimestampAndErrorLine() throws IOException {
+        String resp = "# TYPE msdos_file_access_time_seconds gauge\n" +
+                        "msdos_file_access_time_seconds{path=\"C:\\\\DIR\\\\FILE.TXT\",error=\"Cannot find \\\"file\\\"\\n\",name=\"中文\"} 1.458255915e9 1395066363000\n" +
+                        "msdos_file_access_time_seconds{path=} 1\n" +
+                        "msdos_file_access_time_seconds{path=\"D:\"} 2\n";
+        Map<String, MetricFamily> metricFamilyMap = new ExporterParser().parse(toStream(resp), null);
+        List<MetricFamily.Metric> metrics = metricFamilyMap.get("msdos_file_access_time_seconds").getMetricList();
+        // the error line is skipped, not abort the parse
+        assertEquals(2, metrics.size());
+        MetricFamily.Metric metric = metrics.get(0);
+        assertEquals("C:\\DIR\\FILE.TXT", metric.getLabelPair().get(0).getValue());
+        assertEquals("Cannot find \"file\"\n", metric.getLabelPair().get(1).getValue());
+        assertEquals("中文", metric.getLabelPair().get(2).getValue());
+        assertEquals(1.458255915e9, metric.getGauge().getValue());
+        assertEquals(1395066363000L, metric.getTimestampMs());
+        assertEquals(2, metrics.get(1).getGauge().getValue());
+    }
+
+    @Test
+    void parseLongLine() throws IOException {
+        StringBuilder labelValue = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            labelValue.append('a');
+        }
+        String resp = "long_label_metric{value=\"" + labelValue + "\"} 1\nnext_metric 2";
+        Map<String, MetricFamily> metricFamilyMap = new ExporterParser().parse(toStream(resp), null);
+        assertEquals(labelValue.toString(), metricFamilyMap.get("long_label_metric").getMetricList().get(0).getLabelPair().get(0).getValue());
+        assertEquals(2, metricFamilyMap.get("next_metric").getMetricList().get(0).getUntyped().getValue());
+    }
+
+    @Test
+    void parseDouble() {
+        String[] values = {"0", "-0", "1", "+1", "10", "0.25", "-0.0001", "123.456", "1e3", "1.5E-3", "4.29496725504E11",
+            "1.7976931348623157e308", "4.9e-324", "123456789012345678901234567890", "0.1234567890123456789",
+            "9007199254740993", "1e22", "1e23", "1e-22", "1e-23", ".5", "5."};
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(value), ExporterParser.parseDouble(bytes, 0, bytes.length), value);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            String value = String.valueOf(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(value), ExporterParser.parseDouble(bytes, 0, bytes.length), value);
+        }
+    }
+
+    private InputStream toStream(String resp) {
+        return new ByteArrayInputStream(resp.getBytes(StandardCharsets.UTF_8));
+    }
 }
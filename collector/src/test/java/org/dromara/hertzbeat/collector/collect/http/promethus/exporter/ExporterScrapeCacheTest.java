@@ -0,0 +1,143 @@
+package org.dromara.hertzbeat.collector.collect.http.promethus.exporter;
+
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.HttpProtocol;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test case for {@link ExporterScrapeCache}
+ */
+class ExporterScrapeCacheTest {
+
+    private static final long JOB_ID = 10086L;
+
+    private static final long OTHER_JOB_ID = 10087L;
+
+    @AfterEach
+    void tearDown() {
+        ExporterScrapeCache.evict(JOB_ID);
+        ExporterScrapeCache.evict(OTHER_JOB_ID);
+        ExporterScrapeCache.unbindJob();
+    }
+
+    @Test
+    void concurrentMetricsGroupsShareOneScrape() throws Exception {
+        AtomicInteger scrapeCount = new AtomicInteger();
+        CountDownLatch scrapeLatch = new CountDownLatch(1);
+        ExporterScrapeResult scrapeResult = ExporterScrapeResult.success(Collections.emptyMap());
+        List<CompletableFuture<ExporterScrapeResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> {
+                scrapeCount.incrementAndGet();
+                try {
+                    scrapeLatch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                return scrapeResult;
+            })));
+        }
+        Thread.sleep(200);
+        scrapeLatch.countDown();
+        for (CompletableFuture<ExporterScrapeResult> future : futures) {
+            assertSame(scrapeResult, future.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, scrapeCount.get());
+    }
+
+    @Test
+    void evictStartNewCycle() {
+        AtomicInteger scrapeCount = new AtomicInteger();
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(1, scrapeCount.get());
+        ExporterScrapeCache.evict(JOB_ID);
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(2, scrapeCount.get());
+    }
+
+    @Test
+    void differentEndpointNotShared() {
+        AtomicInteger scrapeCount = new AtomicInteger();
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/other/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(2, scrapeCount.get());
+    }
+
+    @Test
+    void jobsOfSameMonitorNotShared() {
+        AtomicInteger scrapeCount = new AtomicInteger();
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        ExporterScrapeCache.getOrScrape(OTHER_JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(2, scrapeCount.get());
+        // one job evicted at its timeout or cycle end, the other job still share its scrape
+        ExporterScrapeCache.evict(OTHER_JOB_ID);
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(2, scrapeCount.get());
+    }
+
+    @Test
+    void boundJobShareScrape() {
+        AtomicInteger scrapeCount = new AtomicInteger();
+        ExporterScrapeCache.getOrScrape(http("/metrics"), families -> countScrape(scrapeCount));
+        ExporterScrapeCache.getOrScrape(http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(2, scrapeCount.get());
+        ExporterScrapeCache.bindJob(JOB_ID);
+        ExporterScrapeCache.getOrScrape(http("/metrics"), families -> countScrape(scrapeCount));
+        ExporterScrapeCache.getOrScrape(http("/metrics"), families -> countScrape(scrapeCount));
+        assertEquals(3, scrapeCount.get());
+    }
+
+    @Test
+    void scrapeFailureShared() {
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> {
+            throw new IllegalStateException("connection refused");
+        });
+        ExporterScrapeResult result = ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"),
+                families -> ExporterScrapeResult.success(Collections.emptyMap()));
+        assertEquals(CollectRep.Code.FAIL, result.getCode());
+    }
+
+    @Test
+    void startCycleRecordFamilyNames() {
+        Metrics exporter = Metrics.builder().name("node_load1").http(http("/metrics")).build();
+        Metrics other = Metrics.builder().name("summary").http(HttpProtocol.builder().url("/api").parseType("jsonPath").build()).build();
+        ExporterScrapeCache.startCycle(JOB_ID, List.of(exporter, other));
+        List<Set<String>> scrapeFamilies = new ArrayList<>();
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> {
+            scrapeFamilies.add(families);
+            return ExporterScrapeResult.success(Collections.emptyMap());
+        });
+        assertEquals(Set.of("node_load1"), scrapeFamilies.get(0));
+        ExporterScrapeCache.evict(JOB_ID);
+        ExporterScrapeCache.getOrScrape(JOB_ID, http("/metrics"), families -> {
+            scrapeFamilies.add(families);
+            return ExporterScrapeResult.success(Collections.emptyMap());
+        });
+        assertNull(scrapeFamilies.get(1));
+    }
+
+    private ExporterScrapeResult countScrape(AtomicInteger scrapeCount) {
+        scrapeCount.incrementAndGet();
+        return ExporterScrapeResult.success(Collections.emptyMap());
+    }
+
+    private HttpProtocol http(String url) {
+        return HttpProtocol.builder().host("127.0.0.1").port("9100").url(url).parseType("prometheus").build();
+    }
+}
@@ -1,16 +1,38 @@
 package org.dromara.hertzbeat.collector.collect.snmp;
 
+import org.dromara.hertzbeat.collector.dispatch.DispatchConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.SnmpProtocol;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.snmp4j.smi.OID;
+import org.snmp4j.util.TableEvent;
+
+import java.net.DatagramSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  * Test case for {@link SnmpCollectImpl}
  */
 class SnmpCollectImplTest {
 
+    private SnmpCollectImpl snmpCollect;
+
     @BeforeEach
     void setUp() {
+        snmpCollect = new SnmpCollectImpl();
     }
 
     @AfterEach
@@ -18,10 +40,64 @@ class SnmpCollectImplTest {
     }
 
     @Test
-    void getInstance() {
+    void collectAsyncTimeout() throws Exception {
+        int closedPort;
+        try (DatagramSocket socket = new DatagramSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        SnmpProtocol snmp = SnmpProtocol.builder()
+                .host("127.0.0.1")
+                .port(String.valueOf(closedPort))
+                .version("1")
+                .community("public")
+                .timeout("200")
+                .operation("get")
+                .oids(Map.of("sysName", "1.3.6.1.2.1.1.5.0"))
+                .build();
+        Metrics metrics = Metrics.builder()
+                .name("system")
+                .protocol(DispatchConstants.PROTOCOL_SNMP)
+                .aliasFields(List.of("sysName"))
+                .snmp(snmp)
+                .build();
+        assertTrue(snmpCollect.supportAsync(metrics));
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder();
+        AtomicReference<String> completeThread = new AtomicReference<>();
+        snmpCollect.collectAsync(builder, 1L, "snmp", metrics)
+                .thenRun(() -> completeThread.set(Thread.currentThread().getName()))
+                .toCompletableFuture().get(10, TimeUnit.SECONDS);
+        assertEquals(CollectRep.Code.UN_CONNECTABLE, builder.getCode());
+        // the response is handled off the snmp transport listener thread
+        assertTrue(completeThread.get().startsWith("snmp-collect-callback-"));
     }
 
     @Test
-    void collect() {
+    void walkTableListener() {
+        List<List<TableEvent>> results = new ArrayList<>();
+        SnmpCollectImpl.WalkTableListener listener = new SnmpCollectImpl.WalkTableListener(results::add);
+        TableEvent row1 = mockTableEvent(TableEvent.STATUS_OK, new OID("1"));
+        TableEvent row2 = mockTableEvent(TableEvent.STATUS_OK, new OID("2"));
+        assertTrue(listener.next(row1));
+        assertTrue(listener.next(row2));
+        // the normal end of walk carries no row
+        listener.finished(mockTableEvent(TableEvent.STATUS_OK, null));
+        listener.finished(mockTableEvent(TableEvent.STATUS_OK, null));
+        assertTrue(listener.isFinished());
+        assertEquals(1, results.size());
+        assertEquals(List.of(row1, row2), results.get(0));
+
+        results.clear();
+        listener = new SnmpCollectImpl.WalkTableListener(results::add);
+        TableEvent timeout = mockTableEvent(TableEvent.STATUS_TIMEOUT, null);
+        listener.finished(timeout);
+        assertEquals(1, results.get(0).size());
+        assertSame(timeout, results.get(0).get(0));
+    }
+
+    private TableEvent mockTableEvent(int status, OID index) {
+        TableEvent event = mock(TableEvent.class);
+        when(event.getStatus()).thenReturn(status);
+        when(event.getIndex()).thenReturn(index);
+        return event;
     }
-}
\ No newline at end of file
+}
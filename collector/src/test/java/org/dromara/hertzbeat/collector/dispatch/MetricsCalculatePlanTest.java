@@ -0,0 +1,85 @@
+package org.dromara.hertzbeat.collector.dispatch;
+
+import org.dromara.hertzbeat.collector.dispatch.unit.UnitConvert;
+import org.dromara.hertzbeat.collector.dispatch.unit.impl.DataSizeConvert;
+import org.dromara.hertzbeat.collector.dispatch.unit.impl.TimeLengthConvert;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test case for {@link MetricsCalculatePlan}
+ */
+class MetricsCalculatePlanTest {
+
+    private final List<UnitConvert> unitConvertList = List.of(new DataSizeConvert(), new TimeLengthConvert());
+
+    @Test
+    void calculate() {
+        Metrics metrics = metrics();
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder();
+        builder.addValues(row("eth0", "2048", "1024", "5KB"));
+        builder.addValues(row("eth1", CommonConstants.NULL_VALUE, "abc", "3"));
+        MetricsCalculatePlan.of("linux", metrics, unitConvertList).calculate(builder);
+
+        assertEquals(5, builder.getFieldsCount());
+        assertEquals("used", builder.getFields(2).getName());
+        assertEquals("MB", builder.getFields(2).getUnit());
+        CollectRep.ValueRow first = builder.getValues(0);
+        assertEquals("eth0", first.getColumns(0));
+        assertEquals("2", first.getColumns(1));
+        assertEquals("1024", first.getColumns(2));
+        assertEquals("0.0049", first.getColumns(3));
+        assertEquals("linux", first.getColumns(4));
+        assertEquals("eth0", first.getInstance());
+        CollectRep.ValueRow second = builder.getValues(1);
+        assertEquals(CommonConstants.NULL_VALUE, second.getColumns(1));
+        assertEquals(CommonConstants.NULL_VALUE, second.getColumns(2));
+        // the value without unit converts from the configured origin unit, not the unit of the last row
+        assertEquals("0.0029", second.getColumns(3));
+    }
+
+    @Test
+    void planCachedByDefinition() {
+        Metrics metrics = metrics();
+        MetricsCalculatePlan plan = MetricsCalculatePlan.of("linux", metrics, unitConvertList);
+        assertSame(plan, MetricsCalculatePlan.of("linux", metrics(), unitConvertList));
+        List<String> calculates = new ArrayList<>(metrics.getCalculates());
+        calculates.set(0, "total=total_bytes/512");
+        metrics.setCalculates(calculates);
+        MetricsCalculatePlan changed = MetricsCalculatePlan.of("linux", metrics, unitConvertList);
+        assertNotSame(plan, changed);
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder();
+        builder.addValues(row("eth0", "2048", "1024", "5KB"));
+        changed.calculate(builder);
+        assertEquals("4", builder.getValues(0).getColumns(1));
+    }
+
+    private Metrics metrics() {
+        List<Metrics.Field> fields = new ArrayList<>();
+        fields.add(new Metrics.Field("name", null, CommonConstants.TYPE_STRING, true, null));
+        fields.add(new Metrics.Field("total", null, CommonConstants.TYPE_NUMBER, false, "KB"));
+        fields.add(new Metrics.Field("used", null, CommonConstants.TYPE_NUMBER, false, "MB"));
+        fields.add(new Metrics.Field("cache", null, CommonConstants.TYPE_NUMBER, false, "MB"));
+        fields.add(new Metrics.Field("os", null, CommonConstants.TYPE_STRING, false, null));
+        return Metrics.builder()
+                .name("interface")
+                .fields(fields)
+                .aliasFields(List.of("name", "total_bytes", "used_bytes", "cache_size"))
+                .calculates(List.of("total=total_bytes/1024", "used=used_bytes", "cache=cache_size", "os=\"linux\""))
+                .units(List.of("cache=KB->MB"))
+                .build();
+    }
+
+    private CollectRep.ValueRow row(String... columns) {
+        return CollectRep.ValueRow.newBuilder().addAllColumns(List.of(columns)).build();
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.collector.dispatch;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import org.dromara.hertzbeat.collector.util.CollectUtil;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.job.Configmap;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.protocol.HttpProtocol;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link MetricsTemplate}
+ */
+class MetricsTemplateTest {
+
+    private static final Gson GSON = new Gson();
+
+    @Test
+    void bindSameAsJsonReplace() {
+        Metrics metrics = metrics();
+        MetricsTemplate template = MetricsTemplate.of(metrics);
+        assertTrue(template.hasPlaceholder());
+        for (Map<String, Configmap> configmap : List.of(
+                configmap("db0", "8080", "v1"),
+                configmap("db1", null, "v2"),
+                configmap(null, "9090", null),
+                Map.<String, Configmap>of())) {
+            JsonElement metricJson = GSON.toJsonTree(metrics);
+            CollectUtil.replaceCryPlaceholder(metricJson, configmap);
+            Metrics expect = GSON.fromJson(metricJson, Metrics.class);
+            Metrics bind = template.bind(metrics, configmap);
+            assertEquals(GSON.toJson(expect), GSON.toJson(bind));
+        }
+        // the definition is not changed by binding
+        assertEquals("/^o^name^o^/stats", metrics.getHttp().getUrl());
+    }
+
+    @Test
+    void bindCopiesOnlyPlaceholderPaths() {
+        Metrics metrics = metrics();
+        Metrics bind = MetricsTemplate.of(metrics).bind(metrics, configmap("db0", "8080", "v1"));
+        assertNotSame(metrics.getHttp(), bind.getHttp());
+        assertNotSame(metrics.getHttp().getAuthorization(), bind.getHttp().getAuthorization());
+        assertNotSame(metrics.getHttp().getParams(), bind.getHttp().getParams());
+        assertSame(metrics.getHttp().getHeaders(), bind.getHttp().getHeaders());
+        assertSame(metrics.getFields(), bind.getFields());
+        assertEquals("/db0/stats", bind.getHttp().getUrl());
+        assertEquals("db0-8080", bind.getHttp().getAuthorization().getBasicAuthUsername());
+        assertEquals("v1", bind.getHttp().getParams().get("version"));
+        assertEquals("static", bind.getHttp().getParams().get("mode"));
+        assertEquals(List.of("200", "8080"), bind.getHttp().getSuccessCodes());
+        assertNull(bind.getSubTaskId());
+    }
+
+    @Test
+    void noPlaceholder() {
+        Metrics metrics = metrics();
+        metrics.setHttp(HttpProtocol.builder().host("127.0.0.1").url("/stats").build());
+        assertFalse(MetricsTemplate.of(metrics).hasPlaceholder());
+    }
+
+    @Test
+    void templateCachedByDefinition() {
+        Metrics metrics = metrics();
+        MetricsTemplate template = MetricsTemplate.of(metrics);
+        assertSame(template, MetricsTemplate.of(metrics));
+        // another definition with the same name is another template
+        assertNotSame(template, MetricsTemplate.of(metrics()));
+        metrics.getHttp().setUrl("/^o^port^o^");
+        MetricsTemplate changed = MetricsTemplate.of(metrics);
+        assertNotSame(template, changed);
+        assertEquals("/8080", changed.bind(metrics, configmap("db0", "8080", "v1")).getHttp().getUrl());
+    }
+
+    private Metrics metrics() {
+        List<Metrics.Field> fields = new ArrayList<>();
+        fields.add(new Metrics.Field("name", null, CommonConstants.TYPE_STRING, true, null));
+        fields.add(new Metrics.Field("size", null, CommonConstants.TYPE_NUMBER, false, "MB"));
+        Map<String, String> params = new HashMap<>(4);
+        params.put("version", "^o^version^o^");
+        params.put("mode", "static");
+        HttpProtocol.Authorization authorization = new HttpProtocol.Authorization();
+        authorization.setType("Basic Auth");
+        authorization.setBasicAuthUsername("^o^name^o^-^o^port^o^");
+        HttpProtocol http = HttpProtocol.builder()
+                .host("127.0.0.1")
+                .port("^o^port^o^")
+                .url("/^o^name^o^/stats")
+                .ssl("false")
+                .headers(Map.of("Accept", "application/json"))
+                .params(params)
+                .authorization(authorization)
+                .successCodes(List.of("200", "^o^port^o^"))
+                .build();
+        return Metrics.builder()
+                .name("database")
+                .protocol("http")
+                .priority((byte) 1)
+                .fields(fields)
+                .aliasFields(List.of("name", "size"))
+                .http(http)
+                .build();
+    }
+
+    private Map<String, Configmap> configmap(String name, String port, String version) {
+        Map<String, Configmap> configmap = new HashMap<>(4);
+        configmap.put("name", new Configmap("name", name, CommonConstants.TYPE_STRING));
+        configmap.put("port", new Configmap("port", port, CommonConstants.TYPE_STRING));
+        configmap.put("version", new Configmap("version", version, CommonConstants.TYPE_STRING));
+        return configmap;
+    }
+}
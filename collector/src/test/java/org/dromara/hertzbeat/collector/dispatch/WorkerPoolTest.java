@@ -1,27 +1,155 @@
 package org.dromara.hertzbeat.collector.dispatch;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-/**
- * Test case for {@link WorkerPool}
- */
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
 class WorkerPoolTest {
 
+    private SimpleMeterRegistry registry;
+
+    private WorkerPool workerPool;
+
     @BeforeEach
     void setUp() {
+        registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
     }
 
     @AfterEach
-    void tearDown() {
+    void tearDown() throws Exception {
+        if (workerPool != null) {
+            workerPool.destroy();
+        }
+        Metrics.removeRegistry(registry);
     }
 
     @Test
-    void executeJob() {
+    void executeJob() throws Exception {
+        workerPool = new WorkerPool(new DispatchProperties());
+        CountDownLatch latch = new CountDownLatch(1);
+        workerPool.executeJob(latch::countDown);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
     }
 
     @Test
-    void destroy() {
+    void executeCollectProtocolLimit() throws Exception {
+        workerPool = new WorkerPool(createProperties(false));
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(3);
+        for (int i = 0; i < 2; i++) {
+            workerPool.executeCollect(mockBlockingCollect("jdbc", release, done));
+        }
+        assertThrows(RejectedExecutionException.class,
+                () -> workerPool.executeCollect(mockBlockingCollect("jdbc", release, done)));
+        // other protocols are not limited by the jdbc permits
+        workerPool.executeCollect(mockBlockingCollect("http", release, done));
+        assertEquals(2.0, registry.get("hertzbeat.collector.worker.inflight").tag("protocol", "jdbc").gauge().value());
+        Counter rejected = registry.get("hertzbeat.collector.worker.rejected")
+                .tag("protocol", "jdbc").tag("reason", "protocol_limit").counter();
+        assertEquals(1.0, rejected.count());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        // the permits are released after the tasks done
+        waitInflightZero("jdbc");
+        CountDownLatch again = new CountDownLatch(1);
+        workerPool.executeCollect(mockBlockingCollect("jdbc", new CountDownLatch(0), again));
+        assertTrue(again.await(5, TimeUnit.SECONDS));
+        assertTrue(registry.get("hertzbeat.collector.worker.queue.wait").tag("protocol", "jdbc").timer().count() >= 3);
+    }
+
+    @Test
+    void executeAsyncCollect() throws Exception {
+        workerPool = new WorkerPool(createProperties(false));
+        CompletableFuture<Void> response = new CompletableFuture<>();
+        MetricsCollect asyncCollect = mockCollect("redis");
+        when(asyncCollect.isAsyncCollect()).thenReturn(true);
+        when(asyncCollect.runCollect()).thenReturn(response);
+        workerPool.executeCollect(asyncCollect);
+        workerPool.executeCollect(asyncCollect);
+        // the async collects hold the protocol permits until the response handled
+        assertThrows(RejectedExecutionException.class, () -> workerPool.executeCollect(asyncCollect));
+        response.complete(null);
+        assertEquals(0.0, registry.get("hertzbeat.collector.worker.inflight").tag("protocol", "redis").gauge().value());
+        workerPool.executeCollect(asyncCollect);
+    }
+
+    @Test
+    void executeCollectInVirtualThreads() throws Exception {
+        // fallback to platform threads when the jdk not support virtual threads
+        workerPool = new WorkerPool(createProperties(true));
+        CountDownLatch done = new CountDownLatch(1);
+        workerPool.executeCollect(mockBlockingCollect("http", new CountDownLatch(0), done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectBackoff() {
+        workerPool = new WorkerPool(new DispatchProperties());
+        assertEquals(125, workerPool.rejectBackoff(1));
+        assertEquals(250, workerPool.rejectBackoff(2));
+        assertEquals(500, workerPool.rejectBackoff(3));
+        assertEquals(1000, workerPool.rejectBackoff(4));
+        assertEquals(1000, workerPool.rejectBackoff(100));
+    }
+
+    @Test
+    void destroy() throws Exception {
+        workerPool = new WorkerPool(new DispatchProperties());
+        workerPool.destroy();
+        assertThrows(RejectedExecutionException.class, () -> workerPool.executeJob(() -> { }));
+    }
+
+    private DispatchProperties createProperties(boolean virtualThreads) {
+        DispatchProperties properties = new DispatchProperties();
+        properties.getWorker().setVirtualThreads(virtualThreads);
+        properties.getWorker().setCoreThreads(2);
+        properties.getWorker().setMaxThreads(8);
+        // the global registry keeps the first gauge of a protocol, so every test limits its own protocol
+        properties.getWorker().setProtocols(Map.of("jdbc", 2, "redis", 2));
+        return properties;
+    }
+
+    private MetricsCollect mockCollect(String protocol) {
+        MetricsCollect metricsCollect = mock(MetricsCollect.class);
+        when(metricsCollect.getMetrics()).thenReturn(
+                org.dromara.hertzbeat.common.entity.job.Metrics.builder().name("test").protocol(protocol).build());
+        when(metricsCollect.getNewTime()).thenReturn(System.currentTimeMillis());
+        return metricsCollect;
+    }
+
+    private MetricsCollect mockBlockingCollect(String protocol, CountDownLatch release, CountDownLatch done) {
+        MetricsCollect metricsCollect = mockCollect(protocol);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            done.countDown();
+            return null;
+        }).when(metricsCollect).run();
+        return metricsCollect;
+    }
+
+    private void waitInflightZero(String protocol) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("hertzbeat.collector.worker.inflight").tag("protocol", protocol).gauge().value() > 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
     }
-}
\ No newline at end of file
+}
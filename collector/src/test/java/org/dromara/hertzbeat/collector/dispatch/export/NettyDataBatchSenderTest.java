@@ -0,0 +1,77 @@
+package org.dromara.hertzbeat.collector.dispatch.export;
+
+import org.dromara.hertzbeat.collector.dispatch.DispatchProperties;
+import org.dromara.hertzbeat.collector.dispatch.entrance.internal.CollectJobService;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.support.CommonThreadPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test case for {@link NettyDataBatchSender}
+ */
+class NettyDataBatchSenderTest {
+
+    private CommonThreadPool threadPool;
+
+    private CollectJobService collectJobService;
+
+    @BeforeEach
+    void setUp() {
+        threadPool = new CommonThreadPool();
+        collectJobService = mock(CollectJobService.class);
+        when(collectJobService.sendAsyncCollectData(anyList())).thenReturn(1);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        threadPool.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flushBySizeAndInterval() {
+        DispatchProperties.ExportProperties.NettyProperties properties = new DispatchProperties.ExportProperties.NettyProperties();
+        properties.setBatchSize(3);
+        properties.setFlushInterval(200);
+        NettyDataBatchSender sender = new NettyDataBatchSender(collectJobService, properties);
+        for (int i = 0; i < 7; i++) {
+            sender.send(CollectRep.MetricsData.newBuilder().setId(i).build());
+        }
+        sender.start(threadPool);
+        ArgumentCaptor<List<CollectRep.MetricsData>> captor = ArgumentCaptor.forClass(List.class);
+        verify(collectJobService, timeout(2000).times(3)).sendAsyncCollectData(captor.capture());
+        List<Integer> sizes = new ArrayList<>();
+        long nextId = 0;
+        for (List<CollectRep.MetricsData> batch : captor.getAllValues()) {
+            sizes.add(batch.size());
+            for (CollectRep.MetricsData metricsData : batch) {
+                assertEquals(nextId++, metricsData.getId());
+            }
+        }
+        assertEquals(List.of(3, 3, 1), sizes);
+    }
+
+    @Test
+    void sendDirectlyWhenBatchDisabled() {
+        DispatchProperties.ExportProperties.NettyProperties properties = new DispatchProperties.ExportProperties.NettyProperties();
+        properties.setBatchSize(1);
+        NettyDataBatchSender sender = new NettyDataBatchSender(collectJobService, properties);
+        sender.start(threadPool);
+        sender.send(CollectRep.MetricsData.newBuilder().setId(1L).build());
+        verify(collectJobService, times(1)).sendAsyncCollectData(anyList());
+    }
+}
@@ -0,0 +1,60 @@
+package org.dromara.hertzbeat.collector.dispatch.timer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link CyclicSchedule}
+ */
+class CyclicScheduleTest {
+
+    private static final long INTERVAL = 60_000L;
+
+    @Test
+    void nextDelayOnCadenceSlot() {
+        long jobId = 1234567L;
+        long offset = CyclicSchedule.offset(jobId, INTERVAL);
+        assertTrue(offset >= 0 && offset < INTERVAL);
+        long now = 1_700_000_123_456L;
+        long delay = CyclicSchedule.nextDelay(jobId, INTERVAL, now, now);
+        assertTrue(delay > 0 && delay <= INTERVAL);
+        long fireTime = now + delay;
+        assertEquals(offset, Math.floorMod(fireTime, INTERVAL));
+    }
+
+    @Test
+    void nextDelayWithoutDrift() {
+        long jobId = 42L;
+        long now = 1_700_000_000_000L;
+        long fireTime = now + CyclicSchedule.nextDelay(jobId, INTERVAL, now, now);
+        for (int i = 0; i < 10; i++) {
+            // fired a little late and collected for a while, the next fire time is still one interval later
+            long dispatchTime = fireTime + 7;
+            long completeTime = dispatchTime + 1500 + i * 100;
+            long nextFireTime = completeTime + CyclicSchedule.nextDelay(jobId, INTERVAL, completeTime, dispatchTime);
+            assertEquals(fireTime + INTERVAL, nextFireTime);
+            fireTime = nextFireTime;
+        }
+        // the collect spend more than an interval, skip the missed slot instead of catch up
+        long dispatchTime = fireTime;
+        long completeTime = dispatchTime + INTERVAL + 10;
+        long nextFireTime = completeTime + CyclicSchedule.nextDelay(jobId, INTERVAL, completeTime, dispatchTime);
+        assertEquals(fireTime + 2 * INTERVAL, nextFireTime);
+    }
+
+    @Test
+    void offsetSpreadSequentialJobIds() {
+        int buckets = 60;
+        int jobs = 60_000;
+        int[] counts = new int[buckets];
+        for (long jobId = 1; jobId <= jobs; jobId++) {
+            counts[(int) (CyclicSchedule.offset(jobId, INTERVAL) / (INTERVAL / buckets))]++;
+        }
+        int expected = jobs / buckets;
+        for (int count : counts) {
+            assertTrue(Math.abs(count - expected) < expected / 5, "bucket count " + count);
+        }
+    }
+}
@@ -327,4 +327,20 @@ public interface CommonConstants {
      * collector auth failed message
      */
     String COLLECTOR_AUTH_FAILED = "Auth Failed";
+
+    /**
+     * cluster feature: manager accept binary protobuf metrics data in message data field
+     * 管理端在心跳响应中声明支持二进制采集数据, 采集器据此协商是否发送二进制数据
+     */
+    String CLUSTER_FEATURE_BINARY_DATA = "binary-data";
+
+    /**
+     * cluster feature: manager accept batch metrics data frame RESPONSE_BATCH_CYCLIC_TASK_DATA
+     */
+    String CLUSTER_FEATURE_BATCH_DATA = "batch-data";
+
+    /**
+     * cluster features split
+     */
+    String CLUSTER_FEATURE_SEPARATOR = ",";
 }
@@ -26,7 +26,7 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.common.entity.manager.ParamDefine;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
-import org.dromara.hertzbeat.common.util.JsonUtil;
+import org.dromara.hertzbeat.common.util.ObjectCopyUtil;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -239,7 +239,7 @@ public class Job {
 
     @Override
     public Job clone() {
-        // deep clone   深度克隆
-        return JsonUtil.fromJson(JsonUtil.toJson(this), getClass());
+        // deep clone without json round trip, transient fields are not copied   深度克隆
+        return ObjectCopyUtil.deepCopy(this);
     }
 }
@@ -29,8 +29,6 @@ import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Details of the collection of indicators collected by monitoring
@@ -172,14 +170,7 @@ public class Metrics {
      * collector使用 - 临时存储分级任务指标响应数据
      */
     @JsonIgnore
-    private transient AtomicReference<CollectRep.MetricsData> subTaskDataRef;
-
-    /**
-     * collector use - Temporarily store subTask running num
-     * collector使用 - 分级任务正在运行中的数量
-     */
-    @JsonIgnore
-    private transient AtomicInteger subTaskNum;
+    private transient SubTaskAggregator subTaskAggregator;
 
     /**
      * collector use - Temporarily store subTask id
@@ -194,7 +185,7 @@ public class Metrics {
      * @return true - has
      */
     public boolean isHasSubTask() {
-        return subTaskNum != null;
+        return subTaskAggregator != null;
     }
 
     /**
@@ -204,28 +195,10 @@ public class Metrics {
      * @return is last task?
      */
     public boolean consumeSubTaskResponse(CollectRep.MetricsData metricsData) {
-        if (subTaskNum == null) {
+        if (subTaskAggregator == null) {
             return true;
         }
-        synchronized (subTaskNum) {
-            int index = subTaskNum.decrementAndGet();
-            if (subTaskDataRef.get() == null) {
-                subTaskDataRef.set(metricsData);
-            } else {
-                if (metricsData.getValuesCount() >= 1) {
-                    CollectRep.MetricsData.Builder dataBuilder = CollectRep.MetricsData.newBuilder(subTaskDataRef.get());
-                    for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
-                        if (valueRow.getColumnsCount() == dataBuilder.getFieldsCount()) {
-                            dataBuilder.addValues(valueRow);
-                        } else {
-                            log.error("consume subTask data value not mapping filed");
-                        }
-                    }
-                    subTaskDataRef.set(dataBuilder.build());
-                }
-            }
-            return index == 0;
-        }
+        return subTaskAggregator.consume(subTaskId, metricsData);
     }
 
     @Override
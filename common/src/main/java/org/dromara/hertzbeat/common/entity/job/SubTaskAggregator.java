@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.entity.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * collector use - aggregate the response data of the sub tasks of one metrics group
+ * collector使用 - 聚合同一指标组各子任务的响应数据
+ * each sub task puts its response in its own slot without lock, the last one builds the merged data once.
+ * a slot is only set once, so a sub task swept as timeout and its late response are counted once,
+ * the merged data keeps the rows of the completed sub tasks when the others timeout.
+ */
+@Slf4j
+public final class SubTaskAggregator {
+
+    private final AtomicReferenceArray<CollectRep.MetricsData> responses;
+
+    private final AtomicInteger remaining;
+
+    public SubTaskAggregator(int subTaskNum) {
+        this.responses = new AtomicReferenceArray<>(subTaskNum);
+        this.remaining = new AtomicInteger(subTaskNum);
+    }
+
+    /**
+     * consume the sub task response
+     *
+     * @param subTaskId   sub task id
+     * @param metricsData response data
+     * @return is last task? false when the sub task has been consumed before
+     */
+    public boolean consume(int subTaskId, CollectRep.MetricsData metricsData) {
+        if (!responses.compareAndSet(subTaskId, null, metricsData)) {
+            return false;
+        }
+        return remaining.decrementAndGet() == 0;
+    }
+
+    public int getSubTaskNum() {
+        return responses.length();
+    }
+
+    /**
+     * build the merged response data, call after the last task consumed
+     * the first successful response in sub task order is the base, the rows of the others are appended
+     *
+     * @return merged response data
+     */
+    public CollectRep.MetricsData build() {
+        int subTaskNum = responses.length();
+        CollectRep.MetricsData base = null;
+        int timeoutNum = 0;
+        for (int index = 0; index < subTaskNum; index++) {
+            CollectRep.MetricsData response = responses.get(index);
+            if (response == null) {
+                continue;
+            }
+            if (response.getCode() == CollectRep.Code.TIMEOUT) {
+                timeoutNum++;
+            }
+            if (base == null || base.getCode() != CollectRep.Code.SUCCESS && response.getCode() == CollectRep.Code.SUCCESS) {
+                base = response;
+            }
+        }
+        if (base == null) {
+            return null;
+        }
+        if (timeoutNum > 0) {
+            log.warn("metrics {} of monitor {} has {}/{} sub tasks timeout, emit the completed part.",
+                    base.getMetrics(), base.getId(), timeoutNum, subTaskNum);
+        }
+        CollectRep.MetricsData.Builder dataBuilder = null;
+        for (int index = 0; index < subTaskNum; index++) {
+            CollectRep.MetricsData response = responses.get(index);
+            if (response == null || response == base || response.getValuesCount() == 0) {
+                continue;
+            }
+            if (dataBuilder == null) {
+                dataBuilder = base.toBuilder();
+            }
+            for (CollectRep.ValueRow valueRow : response.getValuesList()) {
+                if (valueRow.getColumnsCount() == dataBuilder.getFieldsCount()) {
+                    dataBuilder.addValues(valueRow);
+                } else {
+                    log.error("consume subTask data value not mapping filed");
+                }
+            }
+        }
+        return dataBuilder == null ? base : dataBuilder.build();
+    }
+}
@@ -95,6 +95,14 @@ public final class ClusterMsg {
          * <code>GO_CLOSE = 8;</code>
          */
         GO_CLOSE(8),
+        /**
+         * <pre>
+         * response batch cyclic collect data, data field contains length delimited MetricsData records
+         * </pre>
+         *
+         * <code>RESPONSE_BATCH_CYCLIC_TASK_DATA = 9;</code>
+         */
+        RESPONSE_BATCH_CYCLIC_TASK_DATA(9),
         UNRECOGNIZED(-1),
         ;
         
@@ -170,6 +178,14 @@ public final class ClusterMsg {
          * <code>GO_CLOSE = 8;</code>
          */
         public static final int GO_CLOSE_VALUE = 8;
+        /**
+         * <pre>
+         * response batch cyclic collect data, data field contains length delimited MetricsData records
+         * </pre>
+         *
+         * <code>RESPONSE_BATCH_CYCLIC_TASK_DATA = 9;</code>
+         */
+        public static final int RESPONSE_BATCH_CYCLIC_TASK_DATA_VALUE = 9;
         
         
         public final int getNumber() {
@@ -214,6 +230,8 @@ public final class ClusterMsg {
                     return RESPONSE_CYCLIC_TASK_DATA;
                 case 8:
                     return GO_CLOSE;
+                case 9:
+                    return RESPONSE_BATCH_CYCLIC_TASK_DATA;
                 default:
                     return null;
             }
@@ -497,6 +515,28 @@ public final class ClusterMsg {
          */
         com.google.protobuf.ByteString
         getMsgBytes();
+        
+        /**
+         * <pre>
+         * binary message content, eg: protobuf serialized MetricsData
+         * </pre>
+         *
+         * <code>bytes data = 5;</code>
+         *
+         * @return The data.
+         */
+        com.google.protobuf.ByteString getData();
+        
+        /**
+         * <pre>
+         * request id, response echo it to correlate the concurrent requests, 0 means none
+         * </pre>
+         *
+         * <code>int64 request_id = 6;</code>
+         *
+         * @return The requestId.
+         */
+        long getRequestId();
     }
     
     /**
@@ -518,6 +558,7 @@ public final class ClusterMsg {
             direction_ = 0;
             type_ = 0;
             msg_ = "";
+            data_ = com.google.protobuf.ByteString.EMPTY;
         }
         
         @Override
@@ -575,6 +616,16 @@ public final class ClusterMsg {
                             msg_ = s;
                             break;
                         }
+                        case 42: {
+                            
+                            data_ = input.readBytes();
+                            break;
+                        }
+                        case 48: {
+                            
+                            requestId_ = input.readInt64();
+                            break;
+                        }
                         default: {
                             if (!parseUnknownField(
                                     input, unknownFields, extensionRegistry, tag)) {
@@ -776,6 +827,40 @@ public final class ClusterMsg {
             }
         }
         
+        public static final int DATA_FIELD_NUMBER = 5;
+        private com.google.protobuf.ByteString data_;
+        
+        /**
+         * <pre>
+         * binary message content, eg: protobuf serialized MetricsData
+         * </pre>
+         *
+         * <code>bytes data = 5;</code>
+         *
+         * @return The data.
+         */
+        @Override
+        public com.google.protobuf.ByteString getData() {
+            return data_;
+        }
+        
+        public static final int REQUEST_ID_FIELD_NUMBER = 6;
+        private long requestId_;
+        
+        /**
+         * <pre>
+         * request id, response echo it to correlate the concurrent requests, 0 means none
+         * </pre>
+         *
+         * <code>int64 request_id = 6;</code>
+         *
+         * @return The requestId.
+         */
+        @Override
+        public long getRequestId() {
+            return requestId_;
+        }
+        
         private byte memoizedIsInitialized = -1;
         
         @Override
@@ -803,6 +888,12 @@ public final class ClusterMsg {
             if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(msg_)) {
                 com.google.protobuf.GeneratedMessageV3.writeString(output, 4, msg_);
             }
+            if (!data_.isEmpty()) {
+                output.writeBytes(5, data_);
+            }
+            if (requestId_ != 0L) {
+                output.writeInt64(6, requestId_);
+            }
             unknownFields.writeTo(output);
         }
         
@@ -826,6 +917,14 @@ public final class ClusterMsg {
             if (!com.google.protobuf.GeneratedMessageV3.isStringEmpty(msg_)) {
                 size += com.google.protobuf.GeneratedMessageV3.computeStringSize(4, msg_);
             }
+            if (!data_.isEmpty()) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeBytesSize(5, data_);
+            }
+            if (requestId_ != 0L) {
+                size += com.google.protobuf.CodedOutputStream
+                        .computeInt64Size(6, requestId_);
+            }
             size += unknownFields.getSerializedSize();
             memoizedSize = size;
             return size;
@@ -847,6 +946,10 @@ public final class ClusterMsg {
             if (type_ != other.type_) return false;
             if (!getMsg()
                          .equals(other.getMsg())) return false;
+            if (!getData()
+                         .equals(other.getData())) return false;
+            if (getRequestId()
+                        != other.getRequestId()) return false;
             if (!unknownFields.equals(other.unknownFields)) return false;
             return true;
         }
@@ -866,6 +969,11 @@ public final class ClusterMsg {
             hash = (53 * hash) + type_;
             hash = (37 * hash) + MSG_FIELD_NUMBER;
             hash = (53 * hash) + getMsg().hashCode();
+            hash = (37 * hash) + DATA_FIELD_NUMBER;
+            hash = (53 * hash) + getData().hashCode();
+            hash = (37 * hash) + REQUEST_ID_FIELD_NUMBER;
+            hash = (53 * hash) + com.google.protobuf.Internal.hashLong(
+                    getRequestId());
             hash = (29 * hash) + unknownFields.hashCode();
             memoizedHashCode = hash;
             return hash;
@@ -1026,6 +1134,10 @@ public final class ClusterMsg {
                 
                 msg_ = "";
                 
+                data_ = com.google.protobuf.ByteString.EMPTY;
+                
+                requestId_ = 0L;
+                
                 return this;
             }
             
@@ -1056,6 +1168,8 @@ public final class ClusterMsg {
                 result.direction_ = direction_;
                 result.type_ = type_;
                 result.msg_ = msg_;
+                result.data_ = data_;
+                result.requestId_ = requestId_;
                 onBuilt();
                 return result;
             }
@@ -1124,6 +1238,12 @@ public final class ClusterMsg {
                     msg_ = other.msg_;
                     onChanged();
                 }
+                if (other.getData() != com.google.protobuf.ByteString.EMPTY) {
+                    setData(other.getData());
+                }
+                if (other.getRequestId() != 0L) {
+                    setRequestId(other.getRequestId());
+                }
                 this.mergeUnknownFields(other.unknownFields);
                 onChanged();
                 return this;
@@ -1535,6 +1655,107 @@ public final class ClusterMsg {
                 return this;
             }
             
+            private com.google.protobuf.ByteString data_ = com.google.protobuf.ByteString.EMPTY;
+            
+            /**
+             * <pre>
+             * binary message content, eg: protobuf serialized MetricsData
+             * </pre>
+             *
+             * <code>bytes data = 5;</code>
+             *
+             * @return The data.
+             */
+            @Override
+            public com.google.protobuf.ByteString getData() {
+                return data_;
+            }
+            
+            /**
+             * <pre>
+             * binary message content, eg: protobuf serialized MetricsData
+             * </pre>
+             *
+             * <code>bytes data = 5;</code>
+             *
+             * @param value The data to set.
+             * @return This builder for chaining.
+             */
+            public Builder setData(com.google.protobuf.ByteString value) {
+                if (value == null) {
+                    throw new NullPointerException();
+                }
+                
+                data_ = value;
+                onChanged();
+                return this;
+            }
+            
+            /**
+             * <pre>
+             * binary message content, eg: protobuf serialized MetricsData
+             * </pre>
+             *
+             * <code>bytes data = 5;</code>
+             *
+             * @return This builder for chaining.
+             */
+            public Builder clearData() {
+                
+                data_ = getDefaultInstance().getData();
+                onChanged();
+                return this;
+            }
+            
+            private long requestId_;
+            
+            /**
+             * <pre>
+             * request id, response echo it to correlate the concurrent requests, 0 means none
+             * </pre>
+             *
+             * <code>int64 request_id = 6;</code>
+             *
+             * @return The requestId.
+             */
+            @Override
+            public long getRequestId() {
+                return requestId_;
+            }
+            
+            /**
+             * <pre>
+             * request id, response echo it to correlate the concurrent requests, 0 means none
+             * </pre>
+             *
+             * <code>int64 request_id = 6;</code>
+             *
+             * @param value The requestId to set.
+             * @return This builder for chaining.
+             */
+            public Builder setRequestId(long value) {
+                
+                requestId_ = value;
+                onChanged();
+                return this;
+            }
+            
+            /**
+             * <pre>
+             * request id, response echo it to correlate the concurrent requests, 0 means none
+             * </pre>
+             *
+             * <code>int64 request_id = 6;</code>
+             *
+             * @return This builder for chaining.
+             */
+            public Builder clearRequestId() {
+                
+                requestId_ = 0L;
+                onChanged();
+                return this;
+            }
+            
             @Override
             public final Builder setUnknownFields(
                     final com.google.protobuf.UnknownFieldSet unknownFields) {
@@ -1606,18 +1827,20 @@ public final class ClusterMsg {
     static {
         String[] descriptorData = {
                 "\n\021cluster_msg.proto\022+org.dromara.hertzbe" +
-                        "at.common.entity.message\"\273\001\n\007Message\022\020\n\010" +
+                        "at.common.entity.message\"\335\001\n\007Message\022\020\n\010" +
                         "identity\030\001 \001(\t\022I\n\tdirection\030\002 \001(\01626.org." +
                         "dromara.hertzbeat.common.entity.message." +
                         "Direction\022F\n\004type\030\003 \001(\01628.org.dromara.he" +
                         "rtzbeat.common.entity.message.MessageTyp" +
-                        "e\022\013\n\003msg\030\004 \001(\t*\321\001\n\013MessageType\022\r\n\tHEARTB" +
-                        "EAT\020\000\022\r\n\tGO_ONLINE\020\001\022\016\n\nGO_OFFLINE\020\002\022\025\n\021" +
-                        "ISSUE_CYCLIC_TASK\020\003\022\026\n\022DELETE_CYCLIC_TAS" +
-                        "K\020\004\022\027\n\023ISSUE_ONE_TIME_TASK\020\005\022\037\n\033RESPONSE" +
-                        "_ONE_TIME_TASK_DATA\020\006\022\035\n\031RESPONSE_CYCLIC" +
-                        "_TASK_DATA\020\007\022\014\n\010GO_CLOSE\020\010*&\n\tDirection\022" +
-                        "\013\n\007REQUEST\020\000\022\014\n\010RESPONSE\020\001b\006proto3"
+                        "e\022\013\n\003msg\030\004 \001(\t\022\014\n\004data\030\005 \001(\014\022\022\n\nrequest_" +
+                        "id\030\006 \001(\003*\366\001\n\013MessageType\022\r\n\tHEARTBEAT\020\000\022" +
+                        "\r\n\tGO_ONLINE\020\001\022\016\n\nGO_OFFLINE\020\002\022\025\n\021ISSUE_" +
+                        "CYCLIC_TASK\020\003\022\026\n\022DELETE_CYCLIC_TASK\020\004\022\027\n" +
+                        "\023ISSUE_ONE_TIME_TASK\020\005\022\037\n\033RESPONSE_ONE_T" +
+                        "IME_TASK_DATA\020\006\022\035\n\031RESPONSE_CYCLIC_TASK_" +
+                        "DATA\020\007\022\014\n\010GO_CLOSE\020\010\022#\n\037RESPONSE_BATCH_C" +
+                        "YCLIC_TASK_DATA\020\t*&\n\tDirection\022\013\n\007REQUES" +
+                        "T\020\000\022\014\n\010RESPONSE\020\001b\006proto3"
         };
         descriptor = com.google.protobuf.Descriptors.FileDescriptor
                              .internalBuildGeneratedFileFrom(descriptorData,
@@ -1628,7 +1851,7 @@ public final class ClusterMsg {
         internal_static_org_dromara_hertzbeat_common_entity_message_Message_fieldAccessorTable = new
                                                                                                          com.google.protobuf.GeneratedMessageV3.FieldAccessorTable(
                 internal_static_org_dromara_hertzbeat_common_entity_message_Message_descriptor,
-                new String[]{"Identity", "Direction", "Type", "Msg",});
+                new String[]{"Identity", "Direction", "Type", "Msg", "Data", "RequestId",});
     }
     
     // @@protoc_insertion_point(outer_class_scope)
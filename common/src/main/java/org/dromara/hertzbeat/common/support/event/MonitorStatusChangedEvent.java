@@ -0,0 +1,34 @@
+package org.dromara.hertzbeat.common.support.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * the event for monitor status change
+ * 监控状态变更事件
+ */
+public class MonitorStatusChangedEvent extends ApplicationEvent {
+
+    /**
+     * monitoring id
+     */
+    private final Long monitorId;
+
+    /**
+     * new monitoring status
+     */
+    private final byte status;
+
+    public MonitorStatusChangedEvent(Object source, Long monitorId, byte status) {
+        super(source);
+        this.monitorId = monitorId;
+        this.status = status;
+    }
+
+    public Long getMonitorId() {
+        return monitorId;
+    }
+
+    public byte getStatus() {
+        return status;
+    }
+}
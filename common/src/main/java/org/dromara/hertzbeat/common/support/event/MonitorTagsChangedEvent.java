@@ -0,0 +1,24 @@
+package org.dromara.hertzbeat.common.support.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * the event for monitor bind tags change
+ * 监控绑定标签变更事件
+ */
+public class MonitorTagsChangedEvent extends ApplicationEvent {
+
+    /**
+     * monitoring id, null means the tags of all monitors may change
+     */
+    private final Long monitorId;
+
+    public MonitorTagsChangedEvent(Object source, Long monitorId) {
+        super(source);
+        this.monitorId = monitorId;
+    }
+
+    public Long getMonitorId() {
+        return monitorId;
+    }
+}
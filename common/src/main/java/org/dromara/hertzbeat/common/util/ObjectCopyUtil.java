@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.util;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * reflective copy of the hertzbeat entity objects without the json serialization round trip
+ * 不经过json序列化的hertzbeat实体对象反射复制
+ * the entity classes under org.dromara.hertzbeat are copied field by field through their no-arg constructor,
+ * lists, sets, maps and arrays are rebuilt, other values (string, boxed, enum, time...) are shared as immutable.
+ * the field layout of each class is resolved once and cached.
+ */
+public final class ObjectCopyUtil {
+
+    private static final String COPYABLE_PACKAGE = "org.dromara.hertzbeat.";
+
+    private static final ClassValue<ClassLayout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected ClassLayout computeValue(Class<?> type) {
+            return new ClassLayout(type);
+        }
+    };
+
+    private ObjectCopyUtil() {
+    }
+
+    /**
+     * deep copy the value, the transient fields are not copied and keep their initial value like json copy
+     * 深度复制, transient字段与json复制一致不复制
+     *
+     * @param source source value, the object graph must be a tree
+     * @param <T>    value type
+     * @return copied value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T deepCopy(T source) {
+        return (T) copyValue(source);
+    }
+
+    /**
+     * shallow copy the entity object, all the instance fields include transient are copied by reference
+     * 浅复制实体对象, 包括transient在内的全部字段引用复制
+     *
+     * @param source source entity object
+     * @param <T>    entity type
+     * @return copied entity object
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T shallowCopy(T source) {
+        if (source == null) {
+            return null;
+        }
+        ClassLayout layout = LAYOUTS.get(source.getClass());
+        Object target = layout.newInstance();
+        try {
+            for (Field field : layout.fields) {
+                field.set(target, field.get(source));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not copy " + source.getClass().getName(), e);
+        }
+        return (T) target;
+    }
+
+    /**
+     * is the type a hertzbeat entity which is copied field by field
+     *
+     * @param type type
+     * @return true - entity
+     */
+    public static boolean isCopyable(Class<?> type) {
+        return type.getName().startsWith(COPYABLE_PACKAGE) && !type.isEnum() && !type.isInterface()
+                && !type.isArray() && !type.isAnonymousClass();
+    }
+
+    /**
+     * the accessible non-static and non-transient fields of the entity type, include super classes
+     *
+     * @param type entity type
+     * @return fields
+     */
+    public static List<Field> persistentFields(Class<?> type) {
+        return LAYOUTS.get(type).persistentFields;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Class<?> type = value.getClass();
+        if (value instanceof Collection) {
+            return copyCollection((Collection<?>) value);
+        }
+        if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        }
+        if (type.isArray()) {
+            return copyArray(value);
+        }
+        if (isCopyable(type)) {
+            return copyObject(value);
+        }
+        return value;
+    }
+
+    private static Object copyObject(Object source) {
+        ClassLayout layout = LAYOUTS.get(source.getClass());
+        Object target = layout.newInstance();
+        try {
+            for (Field field : layout.persistentFields) {
+                field.set(target, copyValue(field.get(source)));
+            }
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not copy " + source.getClass().getName(), e);
+        }
+        return target;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Collection<Object> copyCollection(Collection<?> source) {
+        Collection<Object> target;
+        if (source instanceof SortedSet) {
+            target = new TreeSet<>((Comparator) ((SortedSet<?>) source).comparator());
+        } else if (source instanceof Set) {
+            target = new LinkedHashSet<>(MapCapUtil.calInitMap(source.size()));
+        } else if (source instanceof LinkedList || source instanceof Queue) {
+            target = new LinkedList<>();
+        } else {
+            target = new ArrayList<>(source.size());
+        }
+        for (Object item : source) {
+            target.add(copyValue(item));
+        }
+        return target;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Map<Object, Object> copyMap(Map<?, ?> source) {
+        Map<Object, Object> target = source instanceof SortedMap
+                ? new TreeMap<>((Comparator) ((SortedMap<?, ?>) source).comparator())
+                : new LinkedHashMap<>(MapCapUtil.calInitMap(source.size()));
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            target.put(entry.getKey(), copyValue(entry.getValue()));
+        }
+        return target;
+    }
+
+    private static Object copyArray(Object source) {
+        int length = Array.getLength(source);
+        Class<?> componentType = source.getClass().getComponentType();
+        Object target = Array.newInstance(componentType, length);
+        if (componentType.isPrimitive()) {
+            System.arraycopy(source, 0, target, 0, length);
+            return target;
+        }
+        for (int index = 0; index < length; index++) {
+            Array.set(target, index, copyValue(Array.get(source, index)));
+        }
+        return target;
+    }
+
+    private static final class ClassLayout {
+
+        private final Class<?> type;
+
+        private final Constructor<?> constructor;
+
+        private final List<Field> fields;
+
+        private final List<Field> persistentFields;
+
+        private ClassLayout(Class<?> type) {
+            this.type = type;
+            Constructor<?> noArgConstructor = null;
+            try {
+                noArgConstructor = type.getDeclaredConstructor();
+                noArgConstructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException ignored) {
+                // not instantiable, fail on copy
+            }
+            this.constructor = noArgConstructor;
+            List<Field> allFields = new ArrayList<>();
+            List<Field> persistent = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    allFields.add(field);
+                    if (!Modifier.isTransient(modifiers)) {
+                        persistent.add(field);
+                    }
+                }
+            }
+            this.fields = Collections.unmodifiableList(allFields);
+            this.persistentFields = Collections.unmodifiableList(persistent);
+        }
+
+        private Object newInstance() {
+            if (constructor == null) {
+                throw new IllegalStateException("no no-arg constructor to copy " + type.getName());
+            }
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("can not copy " + type.getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.util;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * pack multi protobuf records into one length delimited bytes frame, and unpack it
+ * 多条protobuf记录打包为一个长度分隔的字节帧及其解包
+ */
+@Slf4j
+public class ProtoBatchUtil {
+
+    /**
+     * pack records as varint length delimited bytes
+     * @param records protobuf records
+     * @return frame bytes
+     */
+    public static ByteString toBatchBytes(List<? extends Message> records) {
+        if (records == null || records.isEmpty()) {
+            return ByteString.EMPTY;
+        }
+        int size = 0;
+        for (Message record : records) {
+            int recordSize = record.getSerializedSize();
+            size += CodedOutputStream.computeUInt32SizeNoTag(recordSize) + recordSize;
+        }
+        ByteString.Output output = ByteString.newOutput(size);
+        CodedOutputStream codedOutput = CodedOutputStream.newInstance(output, size);
+        try {
+            for (Message record : records) {
+                codedOutput.writeUInt32NoTag(record.getSerializedSize());
+                record.writeTo(codedOutput);
+            }
+            codedOutput.flush();
+        } catch (IOException e) {
+            log.error(e.getMessage(), e);
+            return ByteString.EMPTY;
+        }
+        return output.toByteString();
+    }
+
+    /**
+     * unpack varint length delimited bytes to records
+     * @param bytes frame bytes
+     * @param parser record parser
+     * @param <T> record type
+     * @return records, the records before a broken one are kept
+     */
+    public static <T extends Message> List<T> parseBatch(ByteString bytes, Parser<T> parser) {
+        if (bytes == null || bytes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> records = new ArrayList<>();
+        CodedInputStream input = bytes.newCodedInput();
+        try {
+            while (!input.isAtEnd()) {
+                int length = input.readRawVarint32();
+                int oldLimit = input.pushLimit(length);
+                records.add(parser.parseFrom(input));
+                input.popLimit(oldLimit);
+            }
+        } catch (IOException e) {
+            log.error("parse batch protobuf records error: {}", e.getMessage());
+        }
+        return records;
+    }
+}
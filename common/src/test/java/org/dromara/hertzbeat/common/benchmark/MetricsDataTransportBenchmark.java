@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.benchmark;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.util.ProtoJsonUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark collector to manager metrics data transport:
+ * json string in message msg field vs protobuf binary in message data field.
+ * each benchmark covers collector encode, wire serialize, manager parse and decode.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main MetricsDataTransportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsDataTransportBenchmark {
+
+    @Param({"1", "20", "200"})
+    private int rows;
+
+    private CollectRep.MetricsData metricsData;
+
+    @Setup
+    public void setup() {
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder()
+                .setId(1024L)
+                .setTenantId(0L)
+                .setApp("linux")
+                .setMetrics("interface")
+                .setPriority(1)
+                .setTime(System.currentTimeMillis())
+                .setCode(CollectRep.Code.SUCCESS);
+        String[] fields = {"interface_name", "receive_bytes", "transmit_bytes", "receive_packets", "transmit_packets", "errors"};
+        for (int i = 0; i < fields.length; i++) {
+            builder.addFields(CollectRep.Field.newBuilder().setName(fields[i]).setType(i == 0 ? 1 : 0).setUnit(i == 0 ? "" : "Mb").build());
+        }
+        for (int i = 0; i < rows; i++) {
+            CollectRep.ValueRow.Builder row = CollectRep.ValueRow.newBuilder().addColumns("eth" + i);
+            for (int j = 1; j < fields.length; j++) {
+                row.addColumns(String.valueOf(123456.789 * j + i));
+            }
+            builder.addValues(row.build());
+        }
+        metricsData = builder.build();
+    }
+
+    @Benchmark
+    public CollectRep.MetricsData jsonPath() throws InvalidProtocolBufferException {
+        ClusterMsg.Message message = ClusterMsg.Message.newBuilder()
+                .setIdentity("collector-benchmark")
+                .setDirection(ClusterMsg.Direction.REQUEST)
+                .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA)
+                .setMsg(ProtoJsonUtil.toJsonStr(metricsData))
+                .build();
+        ClusterMsg.Message received = ClusterMsg.Message.parseFrom(message.toByteArray());
+        return (CollectRep.MetricsData) ProtoJsonUtil.toProtobuf(received.getMsg(), CollectRep.MetricsData.newBuilder());
+    }
+
+    @Benchmark
+    public CollectRep.MetricsData binaryPath() throws InvalidProtocolBufferException {
+        ClusterMsg.Message message = ClusterMsg.Message.newBuilder()
+                .setIdentity("collector-benchmark")
+                .setDirection(ClusterMsg.Direction.REQUEST)
+                .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA)
+                .setData(metricsData.toByteString())
+                .build();
+        ClusterMsg.Message received = ClusterMsg.Message.parseFrom(message.toByteArray());
+        return CollectRep.MetricsData.parseFrom(received.getData());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(MetricsDataTransportBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
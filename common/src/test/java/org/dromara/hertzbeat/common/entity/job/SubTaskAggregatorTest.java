@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.entity.job;
+
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link SubTaskAggregator}
+ */
+class SubTaskAggregatorTest {
+
+    @Test
+    void consumeConcurrently() throws InterruptedException {
+        int subTaskNum = 50;
+        SubTaskAggregator aggregator = new SubTaskAggregator(subTaskNum);
+        AtomicInteger lastTasks = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(subTaskNum);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int index = 0; index < subTaskNum; index++) {
+            int subTaskId = index;
+            executor.execute(() -> {
+                if (aggregator.consume(subTaskId, success(subTaskId, 3))) {
+                    lastTasks.incrementAndGet();
+                }
+                latch.countDown();
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, lastTasks.get());
+        CollectRep.MetricsData metricsData = aggregator.build();
+        assertEquals(CollectRep.Code.SUCCESS, metricsData.getCode());
+        assertEquals(subTaskNum * 3, metricsData.getValuesCount());
+        // rows are in sub task order
+        assertEquals("0-0", metricsData.getValues(0).getColumns(0));
+        assertEquals("49-2", metricsData.getValues(subTaskNum * 3 - 1).getColumns(0));
+    }
+
+    @Test
+    void partialEmitWhenTimeout() {
+        SubTaskAggregator aggregator = new SubTaskAggregator(3);
+        assertFalse(aggregator.consume(0, failed(CollectRep.Code.TIMEOUT)));
+        assertFalse(aggregator.consume(1, success(1, 2)));
+        // the late response of the timeout sub task is ignored
+        assertFalse(aggregator.consume(0, success(0, 2)));
+        assertTrue(aggregator.consume(2, success(2, 1)));
+        CollectRep.MetricsData metricsData = aggregator.build();
+        assertEquals(CollectRep.Code.SUCCESS, metricsData.getCode());
+        assertEquals(3, metricsData.getValuesCount());
+        assertEquals("1-0", metricsData.getValues(0).getColumns(0));
+    }
+
+    @Test
+    void allFailed() {
+        SubTaskAggregator aggregator = new SubTaskAggregator(2);
+        aggregator.consume(1, failed(CollectRep.Code.TIMEOUT));
+        assertTrue(aggregator.consume(0, failed(CollectRep.Code.UN_CONNECTABLE)));
+        assertEquals(CollectRep.Code.UN_CONNECTABLE, aggregator.build().getCode());
+    }
+
+    private CollectRep.MetricsData success(int subTaskId, int rows) {
+        CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder()
+                .setMetrics("tables").setCode(CollectRep.Code.SUCCESS)
+                .addFields(CollectRep.Field.newBuilder().setName("name").build())
+                .addFields(CollectRep.Field.newBuilder().setName("size").build());
+        for (int row = 0; row < rows; row++) {
+            builder.addValues(CollectRep.ValueRow.newBuilder()
+                    .addColumns(subTaskId + "-" + row).addColumns(String.valueOf(row)).build());
+        }
+        return builder.build();
+    }
+
+    private CollectRep.MetricsData failed(CollectRep.Code code) {
+        return CollectRep.MetricsData.newBuilder().setMetrics("tables").setCode(code).build();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.util;
+
+import org.dromara.hertzbeat.common.entity.job.Configmap;
+import org.dromara.hertzbeat.common.entity.job.Job;
+import org.dromara.hertzbeat.common.entity.job.Metrics;
+import org.dromara.hertzbeat.common.entity.job.SubTaskAggregator;
+import org.dromara.hertzbeat.common.entity.job.protocol.HttpProtocol;
+import org.dromara.hertzbeat.common.entity.manager.ParamDefine;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Test case for {@link ObjectCopyUtil}
+ */
+class ObjectCopyUtilTest {
+
+    @Test
+    void deepCopy() {
+        Job job = job();
+        Job copy = job.clone();
+        assertNotSame(job, copy);
+        assertEquals(JsonUtil.toJson(job), JsonUtil.toJson(copy));
+        assertNotSame(job.getMetrics(), copy.getMetrics());
+        Metrics metrics = job.getMetrics().get(0);
+        Metrics copyMetrics = copy.getMetrics().get(0);
+        assertNotSame(metrics, copyMetrics);
+        assertNotSame(metrics.getHttp(), copyMetrics.getHttp());
+        assertNotSame(metrics.getHttp().getHeaders(), copyMetrics.getHttp().getHeaders());
+        assertNotSame(metrics.getFields().get(0), copyMetrics.getFields().get(0));
+        assertNotSame(job.getParams().get(0).getOptions().get(0), copy.getParams().get(0).getOptions().get(0));
+        // immutable values are shared
+        assertSame(job.getParams().get(0).getGmtCreate(), copy.getParams().get(0).getGmtCreate());
+        // transient fields are not copied like the json copy
+        assertEquals(0, copy.getDispatchTime());
+        assertNull(copyMetrics.getSubTaskAggregator());
+        copyMetrics.getHttp().getHeaders().put("Accept", "text/plain");
+        assertEquals("application/json", metrics.getHttp().getHeaders().get("Accept"));
+    }
+
+    @Test
+    void shallowCopy() {
+        Metrics metrics = job().getMetrics().get(0);
+        metrics.setSubTaskAggregator(new SubTaskAggregator(2));
+        Metrics copy = ObjectCopyUtil.shallowCopy(metrics);
+        assertNotSame(metrics, copy);
+        assertSame(metrics.getHttp(), copy.getHttp());
+        assertSame(metrics.getSubTaskAggregator(), copy.getSubTaskAggregator());
+        assertNull(ObjectCopyUtil.shallowCopy(null));
+    }
+
+    private Job job() {
+        Map<String, String> headers = new HashMap<>(4);
+        headers.put("Accept", "application/json");
+        List<Metrics.Field> fields = new ArrayList<>();
+        fields.add(new Metrics.Field("name", Map.of("en-US", "Name"), (byte) 1, true, null));
+        Metrics metrics = Metrics.builder()
+                .name("summary")
+                .protocol("http")
+                .priority((byte) 0)
+                .fields(fields)
+                .aliasFields(List.of("name"))
+                .http(HttpProtocol.builder().host("^_^host^_^").url("/api").headers(headers)
+                        .authorization(new HttpProtocol.Authorization()).build())
+                .build();
+        ParamDefine paramDefine = ParamDefine.builder()
+                .field("host")
+                .type("host")
+                .options(List.of(new ParamDefine.Option("label", "value")))
+                .gmtCreate(LocalDateTime.now())
+                .build();
+        Job job = Job.builder()
+                .id(1L)
+                .monitorId(2L)
+                .app("website")
+                .interval(30L)
+                .isCyclic(true)
+                .params(List.of(paramDefine))
+                .metrics(List.of(metrics))
+                .configmap(List.of(new Configmap("host", "127.0.0.1", (byte) 1)))
+                .build();
+        job.setDispatchTime(System.currentTimeMillis());
+        return job;
+    }
+}
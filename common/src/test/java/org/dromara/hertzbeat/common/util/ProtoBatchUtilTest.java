@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.common.util;
+
+import com.google.protobuf.ByteString;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link ProtoBatchUtil}
+ */
+class ProtoBatchUtilTest {
+
+    @Test
+    void toBatchBytesAndParse() {
+        List<CollectRep.MetricsData> records = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            records.add(CollectRep.MetricsData.newBuilder()
+                    .setId(i)
+                    .setApp("linux")
+                    .setMetrics("cpu")
+                    .addValues(CollectRep.ValueRow.newBuilder().addColumns(String.valueOf(i)).build())
+                    .build());
+        }
+        ByteString bytes = ProtoBatchUtil.toBatchBytes(records);
+        List<CollectRep.MetricsData> parsed = ProtoBatchUtil.parseBatch(bytes, CollectRep.MetricsData.parser());
+        assertEquals(records, parsed);
+    }
+
+    @Test
+    void emptyBatch() {
+        assertTrue(ProtoBatchUtil.toBatchBytes(new ArrayList<CollectRep.MetricsData>()).isEmpty());
+        assertTrue(ProtoBatchUtil.parseBatch(ByteString.EMPTY, CollectRep.MetricsData.parser()).isEmpty());
+    }
+
+    @Test
+    void brokenBatchKeepParsedRecords() {
+        List<CollectRep.MetricsData> records = new ArrayList<>();
+        records.add(CollectRep.MetricsData.newBuilder().setId(1L).setApp("linux").build());
+        records.add(CollectRep.MetricsData.newBuilder().setId(2L).setApp("mysql").build());
+        ByteString bytes = ProtoBatchUtil.toBatchBytes(records);
+        ByteString broken = bytes.substring(0, bytes.size() - 2);
+        List<CollectRep.MetricsData> parsed = ProtoBatchUtil.parseBatch(broken, CollectRep.MetricsData.parser());
+        assertEquals(1, parsed.size());
+        assertEquals(1L, parsed.get(0).getId());
+    }
+}
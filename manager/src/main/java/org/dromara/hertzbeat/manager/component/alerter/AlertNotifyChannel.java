@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.manager.component.alerter;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.alert.AlerterProperties;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.common.entity.manager.NoticeReceiver;
+import org.dromara.hertzbeat.common.entity.manager.NoticeTemplate;
+import org.dromara.hertzbeat.manager.support.exception.AlertNoticeException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alarm notify channel of a receiver type
+ * 告警通知渠道, 每种通知接收类型一个
+ * notifications are sent by the channel threads, so a slow receiver server only delays its own channel.
+ * the channel queue is bounded, the notification is dropped when the queue is full or it waited over the timeout,
+ * and the send rate is limited by a token bucket.
+ */
+@Slf4j
+public class AlertNotifyChannel {
+
+    private static final String DROP_QUEUE_FULL = "queue_full";
+
+    private static final String DROP_TIMEOUT = "timeout";
+
+    private final AlertNotifyHandler handler;
+
+    private final ThreadPoolExecutor executor;
+
+    private final RateLimiter rateLimiter;
+
+    private final long timeout;
+
+    private final Timer latencyTimer;
+
+    private final Counter queueFullCounter;
+
+    private final Counter timeoutCounter;
+
+    private final Counter failedCounter;
+
+    public AlertNotifyChannel(AlertNotifyHandler handler, AlerterProperties.NotifyProperties properties) {
+        this.handler = handler;
+        String channel = String.valueOf(handler.type());
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("notify channel {} has uncaughtException.", channel);
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("alerter-notify-" + channel + "-%d")
+                .build();
+        int threads = Math.max(1, properties.getThreads());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        this.rateLimiter = RateLimiter.create(properties.getPermitsPerSecond());
+        this.timeout = properties.getTimeout();
+        Tags tags = Tags.of("channel", channel);
+        this.latencyTimer = Timer.builder("hertzbeat.alerter.notify.latency")
+                .description("alarm notification delivery latency from dispatch to sent")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(Metrics.globalRegistry);
+        this.queueFullCounter = Metrics.counter("hertzbeat.alerter.notify.dropped", tags.and("reason", DROP_QUEUE_FULL));
+        this.timeoutCounter = Metrics.counter("hertzbeat.alerter.notify.dropped", tags.and("reason", DROP_TIMEOUT));
+        this.failedCounter = Metrics.counter("hertzbeat.alerter.notify.failed", tags);
+        Metrics.gauge("hertzbeat.alerter.notify.pending", tags, executor, pool -> pool.getQueue().size());
+    }
+
+    /**
+     * send the notification asynchronously
+     *
+     * @param receiver       receiver
+     * @param noticeTemplate notice template
+     * @param alert          alert
+     * @return false when the notification is dropped
+     */
+    public boolean dispatch(NoticeReceiver receiver, NoticeTemplate noticeTemplate, Alert alert) {
+        long dispatchTime = System.nanoTime();
+        try {
+            executor.execute(() -> send(receiver, noticeTemplate, alert, dispatchTime));
+            return true;
+        } catch (RejectedExecutionException e) {
+            queueFullCounter.increment();
+            log.warn("notify channel {} queue is full, drop the notification to receiver {}.",
+                    handler.type(), receiver.getName());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void send(NoticeReceiver receiver, NoticeTemplate noticeTemplate, Alert alert, long dispatchTime) {
+        if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - dispatchTime) > timeout) {
+            timeoutCounter.increment();
+            log.warn("notify channel {} notification to receiver {} waited over {}ms, drop it.",
+                    handler.type(), receiver.getName(), timeout);
+            return;
+        }
+        rateLimiter.acquire();
+        try {
+            handler.send(receiver, noticeTemplate, alert);
+            latencyTimer.record(System.nanoTime() - dispatchTime, TimeUnit.NANOSECONDS);
+        } catch (AlertNoticeException e) {
+            failedCounter.increment();
+            log.warn("DispatchTask sendNoticeMsg error, message: {}", e.getMessage());
+        } catch (Exception e) {
+            failedCounter.increment();
+            log.error("notify channel {} send error: {}", handler.type(), e.getMessage(), e);
+        }
+    }
+}
@@ -19,6 +19,7 @@ package org.dromara.hertzbeat.manager.component.alerter;
 
 import com.google.common.collect.Maps;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.alert.AlerterProperties;
 import org.dromara.hertzbeat.alert.AlerterWorkerPool;
 import org.dromara.hertzbeat.common.entity.alerter.Alert;
 import org.dromara.hertzbeat.common.entity.manager.NoticeReceiver;
@@ -26,8 +27,8 @@ import org.dromara.hertzbeat.common.entity.manager.NoticeRule;
 import org.dromara.hertzbeat.common.entity.manager.NoticeTemplate;
 import org.dromara.hertzbeat.common.queue.CommonDataQueue;
 import org.dromara.hertzbeat.manager.service.NoticeConfigService;
-import org.dromara.hertzbeat.manager.support.exception.AlertNoticeException;
 import org.dromara.hertzbeat.manager.support.exception.IgnoreException;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.stereotype.Component;
 
@@ -42,7 +43,7 @@ import java.util.Map;
  */
 @Component
 @Slf4j
-public class DispatcherAlarm implements InitializingBean {
+public class DispatcherAlarm implements InitializingBean, DisposableBean {
     private static final int DISPATCH_THREADS = 3;
 
     private final AlerterWorkerPool workerPool;
@@ -50,18 +51,23 @@ public class DispatcherAlarm implements InitializingBean {
     private final NoticeConfigService noticeConfigService;
     private final AlertStoreHandler alertStoreHandler;
     private final Map<Byte, AlertNotifyHandler> alertNotifyHandlerMap;
+    private final Map<Byte, AlertNotifyChannel> alertNotifyChannelMap;
 
     public DispatcherAlarm(AlerterWorkerPool workerPool,
                            CommonDataQueue dataQueue,
                            NoticeConfigService noticeConfigService,
                            AlertStoreHandler alertStoreHandler,
-                           List<AlertNotifyHandler> alertNotifyHandlerList) {
+                           List<AlertNotifyHandler> alertNotifyHandlerList,
+                           AlerterProperties alerterProperties) {
         this.workerPool = workerPool;
         this.dataQueue = dataQueue;
         this.noticeConfigService = noticeConfigService;
         this.alertStoreHandler = alertStoreHandler;
         alertNotifyHandlerMap = Maps.newHashMapWithExpectedSize(alertNotifyHandlerList.size());
         alertNotifyHandlerList.forEach(r -> alertNotifyHandlerMap.put(r.type(), r));
+        alertNotifyChannelMap = Maps.newHashMapWithExpectedSize(alertNotifyHandlerList.size());
+        alertNotifyHandlerList.forEach(r -> alertNotifyChannelMap.put(r.type(),
+                new AlertNotifyChannel(r, alerterProperties.getNotify())));
     }
 
     @Override
@@ -73,6 +79,11 @@ public class DispatcherAlarm implements InitializingBean {
         }
     }
 
+    @Override
+    public void destroy() {
+        alertNotifyChannelMap.values().forEach(AlertNotifyChannel::shutdown);
+    }
+
     /**
      * send alert msg to receiver
      *
@@ -93,6 +104,22 @@ public class DispatcherAlarm implements InitializingBean {
         return false;
     }
 
+    /**
+     * send alert msg to receiver asynchronously by the notify channel of receiver type
+     *
+     * @param receiver receiver
+     * @param alert    alert msg
+     * @return dispatched or dropped
+     */
+    public boolean dispatchNoticeMsg(NoticeReceiver receiver, NoticeTemplate noticeTemplate, Alert alert) {
+        if (receiver == null || receiver.getType() == null) {
+            log.warn("DispatcherAlarm-dispatchNoticeMsg params is empty alert:[{}], receiver:[{}]", alert, receiver);
+            return false;
+        }
+        AlertNotifyChannel channel = alertNotifyChannelMap.get(receiver.getType());
+        return channel != null && channel.dispatch(receiver, noticeTemplate, alert);
+    }
+
     private NoticeReceiver getOneReceiverById(Long id) {
         return noticeConfigService.getOneReceiverById(id);
     }
@@ -129,19 +156,15 @@ public class DispatcherAlarm implements InitializingBean {
 
         private void sendNotify(Alert alert) {
             List<NoticeRule> noticeRules = matchNoticeRulesByAlert(alert);
-            // todo Send notification here temporarily single thread     发送通知这里暂时单线程
+            // 通知由各接收类型的通知渠道异步发送    notifications are sent by the notify channel of receiver type
             if (noticeRules != null) {
                 for (NoticeRule rule : noticeRules) {
-                    try {
-                        if (rule.getTemplateId() == null) {
-                            sendNoticeMsg(getOneReceiverById(rule.getReceiverId()),
-                                    null, alert);
-                        } else {
-                            sendNoticeMsg(getOneReceiverById(rule.getReceiverId()),
-                                    getOneTemplateById(rule.getTemplateId()), alert);
-                        }
-                    } catch (AlertNoticeException e) {
-                        log.warn("DispatchTask sendNoticeMsg error, message: {}", e.getMessage());
+                    if (rule.getTemplateId() == null) {
+                        dispatchNoticeMsg(getOneReceiverById(rule.getReceiverId()),
+                                null, alert);
+                    } else {
+                        dispatchNoticeMsg(getOneReceiverById(rule.getReceiverId()),
+                                getOneTemplateById(rule.getTemplateId()), alert);
                     }
                 }
             }
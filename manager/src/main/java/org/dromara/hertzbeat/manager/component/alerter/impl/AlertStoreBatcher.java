@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.manager.component.alerter.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.alert.service.AlertService;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.manager.service.MonitorService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * write behind batcher of the alarm store
+ * 告警入库批量写
+ * alerts and monitor status updates are queued and written to database in batches by one thread,
+ * the status updates of a monitor are merged to the latest one and written before the alerts.
+ * when the alert queue is full, the alert is written directly by the caller.
+ */
+@Slf4j
+final class AlertStoreBatcher {
+
+    private static final int BATCH_SIZE = 200;
+
+    private static final int QUEUE_CAPACITY = 10000;
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    private final AlertService alertService;
+
+    private final MonitorService monitorService;
+
+    private final BlockingQueue<Alert> alertQueue;
+
+    /**
+     * key: monitor id, value: latest status, guarded by itself
+     */
+    private final Map<Long, Byte> pendingStatus = new LinkedHashMap<>(16);
+
+    private final ThreadPoolExecutor executor;
+
+    private final Counter directCounter;
+
+    private volatile boolean running = true;
+
+    AlertStoreBatcher(AlertService alertService, MonitorService monitorService) {
+        this(alertService, monitorService, QUEUE_CAPACITY);
+    }
+
+    AlertStoreBatcher(AlertService alertService, MonitorService monitorService, int capacity) {
+        this.alertService = alertService;
+        this.monitorService = monitorService;
+        this.alertQueue = new ArrayBlockingQueue<>(capacity);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("alert store batcher has uncaughtException.");
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("alert-store-batcher-%d")
+                .build();
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.directCounter = Metrics.counter("hertzbeat.manager.alert.store.direct");
+        Metrics.gauge("hertzbeat.manager.alert.store.pending", alertQueue, BlockingQueue::size);
+        this.executor.execute(this::run);
+    }
+
+    /**
+     * queue the alert to store
+     *
+     * @param alert alert
+     */
+    void addAlert(Alert alert) {
+        if (!alertQueue.offer(alert)) {
+            directCounter.increment();
+            alertService.addAlert(alert);
+        }
+    }
+
+    /**
+     * queue the monitor status update
+     *
+     * @param monitorId monitor id
+     * @param status    new status
+     */
+    void updateMonitorStatus(long monitorId, byte status) {
+        synchronized (pendingStatus) {
+            pendingStatus.remove(monitorId);
+            pendingStatus.put(monitorId, status);
+        }
+    }
+
+    /**
+     * drop the pending status update of the monitor, used when the monitor is unmanaged or deleted
+     *
+     * @param monitorId monitor id
+     */
+    void removeMonitorStatus(long monitorId) {
+        synchronized (pendingStatus) {
+            pendingStatus.remove(monitorId);
+        }
+    }
+
+    /**
+     * stop the batcher and flush all the pending data
+     */
+    void shutdown() {
+        running = false;
+        executor.shutdown();
+        try {
+            executor.awaitTermination(FLUSH_INTERVAL_MILLIS * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void run() {
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                Alert first = alertQueue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<Alert> alerts = new ArrayList<>(BATCH_SIZE);
+                    alerts.add(first);
+                    alertQueue.drainTo(alerts, BATCH_SIZE - 1);
+                    flushStatus();
+                    storeAlerts(alerts);
+                } else {
+                    flushStatus();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("alert store batcher flush error: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * flush all the pending data synchronously
+     */
+    void flush() {
+        flushStatus();
+        while (!alertQueue.isEmpty()) {
+            List<Alert> alerts = new ArrayList<>(BATCH_SIZE);
+            if (alertQueue.drainTo(alerts, BATCH_SIZE) == 0) {
+                break;
+            }
+            storeAlerts(alerts);
+        }
+    }
+
+    private void flushStatus() {
+        Map<Byte, List<Long>> statusMonitors;
+        synchronized (pendingStatus) {
+            if (pendingStatus.isEmpty()) {
+                return;
+            }
+            statusMonitors = new HashMap<>(4);
+            for (Map.Entry<Long, Byte> entry : pendingStatus.entrySet()) {
+                statusMonitors.computeIfAbsent(entry.getValue(), key -> new ArrayList<>()).add(entry.getKey());
+            }
+            pendingStatus.clear();
+        }
+        for (Map.Entry<Byte, List<Long>> entry : statusMonitors.entrySet()) {
+            try {
+                monitorService.updateMonitorsStatus(entry.getValue(), entry.getKey());
+            } catch (Exception e) {
+                log.error("update monitors {} status {} error: {}", entry.getValue(), entry.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private void storeAlerts(List<Alert> alerts) {
+        try {
+            alertService.addAlerts(alerts);
+        } catch (Exception e) {
+            log.warn("store {} alerts in batch error: {}, retry one by one.", alerts.size(), e.getMessage());
+            for (Alert alert : alerts) {
+                try {
+                    alertService.addAlert(alert);
+                } catch (Exception exception) {
+                    log.error("store alert error: {}, alert: {}.", exception.getMessage(), alert);
+                }
+            }
+        }
+    }
+}
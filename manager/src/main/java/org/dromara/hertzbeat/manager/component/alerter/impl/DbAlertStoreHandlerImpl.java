@@ -17,33 +17,41 @@
 
 package org.dromara.hertzbeat.manager.component.alerter.impl;
 
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.alert.service.AlertService;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.alerter.Alert;
-import org.dromara.hertzbeat.common.entity.manager.Monitor;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorStatusChangedEvent;
 import org.dromara.hertzbeat.manager.component.alerter.AlertStoreHandler;
 import org.dromara.hertzbeat.manager.service.MonitorService;
 import org.dromara.hertzbeat.manager.support.exception.IgnoreException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
  * 报警持久化 - 落地到数据库
  * Alarm data persistence - landing in the database
+ * monitor name and status are read from cache, alerts and status updates are written behind in batches
  *
  * @author <a href="mailto:Musk.Chen@fanruan.com">Musk.Chen</a>
  */
 @Component
-@RequiredArgsConstructor
 @Slf4j
-final class DbAlertStoreHandlerImpl implements AlertStoreHandler {
+final class DbAlertStoreHandlerImpl implements AlertStoreHandler, DisposableBean {
 
-    private final MonitorService monitorService;
+    private final MonitorMetaCache monitorMetaCache;
 
-    private final AlertService alertService;
+    private final AlertStoreBatcher alertStoreBatcher;
+
+    DbAlertStoreHandlerImpl(MonitorMetaCache monitorMetaCache, MonitorService monitorService, AlertService alertService) {
+        this.monitorMetaCache = monitorMetaCache;
+        this.alertStoreBatcher = new AlertStoreBatcher(alertService, monitorService);
+    }
 
     @Override
     public void store(Alert alert) {
@@ -51,7 +59,7 @@ final class DbAlertStoreHandlerImpl implements AlertStoreHandler {
         String monitorIdStr = tags != null ? tags.get(CommonConstants.TAG_MONITOR_ID) : null;
         if (monitorIdStr != null) {
             long monitorId = Long.parseLong(monitorIdStr);
-            Monitor monitor = monitorService.getMonitor(monitorId);
+            MonitorMetaCache.MonitorMeta monitor = monitorMetaCache.getMonitorMeta(monitorId);
             if (monitor == null) {
                 log.warn("Dispatch alarm the monitorId: {} not existed, ignored. target: {}.", monitorId, alert.getTarget());
                 return;
@@ -68,11 +76,11 @@ final class DbAlertStoreHandlerImpl implements AlertStoreHandler {
                 if (alert.getStatus() == CommonConstants.ALERT_STATUS_CODE_PENDING && monitor.getStatus() == CommonConstants.AVAILABLE_CODE) {
                     // Availability Alarm Need to change the monitoring status to unavailable
                     // 可用性告警 需变更监控状态为不可用
-                    monitorService.updateMonitorStatus(monitor.getId(), CommonConstants.UN_AVAILABLE_CODE);
+                    updateMonitorStatus(monitorId, CommonConstants.UN_AVAILABLE_CODE);
                 } else if (alert.getStatus() == CommonConstants.ALERT_STATUS_CODE_RESTORED && monitor.getStatus() == CommonConstants.UN_AVAILABLE_CODE) {
                     // If the alarm is restored, the monitoring state needs to be restored
                     // 若是恢复告警 需对监控状态进行恢复
-                    monitorService.updateMonitorStatus(monitorId, CommonConstants.AVAILABLE_CODE);
+                    updateMonitorStatus(monitorId, CommonConstants.AVAILABLE_CODE);
                 }
             }
         } else {
@@ -82,6 +90,34 @@ final class DbAlertStoreHandlerImpl implements AlertStoreHandler {
             throw new IgnoreException("Ignore this alarm.");
         }
         // Alarm store db
-        alertService.addAlert(alert);
+        // the alert is persisted later by the store batcher thread, while this alert is sent by the notify channels,
+        // so the batcher stores a snapshot copy and the two threads never access the same entity
+        // 告警由入库批量线程稍后持久化, 同时此告警交由通知渠道发送, 入库使用其快照副本避免两线程并发读写同一实体
+        LocalDateTime now = LocalDateTime.now();
+        alert.setGmtCreate(now);
+        alert.setGmtUpdate(now);
+        alertStoreBatcher.addAlert(alert.clone());
+    }
+
+    @EventListener(MonitorStatusChangedEvent.class)
+    public void onMonitorStatusChangedEvent(MonitorStatusChangedEvent event) {
+        if (event.getStatus() == CommonConstants.UN_MANAGE_CODE) {
+            alertStoreBatcher.removeMonitorStatus(event.getMonitorId());
+        }
+    }
+
+    @EventListener(MonitorDeletedEvent.class)
+    public void onMonitorDeletedEvent(MonitorDeletedEvent event) {
+        alertStoreBatcher.removeMonitorStatus(event.getMonitorId());
+    }
+
+    @Override
+    public void destroy() {
+        alertStoreBatcher.shutdown();
+    }
+
+    private void updateMonitorStatus(long monitorId, byte status) {
+        monitorMetaCache.updateStatus(monitorId, status);
+        alertStoreBatcher.updateMonitorStatus(monitorId, status);
     }
 }
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.manager.component.alerter.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.dromara.hertzbeat.common.entity.manager.Monitor;
+import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorStatusChangedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
+import org.dromara.hertzbeat.manager.service.MonitorService;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * monitor name and status cache used by the alarm store
+ * 告警入库使用的监控名称状态缓存
+ * read through from database, invalidated or updated when the monitor is modified, deleted or its status changed.
+ */
+@Component
+class MonitorMetaCache {
+
+    private static final long MAXIMUM_SIZE = 10000;
+
+    /**
+     * the safety net if some monitor change is not notified
+     */
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+    private final MonitorService monitorService;
+
+    private final Cache<Long, MonitorMeta> cache;
+
+    MonitorMetaCache(MonitorService monitorService) {
+        this.monitorService = monitorService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(EXPIRE_AFTER_WRITE)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(Metrics.globalRegistry, cache, "hertzbeat.manager.monitor.meta");
+    }
+
+    /**
+     * @param monitorId monitor id
+     * @return monitor name and status, null when the monitor not existed
+     */
+    MonitorMeta getMonitorMeta(long monitorId) {
+        return cache.get(monitorId, id -> {
+            Monitor monitor = monitorService.getMonitor(id);
+            return monitor == null ? null : new MonitorMeta(monitor.getId(), monitor.getName(), monitor.getStatus());
+        });
+    }
+
+    /**
+     * update the cached status, used when the status is changed by the alarm store before written to database
+     *
+     * @param monitorId monitor id
+     * @param status    new status
+     */
+    void updateStatus(long monitorId, byte status) {
+        MonitorMeta meta = cache.getIfPresent(monitorId);
+        if (meta != null) {
+            meta.status = status;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitorTagsChangedEvent(MonitorTagsChangedEvent event) {
+        if (event.getMonitorId() != null) {
+            cache.invalidate(event.getMonitorId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMonitorStatusChangedEvent(MonitorStatusChangedEvent event) {
+        updateStatus(event.getMonitorId(), event.getStatus());
+    }
+
+    @EventListener(MonitorDeletedEvent.class)
+    public void onMonitorDeletedEvent(MonitorDeletedEvent event) {
+        cache.invalidate(event.getMonitorId());
+    }
+
+    /**
+     * monitor name and status
+     */
+    static final class MonitorMeta {
+
+        private final Long id;
+
+        private final String name;
+
+        private volatile byte status;
+
+        MonitorMeta(Long id, String name, byte status) {
+            this.id = id;
+            this.name = name;
+            this.status = status;
+        }
+
+        Long getId() {
+            return id;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        byte getStatus() {
+            return status;
+        }
+    }
+}
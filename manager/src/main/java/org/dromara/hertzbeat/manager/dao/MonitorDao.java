@@ -25,6 +25,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -100,4 +101,30 @@ public interface MonitorDao extends JpaRepository<Monitor, Long>, JpaSpecificati
     @Modifying(clearAutomatically = true)
     @Query("update Monitor set status = :status where id = :id")
     void updateMonitorStatus(@Param(value = "id") Long id, @Param(value = "status") byte status);
+
+    /**
+     * Query the IDs of the specified monitors whose status would be changed, unmanaged monitors excluded
+     * 查询指定监控中状态将被变更的监控ID 不含未纳管的监控
+     *
+     * @param ids          Monitor IDs 监控ID列表
+     * @param status       监控状态 Monitor Status
+     * @param unManageCode 未纳管状态 Unmanaged Status {@link org.dromara.hertzbeat.common.constants.CommonConstants#UN_MANAGE_CODE}
+     * @return Monitor IDs 监控ID列表
+     */
+    @Query("select mo.id from Monitor mo where mo.id in :ids and mo.status <> :status and mo.status <> :unManageCode")
+    List<Long> findStatusChangedMonitorIds(@Param(value = "ids") Collection<Long> ids, @Param(value = "status") byte status,
+                                           @Param(value = "unManageCode") byte unManageCode);
+
+    /**
+     * Updates the status of the specified monitors, unmanaged monitors are not updated
+     * 批量更新指定监控的状态 未纳管的监控不更新
+     *
+     * @param ids          Monitor IDs 监控ID列表
+     * @param status       监控状态 Monitor Status
+     * @param unManageCode 未纳管状态 Unmanaged Status {@link org.dromara.hertzbeat.common.constants.CommonConstants#UN_MANAGE_CODE}
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("update Monitor set status = :status where id in :ids and status <> :unManageCode")
+    void updateMonitorsStatus(@Param(value = "ids") Collection<Long> ids, @Param(value = "status") byte status,
+                              @Param(value = "unManageCode") byte unManageCode);
 }
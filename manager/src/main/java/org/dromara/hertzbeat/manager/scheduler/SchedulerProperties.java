@@ -1,8 +1,13 @@
 package org.dromara.hertzbeat.manager.scheduler;
 
+import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
+import org.dromara.hertzbeat.remoting.netty.NettyExecutorConfig;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * scheduler properties config
  * @author tomsun28
@@ -33,6 +38,22 @@ public class SchedulerProperties {
          * unit: s
          */
         private int idleStateEventTriggerTime = 100;
+
+        /**
+         * frames to collector smaller than the threshold bytes are sent uncompressed.
+         * the codec is negotiated by the collector compression config
+         */
+        private int compressionThreshold = 1024;
+
+        /**
+         * executor of collector message processors, handle messages off the netty io threads
+         */
+        private NettyExecutorConfig executor = new NettyExecutorConfig();
+
+        /**
+         * dedicated executor of collector message types, eg: RESPONSE_CYCLIC_TASK_DATA, GO_ONLINE
+         */
+        private Map<ClusterMsg.MessageType, NettyExecutorConfig> typeExecutors = new EnumMap<>(ClusterMsg.MessageType.class);
         
         public boolean isEnabled() {
             return enabled;
@@ -57,6 +78,30 @@ public class SchedulerProperties {
         public void setIdleStateEventTriggerTime(int idleStateEventTriggerTime) {
             this.idleStateEventTriggerTime = idleStateEventTriggerTime;
         }
+
+        public int getCompressionThreshold() {
+            return compressionThreshold;
+        }
+
+        public void setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+        }
+
+        public NettyExecutorConfig getExecutor() {
+            return executor;
+        }
+
+        public void setExecutor(NettyExecutorConfig executor) {
+            this.executor = executor;
+        }
+
+        public Map<ClusterMsg.MessageType, NettyExecutorConfig> getTypeExecutors() {
+            return typeExecutors;
+        }
+
+        public void setTypeExecutors(Map<ClusterMsg.MessageType, NettyExecutorConfig> typeExecutors) {
+            this.typeExecutors = typeExecutors;
+        }
     }
     
 }
@@ -4,6 +4,7 @@ import io.netty.channel.Channel;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.common.support.CommonThreadPool;
+import org.dromara.hertzbeat.manager.scheduler.netty.process.CollectCyclicBatchDataResponseProcessor;
 import org.dromara.hertzbeat.manager.scheduler.netty.process.CollectCyclicDataResponseProcessor;
 import org.dromara.hertzbeat.manager.scheduler.netty.process.CollectOneTimeDataResponseProcessor;
 import org.dromara.hertzbeat.manager.scheduler.netty.process.CollectorOfflineProcessor;
@@ -57,6 +58,9 @@ public class ManageServer implements CommandLineRunner {
         NettyServerConfig nettyServerConfig = new NettyServerConfig();
         nettyServerConfig.setPort(schedulerProperties.getServer().getPort());
         nettyServerConfig.setIdleStateEventTriggerTime(schedulerProperties.getServer().getIdleStateEventTriggerTime());
+        nettyServerConfig.setCompressionThreshold(schedulerProperties.getServer().getCompressionThreshold());
+        nettyServerConfig.setProcessorExecutor(schedulerProperties.getServer().getExecutor());
+        nettyServerConfig.setTypeProcessorExecutors(schedulerProperties.getServer().getTypeExecutors());
         NettyEventListener nettyEventListener = new ManageNettyEventListener();
         this.remotingServer = new NettyRemotingServer(nettyServerConfig, nettyEventListener, threadPool);
         
@@ -66,6 +70,7 @@ public class ManageServer implements CommandLineRunner {
         this.remotingServer.registerProcessor(ClusterMsg.MessageType.GO_OFFLINE, new CollectorOfflineProcessor(this));
         this.remotingServer.registerProcessor(ClusterMsg.MessageType.RESPONSE_ONE_TIME_TASK_DATA, new CollectOneTimeDataResponseProcessor(this));
         this.remotingServer.registerProcessor(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA, new CollectCyclicDataResponseProcessor());
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.RESPONSE_BATCH_CYCLIC_TASK_DATA, new CollectCyclicBatchDataResponseProcessor());
 
         this.channelSchedule = Executors.newSingleThreadScheduledExecutor();
     }
@@ -0,0 +1,38 @@
+package org.dromara.hertzbeat.manager.scheduler.netty.process;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.netty.channel.ChannelHandlerContext;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.queue.CommonDataQueue;
+import org.dromara.hertzbeat.common.support.SpringContextHolder;
+import org.dromara.hertzbeat.common.util.ProtoBatchUtil;
+import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
+
+import java.util.List;
+
+/**
+ * handle batch cyclic data response message, unpack the frame into metrics data
+ */
+@Slf4j
+public class CollectCyclicBatchDataResponseProcessor implements NettyRemotingProcessor {
+
+    private final Counter frameCounter = Metrics.counter("hertzbeat.manager.collect.data.frames", "type", "batch");
+
+    private final Counter recordCounter = Metrics.counter("hertzbeat.manager.collect.data.records", "type", "batch");
+
+    @Override
+    public ClusterMsg.Message handle(ChannelHandlerContext ctx, ClusterMsg.Message message) {
+        CommonDataQueue dataQueue = SpringContextHolder.getBean(CommonDataQueue.class);
+        List<CollectRep.MetricsData> metricsDataList = ProtoBatchUtil.parseBatch(message.getData(),
+                CollectRep.MetricsData.parser());
+        frameCounter.increment();
+        recordCounter.increment(metricsDataList.size());
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            dataQueue.sendMetricsData(metricsData);
+        }
+        return null;
+    }
+}
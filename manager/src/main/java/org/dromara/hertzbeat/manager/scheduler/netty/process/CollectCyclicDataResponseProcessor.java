@@ -1,5 +1,8 @@
 package org.dromara.hertzbeat.manager.scheduler.netty.process;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 import io.netty.channel.ChannelHandlerContext;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
@@ -14,12 +17,30 @@ import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
  */
 @Slf4j
 public class CollectCyclicDataResponseProcessor implements NettyRemotingProcessor {
+
+    private final Counter frameCounter = Metrics.counter("hertzbeat.manager.collect.data.frames", "type", "single");
+
+    private final Counter recordCounter = Metrics.counter("hertzbeat.manager.collect.data.records", "type", "single");
+
     @Override
     public ClusterMsg.Message handle(ChannelHandlerContext ctx, ClusterMsg.Message message) {
         CommonDataQueue dataQueue = SpringContextHolder.getBean(CommonDataQueue.class);
-        CollectRep.MetricsData metricsData = (CollectRep.MetricsData) ProtoJsonUtil.toProtobuf(message.getMsg(),
-                CollectRep.MetricsData.newBuilder());
+        CollectRep.MetricsData metricsData;
+        if (!message.getData().isEmpty()) {
+            try {
+                metricsData = CollectRep.MetricsData.parseFrom(message.getData());
+            } catch (InvalidProtocolBufferException e) {
+                log.error("parse collector {} binary metrics data error: {}", message.getIdentity(), e.getMessage());
+                return null;
+            }
+        } else {
+            // older collector send metrics data as json
+            metricsData = (CollectRep.MetricsData) ProtoJsonUtil.toProtobuf(message.getMsg(),
+                    CollectRep.MetricsData.newBuilder());
+        }
+        frameCounter.increment();
         if (metricsData != null) {
+            recordCounter.increment();
             dataQueue.sendMetricsData(metricsData);
         }
         return null;
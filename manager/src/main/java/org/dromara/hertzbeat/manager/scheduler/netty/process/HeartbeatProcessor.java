@@ -2,6 +2,7 @@ package org.dromara.hertzbeat.manager.scheduler.netty.process;
 
 import io.netty.channel.ChannelHandlerContext;
 import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.manager.scheduler.netty.ManageServer;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
@@ -28,8 +29,11 @@ public class HeartbeatProcessor implements NettyRemotingProcessor {
         if (log.isDebugEnabled()) {
             log.debug("server receive collector {} heartbeat", message.getIdentity());
         }
+        // declare manager features, collector negotiate data format by it
         return ClusterMsg.Message.newBuilder()
                 .setType(ClusterMsg.MessageType.HEARTBEAT)
+                .setMsg(String.join(CommonConstants.CLUSTER_FEATURE_SEPARATOR,
+                        CommonConstants.CLUSTER_FEATURE_BINARY_DATA, CommonConstants.CLUSTER_FEATURE_BATCH_DATA))
                 .build();
     }
 }
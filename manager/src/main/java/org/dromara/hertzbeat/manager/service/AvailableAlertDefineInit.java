@@ -2,6 +2,7 @@ package org.dromara.hertzbeat.manager.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.alert.dao.AlertDefineDao;
+import org.dromara.hertzbeat.alert.service.AlertDefineService;
 import org.dromara.hertzbeat.common.entity.alerter.AlertDefine;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,6 +27,9 @@ public class AvailableAlertDefineInit implements CommandLineRunner {
 	@Autowired
 	private AlertDefineDao alertDefineDao;
 
+	@Autowired
+	private AlertDefineService alertDefineService;
+
 	@Autowired
 	private AppService appService;
 
@@ -46,7 +50,8 @@ public class AvailableAlertDefineInit implements CommandLineRunner {
 							.priority(CommonConstants.ALERT_PRIORITY_CODE_EMERGENCY)
 							.template("${app} monitoring availability alert, code is ${code}")
 							.build();
-					alertDefineDao.save(alertDefine);
+					// save by service, keep the alert define index of alarm calculation updated
+					alertDefineService.addAlertDefine(alertDefine);
 				}
 			} catch (Exception e) {
 				log.error(e.getMessage(), e);
@@ -29,6 +29,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -163,6 +164,15 @@ public interface MonitorService {
      */
     void updateMonitorStatus(Long monitorId, byte status);
 
+    /**
+     * Update the status of the specified monitors in batch, unmanaged monitors are not updated
+     * 批量更新指定监控的状态 未纳管的监控不更新
+     *
+     * @param monitorIds monitorIds    监控ID列表
+     * @param status    monitor status  监控状态
+     */
+    void updateMonitorsStatus(Collection<Long> monitorIds, byte status);
+
     /**
      * Query the list of all monitoring information under the specified monitoring type
      * 查询指定监控类型下的所有监控信息列表
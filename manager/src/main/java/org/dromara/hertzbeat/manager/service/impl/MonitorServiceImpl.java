@@ -33,6 +33,8 @@ import org.dromara.hertzbeat.common.entity.manager.ParamDefine;
 import org.dromara.hertzbeat.common.entity.manager.Tag;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.support.event.MonitorDeletedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorStatusChangedEvent;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
 import org.dromara.hertzbeat.common.util.*;
 import org.dromara.hertzbeat.manager.dao.CollectorDao;
 import org.dromara.hertzbeat.manager.dao.CollectorMonitorBindDao;
@@ -199,6 +201,7 @@ public class MonitorServiceImpl implements MonitorService {
             monitor.setStatus(CommonConstants.AVAILABLE_CODE);
             monitorDao.save(monitor);
             paramDao.saveAll(params);
+            applicationContext.publishEvent(new MonitorTagsChangedEvent(applicationContext, monitorId));
         } catch (Exception e) {
             log.error("Error while adding monitor: {}", e.getMessage(), e);
             collectJobScheduling.cancelAsyncCollectJob(jobId);
@@ -248,6 +251,7 @@ public class MonitorServiceImpl implements MonitorService {
             monitor.setStatus(CommonConstants.AVAILABLE_CODE);
             monitorDao.save(monitor);
             paramDao.saveAll(params);
+            applicationContext.publishEvent(new MonitorTagsChangedEvent(applicationContext, monitorId));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             // Repository brushing abnormally cancels the previously delivered task
@@ -543,6 +547,7 @@ public class MonitorServiceImpl implements MonitorService {
             if (params != null) {
                 paramDao.saveAll(params);
             }
+            applicationContext.publishEvent(new MonitorTagsChangedEvent(applicationContext, monitorId));
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             // Repository brushing abnormally cancels the previously delivered task
@@ -635,6 +640,8 @@ public class MonitorServiceImpl implements MonitorService {
                 monitor.setJobId(null);
             }
             monitorDao.saveAll(managedMonitors);
+            managedMonitors.forEach(monitor -> applicationContext.publishEvent(
+                    new MonitorStatusChangedEvent(applicationContext, monitor.getId(), CommonConstants.UN_MANAGE_CODE)));
         }
     }
 
@@ -679,6 +686,8 @@ public class MonitorServiceImpl implements MonitorService {
                 applicationContext.publishEvent(new MonitorDeletedEvent(applicationContext, monitor.getId()));
             }
             monitorDao.saveAll(unManagedMonitors);
+            unManagedMonitors.forEach(monitor -> applicationContext.publishEvent(
+                    new MonitorStatusChangedEvent(applicationContext, monitor.getId(), CommonConstants.AVAILABLE_CODE)));
         }
     }
 
@@ -791,6 +800,25 @@ public class MonitorServiceImpl implements MonitorService {
     @Override
     public void updateMonitorStatus(Long monitorId, byte status) {
         monitorDao.updateMonitorStatus(monitorId, status);
+        applicationContext.publishEvent(new MonitorStatusChangedEvent(applicationContext, monitorId, status));
+    }
+
+    @Override
+    public void updateMonitorsStatus(Collection<Long> monitorIds, byte status) {
+        if (monitorIds.isEmpty()) {
+            return;
+        }
+        // the status may be changed to unmanaged by user after the update queued, only update and notify the changed ones
+        // 入队后监控可能已被取消纳管 仅更新通知状态实际变更的监控
+        List<Long> changedMonitorIds = monitorDao.findStatusChangedMonitorIds(monitorIds, status,
+                CommonConstants.UN_MANAGE_CODE);
+        if (changedMonitorIds.isEmpty()) {
+            return;
+        }
+        monitorDao.updateMonitorsStatus(changedMonitorIds, status, CommonConstants.UN_MANAGE_CODE);
+        for (Long monitorId : changedMonitorIds) {
+            applicationContext.publishEvent(new MonitorStatusChangedEvent(applicationContext, monitorId, status));
+        }
     }
 
     @Override
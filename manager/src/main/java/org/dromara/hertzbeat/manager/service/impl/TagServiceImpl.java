@@ -20,10 +20,12 @@ package org.dromara.hertzbeat.manager.service.impl;
 import org.apache.commons.collections.CollectionUtils;
 import org.dromara.hertzbeat.common.entity.manager.Monitor;
 import org.dromara.hertzbeat.common.entity.manager.Tag;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
 import org.dromara.hertzbeat.manager.dao.TagDao;
 import org.dromara.hertzbeat.manager.service.TagService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
@@ -48,6 +50,9 @@ public class TagServiceImpl implements TagService {
     @Autowired
     private TagDao tagDao;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Override
     public void addTags(List<Tag> tags) {
         tagDao.saveAll(tags);
@@ -58,6 +63,7 @@ public class TagServiceImpl implements TagService {
         Optional<Tag> tagOptional = tagDao.findById(tag.getId());
         if (tagOptional.isPresent()) {
             tagDao.save(tag);
+            applicationContext.publishEvent(new MonitorTagsChangedEvent(applicationContext, null));
         } else {
             throw new IllegalArgumentException("The tag is not existed");
         }
@@ -71,6 +77,7 @@ public class TagServiceImpl implements TagService {
     @Override
     public void deleteTags(HashSet<Long> ids) {
         tagDao.deleteTagsByIdIn(ids);
+        applicationContext.publishEvent(new MonitorTagsChangedEvent(applicationContext, null));
     }
 
     @Override
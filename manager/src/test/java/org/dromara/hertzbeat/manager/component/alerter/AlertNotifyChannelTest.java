@@ -0,0 +1,76 @@
+package org.dromara.hertzbeat.manager.component.alerter;
+
+import org.dromara.hertzbeat.alert.AlerterProperties;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.common.entity.manager.NoticeReceiver;
+import org.dromara.hertzbeat.manager.support.exception.AlertNoticeException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test case for {@link AlertNotifyChannel}
+ */
+class AlertNotifyChannelTest {
+
+    @Test
+    void dispatchAsync() {
+        AlertNotifyHandler handler = mock(AlertNotifyHandler.class);
+        when(handler.type()).thenReturn((byte) 101);
+        doThrow(new AlertNoticeException("webhook error")).doNothing().when(handler).send(any(), any(), any());
+        AlertNotifyChannel channel = new AlertNotifyChannel(handler, new AlerterProperties.NotifyProperties());
+        NoticeReceiver receiver = NoticeReceiver.builder().name("receiver").type((byte) 101).build();
+        Alert alert = Alert.builder().content("alert").build();
+        assertTrue(channel.dispatch(receiver, null, alert));
+        assertTrue(channel.dispatch(receiver, null, alert));
+        // the failed send does not break the channel
+        verify(handler, timeout(3000).times(2)).send(eq(receiver), isNull(), eq(alert));
+        channel.shutdown();
+    }
+
+    @Test
+    void dropWhenQueueFullOrTimeout() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AlertNotifyHandler handler = mock(AlertNotifyHandler.class);
+        when(handler.type()).thenReturn((byte) 102);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await();
+            return null;
+        }).when(handler).send(any(), any(), any());
+        AlerterProperties.NotifyProperties properties = new AlerterProperties.NotifyProperties();
+        properties.setThreads(1);
+        properties.setQueueCapacity(2);
+        properties.setTimeout(200);
+        AlertNotifyChannel channel = new AlertNotifyChannel(handler, properties);
+        NoticeReceiver receiver = NoticeReceiver.builder().name("receiver").type((byte) 102).build();
+        Alert alert = Alert.builder().content("alert").build();
+        Alert nextAlert = Alert.builder().content("next alert").build();
+
+        assertTrue(channel.dispatch(receiver, null, alert));
+        assertTrue(blocked.await(3, TimeUnit.SECONDS));
+        assertTrue(channel.dispatch(receiver, null, alert));
+        long queuedTime = System.nanoTime();
+        // hold the channel thread until the queued notification waited over the timeout
+        while (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedTime) <= properties.getTimeout()) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(channel.dispatch(receiver, null, nextAlert));
+        // the slow receiver only blocks its own channel, the queue is bounded
+        assertFalse(channel.dispatch(receiver, null, nextAlert));
+        release.countDown();
+        // the channel sends in order, once the next notification is sent the timed out one has been handled
+        verify(handler, timeout(3000)).send(any(), any(), eq(nextAlert));
+        // the queued notification waited over the timeout is dropped
+        verify(handler, times(1)).send(any(), any(), eq(alert));
+        channel.shutdown();
+    }
+}
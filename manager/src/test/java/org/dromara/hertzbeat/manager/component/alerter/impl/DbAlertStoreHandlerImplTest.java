@@ -1,18 +1,123 @@
 package org.dromara.hertzbeat.manager.component.alerter.impl;
 
+import org.dromara.hertzbeat.alert.service.AlertService;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.alerter.Alert;
+import org.dromara.hertzbeat.common.entity.manager.Monitor;
+import org.dromara.hertzbeat.manager.service.MonitorService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyByte;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Test case for {@link DbAlertStoreHandlerImpl}
  */
 class DbAlertStoreHandlerImplTest {
 
+    private MonitorService monitorService;
+
+    private AlertService alertService;
+
+    private MonitorMetaCache monitorMetaCache;
+
+    private DbAlertStoreHandlerImpl dbAlertStoreHandler;
+
     @BeforeEach
     void setUp() {
+        monitorService = mock(MonitorService.class);
+        alertService = mock(AlertService.class);
+        monitorMetaCache = new MonitorMetaCache(monitorService);
+        dbAlertStoreHandler = new DbAlertStoreHandlerImpl(monitorMetaCache, monitorService, alertService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dbAlertStoreHandler.destroy();
     }
 
     @Test
     void store() {
+        Monitor monitor = Monitor.builder().id(1L).name("mysql").status(CommonConstants.AVAILABLE_CODE).build();
+        when(monitorService.getMonitor(1L)).thenReturn(monitor);
+
+        dbAlertStoreHandler.store(availabilityAlert(CommonConstants.ALERT_STATUS_CODE_PENDING));
+        dbAlertStoreHandler.store(availabilityAlert(CommonConstants.ALERT_STATUS_CODE_PENDING));
+        dbAlertStoreHandler.destroy();
+
+        // monitor meta is read once, status change is applied to cache and written once
+        verify(monitorService, times(1)).getMonitor(1L);
+        verify(monitorService, times(1)).updateMonitorsStatus(eq(List.of(1L)), eq(CommonConstants.UN_AVAILABLE_CODE));
+        assertEquals(CommonConstants.UN_AVAILABLE_CODE, monitorMetaCache.getMonitorMeta(1L).getStatus());
+        // the batcher thread may take the alerts in one or more batches
+        ArgumentCaptor<List<Alert>> alertsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(alertService, atLeastOnce()).addAlerts(alertsCaptor.capture());
+        assertEquals(2, alertsCaptor.getAllValues().stream().mapToInt(List::size).sum());
+        verify(alertService, never()).addAlert(any());
+    }
+
+    @Test
+    void storeSnapshot() {
+        Monitor monitor = Monitor.builder().id(1L).name("mysql").status(CommonConstants.AVAILABLE_CODE).build();
+        when(monitorService.getMonitor(1L)).thenReturn(monitor);
+
+        Alert alert = availabilityAlert(CommonConstants.ALERT_STATUS_CODE_PENDING);
+        dbAlertStoreHandler.store(alert);
+        dbAlertStoreHandler.destroy();
+
+        // the batcher stores a copy, the original alert is left to the notify channels
+        ArgumentCaptor<List<Alert>> alertsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(alertService, atLeastOnce()).addAlerts(alertsCaptor.capture());
+        Alert stored = alertsCaptor.getValue().get(0);
+        assertNotSame(alert, stored);
+        assertEquals("mysql", stored.getTags().get(CommonConstants.TAG_MONITOR_NAME));
+        assertEquals(alert.getGmtCreate(), stored.getGmtCreate());
+        assertNotNull(alert.getGmtUpdate());
+    }
+
+    @Test
+    void storeUnManagedMonitor() {
+        Monitor monitor = Monitor.builder().id(1L).name("mysql").status(CommonConstants.UN_MANAGE_CODE).build();
+        when(monitorService.getMonitor(1L)).thenReturn(monitor);
+
+        dbAlertStoreHandler.store(availabilityAlert(CommonConstants.ALERT_STATUS_CODE_PENDING));
+        dbAlertStoreHandler.destroy();
+
+        verify(monitorService, never()).updateMonitorsStatus(anyList(), anyByte());
+        verify(alertService, never()).addAlerts(anyList());
+    }
+
+    @Test
+    void storeNotExistedMonitor() {
+        dbAlertStoreHandler.store(availabilityAlert(CommonConstants.ALERT_STATUS_CODE_PENDING));
+        dbAlertStoreHandler.destroy();
+
+        verify(monitorService, times(1)).getMonitor(anyLong());
+        verify(alertService, never()).addAlerts(anyList());
+    }
+
+    private Alert availabilityAlert(byte status) {
+        Map<String, String> tags = new HashMap<>(4);
+        tags.put(CommonConstants.TAG_MONITOR_ID, "1");
+        return Alert.builder().target(CommonConstants.AVAILABILITY).status(status).tags(tags).build();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package org.dromara.hertzbeat.manager.dao;
 
+import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.manager.Monitor;
 import org.dromara.hertzbeat.manager.AbstractSpringIntegrationTest;
 import org.dromara.hertzbeat.manager.pojo.dto.AppCount;
@@ -98,4 +99,17 @@ class MonitorDaoTest extends AbstractSpringIntegrationTest {
         assertTrue(monitorOptional.isPresent());
         assertEquals((byte) 0, monitorOptional.get().getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateMonitorsStatus() {
+        assertEquals(List.of(1L), monitorDao.findStatusChangedMonitorIds(List.of(1L), (byte) 2, CommonConstants.UN_MANAGE_CODE));
+        assertTrue(monitorDao.findStatusChangedMonitorIds(List.of(1L), (byte) 1, CommonConstants.UN_MANAGE_CODE).isEmpty());
+        monitorDao.updateMonitorsStatus(List.of(1L), (byte) 2, CommonConstants.UN_MANAGE_CODE);
+        assertEquals((byte) 2, monitorDao.findById(1L).orElseThrow().getStatus());
+        // unmanaged monitor is not updated
+        monitorDao.updateMonitorStatus(1L, (byte) 0);
+        assertTrue(monitorDao.findStatusChangedMonitorIds(List.of(1L), (byte) 1, CommonConstants.UN_MANAGE_CODE).isEmpty());
+        monitorDao.updateMonitorsStatus(List.of(1L), (byte) 1, CommonConstants.UN_MANAGE_CODE);
+        assertEquals((byte) 0, monitorDao.findById(1L).orElseThrow().getStatus());
+    }
+}
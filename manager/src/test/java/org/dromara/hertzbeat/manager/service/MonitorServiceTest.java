@@ -697,6 +697,16 @@ class MonitorServiceTest {
         assertDoesNotThrow(() -> monitorService.updateMonitorStatus(1L, CommonConstants.AVAILABLE_CODE));
     }
 
+    @Test
+    void updateMonitorsStatus() {
+        List<Long> monitorIds = List.of(1L, 2L);
+        when(monitorDao.findStatusChangedMonitorIds(monitorIds, CommonConstants.AVAILABLE_CODE, CommonConstants.UN_MANAGE_CODE))
+                .thenReturn(List.of(2L));
+        monitorService.updateMonitorsStatus(monitorIds, CommonConstants.AVAILABLE_CODE);
+        verify(monitorDao).updateMonitorsStatus(List.of(2L), CommonConstants.AVAILABLE_CODE, CommonConstants.UN_MANAGE_CODE);
+        verify(applicationContext, times(1)).publishEvent(any());
+    }
+
     @Test
     void getAppMonitors() {
         assertDoesNotThrow(() -> monitorDao.findMonitorsByAppEquals("test"));
@@ -1,6 +1,7 @@
 package org.dromara.hertzbeat.manager.service;
 
 import org.dromara.hertzbeat.common.entity.manager.Tag;
+import org.dromara.hertzbeat.common.support.event.MonitorTagsChangedEvent;
 import org.dromara.hertzbeat.manager.dao.TagDao;
 import org.dromara.hertzbeat.manager.service.impl.TagServiceImpl;
 import org.junit.jupiter.api.Test;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationContext;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
@@ -32,6 +34,9 @@ class TagServiceTest {
     @Mock
     private TagDao tagDao;
 
+    @Mock
+    private ApplicationContext applicationContext;
+
     @Test
     void addTags() {
         when(tagDao.saveAll(anyList())).thenReturn(anyList());
@@ -60,5 +65,6 @@ class TagServiceTest {
     void deleteTags() {
         doNothing().when(tagDao).deleteTagsByIdIn(anySet());
         assertDoesNotThrow(() -> tagService.deleteTags(new HashSet<>(1)));
+        verify(applicationContext).publishEvent(any(MonitorTagsChangedEvent.class));
     }
 }
\ No newline at end of file
@@ -20,6 +20,8 @@ package org.dromara.hertzbeat.remoting;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * remoting client interface
  */
@@ -46,4 +48,12 @@ public interface RemotingClient extends RemotingService {
      * @return response message
      */
     ClusterMsg.Message sendMsgSync(final ClusterMsg.Message request, final  int timeoutMillis);
+
+    /**
+     * send message to server and async receive server message
+     * @param request request message
+     * @param timeoutMillis timeout millis
+     * @return response message future, completed exceptionally when timeout or send failed
+     */
+    CompletableFuture<ClusterMsg.Message> sendMsgAsync(final ClusterMsg.Message request, final int timeoutMillis);
 }
@@ -23,6 +23,7 @@ import org.dromara.hertzbeat.remoting.netty.NettyHook;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingProcessor;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * remoting server interface
@@ -53,5 +54,14 @@ public interface RemotingServer extends RemotingService {
      */
     ClusterMsg.Message sendMsgSync(final Channel channel, final ClusterMsg.Message request, final  int timeoutMillis);
 
+    /**
+     * send message to client and async receive client message
+     * @param channel client channel
+     * @param request request message
+     * @param timeoutMillis timeout millis
+     * @return response message future, completed exceptionally when timeout or send failed
+     */
+    CompletableFuture<ClusterMsg.Message> sendMsgAsync(final Channel channel, final ClusterMsg.Message request, final int timeoutMillis);
+
     void registerHook(List<NettyHook> nettyHookList);
 }
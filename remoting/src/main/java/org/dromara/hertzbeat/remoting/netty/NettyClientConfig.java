@@ -18,6 +18,11 @@
 package org.dromara.hertzbeat.remoting.netty;
 
 import lombok.Data;
+import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
+import org.dromara.hertzbeat.remoting.netty.compress.CompressionType;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * netty client config
@@ -30,4 +35,30 @@ public class NettyClientConfig {
     private int serverPort;
 
     private int connectTimeoutMillis = 10000;
+
+    /**
+     * preferred frame compression codec of this link, negotiated with server when connected.
+     * null means the gzip stream without handshake, for the older server
+     */
+    private CompressionType compression = CompressionType.GZIP;
+
+    /**
+     * frames smaller than the threshold bytes are sent uncompressed
+     */
+    private int compressionThreshold = 1024;
+
+    /**
+     * wait server reply compression handshake, fallback to the gzip stream after timeout
+     */
+    private int compressionHandshakeTimeoutMillis = 5000;
+
+    /**
+     * executor config of message processors without dedicated executor
+     */
+    private NettyExecutorConfig processorExecutor = new NettyExecutorConfig();
+
+    /**
+     * dedicated executor config of message types, eg: GO_ONLINE with db operations
+     */
+    private Map<ClusterMsg.MessageType, NettyExecutorConfig> typeProcessorExecutors = new EnumMap<>(ClusterMsg.MessageType.class);
 }
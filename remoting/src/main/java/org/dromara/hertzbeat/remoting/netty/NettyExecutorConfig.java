@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty;
+
+import lombok.Data;
+
+/**
+ * netty message processor executor config
+ */
+@Data
+public class NettyExecutorConfig {
+
+    /**
+     * executor lane count, messages from one channel are always handled by the same lane in order
+     */
+    private int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * pending message count of one lane, over it stop reading the channel until the lane drained to half
+     */
+    private int highWaterMark = 10000;
+
+    /**
+     * while a channel is paused by the high water mark, read it once per interval in milliseconds,
+     * so heartbeat frames queued behind a data burst still arrive, at most one read of data per interval is over the mark
+     */
+    private long pausedReadInterval = 500;
+
+    /**
+     * use virtual threads on jdk21+, fallback to platform threads when not supported
+     */
+    private boolean virtualThreads = false;
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.netty.channel.Channel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * netty message processor executor, handle messages off the netty io threads.
+ * messages of one channel are handled by the same single thread lane, so they keep the receive order.
+ * when a lane pending messages over high water mark, stop reading its channels until half drained.
+ * a paused channel is still read once per paused read interval, so the heartbeat frames behind the data are not starved.
+ */
+@Slf4j
+public class NettyProcessorExecutor {
+
+    private final String name;
+
+    private final Lane[] lanes;
+
+    private final int highWaterMark;
+
+    private final int lowWaterMark;
+
+    private final long pausedReadInterval;
+
+    public NettyProcessorExecutor(final String name, final NettyExecutorConfig config) {
+        this.name = name;
+        this.highWaterMark = Math.max(1, config.getHighWaterMark());
+        this.lowWaterMark = this.highWaterMark / 2;
+        this.pausedReadInterval = Math.max(1, config.getPausedReadInterval());
+        ThreadFactory threadFactory = config.isVirtualThreads() ? virtualThreadFactory(name) : null;
+        if (threadFactory == null) {
+            threadFactory = new ThreadFactoryBuilder()
+                    .setUncaughtExceptionHandler((thread, throwable) -> {
+                        log.error("{} has uncaughtException.", name);
+                        log.error(throwable.getMessage(), throwable);
+                    })
+                    .setDaemon(true)
+                    .setNameFormat(name + "-%d")
+                    .build();
+        }
+        this.lanes = new Lane[Math.max(1, config.getThreads())];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(threadFactory);
+        }
+        Metrics.gauge("hertzbeat.remoting.processor.pending", Tags.of("executor", name),
+                this, NettyProcessorExecutor::pending);
+    }
+
+    /**
+     * execute the message task in the lane of channel
+     * @param channel message channel
+     * @param task message task
+     */
+    public void execute(final Channel channel, final Runnable task) {
+        int index = channel == null ? 0 : Math.abs(channel.id().hashCode() % lanes.length);
+        lanes[index].execute(channel, task);
+    }
+
+    /**
+     * @return pending message count of all lanes
+     */
+    public int pending() {
+        int pending = 0;
+        for (Lane lane : lanes) {
+            pending += lane.pending.get();
+        }
+        return pending;
+    }
+
+    public void shutdown() {
+        for (Lane lane : lanes) {
+            lane.executor.shutdown();
+        }
+    }
+
+    private ThreadFactory virtualThreadFactory(final String name) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception e) {
+            log.warn("virtual threads are not supported in this jdk, {} fallback to platform threads.", name);
+            return null;
+        }
+    }
+
+    private class Lane {
+
+        private final ExecutorService executor;
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        /**
+         * key: paused channel, value: the periodic read of the paused channel
+         */
+        private final Map<Channel, ScheduledFuture<?>> pausedChannels = new ConcurrentHashMap<>(8);
+
+        Lane(final ThreadFactory threadFactory) {
+            this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory);
+        }
+
+        void execute(final Channel channel, final Runnable task) {
+            int count = pending.incrementAndGet();
+            if (count >= highWaterMark && channel != null && channel.config().isAutoRead()) {
+                log.warn("{} pending messages reach {}, pause reading channel {}.", name, count, channel.remoteAddress());
+                channel.config().setAutoRead(false);
+                // keep reading the paused channel slowly, the heartbeat frames behind the data still arrive
+                pausedChannels.put(channel, channel.eventLoop().scheduleAtFixedRate(() -> {
+                    if (channel.isActive() && !channel.config().isAutoRead()) {
+                        channel.read();
+                    }
+                }, pausedReadInterval, pausedReadInterval, TimeUnit.MILLISECONDS));
+                // the lane may have drained before the channel added
+                resumeIfDrained();
+            }
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (Exception e) {
+                        log.error("{} handle message error: {}", name, e.getMessage(), e);
+                    } finally {
+                        afterExecute();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                afterExecute();
+                log.warn("{} is shutdown, discard message.", name);
+            }
+        }
+
+        private void afterExecute() {
+            pending.decrementAndGet();
+            resumeIfDrained();
+        }
+
+        private void resumeIfDrained() {
+            if (pending.get() <= lowWaterMark && !pausedChannels.isEmpty()) {
+                Iterator<Map.Entry<Channel, ScheduledFuture<?>>> iterator = pausedChannels.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Channel, ScheduledFuture<?>> entry = iterator.next();
+                    iterator.remove();
+                    entry.getValue().cancel(false);
+                    entry.getKey().config().setAutoRead(true);
+                }
+            }
+        }
+    }
+}
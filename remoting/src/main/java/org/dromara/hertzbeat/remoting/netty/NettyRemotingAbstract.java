@@ -17,20 +17,32 @@
 
 package org.dromara.hertzbeat.remoting.netty;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.epoll.Epoll;
 import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.common.util.NetworkUtil;
+import org.dromara.hertzbeat.common.util.Pair;
 import org.dromara.hertzbeat.remoting.RemotingService;
 import org.dromara.hertzbeat.remoting.event.NettyEventListener;
 
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * netty remote abstract
@@ -38,20 +50,61 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 public abstract class NettyRemotingAbstract implements RemotingService {
-    protected ConcurrentHashMap<ClusterMsg.MessageType, NettyRemotingProcessor> processorTable = new ConcurrentHashMap<>();
 
-    protected ConcurrentHashMap<String, ResponseFuture> responseTable = new ConcurrentHashMap<>();
+    /**
+     * shared timer of all in-flight requests timeout
+     */
+    private static final Timer RESPONSE_TIMEOUT_TIMER = new HashedWheelTimer(
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("netty-response-timeout-%d").build(),
+            10, TimeUnit.MILLISECONDS);
+
+    protected ConcurrentHashMap<ClusterMsg.MessageType, Pair<NettyRemotingProcessor, NettyProcessorExecutor>> processorTable = new ConcurrentHashMap<>();
+
+    /**
+     * in-flight requests, key is request id
+     */
+    protected ConcurrentHashMap<Long, ResponseFuture> responseTable = new ConcurrentHashMap<>();
+
+    private final AtomicLong requestIdGenerator = new AtomicLong();
 
     protected List<NettyHook> nettyHookList = new ArrayList<>();
 
     protected NettyEventListener nettyEventListener;
 
-    protected NettyRemotingAbstract(NettyEventListener nettyEventListener) {
+    /**
+     * shared executor of message types without dedicated executor
+     */
+    private final NettyProcessorExecutor defaultExecutor;
+
+    /**
+     * heartbeat fast lane, never waiting behind data messages
+     */
+    private final NettyProcessorExecutor heartbeatExecutor;
+
+    private final Map<ClusterMsg.MessageType, NettyProcessorExecutor> typeExecutors = new EnumMap<>(ClusterMsg.MessageType.class);
+
+    protected NettyRemotingAbstract(final String name,
+                                    final NettyEventListener nettyEventListener,
+                                    final NettyExecutorConfig executorConfig,
+                                    final Map<ClusterMsg.MessageType, NettyExecutorConfig> typeExecutorConfigs) {
         this.nettyEventListener = nettyEventListener;
+        this.defaultExecutor = new NettyProcessorExecutor(name + "-processor", executorConfig);
+        NettyExecutorConfig heartbeatConfig = new NettyExecutorConfig();
+        heartbeatConfig.setThreads(1);
+        heartbeatConfig.setHighWaterMark(Integer.MAX_VALUE);
+        this.heartbeatExecutor = new NettyProcessorExecutor(name + "-heartbeat", heartbeatConfig);
+        if (typeExecutorConfigs != null) {
+            typeExecutorConfigs.forEach((messageType, config) -> this.typeExecutors.put(messageType,
+                    new NettyProcessorExecutor(name + "-" + messageType.name().toLowerCase(Locale.ROOT), config)));
+        }
     }
 
     public void registerProcessor(final ClusterMsg.MessageType messageType, final NettyRemotingProcessor processor) {
-        this.processorTable.put(messageType, processor);
+        NettyProcessorExecutor executor = this.typeExecutors.get(messageType);
+        if (executor == null) {
+            executor = ClusterMsg.MessageType.HEARTBEAT.equals(messageType) ? this.heartbeatExecutor : this.defaultExecutor;
+        }
+        this.processorTable.put(messageType, Pair.of(processor, executor));
     }
 
     protected void processReceiveMsg(ChannelHandlerContext ctx, ClusterMsg.Message message) {
@@ -63,17 +116,24 @@ public abstract class NettyRemotingAbstract implements RemotingService {
     }
 
     protected void processRequestMsg(ChannelHandlerContext ctx, ClusterMsg.Message request) {
-        this.doBeforeRequest(ctx, request);
-
-        NettyRemotingProcessor processor = this.processorTable.get(request.getType());
-        if (processor == null) {
+        Pair<NettyRemotingProcessor, NettyProcessorExecutor> pair = this.processorTable.get(request.getType());
+        if (pair == null) {
+            this.doBeforeRequest(ctx, request);
             log.info("request type {} not supported", request.getType());
             return;
         }
-        ClusterMsg.Message response = processor.handle(ctx, request);
-        if (response != null) {
-            ctx.writeAndFlush(response);
-        }
+        // handle request off the netty io thread
+        pair.getRight().execute(ctx.channel(), () -> {
+            this.doBeforeRequest(ctx, request);
+            ClusterMsg.Message response = pair.getLeft().handle(ctx, request);
+            if (response != null) {
+                // echo the request id, the requester correlate response by it
+                if (request.getRequestId() != 0 && response.getRequestId() == 0) {
+                    response = response.toBuilder().setRequestId(request.getRequestId()).build();
+                }
+                ctx.writeAndFlush(response);
+            }
+        });
     }
 
     private void doBeforeRequest(ChannelHandlerContext ctx, ClusterMsg.Message request) {
@@ -86,14 +146,31 @@ public abstract class NettyRemotingAbstract implements RemotingService {
     }
 
     protected void processResponseMsg(ClusterMsg.Message response) {
-        if (this.responseTable.containsKey(response.getIdentity())) {
-            ResponseFuture responseFuture = this.responseTable.get(response.getIdentity());
+        ResponseFuture responseFuture = response.getRequestId() != 0
+                ? this.responseTable.remove(response.getRequestId())
+                : this.removeOldestResponseFuture(response.getIdentity());
+        if (responseFuture != null) {
             responseFuture.putResponse(response);
         } else {
-            log.warn("receive response not in responseTable, identity: {}", response.getIdentity());
+            log.warn("receive response not in responseTable, identity: {}, requestId: {}",
+                    response.getIdentity(), response.getRequestId());
         }
     }
 
+    /**
+     * the older peer response without request id, correlate it by identity as before
+     */
+    private ResponseFuture removeOldestResponseFuture(final String identity) {
+        ResponseFuture oldest = null;
+        for (ResponseFuture responseFuture : this.responseTable.values()) {
+            if (responseFuture.getIdentity().equals(identity)
+                    && (oldest == null || responseFuture.getRequestId() < oldest.getRequestId())) {
+                oldest = responseFuture;
+            }
+        }
+        return oldest != null && this.responseTable.remove(oldest.getRequestId(), oldest) ? oldest : null;
+    }
+
     protected void sendMsgImpl(final Channel channel, final ClusterMsg.Message request) {
         channel.writeAndFlush(request).addListener(future -> {
             if (!future.isSuccess()) {
@@ -103,30 +180,50 @@ public abstract class NettyRemotingAbstract implements RemotingService {
     }
 
     protected ClusterMsg.Message sendMsgSyncImpl(final Channel channel, final ClusterMsg.Message request, final int timeoutMillis) {
-        final String identity = request.getIdentity();
-
         try {
-            ResponseFuture responseFuture = new ResponseFuture();
-            this.responseTable.put(identity, responseFuture);
-            channel.writeAndFlush(request).addListener(future -> {
-                if (!future.isSuccess()) {
-                    responseTable.remove(identity);
-                    log.warn("send request message failed. request: {}, address: {}, ", request, channel.remoteAddress(), future.cause());
-                }
-            });
-            ClusterMsg.Message response = responseFuture.waitResponse(timeoutMillis);
-            if (response == null) {
-                log.warn("get response message failed, message is null");
-            }
-            return response;
+            // the shared timer complete the future when timeout
+            return this.sendMsgAsyncImpl(channel, request, timeoutMillis).get();
         } catch (InterruptedException e) {
             log.warn("get response message failed, ", e);
-        } finally {
-            responseTable.remove(identity);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("get response message failed, {}", e.getCause().getMessage());
         }
         return null;
     }
 
+    protected CompletableFuture<ClusterMsg.Message> sendMsgAsyncImpl(final Channel channel, final ClusterMsg.Message request,
+                                                                      final int timeoutMillis) {
+        final long requestId = this.requestIdGenerator.incrementAndGet();
+        final ResponseFuture responseFuture = new ResponseFuture(requestId, request.getIdentity());
+        this.responseTable.put(requestId, responseFuture);
+        responseFuture.setTimeout(RESPONSE_TIMEOUT_TIMER.newTimeout(timeout -> {
+            if (this.responseTable.remove(requestId, responseFuture)) {
+                responseFuture.putFailure(new TimeoutException("wait response timeout " + timeoutMillis + "ms, requestId: " + requestId));
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS));
+        if (channel == null) {
+            this.responseTable.remove(requestId);
+            responseFuture.putFailure(new IllegalStateException("channel is not connected"));
+            return responseFuture.getFuture();
+        }
+        ClusterMsg.Message message = request.toBuilder().setRequestId(requestId).build();
+        channel.writeAndFlush(message).addListener(future -> {
+            if (!future.isSuccess()) {
+                this.responseTable.remove(requestId);
+                responseFuture.putFailure(future.cause());
+                log.warn("send request message failed. request: {}, address: {}, ", request, channel.remoteAddress(), future.cause());
+            }
+        });
+        return responseFuture.getFuture();
+    }
+
+    protected void shutdownProcessorExecutors() {
+        this.defaultExecutor.shutdown();
+        this.heartbeatExecutor.shutdown();
+        this.typeExecutors.values().forEach(NettyProcessorExecutor::shutdown);
+    }
+
     protected void channelActive(ChannelHandlerContext ctx) throws Exception {
         if (this.nettyEventListener != null && ctx.channel().isActive()) {
             this.nettyEventListener.onChannelActive(ctx.channel());
@@ -40,7 +40,12 @@ import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.common.support.CommonThreadPool;
 import org.dromara.hertzbeat.remoting.RemotingClient;
 import org.dromara.hertzbeat.remoting.event.NettyEventListener;
+import org.dromara.hertzbeat.remoting.netty.compress.ClientCompressionHandshakeHandler;
+import org.dromara.hertzbeat.remoting.netty.compress.CompressionHandshake;
+import org.dromara.hertzbeat.remoting.netty.compress.FrameCompressEncoder;
+import org.dromara.hertzbeat.remoting.netty.compress.FrameDecompressDecoder;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -59,12 +64,19 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
     private Channel channel;
 
+    /**
+     * use the gzip stream without compression handshake, for the older server
+     */
+    private volatile boolean gzipStream;
+
     public NettyRemotingClient(final NettyClientConfig nettyClientConfig,
                                final NettyEventListener nettyEventListener,
                                final CommonThreadPool threadPool) {
-        super(nettyEventListener);
+        super("netty-client", nettyEventListener, nettyClientConfig.getProcessorExecutor(),
+                nettyClientConfig.getTypeProcessorExecutors());
         this.nettyClientConfig = nettyClientConfig;
         this.threadPool = threadPool;
+        this.gzipStream = nettyClientConfig.getCompression() == null;
     }
 
     @Override
@@ -116,16 +128,29 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
     private void initChannel(final SocketChannel channel) {
         ChannelPipeline pipeline = channel.pipeline();
-        // zip
-        pipeline.addLast(ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
-        pipeline.addLast(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+        boolean gzipStream = this.gzipStream;
+        if (gzipStream) {
+            // zip
+            pipeline.addLast(ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
+            pipeline.addLast(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+        } else {
+            // compression handshake, fallback to the gzip stream when server not reply
+            pipeline.addLast(new ClientCompressionHandshakeHandler(this.nettyClientConfig.getCompression(),
+                    this.nettyClientConfig.getCompressionHandshakeTimeoutMillis(), () -> this.gzipStream = true));
+        }
         // protocol buf encode decode
         pipeline.addLast(new ProtobufVarint32FrameDecoder());
+        if (!gzipStream) {
+            pipeline.addLast(CompressionHandshake.FRAME_DECOMPRESS_DECODER, new FrameDecompressDecoder());
+        }
         pipeline.addLast(new ProtobufDecoder(ClusterMsg.Message.getDefaultInstance()));
         pipeline.addLast(new ProtobufVarint32LengthFieldPrepender());
+        if (!gzipStream) {
+            pipeline.addLast(CompressionHandshake.FRAME_COMPRESS_ENCODER,
+                    new FrameCompressEncoder(this.nettyClientConfig.getCompressionThreshold()));
+        }
         pipeline.addLast(new ProtobufEncoder());
         pipeline.addLast(new NettyClientHandler());
-
     }
 
     @Override
@@ -137,6 +162,8 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
 
             this.workerGroup.shutdownGracefully();
 
+            this.shutdownProcessorExecutors();
+
             this.threadPool.destroy();
 
         } catch (Exception e) {
@@ -154,6 +181,11 @@ public class NettyRemotingClient extends NettyRemotingAbstract implements Remoti
         return this.sendMsgSyncImpl(this.channel, request, timeoutMillis);
     }
 
+    @Override
+    public CompletableFuture<ClusterMsg.Message> sendMsgAsync(ClusterMsg.Message request, int timeoutMillis) {
+        return this.sendMsgAsyncImpl(this.channel, request, timeoutMillis);
+    }
+
     class NettyClientHandler extends SimpleChannelInboundHandler<ClusterMsg.Message> {
 
         @Override
@@ -32,8 +32,6 @@ import io.netty.channel.epoll.EpollServerSocketChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.compression.ZlibCodecFactory;
-import io.netty.handler.codec.compression.ZlibWrapper;
 import io.netty.handler.codec.protobuf.ProtobufDecoder;
 import io.netty.handler.codec.protobuf.ProtobufEncoder;
 import io.netty.handler.codec.protobuf.ProtobufVarint32FrameDecoder;
@@ -46,8 +44,13 @@ import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.common.support.CommonThreadPool;
 import org.dromara.hertzbeat.remoting.RemotingServer;
 import org.dromara.hertzbeat.remoting.event.NettyEventListener;
+import org.dromara.hertzbeat.remoting.netty.compress.CompressionHandshake;
+import org.dromara.hertzbeat.remoting.netty.compress.FrameCompressEncoder;
+import org.dromara.hertzbeat.remoting.netty.compress.FrameDecompressDecoder;
+import org.dromara.hertzbeat.remoting.netty.compress.ServerCompressionHandshakeHandler;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 
 /**
@@ -67,7 +70,8 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
     public NettyRemotingServer(final NettyServerConfig nettyServerConfig,
                                final NettyEventListener nettyEventListener,
                                final CommonThreadPool threadPool) {
-        super(nettyEventListener);
+        super("netty-server", nettyEventListener, nettyServerConfig.getProcessorExecutor(),
+                nettyServerConfig.getTypeProcessorExecutors());
         this.nettyServerConfig = nettyServerConfig;
         this.threadPool = threadPool;
     }
@@ -129,13 +133,14 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
 
     private void initChannel(final SocketChannel channel) {
         ChannelPipeline pipeline = channel.pipeline();
-        // zip
-        pipeline.addLast(ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
-        pipeline.addLast(ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
-        // protocol buf encode decode
+        // compression handshake, detect the older gzip stream client
+        pipeline.addLast(new ServerCompressionHandshakeHandler());
+        // protocol buf encode decode, with frame compression
         pipeline.addLast(new ProtobufVarint32FrameDecoder());
+        pipeline.addLast(CompressionHandshake.FRAME_DECOMPRESS_DECODER, new FrameDecompressDecoder());
         pipeline.addLast(new ProtobufDecoder(ClusterMsg.Message.getDefaultInstance()));
         pipeline.addLast(new ProtobufVarint32LengthFieldPrepender());
+        pipeline.addLast(CompressionHandshake.FRAME_COMPRESS_ENCODER, new FrameCompressEncoder(nettyServerConfig.getCompressionThreshold()));
         pipeline.addLast(new ProtobufEncoder());
         // idle state
         pipeline.addLast(new IdleStateHandler(0, 0, nettyServerConfig.getIdleStateEventTriggerTime()));
@@ -149,6 +154,8 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
 
             this.workerGroup.shutdownGracefully();
 
+            this.shutdownProcessorExecutors();
+
             this.threadPool.destroy();
 
         } catch (Exception e) {
@@ -166,6 +173,11 @@ public class NettyRemotingServer extends NettyRemotingAbstract implements Remoti
         return this.sendMsgSyncImpl(channel, request, timeoutMillis);
     }
 
+    @Override
+    public CompletableFuture<ClusterMsg.Message> sendMsgAsync(final Channel channel, final ClusterMsg.Message request, final int timeoutMillis) {
+        return this.sendMsgAsyncImpl(channel, request, timeoutMillis);
+    }
+
     @Override
     public void registerHook(List<NettyHook> nettyHookList) {
         this.nettyHookList.addAll(nettyHookList);
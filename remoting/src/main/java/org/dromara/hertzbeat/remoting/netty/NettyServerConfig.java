@@ -18,6 +18,10 @@
 package org.dromara.hertzbeat.remoting.netty;
 
 import lombok.Data;
+import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
+
+import java.util.EnumMap;
+import java.util.Map;
 
 /**
  * netty server config
@@ -29,4 +33,18 @@ public class NettyServerConfig {
 
     private Integer idleStateEventTriggerTime = 100;
 
+    /**
+     * frames smaller than the threshold bytes are sent uncompressed, the codec is chosen by client
+     */
+    private int compressionThreshold = 1024;
+
+    /**
+     * executor config of message processors without dedicated executor
+     */
+    private NettyExecutorConfig processorExecutor = new NettyExecutorConfig();
+
+    /**
+     * dedicated executor config of message types, eg: GO_ONLINE with db operations
+     */
+    private Map<ClusterMsg.MessageType, NettyExecutorConfig> typeProcessorExecutors = new EnumMap<>(ClusterMsg.MessageType.class);
 }
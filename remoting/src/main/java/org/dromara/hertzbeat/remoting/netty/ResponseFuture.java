@@ -17,28 +17,72 @@
 
 package org.dromara.hertzbeat.remoting.netty;
 
+import io.netty.util.Timeout;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
- * netty response future
+ * netty response future, correlate the response by request id.
+ * the timeout is handled by the shared timer, not by the waiting thread.
  */
 public class ResponseFuture {
 
-    private final CountDownLatch countDownLatch = new CountDownLatch(1);
+    private final long requestId;
 
-    private ClusterMsg.Message response;
+    private final String identity;
+
+    private final CompletableFuture<ClusterMsg.Message> future = new CompletableFuture<>();
+
+    private volatile Timeout timeout;
+
+    public ResponseFuture(final long requestId, final String identity) {
+        this.requestId = requestId;
+        this.identity = identity;
+    }
+
+    public long getRequestId() {
+        return requestId;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public CompletableFuture<ClusterMsg.Message> getFuture() {
+        return future;
+    }
+
+    void setTimeout(final Timeout timeout) {
+        this.timeout = timeout;
+    }
 
     public ClusterMsg.Message waitResponse(final long timeoutMillis) throws InterruptedException {
-        this.countDownLatch.await(timeoutMillis, TimeUnit.MILLISECONDS);
-        return this.response;
+        try {
+            return this.future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
     }
 
     public void putResponse(final ClusterMsg.Message response) {
-        this.response = response;
-        this.countDownLatch.countDown();
+        this.cancelTimeout();
+        this.future.complete(response);
+    }
+
+    public void putFailure(final Throwable cause) {
+        this.cancelTimeout();
+        this.future.completeExceptionally(cause);
+    }
+
+    private void cancelTimeout() {
+        Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
     }
 
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * client side compression handshake, send handshake when connected and wait the server reply.
+ * frames are sent uncompressed before the reply, the handler removes itself after negotiated.
+ * an older server without handshake never reply, then the timeout callback fallback to the gzip stream.
+ */
+@Slf4j
+public class ClientCompressionHandshakeHandler extends ByteToMessageDecoder {
+
+    private final CompressionType preferred;
+
+    private final long timeoutMillis;
+
+    private final Runnable timeoutCallback;
+
+    private ScheduledFuture<?> timeoutFuture;
+
+    public ClientCompressionHandshakeHandler(CompressionType preferred, long timeoutMillis, Runnable timeoutCallback) {
+        this.preferred = preferred;
+        this.timeoutMillis = timeoutMillis;
+        this.timeoutCallback = timeoutCallback;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        CompressionHandshake.write(ctx, preferred);
+        this.timeoutFuture = ctx.executor().schedule(() -> {
+            log.warn("server {} not reply compression handshake in {}ms, close and reconnect.",
+                    ctx.channel().remoteAddress(), timeoutMillis);
+            timeoutCallback.run();
+            ctx.close();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        super.channelActive(ctx);
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        CompressionHandshake handshake = CompressionHandshake.read(in);
+        if (handshake == null) {
+            return;
+        }
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+        CompressionType type = CompressionHandshake.choose(preferred, handshake.getAvailable());
+        CompressionHandshake.setCompressionType(ctx.pipeline(), type);
+        log.info("compression negotiated with server {}, send {} frames, receive {} frames.",
+                ctx.channel().remoteAddress(), type, handshake.getPreferred());
+        ctx.pipeline().remove(this);
+    }
+
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        if (timeoutFuture != null) {
+            timeoutFuture.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * compression handshake at connection setup, before any protobuf frame.
+ * handshake: magic(2 bytes) + version(1 byte) + preferred codec id(1 byte) + codec count(1 byte) + available codec ids.
+ * client send its preferred codec and available codecs, server reply its chosen codec and available codecs,
+ * then every side compress frames by a codec the peer can decompress.
+ * the magic differs from the gzip stream header of the older peers without handshake.
+ */
+public final class CompressionHandshake {
+
+    public static final String FRAME_COMPRESS_ENCODER = "frameCompressEncoder";
+
+    public static final String FRAME_DECOMPRESS_DECODER = "frameDecompressDecoder";
+
+    static final byte MAGIC_0 = 'H';
+
+    static final byte MAGIC_1 = 'B';
+
+    static final byte VERSION = 1;
+
+    static final int MAGIC_LENGTH = 2;
+
+    private static final int HEADER_LENGTH = 5;
+
+    private final CompressionType preferred;
+
+    private final Set<CompressionType> available;
+
+    CompressionHandshake(CompressionType preferred, Set<CompressionType> available) {
+        this.preferred = preferred;
+        this.available = available;
+    }
+
+    CompressionType getPreferred() {
+        return preferred;
+    }
+
+    Set<CompressionType> getAvailable() {
+        return available;
+    }
+
+    /**
+     * @param in received bytes
+     * @return true if the received bytes start with the handshake magic
+     */
+    static boolean isHandshake(ByteBuf in) {
+        int index = in.readerIndex();
+        return in.getByte(index) == MAGIC_0 && in.getByte(index + 1) == MAGIC_1;
+    }
+
+    /**
+     * read the handshake
+     * @param in received bytes start with handshake magic
+     * @return handshake, null if not fully received
+     */
+    static CompressionHandshake read(ByteBuf in) {
+        if (in.readableBytes() < HEADER_LENGTH) {
+            return null;
+        }
+        int index = in.readerIndex();
+        int count = in.getUnsignedByte(index + 4);
+        if (in.readableBytes() < HEADER_LENGTH + count) {
+            return null;
+        }
+        if (!isHandshake(in)) {
+            throw new CorruptedFrameException("not a compression handshake");
+        }
+        in.skipBytes(3);
+        CompressionType preferred = CompressionType.of(in.readByte());
+        in.skipBytes(1);
+        Set<CompressionType> available = EnumSet.of(CompressionType.NONE);
+        for (int i = 0; i < count; i++) {
+            // codecs added by newer version are unknown here, skip them
+            CompressionType type = CompressionType.of(in.readByte());
+            if (type != null) {
+                available.add(type);
+            }
+        }
+        return new CompressionHandshake(preferred == null ? CompressionType.NONE : preferred, available);
+    }
+
+    /**
+     * write handshake directly to the socket, bypass the frame codecs
+     * @param ctx handshake handler context
+     * @param preferred preferred codec
+     */
+    static void write(ChannelHandlerContext ctx, CompressionType preferred) {
+        Set<CompressionType> available = CompressionType.availableTypes();
+        ByteBuf out = ctx.alloc().buffer(HEADER_LENGTH + available.size());
+        out.writeByte(MAGIC_0).writeByte(MAGIC_1).writeByte(VERSION)
+                .writeByte(preferred.getId()).writeByte(available.size());
+        for (CompressionType type : available) {
+            out.writeByte(type.getId());
+        }
+        ctx.writeAndFlush(out);
+    }
+
+    /**
+     * choose the codec compress frames to the peer
+     * @param preferred preferred codec
+     * @param peerAvailable codecs the peer can decompress
+     * @return preferred codec if both sides available, else gzip, else none
+     */
+    static CompressionType choose(CompressionType preferred, Set<CompressionType> peerAvailable) {
+        if (preferred == null || preferred == CompressionType.NONE) {
+            return CompressionType.NONE;
+        }
+        if (preferred.isAvailable() && peerAvailable.contains(preferred)) {
+            return preferred;
+        }
+        if (CompressionType.GZIP.isAvailable() && peerAvailable.contains(CompressionType.GZIP)) {
+            return CompressionType.GZIP;
+        }
+        return CompressionType.NONE;
+    }
+
+    static void setCompressionType(ChannelPipeline pipeline, CompressionType type) {
+        FrameCompressEncoder encoder = (FrameCompressEncoder) pipeline.get(FRAME_COMPRESS_ENCODER);
+        if (encoder != null) {
+            encoder.setCompressionType(type);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * per codec compression metrics: bytes before and after compress, ratio and cpu time,
+ * used to choose the codec of a link, eg: wan edge collector or in-datacenter collector.
+ */
+final class CompressionMetrics {
+
+    private static final Map<CompressionType, CompressionMetrics> METRICS = new EnumMap<>(CompressionType.class);
+
+    static {
+        for (CompressionType type : CompressionType.values()) {
+            METRICS.put(type, new CompressionMetrics(type));
+        }
+    }
+
+    private final Counter rawBytes;
+
+    private final Counter compressedBytes;
+
+    private final Timer compressTime;
+
+    private final Timer decompressTime;
+
+    private CompressionMetrics(CompressionType type) {
+        Tags tags = Tags.of("codec", type.name().toLowerCase());
+        this.rawBytes = Metrics.counter("hertzbeat.remoting.compression.raw.bytes", tags);
+        this.compressedBytes = Metrics.counter("hertzbeat.remoting.compression.compressed.bytes", tags);
+        this.compressTime = Metrics.timer("hertzbeat.remoting.compression.time", tags.and("operation", "compress"));
+        this.decompressTime = Metrics.timer("hertzbeat.remoting.compression.time", tags.and("operation", "decompress"));
+        Metrics.gauge("hertzbeat.remoting.compression.ratio", tags, this, CompressionMetrics::ratio);
+    }
+
+    static CompressionMetrics of(CompressionType type) {
+        return METRICS.get(type);
+    }
+
+    void recordCompress(int rawLength, int compressedLength, long nanos) {
+        rawBytes.increment(rawLength);
+        compressedBytes.increment(compressedLength);
+        compressTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordDecompress(long nanos) {
+        decompressTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return compressed bytes / raw bytes, 1 if nothing compressed
+     */
+    double ratio() {
+        double raw = rawBytes.count();
+        return raw == 0 ? 1 : compressedBytes.count() / raw;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import com.github.luben.zstd.Zstd;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * remoting frame compression codec, the id is written in every frame header.
+ * LZ4 is cheap on cpu for in-datacenter links, ZSTD and GZIP trade cpu for ratio on wan links.
+ */
+@Slf4j
+public enum CompressionType {
+
+    /**
+     * frame not compressed
+     */
+    NONE((byte) 0) {
+        @Override
+        public byte[] compress(byte[] data) {
+            return data;
+        }
+
+        @Override
+        public byte[] decompress(byte[] data, int originalLength) {
+            return data;
+        }
+    },
+
+    /**
+     * deflate of jdk, the algorithm of gzip
+     */
+    GZIP((byte) 1) {
+        @Override
+        public byte[] compress(byte[] data) {
+            Deflater deflater = new Deflater();
+            try {
+                deflater.setInput(data);
+                deflater.finish();
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length / 2 + 16);
+                byte[] buffer = new byte[Math.min(Math.max(data.length, 64), 8192)];
+                while (!deflater.finished()) {
+                    int count = deflater.deflate(buffer);
+                    outputStream.write(buffer, 0, count);
+                }
+                return outputStream.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public byte[] decompress(byte[] data, int originalLength) {
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data);
+                byte[] result = new byte[originalLength];
+                int offset = 0;
+                while (offset < originalLength && !inflater.finished()) {
+                    int count = inflater.inflate(result, offset, originalLength - offset);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    offset += count;
+                }
+                if (offset != originalLength) {
+                    throw new IllegalStateException("gzip frame decompressed " + offset + " bytes, expect " + originalLength);
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("gzip frame data format error: " + e.getMessage(), e);
+            } finally {
+                inflater.end();
+            }
+        }
+    },
+
+    /**
+     * lz4 block of lz4-java
+     */
+    LZ4((byte) 2) {
+        @Override
+        public byte[] compress(byte[] data) {
+            return LZ4Factory.fastestInstance().fastCompressor().compress(data);
+        }
+
+        @Override
+        public byte[] decompress(byte[] data, int originalLength) {
+            return LZ4Factory.fastestInstance().fastDecompressor().decompress(data, originalLength);
+        }
+    },
+
+    /**
+     * zstd of zstd-jni, need the native library of the platform
+     */
+    ZSTD((byte) 3) {
+        @Override
+        public byte[] compress(byte[] data) {
+            return Zstd.compress(data, ZSTD_LEVEL);
+        }
+
+        @Override
+        public byte[] decompress(byte[] data, int originalLength) {
+            return Zstd.decompress(data, originalLength);
+        }
+    };
+
+    private static final int ZSTD_LEVEL = 3;
+
+    private static final Set<CompressionType> AVAILABLE_TYPES;
+
+    static {
+        Set<CompressionType> types = EnumSet.noneOf(CompressionType.class);
+        byte[] probe = "hertzbeat compression probe".getBytes(StandardCharsets.UTF_8);
+        for (CompressionType type : values()) {
+            try {
+                type.decompress(type.compress(probe), probe.length);
+                types.add(type);
+            } catch (Throwable e) {
+                log.warn("compression {} is not available on this platform: {}", type, e.getMessage());
+            }
+        }
+        AVAILABLE_TYPES = Collections.unmodifiableSet(types);
+    }
+
+    private final byte id;
+
+    CompressionType(byte id) {
+        this.id = id;
+    }
+
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * compress the frame data
+     * @param data frame data
+     * @return compressed data
+     */
+    public abstract byte[] compress(byte[] data);
+
+    /**
+     * decompress the frame data
+     * @param data compressed data
+     * @param originalLength frame data length before compress
+     * @return frame data
+     */
+    public abstract byte[] decompress(byte[] data, int originalLength);
+
+    public boolean isAvailable() {
+        return AVAILABLE_TYPES.contains(this);
+    }
+
+    public static Set<CompressionType> availableTypes() {
+        return AVAILABLE_TYPES;
+    }
+
+    /**
+     * @param id codec id in frame header
+     * @return compression type, null if unknown
+     */
+    public static CompressionType of(byte id) {
+        for (CompressionType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
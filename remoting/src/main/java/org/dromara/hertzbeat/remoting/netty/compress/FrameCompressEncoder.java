@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+/**
+ * compress every protobuf frame by the negotiated codec.
+ * frame: codec id(1 byte) + [original length(varint32) + compressed data] or [raw data when codec is none]
+ * frames smaller than the threshold are sent uncompressed, eg: heartbeat and small responses.
+ */
+public class FrameCompressEncoder extends MessageToMessageEncoder<ByteBuf> {
+
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+
+    private static final int VARINT_CONTINUE_BIT = 0x80;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+
+    private final int threshold;
+
+    /**
+     * codec is none until the peer supported codecs negotiated
+     */
+    private volatile CompressionType compressionType = CompressionType.NONE;
+
+    public FrameCompressEncoder(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public void setCompressionType(CompressionType compressionType) {
+        this.compressionType = compressionType;
+    }
+
+    public CompressionType getCompressionType() {
+        return compressionType;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        CompressionType type = this.compressionType;
+        int length = msg.readableBytes();
+        if (type == CompressionType.NONE || length < threshold) {
+            ByteBuf header = ctx.alloc().buffer(1).writeByte(CompressionType.NONE.getId());
+            out.add(ctx.alloc().compositeBuffer(2).addComponents(true, header, msg.retain()));
+            return;
+        }
+        long start = System.nanoTime();
+        byte[] compressed = type.compress(ByteBufUtil.getBytes(msg));
+        CompressionMetrics.of(type).recordCompress(length, compressed.length, System.nanoTime() - start);
+        ByteBuf frame = ctx.alloc().buffer(compressed.length + 6);
+        frame.writeByte(type.getId());
+        writeRawVarint32(frame, length);
+        frame.writeBytes(compressed);
+        out.add(frame);
+    }
+
+    static void writeRawVarint32(ByteBuf out, int value) {
+        while ((value & ~VARINT_PAYLOAD_MASK) != 0) {
+            out.writeByte((value & VARINT_PAYLOAD_MASK) | VARINT_CONTINUE_BIT);
+            value >>>= VARINT_PAYLOAD_BITS;
+        }
+        out.writeByte(value);
+    }
+}
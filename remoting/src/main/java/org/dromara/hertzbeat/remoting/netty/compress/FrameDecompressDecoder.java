@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * decompress every protobuf frame by the codec id in frame header, see {@link FrameCompressEncoder}.
+ * frames of all available codecs are accepted, whatever the codec this side compress with.
+ */
+@ChannelHandler.Sharable
+public class FrameDecompressDecoder extends MessageToMessageDecoder<ByteBuf> {
+
+    private static final int MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private static final int VARINT_PAYLOAD_MASK = 0x7F;
+
+    private static final int VARINT_PAYLOAD_BITS = 7;
+
+    private static final int VARINT_MAX_SHIFT = 32;
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+        if (!msg.isReadable()) {
+            throw new CorruptedFrameException("empty frame without codec header");
+        }
+        byte id = msg.readByte();
+        CompressionType type = CompressionType.of(id);
+        if (type == null) {
+            throw new CorruptedFrameException("unknown frame codec id: " + id);
+        }
+        if (type == CompressionType.NONE) {
+            out.add(msg.retain());
+            return;
+        }
+        int originalLength = readRawVarint32(msg);
+        if (originalLength < 0 || originalLength > MAX_FRAME_LENGTH) {
+            throw new CorruptedFrameException("frame original length out of range: " + originalLength);
+        }
+        long start = System.nanoTime();
+        byte[] data = type.decompress(ByteBufUtil.getBytes(msg), originalLength);
+        CompressionMetrics.of(type).recordDecompress(System.nanoTime() - start);
+        out.add(Unpooled.wrappedBuffer(data));
+    }
+
+    static int readRawVarint32(ByteBuf buffer) {
+        int result = 0;
+        for (int shift = 0; shift < VARINT_MAX_SHIFT; shift += VARINT_PAYLOAD_BITS) {
+            if (!buffer.isReadable()) {
+                throw new CorruptedFrameException("truncated frame original length");
+            }
+            byte b = buffer.readByte();
+            result |= (b & VARINT_PAYLOAD_MASK) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new CorruptedFrameException("malformed frame original length");
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * server side compression handshake, detect the protocol by the first received bytes.
+ * handshake magic: reply the chosen codec and compress frames by it.
+ * otherwise an older client without handshake: replace the frame codecs with the gzip stream codecs.
+ * the handler removes itself after detected.
+ */
+@Slf4j
+public class ServerCompressionHandshakeHandler extends ByteToMessageDecoder {
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (in.readableBytes() < CompressionHandshake.MAGIC_LENGTH) {
+            return;
+        }
+        ChannelPipeline pipeline = ctx.pipeline();
+        if (!CompressionHandshake.isHandshake(in)) {
+            log.info("client {} without compression handshake, use gzip stream.", ctx.channel().remoteAddress());
+            pipeline.remove(CompressionHandshake.FRAME_COMPRESS_ENCODER);
+            pipeline.remove(CompressionHandshake.FRAME_DECOMPRESS_DECODER);
+            pipeline.addAfter(ctx.name(), null, ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+            pipeline.addAfter(ctx.name(), null, ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
+            pipeline.remove(this);
+            return;
+        }
+        CompressionHandshake handshake = CompressionHandshake.read(in);
+        if (handshake == null) {
+            return;
+        }
+        // compress frames to client by the codec it prefers, the client choose per link
+        CompressionType type = CompressionHandshake.choose(handshake.getPreferred(), handshake.getAvailable());
+        CompressionHandshake.write(ctx, type);
+        CompressionHandshake.setCompressionType(pipeline, type);
+        log.info("compression negotiated with client {}, send {} frames.", ctx.channel().remoteAddress(), type);
+        pipeline.remove(this);
+    }
+}
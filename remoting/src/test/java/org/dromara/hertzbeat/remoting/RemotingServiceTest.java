@@ -4,14 +4,26 @@ import org.assertj.core.util.Lists;
 import org.dromara.hertzbeat.common.entity.message.ClusterMsg;
 import org.dromara.hertzbeat.common.support.CommonThreadPool;
 import org.dromara.hertzbeat.remoting.netty.NettyClientConfig;
+import org.dromara.hertzbeat.remoting.netty.NettyExecutorConfig;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingClient;
 import org.dromara.hertzbeat.remoting.netty.NettyRemotingServer;
 import org.dromara.hertzbeat.remoting.netty.NettyServerConfig;
+import org.dromara.hertzbeat.remoting.netty.compress.CompressionType;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * test NettyRemotingClient and NettyRemotingServer
  */
@@ -23,6 +35,8 @@ public class RemotingServiceTest {
 
     private RemotingClient remotingClient;
 
+    private int port;
+
     public RemotingServer createRemotingServer(int port) {
         NettyServerConfig nettyServerConfig = new NettyServerConfig();
         nettyServerConfig.setPort(port);
@@ -43,7 +57,7 @@ public class RemotingServiceTest {
 
     @BeforeEach
     public void setUp() throws InterruptedException {
-        int port = 10000 + (int) (Math.random() * 10000);
+        port = 10000 + (int) (Math.random() * 10000);
         remotingServer = createRemotingServer(port);
         Thread.sleep(1000);
         remotingClient = createRemotingClient(port);
@@ -117,4 +131,173 @@ public class RemotingServiceTest {
         this.remotingClient.sendMsg(request);
     }
 
+    @Test
+    public void testHeartbeatNotBlockedByDataProcessor() {
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA, (ctx, message) -> {
+            try {
+                releaseLatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.HEARTBEAT, (ctx, message) ->
+                ClusterMsg.Message.newBuilder()
+                        .setDirection(ClusterMsg.Direction.RESPONSE)
+                        .setMsg("pong")
+                        .build());
+
+        for (int i = 0; i < 10; i++) {
+            this.remotingClient.sendMsg(ClusterMsg.Message.newBuilder()
+                    .setDirection(ClusterMsg.Direction.REQUEST)
+                    .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA)
+                    .build());
+        }
+        ClusterMsg.Message heartbeat = ClusterMsg.Message.newBuilder()
+                .setDirection(ClusterMsg.Direction.REQUEST)
+                .setType(ClusterMsg.MessageType.HEARTBEAT)
+                .build();
+        ClusterMsg.Message response = this.remotingClient.sendMsgSync(heartbeat, 3000);
+        releaseLatch.countDown();
+        Assertions.assertNotNull(response);
+        Assertions.assertEquals("pong", response.getMsg());
+    }
+
+    @Test
+    public void testHeartbeatNotStarvedByPausedChannel() throws InterruptedException {
+        int pausedPort = port + 1;
+        NettyServerConfig nettyServerConfig = new NettyServerConfig();
+        nettyServerConfig.setPort(pausedPort);
+        NettyExecutorConfig executorConfig = new NettyExecutorConfig();
+        executorConfig.setThreads(1);
+        executorConfig.setHighWaterMark(2);
+        executorConfig.setPausedReadInterval(50);
+        nettyServerConfig.setProcessorExecutor(executorConfig);
+        RemotingServer server = new NettyRemotingServer(nettyServerConfig, null, new CommonThreadPool());
+        final CountDownLatch releaseLatch = new CountDownLatch(1);
+        server.registerProcessor(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA, (ctx, message) -> {
+            try {
+                releaseLatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        server.registerProcessor(ClusterMsg.MessageType.HEARTBEAT, (ctx, message) ->
+                ClusterMsg.Message.newBuilder()
+                        .setDirection(ClusterMsg.Direction.RESPONSE)
+                        .setMsg("pong")
+                        .build());
+        server.start();
+        Thread.sleep(1000);
+        RemotingClient client = createRemotingClient(pausedPort);
+        Thread.sleep(1000);
+        try {
+            // the data lane is saturated and the channel paused, the heartbeat is queued behind the data in the socket
+            char[] chars = new char[8 * 1024];
+            for (int i = 0; i < 20; i++) {
+                for (int j = 0; j < chars.length; j++) {
+                    chars[j] = (char) ('a' + ThreadLocalRandom.current().nextInt(26));
+                }
+                client.sendMsg(ClusterMsg.Message.newBuilder()
+                        .setDirection(ClusterMsg.Direction.REQUEST)
+                        .setType(ClusterMsg.MessageType.RESPONSE_CYCLIC_TASK_DATA)
+                        .setMsg(new String(chars))
+                        .build());
+            }
+            ClusterMsg.Message heartbeat = ClusterMsg.Message.newBuilder()
+                    .setDirection(ClusterMsg.Direction.REQUEST)
+                    .setType(ClusterMsg.MessageType.HEARTBEAT)
+                    .build();
+            ClusterMsg.Message response = client.sendMsgSync(heartbeat, 5000);
+            Assertions.assertNotNull(response);
+            Assertions.assertEquals("pong", response.getMsg());
+        } finally {
+            releaseLatch.countDown();
+            client.shutdown();
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void testSendLargeMsgSyncWithCompression() throws InterruptedException {
+        char[] chars = new char[64 * 1024];
+        Arrays.fill(chars, 'h');
+        final String largeMsg = new String(chars);
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.HEARTBEAT, (ctx, message) ->
+                ClusterMsg.Message.newBuilder()
+                        .setDirection(ClusterMsg.Direction.RESPONSE)
+                        .setMsg(message.getMsg())
+                        .build());
+
+        // null is the gzip stream of the older client without handshake
+        for (CompressionType compression : new CompressionType[]{null, CompressionType.NONE, CompressionType.GZIP,
+                CompressionType.LZ4, CompressionType.ZSTD}) {
+            NettyClientConfig nettyClientConfig = new NettyClientConfig();
+            nettyClientConfig.setServerHost("localhost");
+            nettyClientConfig.setServerPort(port);
+            nettyClientConfig.setCompression(compression);
+            RemotingClient client = new NettyRemotingClient(nettyClientConfig, null, new CommonThreadPool());
+            client.start();
+            Thread.sleep(1000);
+            try {
+                ClusterMsg.Message request = ClusterMsg.Message.newBuilder()
+                        .setDirection(ClusterMsg.Direction.REQUEST)
+                        .setType(ClusterMsg.MessageType.HEARTBEAT)
+                        .setMsg(largeMsg)
+                        .build();
+                ClusterMsg.Message response = client.sendMsgSync(request, 3000);
+                Assertions.assertNotNull(response, "compression " + compression);
+                Assertions.assertEquals(largeMsg, response.getMsg());
+            } finally {
+                client.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentSendMsgAsync() throws Exception {
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.GO_ONLINE, (ctx, message) -> {
+            try {
+                Thread.sleep(ThreadLocalRandom.current().nextInt(20));
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            return ClusterMsg.Message.newBuilder()
+                    .setDirection(ClusterMsg.Direction.RESPONSE)
+                    .setMsg(message.getMsg())
+                    .build();
+        });
+
+        // requests with the same identity are in-flight at the same time
+        List<CompletableFuture<ClusterMsg.Message>> futures = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ClusterMsg.Message request = ClusterMsg.Message.newBuilder()
+                    .setIdentity("collector")
+                    .setDirection(ClusterMsg.Direction.REQUEST)
+                    .setType(ClusterMsg.MessageType.GO_ONLINE)
+                    .setMsg(String.valueOf(i))
+                    .build();
+            futures.add(this.remotingClient.sendMsgAsync(request, 5000));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assertions.assertEquals(String.valueOf(i), futures.get(i).get(10, TimeUnit.SECONDS).getMsg());
+        }
+    }
+
+    @Test
+    public void testSendMsgAsyncTimeout() {
+        this.remotingServer.registerProcessor(ClusterMsg.MessageType.GO_OFFLINE, (ctx, message) -> null);
+
+        ClusterMsg.Message request = ClusterMsg.Message.newBuilder()
+                .setDirection(ClusterMsg.Direction.REQUEST)
+                .setType(ClusterMsg.MessageType.GO_OFFLINE)
+                .build();
+        CompletableFuture<ClusterMsg.Message> future = this.remotingClient.sendMsgAsync(request, 200);
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(exception.getCause() instanceof TimeoutException);
+        Assertions.assertNull(this.remotingClient.sendMsgSync(request, 200));
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.dromara.hertzbeat.remoting.netty.compress;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.JdkZlibDecoder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+
+/**
+ * Test case for {@link FrameCompressEncoder} {@link FrameDecompressDecoder} and the compression handshake
+ */
+class FrameCompressionTest {
+
+    private static final int THRESHOLD = 64;
+
+    @Test
+    void roundTripAllAvailableCodecs() {
+        byte[] data = new byte[4096];
+        Arrays.fill(data, (byte) 'h');
+        for (CompressionType type : CompressionType.availableTypes()) {
+            FrameCompressEncoder encoder = new FrameCompressEncoder(THRESHOLD);
+            encoder.setCompressionType(type);
+            EmbeddedChannel channel = new EmbeddedChannel(new FrameDecompressDecoder(), encoder);
+            Assertions.assertTrue(channel.writeOutbound(Unpooled.wrappedBuffer(data)));
+            ByteBuf frame = channel.readOutbound();
+            Assertions.assertEquals(type.getId(), frame.getByte(0));
+            if (type != CompressionType.NONE) {
+                Assertions.assertTrue(frame.readableBytes() < data.length, type + " not compressed");
+            }
+            Assertions.assertTrue(channel.writeInbound(frame));
+            ByteBuf decoded = channel.readInbound();
+            byte[] result = new byte[decoded.readableBytes()];
+            decoded.readBytes(result);
+            decoded.release();
+            Assertions.assertArrayEquals(data, result, type.name());
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    @Test
+    void smallFrameNotCompressed() {
+        FrameCompressEncoder encoder = new FrameCompressEncoder(THRESHOLD);
+        encoder.setCompressionType(CompressionType.GZIP);
+        EmbeddedChannel channel = new EmbeddedChannel(encoder);
+        byte[] data = "heartbeat".getBytes(StandardCharsets.UTF_8);
+        channel.writeOutbound(Unpooled.wrappedBuffer(data));
+        ByteBuf frame = channel.readOutbound();
+        Assertions.assertEquals(CompressionType.NONE.getId(), frame.readByte());
+        Assertions.assertEquals(data.length, frame.readableBytes());
+        frame.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void chooseCodec() {
+        Assertions.assertEquals(CompressionType.NONE,
+                CompressionHandshake.choose(CompressionType.NONE, CompressionType.availableTypes()));
+        Assertions.assertEquals(CompressionType.LZ4,
+                CompressionHandshake.choose(CompressionType.LZ4, EnumSet.of(CompressionType.NONE, CompressionType.LZ4)));
+        Assertions.assertEquals(CompressionType.GZIP,
+                CompressionHandshake.choose(CompressionType.ZSTD, EnumSet.of(CompressionType.NONE, CompressionType.GZIP)));
+        Assertions.assertEquals(CompressionType.NONE,
+                CompressionHandshake.choose(CompressionType.LZ4, EnumSet.of(CompressionType.NONE)));
+    }
+
+    @Test
+    void serverNegotiateWithHandshakeClient() {
+        FrameCompressEncoder encoder = new FrameCompressEncoder(THRESHOLD);
+        EmbeddedChannel server = new EmbeddedChannel(new ServerCompressionHandshakeHandler());
+        server.pipeline().addLast(CompressionHandshake.FRAME_DECOMPRESS_DECODER, new FrameDecompressDecoder());
+        server.pipeline().addLast(CompressionHandshake.FRAME_COMPRESS_ENCODER, encoder);
+        ByteBuf handshake = Unpooled.buffer()
+                .writeByte(CompressionHandshake.MAGIC_0).writeByte(CompressionHandshake.MAGIC_1)
+                .writeByte(CompressionHandshake.VERSION).writeByte(CompressionType.LZ4.getId())
+                .writeByte(2).writeByte(CompressionType.NONE.getId()).writeByte(CompressionType.LZ4.getId());
+        server.writeInbound(handshake);
+        Assertions.assertEquals(CompressionType.LZ4, encoder.getCompressionType());
+        Assertions.assertNull(server.pipeline().get(ServerCompressionHandshakeHandler.class));
+        ByteBuf reply = server.readOutbound();
+        CompressionHandshake replyHandshake = CompressionHandshake.read(reply);
+        Assertions.assertNotNull(replyHandshake);
+        Assertions.assertEquals(CompressionType.LZ4, replyHandshake.getPreferred());
+        reply.release();
+        server.finishAndReleaseAll();
+    }
+
+    @Test
+    void serverFallbackToGzipStreamForOlderClient() {
+        EmbeddedChannel server = new EmbeddedChannel(new ServerCompressionHandshakeHandler());
+        server.pipeline().addLast(CompressionHandshake.FRAME_DECOMPRESS_DECODER, new FrameDecompressDecoder());
+        server.pipeline().addLast(CompressionHandshake.FRAME_COMPRESS_ENCODER, new FrameCompressEncoder(THRESHOLD));
+        // gzip stream header magic
+        server.writeInbound(Unpooled.wrappedBuffer(new byte[]{(byte) 0x1f, (byte) 0x8b}));
+        Assertions.assertNull(server.pipeline().get(CompressionHandshake.FRAME_COMPRESS_ENCODER));
+        Assertions.assertNull(server.pipeline().get(CompressionHandshake.FRAME_DECOMPRESS_DECODER));
+        Assertions.assertNotNull(server.pipeline().get(JdkZlibDecoder.class));
+        server.finishAndReleaseAll();
+    }
+}
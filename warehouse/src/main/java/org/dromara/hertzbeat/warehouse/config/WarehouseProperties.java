@@ -164,6 +164,10 @@ public class WarehouseProperties {
          * GrepTimeDB Config
          */
         private GreptimeProperties greptime;
+        /**
+         * history data dispatch config
+         */
+        private DispatchProperties dispatch = new DispatchProperties();
 
         public JpaProperties getJpa() {
             return jpa;
@@ -221,6 +225,86 @@ public class WarehouseProperties {
             this.greptime = greptime;
         }
 
+        public DispatchProperties getDispatch() {
+            return dispatch;
+        }
+
+        public void setDispatch(DispatchProperties dispatch) {
+            this.dispatch = dispatch;
+        }
+
+        /**
+         * history data dispatch config, each history storage has its own queue and workers
+         */
+        public static class DispatchProperties {
+            /**
+             * max metrics data of one batch saved to the storage
+             */
+            private int batchSize = 100;
+            /**
+             * pending metrics data queue capacity of each storage
+             */
+            private int queueCapacity = 10000;
+            /**
+             * worker threads of each storage
+             */
+            private int threads = 1;
+            /**
+             * what to do when the storage queue is full
+             */
+            private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public OverflowPolicy getOverflowPolicy() {
+                return overflowPolicy;
+            }
+
+            public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+                this.overflowPolicy = overflowPolicy;
+            }
+        }
+
+        /**
+         * storage queue overflow policy
+         */
+        public enum OverflowPolicy {
+            /**
+             * wait until the storage queue has space, slow down the dispatch
+             */
+            BLOCK,
+            /**
+             * drop the oldest pending metrics data
+             */
+            DROP_OLDEST,
+            /**
+             * drop the new metrics data
+             */
+            DROP_NEWEST
+        }
+
         public static class MemoryProperties {
             /**
              * 内存数据存储是否启动
@@ -314,6 +398,14 @@ public class WarehouseProperties {
              * 副本数
              */
             private int replication = 1;
+            /**
+             * max points of one write request
+             */
+            private int batchSize = 5000;
+            /**
+             * max milliseconds the points wait in buffer before written
+             */
+            private long flushInterval = 1000;
 
             public boolean isEnabled() {
                 return enabled;
@@ -362,6 +454,22 @@ public class WarehouseProperties {
             public void setReplication(int replication) {
                 this.replication = replication;
             }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getFlushInterval() {
+                return flushInterval;
+            }
+
+            public void setFlushInterval(long flushInterval) {
+                this.flushInterval = flushInterval;
+            }
         }
 
         public static class TdEngineProperties {
@@ -389,6 +497,14 @@ public class WarehouseProperties {
              * auto create table's string column define max length : NCHAR(200)
              */
             private int tableStrColumnDefineMaxLength = 200;
+            /**
+             * max rows of one batch insert, the rows of many monitors are written in one multi table insert
+             */
+            private int batchSize = 500;
+            /**
+             * max milliseconds the rows wait in batch before written
+             */
+            private long flushInterval = 1000;
 
             public boolean isEnabled() {
                 return enabled;
@@ -437,6 +553,22 @@ public class WarehouseProperties {
             public void setTableStrColumnDefineMaxLength(int tableStrColumnDefineMaxLength) {
                 this.tableStrColumnDefineMaxLength = tableStrColumnDefineMaxLength;
             }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getFlushInterval() {
+                return flushInterval;
+            }
+
+            public void setFlushInterval(long flushInterval) {
+                this.flushInterval = flushInterval;
+            }
         }
 
         public static class RedisProperties {
@@ -47,6 +47,21 @@ public abstract class AbstractHistoryDataStorage implements DisposableBean {
      */
     abstract void saveData(CollectRep.MetricsData metricsData);
 
+    /**
+     * 批量持久化数据, 默认逐条持久化, 支持批量写入的存储可覆盖此方法
+     * save metrics data in batch, save one by one by default
+     * @param metricsDataList 采集数据
+     */
+    void saveBatch(List<CollectRep.MetricsData> metricsDataList) {
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            try {
+                saveData(metricsData);
+            } catch (Exception e) {
+                log.error("save metrics data {} error: {}", metricsData.getId(), e.getMessage(), e);
+            }
+        }
+    }
+
     /**
      * 从时序数据库获取指标历史数据
      *
@@ -20,7 +20,9 @@ package org.dromara.hertzbeat.warehouse.store;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.common.queue.CommonDataQueue;
 import org.dromara.hertzbeat.warehouse.WarehouseWorkerPool;
+import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -28,29 +30,38 @@ import java.util.stream.Collectors;
 
 /**
  * dispatch storage metrics data
+ * history metrics data are dispatched to the queue of each history storage, saved by its own workers in batches
  *
  * @author tom
  *
  */
 @Slf4j
 @Component
-public class DataStorageDispatch {
+public class DataStorageDispatch implements DisposableBean {
 
     private final CommonDataQueue commonDataQueue;
     private final WarehouseWorkerPool workerPool;
     private final List<AbstractHistoryDataStorage> historyDataStorages;
     private final List<AbstractRealTimeDataStorage> realTimeDataStorages;
+    private final WarehouseProperties.StoreProperties.DispatchProperties dispatchProperties;
+    private List<HistoryDataStorageWorker> historyDataStorageWorkers;
+    private volatile boolean running = true;
+    private volatile Thread persistentDispatchThread;
 
     public DataStorageDispatch(CommonDataQueue commonDataQueue,
                                WarehouseWorkerPool workerPool,
                                List<AbstractHistoryDataStorage> historyDataStorages,
-                               List<AbstractRealTimeDataStorage> realTimeDataStorages) {
+                               List<AbstractRealTimeDataStorage> realTimeDataStorages,
+                               WarehouseProperties properties) {
         this.commonDataQueue = commonDataQueue;
         this.workerPool = workerPool;
         this.historyDataStorages = historyDataStorages.stream()
                 .filter(AbstractHistoryDataStorage::isServerAvailable).collect(Collectors.toList());
         this.realTimeDataStorages = realTimeDataStorages.stream()
                 .filter(AbstractRealTimeDataStorage::isServerAvailable).collect(Collectors.toList());
+        this.dispatchProperties = properties != null && properties.getStore() != null
+                && properties.getStore().getDispatch() != null
+                ? properties.getStore().getDispatch() : new WarehouseProperties.StoreProperties.DispatchProperties();
         startStoragePersistentData();
         startStorageRealTimeData();
     }
@@ -78,26 +89,45 @@ public class DataStorageDispatch {
     }
 
     protected void startStoragePersistentData() {
+        if (historyDataStorages != null && historyDataStorages.size() > 1) {
+            historyDataStorages.removeIf(item -> item instanceof HistoryJpaDatabaseDataStorage);
+        }
+        historyDataStorageWorkers = historyDataStorages.stream()
+                .map(historyDataStorage -> new HistoryDataStorageWorker(historyDataStorage, dispatchProperties))
+                .collect(Collectors.toList());
         Runnable runnable = () -> {
             Thread.currentThread().setName("warehouse-persistent-data-storage");
-            if (historyDataStorages != null && historyDataStorages.size() > 1) {
-                historyDataStorages.removeIf(item -> item instanceof HistoryJpaDatabaseDataStorage);
-            }
-            while (!Thread.currentThread().isInterrupted()) {
+            persistentDispatchThread = Thread.currentThread();
+            while (running && !Thread.currentThread().isInterrupted()) {
                 try {
                     CollectRep.MetricsData metricsData = commonDataQueue.pollMetricsDataToPersistentStorage();
-                    if (metricsData != null && historyDataStorages != null) {
-                        for (AbstractHistoryDataStorage historyDataStorage : historyDataStorages) {
-                            historyDataStorage.saveData(metricsData);
+                    if (metricsData != null) {
+                        for (HistoryDataStorageWorker historyDataStorageWorker : historyDataStorageWorkers) {
+                            historyDataStorageWorker.offer(metricsData);
                         }
                     }
+                } catch (InterruptedException e) {
+                    // interrupted by destroy, exit the dispatch loop
+                    break;
                 } catch (Exception e) {
                     log.error(e.getMessage());
                 }
             }
+            persistentDispatchThread = null;
         };
         workerPool.executeJob(runnable);
     }
 
-
+    @Override
+    public void destroy() {
+        // stop the dispatcher first, it may be parked offering to a full worker queue with the BLOCK overflow policy
+        running = false;
+        Thread dispatchThread = persistentDispatchThread;
+        if (dispatchThread != null) {
+            dispatchThread.interrupt();
+        }
+        if (historyDataStorageWorkers != null) {
+            historyDataStorageWorkers.forEach(HistoryDataStorageWorker::shutdown);
+        }
+    }
 }
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * history data store in time bucket tables by jdbc
+ * history rows are written in prepared statement batches to the table of their time bucket: hzb_history_yyyyMMddHHmm(utc).
+ * each table has a covering index of the history query, expired history is removed by dropping the whole table.
+ * a table holds the rows from its bucket start to the next table bucket start.
+ * for mysql, add rewriteBatchedStatements=true to the jdbc url to send a batch in one statement.
+ * the legacy hzb_history table of the upgraded installs is still queried, and dropped when all its rows are expired.
+ */
+@Slf4j
+final class HistoryBucketTableStore {
+
+    static final String TABLE_PREFIX = "hzb_history_";
+
+    static final String LEGACY_TABLE = "hzb_history";
+
+    /**
+     * column order of the insert row
+     */
+    static final int COLUMN_TIME = 4;
+
+    private static final DateTimeFormatter BUCKET_FORMATTER =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmm").withZone(ZoneOffset.UTC);
+
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE IF NOT EXISTS %s (monitor_id BIGINT NOT NULL, "
+            + "app VARCHAR(100) NOT NULL, metrics VARCHAR(100) NOT NULL, metric VARCHAR(100) NOT NULL, "
+            + "time BIGINT NOT NULL, instance VARCHAR(255), dou DOUBLE)";
+
+    private static final String CREATE_INDEX_SQL =
+            "CREATE INDEX %s_query_index ON %s (monitor_id, app, metrics, metric, time, instance, dou)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO %s (monitor_id, app, metrics, metric, time, instance, dou) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String QUERY_SQL = "SELECT instance, dou, time FROM %s "
+            + "WHERE monitor_id = ? AND app = ? AND metrics = ? AND metric = ? AND time >= ?";
+
+    private static final String QUERY_INSTANCE_CONDITION = " AND instance = ?";
+
+    private static final String QUERY_ORDER = " ORDER BY time DESC";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM %s";
+
+    private static final String MAX_TIME_SQL = "SELECT MAX(time) FROM %s";
+
+    private static final String DROP_TABLE_SQL = "DROP TABLE IF EXISTS %s";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final long bucketMillis;
+
+    /**
+     * key: bucket start time, value: bucket table
+     */
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * the legacy history table, null when not existed or dropped
+     */
+    private volatile Bucket legacyBucket;
+
+    /**
+     * max row time of the legacy history table
+     */
+    private volatile long legacyMaxTime;
+
+    HistoryBucketTableStore(JdbcTemplate jdbcTemplate, long bucketMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketMillis = Math.max(1, bucketMillis);
+        loadBuckets();
+    }
+
+    /**
+     * insert history rows into their bucket tables
+     *
+     * @param rows history rows, columns: monitor_id, app, metrics, metric, time, instance, dou
+     */
+    void insert(List<Object[]> rows) {
+        Map<Long, List<Object[]>> bucketRows = new HashMap<>(4);
+        for (Object[] row : rows) {
+            long time = (Long) row[COLUMN_TIME];
+            bucketRows.computeIfAbsent(time - Math.floorMod(time, bucketMillis), key -> new ArrayList<>(rows.size())).add(row);
+        }
+        for (Map.Entry<Long, List<Object[]>> entry : bucketRows.entrySet()) {
+            Bucket bucket = getOrCreateBucket(entry.getKey());
+            String insertSql = String.format(INSERT_SQL, bucket.table);
+            List<Object[]> batchRows = entry.getValue();
+            jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> executeBatch(connection, insertSql, batchRows));
+            bucket.rows.addAndGet(batchRows.size());
+        }
+    }
+
+    /**
+     * query history rows by time desc from the bucket tables overlapping the time range
+     *
+     * @param monitorId monitor id
+     * @param app       monitor type
+     * @param metrics   metrics
+     * @param metric    metric
+     * @param instance  instance, null means all instances
+     * @param since     min time
+     * @param handler   handle row: instance, dou, time
+     */
+    void query(long monitorId, String app, String metrics, String metric, String instance,
+               long since, RowCallbackHandler handler) {
+        Long nextStart = null;
+        for (Map.Entry<Long, Bucket> entry : buckets.descendingMap().entrySet()) {
+            if (nextStart != null && nextStart <= since) {
+                break;
+            }
+            nextStart = entry.getKey();
+            queryTable(entry.getValue().table, instance, handler, monitorId, app, metrics, metric, since);
+        }
+        Bucket legacy = legacyBucket;
+        if (legacy != null && legacyMaxTime >= since) {
+            queryTable(legacy.table, instance, handler, monitorId, app, metrics, metric, since);
+        }
+    }
+
+    private void queryTable(String table, String instance, RowCallbackHandler handler,
+                            long monitorId, String app, String metrics, String metric, long since) {
+        String querySql = String.format(QUERY_SQL, table) + (instance == null ? "" : QUERY_INSTANCE_CONDITION) + QUERY_ORDER;
+        Object[] args = instance == null ? new Object[]{monitorId, app, metrics, metric, since}
+                : new Object[]{monitorId, app, metrics, metric, since, instance};
+        try {
+            jdbcTemplate.query(querySql, handler, args);
+        } catch (DataAccessException e) {
+            // the table may be dropped by the cleaner
+            log.warn("[warehouse jpa] query {} error: {}", table, e.getMessage());
+        }
+    }
+
+    /**
+     * drop the bucket tables whose rows are all before expire time
+     *
+     * @param expireTime expire time
+     * @return dropped tables
+     */
+    int dropExpired(long expireTime) {
+        int dropped = 0;
+        if (legacyBucket != null && legacyMaxTime < expireTime) {
+            dropLegacy();
+            dropped++;
+        }
+        Map.Entry<Long, Bucket> first = buckets.firstEntry();
+        while (first != null) {
+            Long nextStart = buckets.higherKey(first.getKey());
+            if (nextStart == null || nextStart > expireTime) {
+                break;
+            }
+            dropBucket(first.getKey(), first.getValue());
+            dropped++;
+            first = buckets.firstEntry();
+        }
+        return dropped;
+    }
+
+    /**
+     * drop the oldest bucket tables until the rows are not over max rows, the latest table is kept
+     *
+     * @param maxRows max rows
+     * @return dropped tables
+     */
+    int dropOldest(long maxRows) {
+        int dropped = 0;
+        long total = rows();
+        Bucket legacy = legacyBucket;
+        if (total > maxRows && legacy != null) {
+            // the legacy table holds the oldest rows
+            total -= legacy.rows.get();
+            dropLegacy();
+            dropped++;
+        }
+        while (total > maxRows && buckets.size() > 1) {
+            Map.Entry<Long, Bucket> first = buckets.firstEntry();
+            total -= first.getValue().rows.get();
+            dropBucket(first.getKey(), first.getValue());
+            dropped++;
+        }
+        return dropped;
+    }
+
+    /**
+     * @return total rows of the bucket tables
+     */
+    long rows() {
+        Bucket legacy = legacyBucket;
+        return buckets.values().stream().mapToLong(bucket -> bucket.rows.get()).sum()
+                + (legacy == null ? 0 : legacy.rows.get());
+    }
+
+    private Bucket getOrCreateBucket(long start) {
+        Bucket bucket = buckets.get(start);
+        if (bucket != null) {
+            return bucket;
+        }
+        synchronized (buckets) {
+            bucket = buckets.get(start);
+            if (bucket != null) {
+                return bucket;
+            }
+            String table = TABLE_PREFIX + BUCKET_FORMATTER.format(Instant.ofEpochMilli(start));
+            log.info("[warehouse jpa] create history bucket table {}.", table);
+            jdbcTemplate.execute(String.format(CREATE_TABLE_SQL, table));
+            try {
+                jdbcTemplate.execute(String.format(CREATE_INDEX_SQL, table, table));
+            } catch (DataAccessException e) {
+                log.debug("[warehouse jpa] create index of {} error: {}", table, e.getMessage());
+            }
+            bucket = new Bucket(table, 0);
+            buckets.put(start, bucket);
+            return bucket;
+        }
+    }
+
+    private void dropBucket(long start, Bucket bucket) {
+        buckets.remove(start, bucket);
+        try {
+            jdbcTemplate.execute(String.format(DROP_TABLE_SQL, bucket.table));
+            log.info("[warehouse jpa] drop history bucket table {}.", bucket.table);
+        } catch (DataAccessException e) {
+            log.error("[warehouse jpa] drop history bucket table {} error: {}", bucket.table, e.getMessage());
+        }
+    }
+
+    private void dropLegacy() {
+        Bucket legacy = legacyBucket;
+        legacyBucket = null;
+        try {
+            jdbcTemplate.execute(String.format(DROP_TABLE_SQL, legacy.table));
+            log.info("[warehouse jpa] drop legacy history table {}.", legacy.table);
+        } catch (DataAccessException e) {
+            log.error("[warehouse jpa] drop legacy history table {} error: {}", legacy.table, e.getMessage());
+        }
+    }
+
+    private void loadBuckets() {
+        List<String> tables = jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            List<String> tableNames = new ArrayList<>();
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet resultSet = metaData.getTables(connection.getCatalog(), null, "%", null)) {
+                while (resultSet.next()) {
+                    tableNames.add(resultSet.getString("TABLE_NAME"));
+                }
+            }
+            return tableNames;
+        });
+        if (tables == null) {
+            return;
+        }
+        for (String table : tables) {
+            String lowerTable = table.toLowerCase(Locale.ROOT);
+            if (LEGACY_TABLE.equals(lowerTable)) {
+                loadLegacy(table);
+                continue;
+            }
+            if (!lowerTable.startsWith(TABLE_PREFIX)) {
+                continue;
+            }
+            long start;
+            try {
+                start = Instant.from(BUCKET_FORMATTER.parse(lowerTable.substring(TABLE_PREFIX.length()))).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                continue;
+            }
+            Long rows = jdbcTemplate.queryForObject(String.format(COUNT_SQL, table), Long.class);
+            buckets.put(start, new Bucket(table, rows == null ? 0 : rows));
+        }
+        log.info("[warehouse jpa] load {} history bucket tables.", buckets.size());
+    }
+
+    private void loadLegacy(String table) {
+        Long rows = jdbcTemplate.queryForObject(String.format(COUNT_SQL, table), Long.class);
+        Long maxTime = jdbcTemplate.queryForObject(String.format(MAX_TIME_SQL, table), Long.class);
+        legacyMaxTime = maxTime == null ? 0 : maxTime;
+        legacyBucket = new Bucket(table, rows == null ? 0 : rows);
+        log.info("[warehouse jpa] load legacy history table {} of {} rows, it is dropped after expired.", table, rows);
+    }
+
+    private static int[] executeBatch(Connection connection, String insertSql, List<Object[]> rows) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = connection.prepareStatement(insertSql)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            int[] result = statement.executeBatch();
+            connection.commit();
+            return result;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final String table;
+
+        private final AtomicLong rows;
+
+        private Bucket(String table, long rows) {
+            this.table = table;
+            this.rows = new AtomicLong(rows);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * history data storage worker
+ * each history storage has its own bounded queue and workers, a slow storage does not slow down the others.
+ * workers drain the queue into batches and save them by {@link AbstractHistoryDataStorage#saveBatch(List)}.
+ */
+@Slf4j
+final class HistoryDataStorageWorker {
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+    private final AbstractHistoryDataStorage historyDataStorage;
+
+    private final String name;
+
+    private final int batchSize;
+
+    private final WarehouseProperties.StoreProperties.OverflowPolicy overflowPolicy;
+
+    private final BlockingQueue<CollectRep.MetricsData> queue;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Counter droppedCounter;
+
+    private final Timer lagTimer;
+
+    private volatile boolean running = true;
+
+    HistoryDataStorageWorker(AbstractHistoryDataStorage historyDataStorage,
+                             WarehouseProperties.StoreProperties.DispatchProperties dispatchProperties) {
+        this.historyDataStorage = historyDataStorage;
+        this.name = historyDataStorage.getClass().getSimpleName();
+        this.batchSize = Math.max(1, dispatchProperties.getBatchSize());
+        this.overflowPolicy = dispatchProperties.getOverflowPolicy();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, dispatchProperties.getQueueCapacity()));
+        int threads = Math.max(1, dispatchProperties.getThreads());
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setUncaughtExceptionHandler((thread, throwable) -> {
+                            log.error("{} worker has uncaughtException.", name);
+                            log.error(throwable.getMessage(), throwable);
+                        })
+                        .setDaemon(true)
+                        .setNameFormat("warehouse-history-" + name + "-%d")
+                        .build());
+        Tags tags = Tags.of("storage", name);
+        this.droppedCounter = Metrics.counter("hertzbeat.warehouse.storage.dropped", tags);
+        this.lagTimer = Timer.builder("hertzbeat.warehouse.storage.lag").tags(tags).register(Metrics.globalRegistry);
+        Metrics.gauge("hertzbeat.warehouse.storage.pending", tags, queue, BlockingQueue::size);
+        for (int i = 0; i < threads; i++) {
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * queue the metrics data to the storage, apply the overflow policy when the queue is full
+     *
+     * @param metricsData metrics data
+     * @throws InterruptedException when blocking and interrupted
+     */
+    void offer(CollectRep.MetricsData metricsData) throws InterruptedException {
+        if (queue.offer(metricsData)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case DROP_NEWEST:
+                droppedCounter.increment();
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(metricsData)) {
+                    if (queue.poll() != null) {
+                        droppedCounter.increment();
+                    }
+                }
+                break;
+            case BLOCK:
+            default:
+                queue.put(metricsData);
+                break;
+        }
+    }
+
+    /**
+     * @return pending metrics data count
+     */
+    int pending() {
+        return queue.size();
+    }
+
+    /**
+     * stop the workers, pending metrics data are saved before exit
+     */
+    void shutdown() {
+        running = false;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                log.warn("{} worker is not terminated, {} metrics data not saved.", name, queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<CollectRep.MetricsData> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                CollectRep.MetricsData first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                lagTimer.record(Math.max(0, System.currentTimeMillis() - first.getTime()), TimeUnit.MILLISECONDS);
+                historyDataStorage.saveBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("{} save {} metrics data error: {}", name, batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -3,14 +3,11 @@ package org.dromara.hertzbeat.warehouse.store;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.OkHttpClient;
 import org.apache.http.ssl.SSLContexts;
-import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.entity.dto.Value;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
 import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
 import org.influxdb.InfluxDB;
 import org.influxdb.InfluxDBFactory;
-import org.influxdb.dto.BatchPoints;
-import org.influxdb.dto.Point;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -53,6 +50,8 @@ public class HistoryInfluxdbDataStorage extends AbstractHistoryDataStorage {
     
     private InfluxDB influxDb;
 
+    private InfluxdbLineProtocolWriter lineProtocolWriter;
+
     public HistoryInfluxdbDataStorage(WarehouseProperties properties) {
         this.initInfluxDb(properties);
     }
@@ -73,6 +72,11 @@ public class HistoryInfluxdbDataStorage extends AbstractHistoryDataStorage {
         Runtime.getRuntime().addShutdownHook(new Thread(influxDb::close));
 
         this.serverAvailable = this.createDatabase(influxdbProperties);
+        if (this.serverAvailable) {
+            this.lineProtocolWriter = new InfluxdbLineProtocolWriter(client.build(), influxdbProperties.getServerUrl(),
+                    DATABASE, influxdbProperties.getUsername(), influxdbProperties.getPassword(),
+                    influxdbProperties.getBatchSize(), influxdbProperties.getFlushInterval());
+        }
     }
 
     private boolean createDatabase(WarehouseProperties.StoreProperties.InfluxdbProperties influxdbProperties) {
@@ -122,32 +126,7 @@ public class HistoryInfluxdbDataStorage extends AbstractHistoryDataStorage {
             log.info("[warehouse influxdb] flush metrics data {} is null, ignore.", metricsData.getId());
             return;
         }
-        List<CollectRep.Field> fieldsList = metricsData.getFieldsList();
-
-        String table = this.generateTable(metricsData.getApp(), metricsData.getMetrics(), metricsData.getId());
-
-        List<Point> points = new ArrayList<>();
-        for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
-            Point.Builder builder = Point.measurement(table);
-            builder.time(metricsData.getTime(), TimeUnit.MILLISECONDS);
-            String instance = valueRow.getInstance();
-            builder.tag("instance", instance);
-            for (int i = 0; i < fieldsList.size(); i++) {
-                if (!CommonConstants.NULL_VALUE.equals(valueRow.getColumns(i))) {
-                    if (fieldsList.get(i).getType() == CommonConstants.TYPE_NUMBER) {
-                        builder.addField(fieldsList.get(i).getName(), Double.parseDouble(valueRow.getColumns(i)));
-                    } else if (fieldsList.get(i).getType() == CommonConstants.TYPE_STRING) {
-                        builder.addField(fieldsList.get(i).getName(), valueRow.getColumns(i));
-                    }
-                } else {
-                    builder.addField(fieldsList.get(i).getName(), "");
-                }
-            }
-            points.add(builder.build());
-        }
-        BatchPoints.Builder builder = BatchPoints.database(DATABASE);
-        builder.points(points);
-        this.influxDb.write(builder.build());
+        lineProtocolWriter.write(metricsData);
     }
 
     @Override
@@ -309,6 +288,9 @@ public class HistoryInfluxdbDataStorage extends AbstractHistoryDataStorage {
 
     @Override
     public void destroy() throws Exception {
+        if (this.lineProtocolWriter != null) {
+            this.lineProtocolWriter.close();
+        }
         if (this.influxDb != null) {
             this.influxDb.close();
         }
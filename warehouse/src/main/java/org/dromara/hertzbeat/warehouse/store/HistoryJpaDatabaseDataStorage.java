@@ -20,32 +20,28 @@ package org.dromara.hertzbeat.warehouse.store;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.dromara.hertzbeat.common.entity.dto.Value;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
-import org.dromara.hertzbeat.common.entity.warehouse.History;
 import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.common.util.TimePeriodUtil;
 import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
-import org.dromara.hertzbeat.warehouse.dao.HistoryDao;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import javax.persistence.criteria.Predicate;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.time.temporal.TemporalAmount;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
- * data storage by mysql/h2 - jpa
+ * data storage by mysql/h2 - jdbc
+ * history is stored in time bucket tables, expired history is cleaned by dropping the bucket tables
  *
  * @author tom
  *
@@ -55,20 +51,25 @@ import java.util.concurrent.TimeUnit;
 		name = "enabled", havingValue = "true")
 @Slf4j
 public class HistoryJpaDatabaseDataStorage extends AbstractHistoryDataStorage {
-	private final HistoryDao historyDao;
 	private final WarehouseProperties.StoreProperties.JpaProperties jpaProperties;
+	private final HistoryBucketTableStore bucketTableStore;
+	private final ScheduledThreadPoolExecutor cleanerExecutor;
 
-	private static final int STRING_MAX_LENGTH = 1024;
+	private static final int STRING_MAX_LENGTH = 255;
+	private static final int BUCKETS_PER_EXPIRE_TIME = 4;
+	private static final long MIN_BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	private static final long DEFAULT_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(1);
 
 	public HistoryJpaDatabaseDataStorage(WarehouseProperties properties,
-	                                     HistoryDao historyDao) {
+	                                     JdbcTemplate jdbcTemplate) {
 		this.jpaProperties = properties.getStore().getJpa();
+		long bucketMillis = Math.max(MIN_BUCKET_MILLIS, parseExpireMillis() / BUCKETS_PER_EXPIRE_TIME);
+		this.bucketTableStore = new HistoryBucketTableStore(jdbcTemplate, bucketMillis);
 		this.serverAvailable = true;
-		this.historyDao = historyDao;
-        expiredDataCleaner();
+		this.cleanerExecutor = expiredDataCleaner();
 	}
-    
-	public void expiredDataCleaner() {
+
+	private ScheduledThreadPoolExecutor expiredDataCleaner() {
         ThreadFactory threadFactory = new ThreadFactoryBuilder()
                                               .setUncaughtExceptionHandler((thread, throwable) -> {
                                                   log.error("Jpa metrics store has uncaughtException.");
@@ -76,97 +77,95 @@ public class HistoryJpaDatabaseDataStorage extends AbstractHistoryDataStorage {
                                               .setDaemon(true)
                                               .setNameFormat("jpa-metrics-cleaner-%d")
                                               .build();
-        ScheduledExecutorService scheduledExecutor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        ScheduledThreadPoolExecutor scheduledExecutor = new ScheduledThreadPoolExecutor(1, threadFactory);
         scheduledExecutor.scheduleAtFixedRate(() -> {
-            log.warn("[jpa-metrics-store]-start running expired data cleaner." +
-                             "Please use time series db instead of jpa for better performance");
-            String expireTimeStr = jpaProperties.getExpireTime();
-            long expireTime = 0;
+            long expireTime = System.currentTimeMillis() - parseExpireMillis();
             try {
-                if (NumberUtils.isParsable(expireTimeStr)) {
-                    expireTime = NumberUtils.toLong(expireTimeStr);
-                    expireTime = (ZonedDateTime.now().toEpochSecond() + expireTime) * 1000;
-                } else {
-                    TemporalAmount temporalAmount = TimePeriodUtil.parseTokenTime(expireTimeStr);
-                    ZonedDateTime dateTime = ZonedDateTime.now().minus(temporalAmount);
-                    expireTime = dateTime.toEpochSecond() * 1000;
+                int tables = bucketTableStore.dropExpired(expireTime);
+                if (tables > 0) {
+                    log.info("[jpa-metrics-store]-drop {} expired history tables.", tables);
                 }
-            } catch (Exception e) {
-                log.error("expiredDataCleaner time error: {}. use default expire time to clean: 1h", e.getMessage());
-                ZonedDateTime dateTime = ZonedDateTime.now().minus(Duration.ofHours(1));
-                expireTime = dateTime.toEpochSecond() * 1000;
-            }
-            try {
-                int rows = historyDao.deleteHistoriesByTimeBefore(expireTime);
-                log.info("[jpa-metrics-store]-delete {} rows.", rows);
-                long total = historyDao.count();
-                if (total > jpaProperties.getMaxHistoryRecordNum()) {
-                    rows = historyDao.deleteOlderHistoriesRecord(jpaProperties.getMaxHistoryRecordNum() / 2);
-                    log.warn("[jpa-metrics-store]-force delete {} rows due too many. Please use time series db instead of jpa for better performance.", rows);
+                tables = bucketTableStore.dropOldest(jpaProperties.getMaxHistoryRecordNum());
+                if (tables > 0) {
+                    log.warn("[jpa-metrics-store]-force drop {} oldest history tables due too many rows. " +
+                                     "Please use time series db instead of jpa for better performance.", tables);
                 }
             } catch (Exception e) {
                 log.error("expiredDataCleaner database error: {}.", e.getMessage());
-                log.error("try to truncate table hzb_history. Please use time series db instead of jpa for better performance.");
-                historyDao.truncateTable();
             }
         }, 5, 30, TimeUnit.SECONDS);
+        return scheduledExecutor;
+	}
+
+	private long parseExpireMillis() {
+		String expireTimeStr = jpaProperties.getExpireTime();
+		try {
+			if (NumberUtils.isParsable(expireTimeStr)) {
+				return NumberUtils.toLong(expireTimeStr);
+			}
+			TemporalAmount temporalAmount = TimePeriodUtil.parseTokenTime(expireTimeStr);
+			ZonedDateTime now = ZonedDateTime.now();
+			return Duration.between(now.minus(temporalAmount), now).toMillis();
+		} catch (Exception e) {
+			log.error("expiredDataCleaner time error: {}. use default expire time to clean: 1h", e.getMessage());
+			return DEFAULT_EXPIRE_MILLIS;
+		}
 	}
 
 	@Override
 	void saveData(CollectRep.MetricsData metricsData) {
-		if (metricsData.getCode() != CollectRep.Code.SUCCESS) {
-			return;
+		saveBatch(Collections.singletonList(metricsData));
+	}
+
+	@Override
+	void saveBatch(List<CollectRep.MetricsData> metricsDataList) {
+		List<Object[]> rows = new ArrayList<>();
+		for (CollectRep.MetricsData metricsData : metricsDataList) {
+			if (metricsData.getCode() != CollectRep.Code.SUCCESS) {
+				continue;
+			}
+			if (metricsData.getValuesList().isEmpty()) {
+				log.info("[warehouse jpa] flush metrics data {} is null, ignore.", metricsData.getId());
+				continue;
+			}
+			appendRows(metricsData, rows);
 		}
-		if (metricsData.getValuesList().isEmpty()) {
-			log.info("[warehouse jpa] flush metrics data {} is null, ignore.", metricsData.getId());
+		if (rows.isEmpty()) {
 			return;
 		}
+		try {
+			bucketTableStore.insert(rows);
+		} catch (Exception e) {
+			log.error(e.getMessage(), e);
+		}
+	}
+
+	private void appendRows(CollectRep.MetricsData metricsData, List<Object[]> rows) {
+		Long monitorId = metricsData.getId();
 		String monitorType = metricsData.getApp();
 		String metrics = metricsData.getMetrics();
+		Long time = metricsData.getTime();
 		List<CollectRep.Field> fieldsList = metricsData.getFieldsList();
-		try {
-			List<History> historyList = new LinkedList<>();
-			History.HistoryBuilder historyBuilder = History.builder()
-					.monitorId(metricsData.getId())
-					.app(monitorType)
-					.metrics(metrics)
-					.time(metricsData.getTime());
-			for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
-				String instance = valueRow.getInstance();
-				if (!instance.isEmpty()) {
-					instance = formatStrValue(instance);
-					historyBuilder.instance(instance);
-				} else {
-					historyBuilder.instance(null);
+		for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
+			String instance = valueRow.getInstance();
+			instance = instance.isEmpty() ? null : formatStrValue(instance);
+			for (int i = 0; i < fieldsList.size(); i++) {
+				CollectRep.Field field = fieldsList.get(i);
+				// ignore string value store in db
+				if (field.getType() != CommonConstants.TYPE_NUMBER) {
+					continue;
 				}
-				for (int i = 0; i < fieldsList.size(); i++) {
-					CollectRep.Field field = fieldsList.get(i);
-					// ignore string value store in db
-					if (field.getType() == CommonConstants.TYPE_STRING) {
-						continue;
+				String value = valueRow.getColumns(i);
+				Double dou = null;
+				if (!CommonConstants.NULL_VALUE.equals(value)) {
+					try {
+						dou = Double.parseDouble(value);
+					} catch (NumberFormatException e) {
+						log.warn(e.getMessage());
 					}
-					historyBuilder.metric(field.getName());
-					if (!CommonConstants.NULL_VALUE.equals(valueRow.getColumns(i))) {
-						if (field.getType() == CommonConstants.TYPE_NUMBER) {
-							historyBuilder.metricType(CommonConstants.TYPE_NUMBER)
-									.dou(Double.parseDouble(valueRow.getColumns(i)));
-						} else if (field.getType() == CommonConstants.TYPE_STRING) {
-							historyBuilder.metricType(CommonConstants.TYPE_STRING)
-									.str(formatStrValue(valueRow.getColumns(i)));
-						}
-					} else {
-						if (field.getType() == CommonConstants.TYPE_NUMBER) {
-							historyBuilder.metricType(CommonConstants.TYPE_NUMBER).dou(null);
-						} else if (field.getType() == CommonConstants.TYPE_STRING) {
-							historyBuilder.metricType(CommonConstants.TYPE_STRING).str(null);
-						}
-					}
-					historyList.add(historyBuilder.build());
 				}
+				rows.add(new Object[]{monitorId, monitorType, metrics, field.getName(), time, instance, dou});
 			}
-			historyDao.saveAll(historyList);
-		} catch (Exception e) {
-			log.error(e.getMessage(), e);
 		}
 	}
 
@@ -184,51 +183,26 @@ public class HistoryJpaDatabaseDataStorage extends AbstractHistoryDataStorage {
 	@Override
 	public Map<String, List<Value>> getHistoryMetricData(Long monitorId, String app, String metrics, String metric, String instance, String history) {
 		Map<String, List<Value>> instanceValuesMap = new HashMap<>(8);
-		Specification<History> specification = (root, query, criteriaBuilder) -> {
-			List<Predicate> andList = new ArrayList<>();
-			Predicate predicateMonitorId = criteriaBuilder.equal(root.get("monitorId"), monitorId);
-			Predicate predicateMonitorType = criteriaBuilder.equal(root.get("app"), app);
-			Predicate predicateMonitorMetrics = criteriaBuilder.equal(root.get("metrics"), metrics);
-			Predicate predicateMonitorMetric = criteriaBuilder.equal(root.get("metric"), metric);
-			andList.add(predicateMonitorId);
-			andList.add(predicateMonitorType);
-			andList.add(predicateMonitorMetrics);
-			andList.add(predicateMonitorMetric);
-			if (instance != null && !"".equals(instance)) {
-				Predicate predicateMonitorInstance = criteriaBuilder.equal(root.get("instance"), instance);
-				andList.add(predicateMonitorInstance);
-			}
-			if (history != null) {
-				try {
-					TemporalAmount temporalAmount = TimePeriodUtil.parseTokenTime(history);
-					ZonedDateTime dateTime = ZonedDateTime.now().minus(temporalAmount);
-					long timeBefore = dateTime.toEpochSecond() * 1000;
-					Predicate timePredicate = criteriaBuilder.ge(root.get("time"), timeBefore);
-					andList.add(timePredicate);
-				} catch (Exception e) {
-					log.error(e.getMessage());
-				}
-			}
-			Predicate[] predicates = new Predicate[andList.size()];
-			Predicate predicate = criteriaBuilder.and(andList.toArray(predicates));
-			return query.where(predicate).getRestriction();
-		};
-		Sort sortExp = Sort.by(new Sort.Order(Sort.Direction.DESC, "time"));
-		List<History> historyList = historyDao.findAll(specification, sortExp);
-		for (History dataItem : historyList) {
-			String value = "";
-			if (dataItem.getMetricType() == CommonConstants.TYPE_NUMBER) {
-				if (dataItem.getDou() != null) {
-					value = BigDecimal.valueOf(dataItem.getDou()).setScale(4, RoundingMode.HALF_UP)
-							.stripTrailingZeros().toPlainString();
-				}
-			} else {
-				value = dataItem.getStr();
+		long since = 0;
+		if (history != null) {
+			try {
+				TemporalAmount temporalAmount = TimePeriodUtil.parseTokenTime(history);
+				ZonedDateTime dateTime = ZonedDateTime.now().minus(temporalAmount);
+				since = dateTime.toEpochSecond() * 1000;
+			} catch (Exception e) {
+				log.error(e.getMessage());
 			}
-			String instanceValue = dataItem.getInstance() == null ? "" : dataItem.getInstance();
-			List<Value> valueList = instanceValuesMap.computeIfAbsent(instanceValue, k -> new LinkedList<>());
-			valueList.add(new Value(value, dataItem.getTime()));
 		}
+		String queryInstance = instance != null && !"".equals(instance) ? instance : null;
+		bucketTableStore.query(monitorId, app, metrics, metric, queryInstance, since, resultSet -> {
+			String instanceValue = resultSet.getString(1);
+			double dou = resultSet.getDouble(2);
+			String value = resultSet.wasNull() ? "" : BigDecimal.valueOf(dou).setScale(4, RoundingMode.HALF_UP)
+					.stripTrailingZeros().toPlainString();
+			List<Value> valueList = instanceValuesMap.computeIfAbsent(instanceValue == null ? "" : instanceValue,
+					k -> new LinkedList<>());
+			valueList.add(new Value(value, resultSet.getLong(3)));
+		});
 		return instanceValuesMap;
 	}
 
@@ -253,5 +227,6 @@ public class HistoryJpaDatabaseDataStorage extends AbstractHistoryDataStorage {
 
 	@Override
 	public void destroy() throws Exception {
+		cleanerExecutor.shutdown();
 	}
 }
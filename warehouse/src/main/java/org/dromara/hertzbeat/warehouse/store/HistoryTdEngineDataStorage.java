@@ -19,7 +19,6 @@ package org.dromara.hertzbeat.warehouse.store;
 
 import org.dromara.hertzbeat.common.entity.dto.Value;
 import org.dromara.hertzbeat.common.entity.message.CollectRep;
-import org.dromara.hertzbeat.common.constants.CommonConstants;
 import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
@@ -36,7 +35,6 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * tdengine data storage
@@ -50,10 +48,6 @@ import java.util.regex.Pattern;
 @Slf4j
 public class HistoryTdEngineDataStorage extends AbstractHistoryDataStorage {
 
-    private static final Pattern SQL_SPECIAL_STRING_PATTERN = Pattern.compile("(\\\\)|(')");
-    private static final String INSERT_TABLE_DATA_SQL = "INSERT INTO %s USING %s TAGS (%s) VALUES %s";
-    private static final String CREATE_SUPER_TABLE_SQL = "CREATE STABLE IF NOT EXISTS `%s` %s TAGS (monitor BIGINT)";
-    private static final String NO_SUPER_TABLE_ERROR = "Table does not exist";
     private static final String QUERY_HISTORY_WITH_INSTANCE_SQL
             = "SELECT ts, instance, `%s` FROM %s WHERE instance = '%s' AND ts >= now - %s order by ts desc";
     private static final String QUERY_HISTORY_SQL
@@ -67,15 +61,19 @@ public class HistoryTdEngineDataStorage extends AbstractHistoryDataStorage {
             = "Table does not exist";
 
     private HikariDataSource hikariDataSource;
-    private final int tableStrColumnDefineMaxLength;
+    private TdEngineBatchWriter batchWriter;
 
     public HistoryTdEngineDataStorage(WarehouseProperties properties) {
         if (properties == null || properties.getStore() == null || properties.getStore().getTdEngine() == null) {
             log.error("init error, please config Warehouse TdEngine props in application.yml");
             throw new IllegalArgumentException("please config Warehouse TdEngine props");
         }
-        tableStrColumnDefineMaxLength = properties.getStore().getTdEngine().getTableStrColumnDefineMaxLength();
-        serverAvailable = initTdEngineDatasource(properties.getStore().getTdEngine());
+        WarehouseProperties.StoreProperties.TdEngineProperties tdEngineProperties = properties.getStore().getTdEngine();
+        serverAvailable = initTdEngineDatasource(tdEngineProperties);
+        if (serverAvailable) {
+            batchWriter = new TdEngineBatchWriter(hikariDataSource, tdEngineProperties.getTableStrColumnDefineMaxLength(),
+                    tdEngineProperties.getBatchSize(), tdEngineProperties.getFlushInterval());
+        }
     }
 
     private boolean initTdEngineDatasource(WarehouseProperties.StoreProperties.TdEngineProperties tdEngineProperties) {
@@ -118,110 +116,14 @@ public class HistoryTdEngineDataStorage extends AbstractHistoryDataStorage {
             log.info("[warehouse tdengine] flush metrics data {} is null, ignore.", metricsData.getId());
             return;
         }
-        String monitorId = String.valueOf(metricsData.getId());
-        String superTable = metricsData.getApp() + "_" + metricsData.getMetrics() + "_super";
-        String table = metricsData.getApp() + "_" + metricsData.getMetrics() + "_" + monitorId;
-        List<CollectRep.Field> fields = metricsData.getFieldsList();
-        StringBuilder sqlBuffer = new StringBuilder();
-        int i = 0;
-        for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
-            StringBuilder sqlRowBuffer = new StringBuilder("(");
-            sqlRowBuffer.append(metricsData.getTime() + i++).append(", ");
-            String instance = formatStringValue(valueRow.getInstance());
-            sqlRowBuffer.append("'").append(instance).append("', ");
-            for (int index = 0; index < fields.size(); index++) {
-                CollectRep.Field field = fields.get(index);
-                String value = valueRow.getColumns(index);
-                if (field.getType() == CommonConstants.TYPE_NUMBER) {
-                    // number data
-                    if (CommonConstants.NULL_VALUE.equals(value)) {
-                        sqlRowBuffer.append("NULL");
-                    } else {
-                        try {
-                            double number = Double.parseDouble(value);
-                            sqlRowBuffer.append(number);
-                        } catch (Exception e) {
-                            log.warn(e.getMessage());
-                            sqlRowBuffer.append("NULL");
-                        }
-                    }
-                } else {
-                    // string
-                    if (CommonConstants.NULL_VALUE.equals(value)) {
-                        sqlRowBuffer.append("NULL");
-                    } else {
-                        sqlRowBuffer.append("'").append(formatStringValue(value)).append("'");
-                    }
-                }
-                if (index != fields.size() - 1) {
-                    sqlRowBuffer.append(", ");
-                }
-            }
-            sqlRowBuffer.append(")");
-            sqlBuffer.append(" ").append(sqlRowBuffer);
-        }
-        String insertDataSql = String.format(INSERT_TABLE_DATA_SQL, table, superTable, monitorId, sqlBuffer);
-        log.debug(insertDataSql);
-        Connection connection = null;
-        Statement statement = null;
-        try {
-            connection = hikariDataSource.getConnection();
-            statement = connection.createStatement();
-            statement.execute(insertDataSql);
-            connection.close();
-        } catch (Exception e) {
-            if (e.getMessage().contains(NO_SUPER_TABLE_ERROR)) {
-                // stable not exists, create it
-                StringBuilder fieldSqlBuilder = new StringBuilder("(");
-                fieldSqlBuilder.append("ts TIMESTAMP, ");
-                fieldSqlBuilder.append("instance NCHAR(").append(tableStrColumnDefineMaxLength).append("), ");
-                for (int index = 0; index < fields.size(); index++) {
-                    CollectRep.Field field = fields.get(index);
-                    String fieldName = field.getName();
-                    if (field.getType() == CommonConstants.TYPE_NUMBER) {
-                        fieldSqlBuilder.append("`").append(fieldName).append("` ").append("DOUBLE");
-                    } else {
-                        fieldSqlBuilder.append("`").append(fieldName).append("` ").append("NCHAR(")
-                                .append(tableStrColumnDefineMaxLength).append(")");
-                    }
-                    if (index != fields.size() - 1) {
-                        fieldSqlBuilder.append(", ");
-                    }
-                }
-                fieldSqlBuilder.append(")");
-                String createTableSql = String.format(CREATE_SUPER_TABLE_SQL, superTable, fieldSqlBuilder);
-                try {
-                    assert statement != null;
-                    log.info("[tdengine-data]: create {} use sql: {}.", superTable, createTableSql);
-                    statement.execute(createTableSql);
-                    statement.execute(insertDataSql);
-                } catch (Exception createTableException) {
-                    log.error(e.getMessage(), createTableException);
-                }
-            } else {
-                log.error(e.getMessage());
-            }
-        } finally {
-            try {
-                assert connection != null;
-                connection.close();
-            } catch (Exception e) {
-                log.error(e.getMessage());
-            }
-        }
-    }
-
-    private String formatStringValue(String value){
-        String formatValue = SQL_SPECIAL_STRING_PATTERN.matcher(value).replaceAll("\\\\$0");
-        // bugfix Argument list too long
-        if (formatValue != null && formatValue.length() > tableStrColumnDefineMaxLength) {
-            formatValue = formatValue.substring(0, tableStrColumnDefineMaxLength);
-        }
-        return formatValue;
+        batchWriter.write(metricsData);
     }
 
     @Override
     public void destroy() {
+        if (batchWriter != null) {
+            batchWriter.close();
+        }
         if (hikariDataSource != null) {
             hikariDataSource.close();
         }
@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Credentials;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+
+import javax.net.SocketFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * influxdb line protocol writer
+ * points of many metrics data are serialized to line protocol directly, gzip compressed and written by one sender thread.
+ * the buffer is flushed when it reaches batch size, or by the flush timer.
+ * failed writes are retried on the next flush, the pending bodies are bounded in bytes and the oldest are dropped first.
+ */
+@Slf4j
+final class InfluxdbLineProtocolWriter {
+
+    private static final int MAX_RETRY_TIMES = 3;
+    private static final long MAX_PENDING_BYTES = 32L * 1024 * 1024;
+    private static final int INIT_BUFFER_SIZE = 64 * 1024;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_SERVER_ERROR = 500;
+    private static final long FLUSH_TIMEOUT_SECONDS = 30;
+    private static final MediaType TEXT_PLAIN = MediaType.get("text/plain; charset=utf-8");
+
+    private final OkHttpClient client;
+    private final HttpUrl writeUrl;
+    private final String credentials;
+    private final int batchSize;
+    private final ScheduledThreadPoolExecutor sendExecutor;
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+
+    /**
+     * compressed bodies waiting to send, guarded by itself
+     */
+    private final Deque<PendingBody> pendingBodies = new ArrayDeque<>();
+    private long pendingBytes;
+
+    /**
+     * line protocol buffer, guarded by this
+     */
+    private StringBuilder lines = new StringBuilder(INIT_BUFFER_SIZE);
+    private int points;
+
+    InfluxdbLineProtocolWriter(OkHttpClient client, String serverUrl, String database,
+                               String username, String password, int batchSize, long flushInterval) {
+        // body is written after headers, disable nagle to not wait for the delayed ack
+        this.client = client.newBuilder().socketFactory(new TcpNoDelaySocketFactory()).build();
+        this.writeUrl = HttpUrl.get(serverUrl).newBuilder()
+                .addPathSegment("write")
+                .addQueryParameter("db", database)
+                .addQueryParameter("precision", "ms")
+                .build();
+        this.credentials = username == null ? null : Credentials.basic(username, password == null ? "" : password);
+        this.batchSize = Math.max(1, batchSize);
+        this.writtenCounter = Metrics.counter("hertzbeat.warehouse.influxdb.points", "result", "success");
+        this.droppedCounter = Metrics.counter("hertzbeat.warehouse.influxdb.points", "result", "dropped");
+        Metrics.gauge("hertzbeat.warehouse.influxdb.pending.bytes", this, InfluxdbLineProtocolWriter::pendingBytes);
+        this.sendExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("influxdb line protocol writer has uncaughtException.");
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("warehouse-influxdb-sender-%d")
+                .build());
+        if (flushInterval > 0) {
+            this.sendExecutor.scheduleWithFixedDelay(this::flushAndSend, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * append the metrics data points into buffer, send the buffer when it is full
+     *
+     * @param metricsData metrics data
+     */
+    void write(CollectRep.MetricsData metricsData) {
+        if (metricsData.getValuesCount() == 0) {
+            return;
+        }
+        String body = null;
+        int bodyPoints = 0;
+        synchronized (this) {
+            appendLines(metricsData);
+            if (points >= batchSize) {
+                body = lines.toString();
+                bodyPoints = points;
+                lines = new StringBuilder(INIT_BUFFER_SIZE);
+                points = 0;
+            }
+        }
+        if (body != null) {
+            enqueue(body, bodyPoints);
+            sendExecutor.execute(this::send);
+        }
+    }
+
+    /**
+     * send all the buffered points and wait
+     */
+    void flush() {
+        try {
+            sendExecutor.submit(this::flushAndSend).get(FLUSH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("[warehouse influxdb] flush error: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * send the buffered points and stop the sender
+     */
+    void close() {
+        flush();
+        sendExecutor.shutdown();
+    }
+
+    long pendingBytes() {
+        synchronized (pendingBodies) {
+            return pendingBytes;
+        }
+    }
+
+    private void flushAndSend() {
+        String body = null;
+        int bodyPoints = 0;
+        synchronized (this) {
+            if (points > 0) {
+                body = lines.toString();
+                bodyPoints = points;
+                lines = new StringBuilder(INIT_BUFFER_SIZE);
+                points = 0;
+            }
+        }
+        if (body != null) {
+            enqueue(body, bodyPoints);
+        }
+        send();
+    }
+
+    private void enqueue(String body, int bodyPoints) {
+        byte[] content;
+        try {
+            content = gzip(body);
+        } catch (IOException e) {
+            log.error("[warehouse influxdb] gzip {} points error: {}", bodyPoints, e.getMessage());
+            droppedCounter.increment(bodyPoints);
+            return;
+        }
+        synchronized (pendingBodies) {
+            pendingBodies.addLast(new PendingBody(content, bodyPoints));
+            pendingBytes += content.length;
+            while (pendingBytes > MAX_PENDING_BYTES && pendingBodies.size() > 1) {
+                PendingBody dropped = pendingBodies.pollFirst();
+                pendingBytes -= dropped.content.length;
+                droppedCounter.increment(dropped.points);
+                log.warn("[warehouse influxdb] pending bytes over {}, drop {} points.", MAX_PENDING_BYTES, dropped.points);
+            }
+        }
+    }
+
+    /**
+     * send the pending bodies in order, only run in the sender thread
+     * stop at a retryable failure, the body is retried on the next flush
+     */
+    private void send() {
+        while (true) {
+            PendingBody body;
+            synchronized (pendingBodies) {
+                body = pendingBodies.peekFirst();
+            }
+            if (body == null) {
+                return;
+            }
+            boolean finished = post(body);
+            if (!finished && ++body.attempts <= MAX_RETRY_TIMES) {
+                return;
+            }
+            if (!finished) {
+                log.error("[warehouse influxdb] write {} points failed after {} retries, drop them.", body.points, MAX_RETRY_TIMES);
+                droppedCounter.increment(body.points);
+            }
+            synchronized (pendingBodies) {
+                if (pendingBodies.peekFirst() == body) {
+                    pendingBodies.pollFirst();
+                    pendingBytes -= body.content.length;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true when the body is finished, written or rejected by the server
+     */
+    private boolean post(PendingBody body) {
+        Request.Builder request = new Request.Builder()
+                .url(writeUrl)
+                .header("Content-Encoding", "gzip")
+                .post(RequestBody.create(body.content, TEXT_PLAIN));
+        if (credentials != null) {
+            request.header("Authorization", credentials);
+        }
+        try (Response response = client.newCall(request.build()).execute()) {
+            if (response.isSuccessful()) {
+                writtenCounter.increment(body.points);
+                return true;
+            }
+            int code = response.code();
+            if (code == HTTP_TOO_MANY_REQUESTS || code >= HTTP_SERVER_ERROR) {
+                log.warn("[warehouse influxdb] write {} points error, code: {}, will retry.", body.points, code);
+                return false;
+            }
+            log.error("[warehouse influxdb] write {} points rejected, code: {}, msg: {}",
+                    body.points, code, response.body() == null ? null : response.body().string());
+            droppedCounter.increment(body.points);
+            return true;
+        } catch (IOException e) {
+            log.warn("[warehouse influxdb] write {} points error: {}, will retry.", body.points, e.getMessage());
+            return false;
+        }
+    }
+
+    private void appendLines(CollectRep.MetricsData metricsData) {
+        String measurement = metricsData.getApp() + "_" + metricsData.getMetrics() + "_" + metricsData.getId();
+        List<CollectRep.Field> fields = metricsData.getFieldsList();
+        for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
+            escape(measurement, false);
+            String instance = valueRow.getInstance();
+            if (!instance.isEmpty()) {
+                lines.append(",instance=");
+                escape(instance, true);
+            }
+            char separator = ' ';
+            for (int i = 0; i < fields.size(); i++) {
+                CollectRep.Field field = fields.get(i);
+                String value = valueRow.getColumns(i);
+                if (field.getType() == CommonConstants.TYPE_NUMBER) {
+                    // null number is not written, a string value makes field type conflict
+                    double number;
+                    try {
+                        number = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        continue;
+                    }
+                    if (Double.isNaN(number) || Double.isInfinite(number)) {
+                        continue;
+                    }
+                    lines.append(separator);
+                    escape(field.getName(), true);
+                    lines.append('=').append(number);
+                } else {
+                    lines.append(separator);
+                    escape(field.getName(), true);
+                    lines.append("=\"");
+                    if (!CommonConstants.NULL_VALUE.equals(value)) {
+                        escapeFieldValue(value);
+                    }
+                    lines.append('"');
+                }
+                separator = ',';
+            }
+            if (separator == ' ') {
+                // line protocol needs at least one field, drop the line
+                lines.setLength(lines.lastIndexOf("\n") + 1);
+                continue;
+            }
+            lines.append(' ').append(metricsData.getTime()).append('\n');
+            points++;
+        }
+    }
+
+    /**
+     * escape measurement, tag key, tag value and field key
+     * line breaks are not allowed in line protocol, they are replaced with escaped spaces
+     */
+    private void escape(String value, boolean escapeEquals) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.append("\\ ");
+                continue;
+            }
+            if (c == ',' || c == ' ' || (escapeEquals && c == '=')) {
+                lines.append('\\');
+            }
+            lines.append(c);
+        }
+    }
+
+    private void escapeFieldValue(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                lines.append('\\');
+            }
+            lines.append(c);
+        }
+    }
+
+    private static byte[] gzip(String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(bytes);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static final class TcpNoDelaySocketFactory extends SocketFactory {
+
+        private final SocketFactory delegate = SocketFactory.getDefault();
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return tcpNoDelay(delegate.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return tcpNoDelay(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return tcpNoDelay(delegate.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return tcpNoDelay(delegate.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return tcpNoDelay(delegate.createSocket(address, port, localAddress, localPort));
+        }
+
+        private Socket tcpNoDelay(Socket socket) throws IOException {
+            socket.setTcpNoDelay(true);
+            return socket;
+        }
+    }
+
+    private static final class PendingBody {
+
+        private final byte[] content;
+
+        private final int points;
+
+        private int attempts;
+
+        private PendingBody(byte[] content, int points) {
+            this.content = content;
+            this.points = points;
+        }
+    }
+}
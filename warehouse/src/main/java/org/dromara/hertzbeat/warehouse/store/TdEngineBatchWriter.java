@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tdengine batch writer
+ * rows of many monitors are appended into one multi table insert sql:
+ * INSERT INTO t1 USING s1 TAGS (1) VALUES (...) (...) t2 USING s2 TAGS (2) VALUES (...)
+ * the sql is executed when the buffered rows reach batch size, or by the flush timer.
+ * super tables are created before their first insert and remembered, a failed insert is not needed to create them.
+ * when the batch insert fails, the tables of the batch are inserted one by one so a bad table only loses its own rows.
+ */
+@Slf4j
+final class TdEngineBatchWriter {
+
+    private static final String INSERT_SQL_PREFIX = "INSERT INTO";
+    private static final String CREATE_SUPER_TABLE_SQL = "CREATE STABLE IF NOT EXISTS `%s` %s TAGS (monitor BIGINT)";
+    private static final String NO_SUPER_TABLE_ERROR = "Table does not exist";
+    /**
+     * tdengine default max sql length is 1MB, keep the batch sql under half of it
+     */
+    private static final int MAX_SQL_LENGTH = 512 * 1024;
+    private static final int INIT_SQL_LENGTH = 16 * 1024;
+
+    private final DataSource dataSource;
+    private final int strColumnMaxLength;
+    private final int batchSize;
+    private final Set<String> knownSuperTables = ConcurrentHashMap.newKeySet();
+    private final ScheduledThreadPoolExecutor flushExecutor;
+    private final Counter writtenCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+
+    /**
+     * current batch, guarded by this
+     */
+    private Batch batch = new Batch();
+
+    TdEngineBatchWriter(DataSource dataSource, int strColumnMaxLength, int batchSize, long flushInterval) {
+        this.dataSource = dataSource;
+        this.strColumnMaxLength = strColumnMaxLength;
+        this.batchSize = Math.max(1, batchSize);
+        this.writtenCounter = Metrics.counter("hertzbeat.warehouse.tdengine.rows", "result", "success");
+        this.failedCounter = Metrics.counter("hertzbeat.warehouse.tdengine.rows", "result", "failed");
+        this.flushTimer = Timer.builder("hertzbeat.warehouse.tdengine.flush").register(Metrics.globalRegistry);
+        this.flushExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setUncaughtExceptionHandler((thread, throwable) -> {
+                    log.error("tdengine batch writer has uncaughtException.");
+                    log.error(throwable.getMessage(), throwable);
+                })
+                .setDaemon(true)
+                .setNameFormat("warehouse-tdengine-flush-%d")
+                .build());
+        if (flushInterval > 0) {
+            this.flushExecutor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * append the metrics data rows into batch, execute the batch when it is full
+     *
+     * @param metricsData metrics data
+     */
+    void write(CollectRep.MetricsData metricsData) {
+        if (metricsData.getValuesCount() == 0) {
+            return;
+        }
+        Batch fullBatch = null;
+        synchronized (this) {
+            batch.append(metricsData);
+            if (batch.rows >= batchSize || batch.sql.length() >= MAX_SQL_LENGTH) {
+                fullBatch = batch;
+                batch = new Batch();
+            }
+        }
+        if (fullBatch != null) {
+            execute(fullBatch);
+        }
+    }
+
+    /**
+     * execute the buffered rows now
+     */
+    void flush() {
+        Batch flushBatch;
+        synchronized (this) {
+            if (batch.rows == 0) {
+                return;
+            }
+            flushBatch = batch;
+            batch = new Batch();
+        }
+        execute(flushBatch);
+    }
+
+    /**
+     * stop the flush timer and execute the buffered rows
+     */
+    void close() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void execute(Batch executeBatch) {
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try {
+                executeBatchSql(statement, executeBatch);
+                writtenCounter.increment(executeBatch.rows);
+            } catch (SQLException e) {
+                // one bad table fails the whole multi table insert, insert table by table so that it only loses its own rows
+                log.warn("[warehouse tdengine] write {} rows in batch error: {}, retry table by table.",
+                        executeBatch.rows, e.getMessage());
+                executeTableByTable(statement, executeBatch);
+            }
+        } catch (Exception e) {
+            failedCounter.increment(executeBatch.rows);
+            log.error("[warehouse tdengine] write {} rows error: {}", executeBatch.rows, e.getMessage());
+            log.debug(executeBatch.sql.toString());
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void executeBatchSql(Statement statement, Batch executeBatch) throws SQLException {
+        String sql = executeBatch.sql.toString();
+        createSuperTables(statement, executeBatch.superTables);
+        try {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            if (e.getMessage() == null || !e.getMessage().contains(NO_SUPER_TABLE_ERROR)) {
+                throw e;
+            }
+            // the super tables may be dropped outside, create them again
+            log.warn("[warehouse tdengine] {}, recreate super tables {}.", e.getMessage(), executeBatch.superTables.keySet());
+            executeBatch.superTables.keySet().forEach(knownSuperTables::remove);
+            createSuperTables(statement, executeBatch.superTables);
+            statement.execute(sql);
+        }
+    }
+
+    private void executeTableByTable(Statement statement, Batch executeBatch) {
+        for (TableRows tableRows : executeBatch.tables) {
+            String sql = INSERT_SQL_PREFIX + executeBatch.sql.substring(tableRows.start, tableRows.end);
+            try {
+                createSuperTables(statement, Map.of(tableRows.superTable, executeBatch.superTables.get(tableRows.superTable)));
+                statement.execute(sql);
+                writtenCounter.increment(tableRows.rows);
+            } catch (SQLException e) {
+                failedCounter.increment(tableRows.rows);
+                log.error("[warehouse tdengine] write {} rows of {} error: {}", tableRows.rows, tableRows.superTable, e.getMessage());
+                log.debug(sql);
+            }
+        }
+    }
+
+    private void createSuperTables(Statement statement, Map<String, List<CollectRep.Field>> superTables) throws SQLException {
+        for (Map.Entry<String, List<CollectRep.Field>> entry : superTables.entrySet()) {
+            String superTable = entry.getKey();
+            if (knownSuperTables.contains(superTable)) {
+                continue;
+            }
+            String createTableSql = buildCreateSuperTableSql(superTable, entry.getValue());
+            log.info("[tdengine-data]: create {} use sql: {}.", superTable, createTableSql);
+            statement.execute(createTableSql);
+            knownSuperTables.add(superTable);
+        }
+    }
+
+    private String buildCreateSuperTableSql(String superTable, List<CollectRep.Field> fields) {
+        StringBuilder fieldSqlBuilder = new StringBuilder("(");
+        fieldSqlBuilder.append("ts TIMESTAMP, ");
+        fieldSqlBuilder.append("instance NCHAR(").append(strColumnMaxLength).append(")");
+        for (CollectRep.Field field : fields) {
+            fieldSqlBuilder.append(", `").append(field.getName()).append("` ");
+            if (field.getType() == CommonConstants.TYPE_NUMBER) {
+                fieldSqlBuilder.append("DOUBLE");
+            } else {
+                fieldSqlBuilder.append("NCHAR(").append(strColumnMaxLength).append(")");
+            }
+        }
+        fieldSqlBuilder.append(")");
+        return String.format(CREATE_SUPER_TABLE_SQL, superTable, fieldSqlBuilder);
+    }
+
+    /**
+     * the buffered insert sql and its super tables
+     */
+    private final class Batch {
+
+        private final StringBuilder sql = new StringBuilder(INIT_SQL_LENGTH).append(INSERT_SQL_PREFIX);
+
+        /**
+         * key: super table, value: fields of super table
+         */
+        private final Map<String, List<CollectRep.Field>> superTables = new HashMap<>(16);
+
+        /**
+         * the sql range of each appended metrics data, used to insert table by table when the batch fails
+         */
+        private final List<TableRows> tables = new ArrayList<>(16);
+
+        private int rows;
+
+        private void append(CollectRep.MetricsData metricsData) {
+            String monitorId = String.valueOf(metricsData.getId());
+            String tablePrefix = metricsData.getApp() + "_" + metricsData.getMetrics() + "_";
+            String superTable = tablePrefix + "super";
+            List<CollectRep.Field> fields = metricsData.getFieldsList();
+            superTables.putIfAbsent(superTable, fields);
+            int start = sql.length();
+            sql.append(' ').append(tablePrefix).append(monitorId)
+                    .append(" USING ").append(superTable)
+                    .append(" TAGS (").append(monitorId).append(") VALUES");
+            long time = metricsData.getTime();
+            for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
+                // each instance row has a different timestamp to avoid overwriting
+                sql.append(" (").append(time++).append(", ");
+                appendString(valueRow.getInstance());
+                for (int index = 0; index < fields.size(); index++) {
+                    sql.append(", ");
+                    appendValue(fields.get(index), valueRow.getColumns(index));
+                }
+                sql.append(')');
+            }
+            rows += metricsData.getValuesCount();
+            tables.add(new TableRows(superTable, start, sql.length(), metricsData.getValuesCount()));
+        }
+
+        private void appendValue(CollectRep.Field field, String value) {
+            if (CommonConstants.NULL_VALUE.equals(value)) {
+                sql.append("NULL");
+            } else if (field.getType() == CommonConstants.TYPE_NUMBER) {
+                // number data
+                try {
+                    sql.append(Double.parseDouble(value));
+                } catch (Exception e) {
+                    log.warn(e.getMessage());
+                    sql.append("NULL");
+                }
+            } else {
+                appendString(value);
+            }
+        }
+
+        private void appendString(String value) {
+            // bugfix Argument list too long
+            int length = Math.min(value.length(), strColumnMaxLength);
+            sql.append('\'');
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == '\'') {
+                    sql.append('\\');
+                }
+                sql.append(c);
+            }
+            sql.append('\'');
+        }
+    }
+
+    /**
+     * the sql range of one metrics data in the batch
+     */
+    private static final class TableRows {
+
+        private final String superTable;
+        private final int start;
+        private final int end;
+        private final int rows;
+
+        private TableRows(String superTable, int start, int end, int rows) {
+            this.superTable = superTable;
+            this.start = start;
+            this.end = end;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.dromara.hertzbeat.warehouse.store;
+
+import org.dromara.hertzbeat.common.entity.dto.Value;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.common.queue.CommonDataQueue;
+import org.dromara.hertzbeat.warehouse.WarehouseWorkerPool;
+import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test case for {@link DataStorageDispatch}
+ */
+class DataStorageDispatchTest {
+
+    @Test
+    void destroyStopBlockedDispatcher() throws Exception {
+        CommonDataQueue commonDataQueue = mock(CommonDataQueue.class);
+        when(commonDataQueue.pollMetricsDataToPersistentStorage())
+                .thenAnswer(invocation -> CollectRep.MetricsData.newBuilder().setTime(System.currentTimeMillis()).build());
+        // run the persistent data dispatcher only, on a thread the test can join
+        AtomicReference<Thread> dispatchThread = new AtomicReference<>();
+        WarehouseWorkerPool workerPool = mock(WarehouseWorkerPool.class);
+        doAnswer(invocation -> {
+            Thread thread = new Thread(invocation.<Runnable>getArgument(0));
+            dispatchThread.set(thread);
+            thread.start();
+            return null;
+        }).doNothing().when(workerPool).executeJob(any());
+        BlockingHistoryDataStorage storage = new BlockingHistoryDataStorage();
+        DataStorageDispatch dataStorageDispatch = new DataStorageDispatch(commonDataQueue, workerPool,
+                List.of(storage), Collections.emptyList(), properties());
+
+        // the worker blocks on its first batch and the full queue parks the dispatcher
+        assertTrue(storage.saving.await(5, TimeUnit.SECONDS));
+        Thread thread = dispatchThread.get();
+        assertNotNull(thread);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(thread.getState() == Thread.State.WAITING);
+
+        Thread destroyThread = new Thread(dataStorageDispatch::destroy);
+        destroyThread.start();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        storage.release.countDown();
+        destroyThread.join(10000);
+        assertFalse(destroyThread.isAlive());
+    }
+
+    private WarehouseProperties properties() {
+        WarehouseProperties.StoreProperties.DispatchProperties dispatchProperties =
+                new WarehouseProperties.StoreProperties.DispatchProperties();
+        dispatchProperties.setBatchSize(1);
+        dispatchProperties.setQueueCapacity(1);
+        dispatchProperties.setThreads(1);
+        dispatchProperties.setOverflowPolicy(WarehouseProperties.StoreProperties.OverflowPolicy.BLOCK);
+        WarehouseProperties.StoreProperties storeProperties = new WarehouseProperties.StoreProperties();
+        storeProperties.setDispatch(dispatchProperties);
+        WarehouseProperties properties = new WarehouseProperties();
+        properties.setStore(storeProperties);
+        return properties;
+    }
+
+    /**
+     * history data storage blocks its batches until released
+     */
+    private static class BlockingHistoryDataStorage extends AbstractHistoryDataStorage {
+
+        private final CountDownLatch saving = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private BlockingHistoryDataStorage() {
+            serverAvailable = true;
+        }
+
+        @Override
+        void saveBatch(List<CollectRep.MetricsData> metricsDataList) {
+            saving.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        void saveData(CollectRep.MetricsData metricsData) {
+        }
+
+        @Override
+        public Map<String, List<Value>> getHistoryMetricData(Long monitorId, String app, String metrics, String metric,
+                                                             String instance, String history) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, List<Value>> getHistoryIntervalMetricData(Long monitorId, String app, String metrics,
+                                                                     String metric, String instance, String history) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
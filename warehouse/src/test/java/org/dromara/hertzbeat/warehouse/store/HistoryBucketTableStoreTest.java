@@ -0,0 +1,161 @@
+package org.dromara.hertzbeat.warehouse.store;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test case for {@link HistoryBucketTableStore}
+ */
+class HistoryBucketTableStoreTest {
+
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
+    /**
+     * 2023-01-01 00:00:00 UTC
+     */
+    private static final long START = 1672531200000L;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private HistoryBucketTableStore bucketTableStore;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:history;MODE=MYSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        bucketTableStore = new HistoryBucketTableStore(jdbcTemplate, BUCKET_MILLIS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void insertAndQuery() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row("eth0", 1.0, START));
+        rows.add(row("eth1", 2.0, START + 1000));
+        rows.add(row("eth0", 3.0, START + BUCKET_MILLIS));
+        rows.add(row("eth0", null, START + BUCKET_MILLIS * 2 + 1000));
+        bucketTableStore.insert(rows);
+
+        assertEquals(4, bucketTableStore.rows());
+        assertEquals(2, count("hzb_history_202301010000"));
+        assertEquals(1, count("hzb_history_202301010015"));
+        assertEquals(1, count("hzb_history_202301010030"));
+
+        List<Object[]> result = query(null, 0);
+        assertEquals(4, result.size());
+        assertNull(result.get(0)[1]);
+        assertEquals(3.0, result.get(1)[1]);
+        assertEquals(START + 1000, result.get(2)[2]);
+        assertEquals(1.0, result.get(3)[1]);
+
+        // only the tables overlapping the time range are queried
+        result = query("eth0", START + BUCKET_MILLIS);
+        assertEquals(2, result.size());
+        assertEquals(START + BUCKET_MILLIS, result.get(1)[2]);
+    }
+
+    @Test
+    void dropExpired() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row("eth0", 1.0, START));
+        rows.add(row("eth0", 2.0, START + BUCKET_MILLIS));
+        rows.add(row("eth0", 3.0, START + BUCKET_MILLIS * 2));
+        bucketTableStore.insert(rows);
+
+        // the second table holds rows until the third bucket start
+        assertEquals(1, bucketTableStore.dropExpired(START + BUCKET_MILLIS * 2 - 1));
+        assertEquals(2, bucketTableStore.rows());
+        assertEquals(1, bucketTableStore.dropExpired(START + BUCKET_MILLIS * 3));
+        // the latest table is kept
+        assertEquals(0, bucketTableStore.dropExpired(Long.MAX_VALUE));
+        assertEquals(1, query(null, 0).size());
+    }
+
+    @Test
+    void dropOldest() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row("eth0", 1.0, START));
+        rows.add(row("eth1", 1.0, START));
+        rows.add(row("eth0", 2.0, START + BUCKET_MILLIS));
+        rows.add(row("eth0", 3.0, START + BUCKET_MILLIS * 2));
+        bucketTableStore.insert(rows);
+
+        assertEquals(0, bucketTableStore.dropOldest(4));
+        assertEquals(1, bucketTableStore.dropOldest(3));
+        assertEquals(2, bucketTableStore.rows());
+    }
+
+    @Test
+    void loadBuckets() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row("eth0", 1.0, START));
+        rows.add(row("eth0", 2.0, START + BUCKET_MILLIS));
+        bucketTableStore.insert(rows);
+
+        HistoryBucketTableStore reloaded = new HistoryBucketTableStore(jdbcTemplate, BUCKET_MILLIS);
+        assertEquals(2, reloaded.rows());
+        assertEquals(2, query(reloaded, null, 0).size());
+        assertEquals(1, reloaded.dropExpired(START + BUCKET_MILLIS));
+    }
+
+    @Test
+    void legacyTable() {
+        jdbcTemplate.execute("CREATE TABLE hzb_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, monitor_id BIGINT, "
+                + "app VARCHAR(100), metrics VARCHAR(100), metric VARCHAR(100), instance VARCHAR(2048), "
+                + "metric_type TINYINT, str VARCHAR(2048), dou DOUBLE, time BIGINT)");
+        jdbcTemplate.update("INSERT INTO hzb_history (monitor_id, app, metrics, metric, instance, metric_type, dou, time) "
+                + "VALUES (1, 'linux', 'interface', 'receive_bytes', 'eth0', 0, 0.5, ?)", START - 1000);
+        HistoryBucketTableStore store = new HistoryBucketTableStore(jdbcTemplate, BUCKET_MILLIS);
+        store.insert(List.<Object[]>of(row("eth0", 1.0, START)));
+
+        // the legacy rows are queried after the bucket tables until the legacy table expired
+        assertEquals(2, store.rows());
+        List<Object[]> result = query(store, "eth0", 0);
+        assertEquals(2, result.size());
+        assertEquals(START - 1000, result.get(1)[2]);
+        assertEquals(1, query(store, "eth0", START).size());
+        assertEquals(0, store.dropExpired(START - 1000));
+        assertEquals(1, store.dropExpired(START));
+        assertEquals(1, store.rows());
+        assertEquals(1, query(store, "eth0", 0).size());
+    }
+
+    private Object[] row(String instance, Double dou, long time) {
+        return new Object[]{1L, "linux", "interface", "receive_bytes", time, instance, dou};
+    }
+
+    private long count(String table) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    private List<Object[]> query(String instance, long since) {
+        return query(bucketTableStore, instance, since);
+    }
+
+    private List<Object[]> query(HistoryBucketTableStore store, String queryInstance, long since) {
+        List<Object[]> result = new ArrayList<>();
+        store.query(1L, "linux", "interface", "receive_bytes", queryInstance, since, resultSet -> {
+            String instance = resultSet.getString(1);
+            double dou = resultSet.getDouble(2);
+            Double value = resultSet.wasNull() ? null : dou;
+            result.add(new Object[]{instance, value, resultSet.getLong(3)});
+        });
+        return result;
+    }
+}
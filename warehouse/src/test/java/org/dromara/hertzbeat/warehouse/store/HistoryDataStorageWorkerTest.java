@@ -0,0 +1,140 @@
+package org.dromara.hertzbeat.warehouse.store;
+
+import org.dromara.hertzbeat.common.entity.dto.Value;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.dromara.hertzbeat.warehouse.config.WarehouseProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link HistoryDataStorageWorker}
+ */
+class HistoryDataStorageWorkerTest {
+
+    @Test
+    void saveBatch() throws InterruptedException {
+        BlockingHistoryDataStorage storage = new BlockingHistoryDataStorage();
+        HistoryDataStorageWorker worker = new HistoryDataStorageWorker(storage,
+                dispatchProperties(WarehouseProperties.StoreProperties.OverflowPolicy.BLOCK));
+        // the first batch blocks the worker, the later data are pending in queue
+        worker.offer(metricsData(0));
+        assertTrue(storage.saving.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 6; i++) {
+            worker.offer(metricsData(i));
+        }
+        storage.release.countDown();
+        worker.shutdown();
+
+        assertEquals(List.of(1, 4, 2), storage.batchSizes);
+        assertEquals(7, storage.saved.size());
+        assertEquals(0L, storage.saved.get(0).getId());
+        assertEquals(6L, storage.saved.get(6).getId());
+    }
+
+    @Test
+    void dropOldest() throws InterruptedException {
+        BlockingHistoryDataStorage storage = new BlockingHistoryDataStorage();
+        HistoryDataStorageWorker worker = new HistoryDataStorageWorker(storage,
+                dispatchProperties(WarehouseProperties.StoreProperties.OverflowPolicy.DROP_OLDEST));
+        worker.offer(metricsData(0));
+        assertTrue(storage.saving.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            worker.offer(metricsData(i));
+        }
+        assertEquals(6, worker.pending());
+        storage.release.countDown();
+        worker.shutdown();
+
+        assertEquals(7, storage.saved.size());
+        assertEquals(5L, storage.saved.get(1).getId());
+        assertEquals(10L, storage.saved.get(6).getId());
+    }
+
+    @Test
+    void dropNewest() throws InterruptedException {
+        BlockingHistoryDataStorage storage = new BlockingHistoryDataStorage();
+        HistoryDataStorageWorker worker = new HistoryDataStorageWorker(storage,
+                dispatchProperties(WarehouseProperties.StoreProperties.OverflowPolicy.DROP_NEWEST));
+        worker.offer(metricsData(0));
+        assertTrue(storage.saving.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i <= 10; i++) {
+            worker.offer(metricsData(i));
+        }
+        storage.release.countDown();
+        worker.shutdown();
+
+        assertEquals(7, storage.saved.size());
+        assertEquals(6L, storage.saved.get(6).getId());
+    }
+
+    private WarehouseProperties.StoreProperties.DispatchProperties dispatchProperties(
+            WarehouseProperties.StoreProperties.OverflowPolicy overflowPolicy) {
+        WarehouseProperties.StoreProperties.DispatchProperties dispatchProperties =
+                new WarehouseProperties.StoreProperties.DispatchProperties();
+        dispatchProperties.setBatchSize(4);
+        dispatchProperties.setQueueCapacity(6);
+        dispatchProperties.setThreads(1);
+        dispatchProperties.setOverflowPolicy(overflowPolicy);
+        return dispatchProperties;
+    }
+
+    private CollectRep.MetricsData metricsData(long id) {
+        return CollectRep.MetricsData.newBuilder().setId(id).setTime(System.currentTimeMillis()).build();
+    }
+
+    /**
+     * history data storage blocks its first batch until released
+     */
+    private static class BlockingHistoryDataStorage extends AbstractHistoryDataStorage {
+
+        private final CountDownLatch saving = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+
+        private final List<CollectRep.MetricsData> saved = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        void saveBatch(List<CollectRep.MetricsData> metricsDataList) {
+            batchSizes.add(metricsDataList.size());
+            saving.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.saveBatch(metricsDataList);
+        }
+
+        @Override
+        void saveData(CollectRep.MetricsData metricsData) {
+            saved.add(metricsData);
+        }
+
+        @Override
+        public Map<String, List<Value>> getHistoryMetricData(Long monitorId, String app, String metrics, String metric,
+                                                             String instance, String history) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, List<Value>> getHistoryIntervalMetricData(Long monitorId, String app, String metrics,
+                                                                     String metric, String instance, String history) {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+}
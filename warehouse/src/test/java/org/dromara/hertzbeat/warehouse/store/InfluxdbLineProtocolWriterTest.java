@@ -0,0 +1,131 @@
+package org.dromara.hertzbeat.warehouse.store;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test case for {@link InfluxdbLineProtocolWriter}
+ */
+class InfluxdbLineProtocolWriterTest {
+
+    private HttpServer httpServer;
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final ConcurrentLinkedQueue<Integer> responseCodes = new ConcurrentLinkedQueue<>();
+
+    private InfluxdbLineProtocolWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.createContext("/write", exchange -> {
+            try (InputStream inputStream = new GZIPInputStream(exchange.getRequestBody())) {
+                requests.add(exchange.getRequestURI().getQuery() + "\n"
+                        + new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            Integer code = responseCodes.poll();
+            exchange.sendResponseHeaders(code == null ? 204 : code, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        String serverUrl = "http://127.0.0.1:" + httpServer.getAddress().getPort();
+        writer = new InfluxdbLineProtocolWriter(new OkHttpClient(), serverUrl, "hertzbeat", "root", "root", 4, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.close();
+        httpServer.stop(0);
+    }
+
+    @Test
+    void flush() {
+        writer.write(metricsData(1L));
+        writer.flush();
+
+        assertEquals(1, requests.size());
+        assertEquals("db=hertzbeat&precision=ms\n"
+                + "linux_cpu_1,instance=cpu\\ 0 usage=0.5,name=\"it\\\"s\" 1000\n"
+                + "linux_cpu_1,instance=cpu1 name=\"\" 1000\n", requests.get(0));
+        assertEquals(0, writer.pendingBytes());
+    }
+
+    @Test
+    void escapeLineBreak() {
+        writer.write(CollectRep.MetricsData.newBuilder()
+                .setId(1L).setApp("linux").setMetrics("cpu").setTime(1000)
+                .addFields(CollectRep.Field.newBuilder().setName("usage").setType(CommonConstants.TYPE_NUMBER).build())
+                .addValues(CollectRep.ValueRow.newBuilder().setInstance("cpu\n0").addColumns("0.5").build())
+                .build());
+        writer.flush();
+
+        // the line break in the tag value is an escaped space, the line keeps its tokens
+        assertEquals("db=hertzbeat&precision=ms\n"
+                + "linux_cpu_1,instance=cpu\\ 0 usage=0.5 1000\n", requests.get(0));
+    }
+
+    @Test
+    void writeBatchSize() {
+        writer.write(metricsData(1L));
+        writer.write(metricsData(2L));
+        writer.write(metricsData(3L));
+        writer.flush();
+
+        // the first two metrics data reach batch size, the last is sent by flush
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    void retry() {
+        responseCodes.add(503);
+        writer.write(metricsData(1L));
+        writer.flush();
+        assertEquals(1, requests.size());
+        assertTrue(writer.pendingBytes() > 0);
+
+        writer.flush();
+        assertEquals(2, requests.size());
+        assertEquals(requests.get(0), requests.get(1));
+        assertEquals(0, writer.pendingBytes());
+    }
+
+    @Test
+    void rejected() {
+        responseCodes.add(400);
+        writer.write(metricsData(1L));
+        writer.flush();
+        writer.flush();
+
+        assertEquals(1, requests.size());
+        assertEquals(0, writer.pendingBytes());
+    }
+
+    private CollectRep.MetricsData metricsData(long monitorId) {
+        return CollectRep.MetricsData.newBuilder()
+                .setId(monitorId).setApp("linux").setMetrics("cpu").setTime(1000)
+                .addFields(CollectRep.Field.newBuilder().setName("usage").setType(CommonConstants.TYPE_NUMBER).build())
+                .addFields(CollectRep.Field.newBuilder().setName("name").setType(CommonConstants.TYPE_STRING).build())
+                .addValues(CollectRep.ValueRow.newBuilder().setInstance("cpu 0").addColumns("0.5").addColumns("it\"s").build())
+                .addValues(CollectRep.ValueRow.newBuilder().setInstance("cpu1")
+                        .addColumns(CommonConstants.NULL_VALUE).addColumns(CommonConstants.NULL_VALUE).build())
+                .build();
+    }
+}
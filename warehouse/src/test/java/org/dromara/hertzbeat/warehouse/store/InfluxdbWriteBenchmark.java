@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.influxdb.InfluxDB;
+import org.influxdb.InfluxDBFactory;
+import org.influxdb.dto.BatchPoints;
+import org.influxdb.dto.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmark influxdb writer, score is points per millisecond:
+ * the legacy one BatchPoints write per metrics data vs the buffered gzip line protocol writer.
+ * influxdb is stood in by a local http endpoint which reads the body and responds 204.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main InfluxdbWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InfluxdbWriteBenchmark {
+
+    private static final String DATABASE = "hertzbeat";
+
+    private static final int MONITORS = 256;
+
+    private static final int ROWS = 8;
+
+    private HttpServer httpServer;
+
+    private ExecutorService httpExecutor;
+
+    private InfluxDB influxDb;
+
+    private InfluxdbLineProtocolWriter lineProtocolWriter;
+
+    private List<CollectRep.MetricsData> metricsDataList;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        httpExecutor = new ThreadPoolExecutor(4, 4, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        httpServer.setExecutor(httpExecutor);
+        httpServer.createContext("/write", exchange -> {
+            try (InputStream inputStream = exchange.getRequestBody()) {
+                inputStream.readAllBytes();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        httpServer.start();
+        String serverUrl = "http://127.0.0.1:" + httpServer.getAddress().getPort();
+        influxDb = InfluxDBFactory.connect(serverUrl, "root", "root", new OkHttpClient.Builder());
+        lineProtocolWriter = new InfluxdbLineProtocolWriter(new OkHttpClient(), serverUrl, DATABASE, "root", "root", 5000, 0);
+        metricsDataList = new ArrayList<>(MONITORS);
+        for (int monitor = 0; monitor < MONITORS; monitor++) {
+            CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder()
+                    .setId(monitor).setApp("linux").setMetrics("interface").setTime(System.currentTimeMillis())
+                    .setCode(CollectRep.Code.SUCCESS)
+                    .addFields(CollectRep.Field.newBuilder().setName("interface_name").setType(CommonConstants.TYPE_STRING).build())
+                    .addFields(CollectRep.Field.newBuilder().setName("receive_bytes").setType(CommonConstants.TYPE_NUMBER).build())
+                    .addFields(CollectRep.Field.newBuilder().setName("transmit_bytes").setType(CommonConstants.TYPE_NUMBER).build());
+            for (int row = 0; row < ROWS; row++) {
+                builder.addValues(CollectRep.ValueRow.newBuilder().setInstance("eth" + row)
+                        .addColumns("eth" + row).addColumns(String.valueOf(monitor * 1024.5 + row))
+                        .addColumns(String.valueOf(row * 512.25)).build());
+            }
+            metricsDataList.add(builder.build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        lineProtocolWriter.close();
+        influxDb.close();
+        httpServer.stop(0);
+        httpExecutor.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONITORS * ROWS)
+    public void legacyWrite() {
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            List<CollectRep.Field> fieldsList = metricsData.getFieldsList();
+            String table = metricsData.getApp() + "_" + metricsData.getMetrics() + "_" + metricsData.getId();
+            List<Point> points = new ArrayList<>();
+            for (CollectRep.ValueRow valueRow : metricsData.getValuesList()) {
+                Point.Builder builder = Point.measurement(table);
+                builder.time(metricsData.getTime(), TimeUnit.MILLISECONDS);
+                builder.tag("instance", valueRow.getInstance());
+                for (int i = 0; i < fieldsList.size(); i++) {
+                    if (fieldsList.get(i).getType() == CommonConstants.TYPE_NUMBER) {
+                        builder.addField(fieldsList.get(i).getName(), Double.parseDouble(valueRow.getColumns(i)));
+                    } else {
+                        builder.addField(fieldsList.get(i).getName(), valueRow.getColumns(i));
+                    }
+                }
+                points.add(builder.build());
+            }
+            influxDb.write(BatchPoints.database(DATABASE).points(points).build());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONITORS * ROWS)
+    public void bufferedWrite() {
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            lineProtocolWriter.write(metricsData);
+        }
+        lineProtocolWriter.flush();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(InfluxdbWriteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
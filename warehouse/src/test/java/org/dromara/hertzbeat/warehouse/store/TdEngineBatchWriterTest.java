@@ -0,0 +1,134 @@
+package org.dromara.hertzbeat.warehouse.store;
+
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test case for {@link TdEngineBatchWriter}
+ */
+class TdEngineBatchWriterTest {
+
+    private Statement statement;
+
+    private TdEngineBatchWriter batchWriter;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = mock(Connection.class);
+        statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        batchWriter = new TdEngineBatchWriter(dataSource, 200, 8, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchWriter.close();
+    }
+
+    @Test
+    void flush() throws SQLException {
+        batchWriter.write(metricsData(1L, "0.5"));
+        batchWriter.write(metricsData(2L, "0.6"));
+        verify(statement, never()).execute(anyString());
+
+        batchWriter.flush();
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(2)).execute(sqlCaptor.capture());
+        List<String> sqls = sqlCaptor.getAllValues();
+        assertEquals("CREATE STABLE IF NOT EXISTS `linux_cpu_super` (ts TIMESTAMP, instance NCHAR(200), "
+                + "`usage` DOUBLE, `name` NCHAR(200)) TAGS (monitor BIGINT)", sqls.get(0));
+        assertEquals("INSERT INTO"
+                + " linux_cpu_1 USING linux_cpu_super TAGS (1) VALUES (1000, 'cpu0', 0.5, 'it\\'s') (1001, 'cpu1', NULL, NULL)"
+                + " linux_cpu_2 USING linux_cpu_super TAGS (2) VALUES (1000, 'cpu0', 0.6, 'it\\'s') (1001, 'cpu1', NULL, NULL)",
+                sqls.get(1));
+    }
+
+    @Test
+    void writeBatchSize() throws SQLException {
+        for (long monitorId = 1; monitorId <= 8; monitorId++) {
+            batchWriter.write(metricsData(monitorId, "0.5"));
+        }
+
+        // super table is created once, then each full batch is one insert
+        verify(statement, times(1)).execute(startsWith("CREATE STABLE"));
+        verify(statement, times(2)).execute(startsWith("INSERT INTO"));
+    }
+
+    @Test
+    void recreateDroppedSuperTable() throws SQLException {
+        batchWriter.write(metricsData(1L, "0.5"));
+        batchWriter.flush();
+        when(statement.execute(startsWith("INSERT INTO")))
+                .thenThrow(new SQLException("Table does not exist"))
+                .thenReturn(true);
+        batchWriter.write(metricsData(1L, "0.6"));
+        batchWriter.flush();
+
+        verify(statement, times(2)).execute(startsWith("CREATE STABLE"));
+        verify(statement, times(3)).execute(startsWith("INSERT INTO"));
+    }
+
+    @Test
+    void fallbackTableByTable() throws SQLException {
+        batchWriter.write(metricsData(1L, "0.5"));
+        batchWriter.write(metricsData(2L, "0.6"));
+        batchWriter.write(metricsData(3L, "0.7"));
+        when(statement.execute(startsWith("INSERT INTO"))).thenReturn(true);
+        when(statement.execute(contains(" linux_cpu_2 "))).thenThrow(new SQLException("Invalid value"));
+        batchWriter.flush();
+
+        // the batch insert fails, then each table is inserted alone and only table 2 fails
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(statement, times(5)).execute(sqlCaptor.capture());
+        List<String> inserts = sqlCaptor.getAllValues().stream()
+                .filter(sql -> sql.startsWith("INSERT INTO")).collect(Collectors.toList());
+        assertEquals(4, inserts.size());
+        assertEquals("INSERT INTO linux_cpu_1 USING linux_cpu_super TAGS (1) VALUES "
+                + "(1000, 'cpu0', 0.5, 'it\\'s') (1001, 'cpu1', NULL, NULL)", inserts.get(1));
+        assertTrue(inserts.get(2).startsWith("INSERT INTO linux_cpu_2 "));
+        assertEquals("INSERT INTO linux_cpu_3 USING linux_cpu_super TAGS (3) VALUES "
+                + "(1000, 'cpu0', 0.7, 'it\\'s') (1001, 'cpu1', NULL, NULL)", inserts.get(3));
+    }
+
+    @Test
+    void writeEmpty() throws SQLException {
+        batchWriter.write(CollectRep.MetricsData.newBuilder().setId(1L).build());
+        batchWriter.flush();
+        verify(statement, never()).execute(anyString());
+    }
+
+    private CollectRep.MetricsData metricsData(long monitorId, String usage) {
+        return CollectRep.MetricsData.newBuilder()
+                .setId(monitorId).setApp("linux").setMetrics("cpu").setTime(1000)
+                .addFields(CollectRep.Field.newBuilder().setName("usage").setType(CommonConstants.TYPE_NUMBER).build())
+                .addFields(CollectRep.Field.newBuilder().setName("name").setType(CommonConstants.TYPE_STRING).build())
+                .addValues(CollectRep.ValueRow.newBuilder().setInstance("cpu0").addColumns(usage).addColumns("it's").build())
+                .addValues(CollectRep.ValueRow.newBuilder().setInstance("cpu1")
+                        .addColumns(CommonConstants.NULL_VALUE).addColumns(CommonConstants.NULL_VALUE).build())
+                .build();
+    }
+}
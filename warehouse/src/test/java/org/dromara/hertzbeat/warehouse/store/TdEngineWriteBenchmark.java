@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.dromara.hertzbeat.warehouse.store;
+
+import org.dromara.hertzbeat.common.constants.CommonConstants;
+import org.dromara.hertzbeat.common.entity.message.CollectRep;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * benchmark tdengine writer, score is rows per millisecond.
+ * batch size 1 executes one insert per metrics data, the same round trips as the legacy writer.
+ * tdengine is stood in by a jdbc proxy, each statement costs a fixed round trip and a per kb parse time.
+ * run by main method or: java -cp test-classes:... org.openjdk.jmh.Main TdEngineWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TdEngineWriteBenchmark {
+
+    private static final int MONITORS = 256;
+
+    private static final int ROWS = 8;
+
+    private static final long ROUND_TRIP_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private static final long PARSE_NANOS_PER_KB = TimeUnit.MICROSECONDS.toNanos(5);
+
+    @Param({"1", "100", "500"})
+    private int batchSize;
+
+    private final LongAdder executedBytes = new LongAdder();
+
+    private List<CollectRep.MetricsData> metricsDataList;
+
+    private TdEngineBatchWriter batchWriter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        metricsDataList = new ArrayList<>(MONITORS);
+        for (int monitor = 0; monitor < MONITORS; monitor++) {
+            CollectRep.MetricsData.Builder builder = CollectRep.MetricsData.newBuilder()
+                    .setId(monitor).setApp("linux").setMetrics("interface").setTime(System.currentTimeMillis())
+                    .setCode(CollectRep.Code.SUCCESS)
+                    .addFields(CollectRep.Field.newBuilder().setName("interface_name").setType(CommonConstants.TYPE_STRING).build())
+                    .addFields(CollectRep.Field.newBuilder().setName("receive_bytes").setType(CommonConstants.TYPE_NUMBER).build())
+                    .addFields(CollectRep.Field.newBuilder().setName("transmit_bytes").setType(CommonConstants.TYPE_NUMBER).build());
+            for (int row = 0; row < ROWS; row++) {
+                builder.addValues(CollectRep.ValueRow.newBuilder().setInstance("eth" + row)
+                        .addColumns("eth" + row).addColumns(String.valueOf(monitor * 1024.5 + row))
+                        .addColumns(String.valueOf(row * 512.25)).build());
+            }
+            metricsDataList.add(builder.build());
+        }
+        batchWriter = new TdEngineBatchWriter(standInDataSource(), 200, batchSize, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        batchWriter.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MONITORS * ROWS)
+    public long write() {
+        for (CollectRep.MetricsData metricsData : metricsDataList) {
+            batchWriter.write(metricsData);
+        }
+        batchWriter.flush();
+        return executedBytes.sum();
+    }
+
+    private DataSource standInDataSource() {
+        Statement statement = (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Statement.class},
+                (proxy, method, args) -> {
+                    if ("execute".equals(method.getName())) {
+                        int length = ((String) args[0]).length();
+                        executedBytes.add(length);
+                        LockSupport.parkNanos(ROUND_TRIP_NANOS + PARSE_NANOS_PER_KB * length / 1024);
+                        return false;
+                    }
+                    return null;
+                });
+        Connection connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                (proxy, method, args) -> "createStatement".equals(method.getName()) ? statement : null);
+        return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{DataSource.class},
+                (proxy, method, args) -> "getConnection".equals(method.getName()) ? connection : null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TdEngineWriteBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}